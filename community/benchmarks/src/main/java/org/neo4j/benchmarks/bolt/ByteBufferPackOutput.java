@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.bolt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.bolt.v1.packstream.PackOutput;
+
+/**
+ * A {@link PackOutput} writing into a single heap buffer, that can be reset and reused, so the benchmarks measure
+ * the packing rather than the network layer, or the allocation of chunks.
+ */
+class ByteBufferPackOutput implements PackOutput
+{
+    private final ByteBuffer buffer;
+
+    ByteBufferPackOutput( int capacity )
+    {
+        this.buffer = ByteBuffer.allocate( capacity );
+    }
+
+    void reset()
+    {
+        buffer.clear();
+    }
+
+    int position()
+    {
+        return buffer.position();
+    }
+
+    byte[] toByteArray()
+    {
+        byte[] bytes = new byte[buffer.position()];
+        System.arraycopy( buffer.array(), 0, bytes, 0, bytes.length );
+        return bytes;
+    }
+
+    @Override
+    public void beginMessage()
+    {
+    }
+
+    @Override
+    public void messageSucceeded()
+    {
+    }
+
+    @Override
+    public void messageFailed()
+    {
+        reset();
+    }
+
+    @Override
+    public PackOutput flush()
+    {
+        return this;
+    }
+
+    @Override
+    public PackOutput writeByte( byte value )
+    {
+        buffer.put( value );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeBytes( ByteBuffer data )
+    {
+        buffer.put( data );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeBytes( byte[] data, int offset, int amountToWrite )
+    {
+        buffer.put( data, offset, amountToWrite );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeShort( short value )
+    {
+        buffer.putShort( value );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeInt( int value )
+    {
+        buffer.putInt( value );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeLong( long value )
+    {
+        buffer.putLong( value );
+        return this;
+    }
+
+    @Override
+    public PackOutput writeDouble( double value )
+    {
+        buffer.putDouble( value );
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.bolt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bolt.v1.packstream.PackStream;
+import org.neo4j.bolt.v1.packstream.PackedInputArray;
+
+/**
+ * Encoding and decoding of a record of nodes with PackStream, the serialization format of the Bolt protocol.
+ * Each node is packed the way Bolt packs nodes: a struct of an id, a list of labels and a map of properties.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class PackStreamBenchmark
+{
+    private static final byte NODE = 'N';
+    private static final String[] LABELS = {"Person", "Employee"};
+    private static final String[] KEYS = {"name", "age", "salary", "active"};
+
+    @Param( {"1", "100"} )
+    public int nodesPerRecord;
+
+    private ByteBufferPackOutput output;
+    private PackStream.Packer packer;
+    private byte[] packedRecord;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        output = new ByteBufferPackOutput( 256 * nodesPerRecord );
+        packer = new PackStream.Packer( output );
+        packRecord();
+        packedRecord = output.toByteArray();
+    }
+
+    @Benchmark
+    public int pack() throws IOException
+    {
+        output.reset();
+        packRecord();
+        return output.position();
+    }
+
+    @Benchmark
+    public long unpack() throws IOException
+    {
+        PackStream.Unpacker unpacker = new PackStream.Unpacker( new PackedInputArray( packedRecord ) );
+        long sum = 0;
+        long nodes = unpacker.unpackListHeader();
+        for ( long i = 0; i < nodes; i++ )
+        {
+            unpacker.unpackStructHeader();
+            unpacker.unpackStructSignature();
+            sum += unpacker.unpackLong();
+            long labels = unpacker.unpackListHeader();
+            for ( long j = 0; j < labels; j++ )
+            {
+                sum += unpacker.unpackString().length();
+            }
+            unpacker.unpackMapHeader();
+            sum += unpacker.unpackString().length() + unpacker.unpackString().length();
+            sum += unpacker.unpackString().length() + unpacker.unpackLong();
+            sum += unpacker.unpackString().length() + (long) unpacker.unpackDouble();
+            sum += unpacker.unpackString().length() + (unpacker.unpackBoolean() ? 1 : 0);
+        }
+        return sum;
+    }
+
+    private void packRecord() throws IOException
+    {
+        packer.packListHeader( nodesPerRecord );
+        for ( int i = 0; i < nodesPerRecord; i++ )
+        {
+            packer.packStructHeader( 3, NODE );
+            packer.pack( (long) i );
+            packer.packListHeader( LABELS.length );
+            for ( String label : LABELS )
+            {
+                packer.pack( label );
+            }
+            packer.packMapHeader( KEYS.length );
+            packer.pack( KEYS[0] );
+            packer.pack( "Person number " + i );
+            packer.pack( KEYS[1] );
+            packer.pack( (long) (20 + i % 50) );
+            packer.pack( KEYS[2] );
+            packer.pack( 1000.0 * i );
+            packer.pack( KEYS[3] );
+            packer.pack( i % 2 == 0 );
+        }
+        packer.flush();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.index;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_MONITOR;
+
+/**
+ * Exact and range seeks, and inserts, in a {@link GBPTree} of long keys that fits in the page cache.
+ * The tree is initially populated with all the even keys from zero and up to twice the given key count.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class GBPTreeBenchmark
+{
+    private static final int RANGE_SIZE = 100;
+
+    @Param( {"1000000"} )
+    public int keyCount;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private GBPTree<MutableLong,MutableLong> tree;
+    private Writer<MutableLong,MutableLong> writer;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "gbptree" );
+        fs = new DefaultFileSystemAbstraction();
+        // Plenty of room for the populated tree, as well as everything inserted during the benchmark.
+        pageCache = BenchmarkFiles.createPageCache( fs, Math.max( keyCount / 100, 1024 ) );
+        tree = new GBPTree<>( pageCache, new File( directory, "tree" ), new LongLayout(), 0, NO_MONITOR,
+                NO_HEADER_READER, NO_HEADER_WRITER, RecoveryCleanupWorkCollector.immediate() );
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            MutableLong key = new MutableLong();
+            MutableLong value = new MutableLong();
+            for ( long i = 0; i < keyCount; i++ )
+            {
+                key.setValue( i * 2 );
+                value.setValue( i );
+                writer.put( key, value );
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        tree.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    @Setup( Level.Iteration )
+    public void openWriter() throws IOException
+    {
+        writer = tree.writer();
+    }
+
+    @TearDown( Level.Iteration )
+    public void closeWriter() throws IOException
+    {
+        writer.close();
+    }
+
+    @Benchmark
+    public long exactSeek() throws IOException
+    {
+        long key = randomExistingKey();
+        return seek( key, key + 1 );
+    }
+
+    @Benchmark
+    public long rangeSeek() throws IOException
+    {
+        long from = randomExistingKey();
+        return seek( from, from + RANGE_SIZE * 2 );
+    }
+
+    /**
+     * There can only be one writer at a time, so inserts are always measured with a single thread. The inserted keys
+     * are odd, so they land in between the initial keys, and cause splits all over the tree.
+     */
+    @Benchmark
+    @Threads( 1 )
+    public void insert() throws IOException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        MutableLong key = new MutableLong( random.nextLong( keyCount ) * 2 + 1 );
+        MutableLong value = new MutableLong( random.nextLong() );
+        writer.put( key, value );
+    }
+
+    private long seek( long fromInclusive, long toExclusive ) throws IOException
+    {
+        long sum = 0;
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      tree.seek( new MutableLong( fromInclusive ), new MutableLong( toExclusive ) ) )
+        {
+            while ( cursor.next() )
+            {
+                sum += cursor.get().value().longValue();
+            }
+        }
+        return sum;
+    }
+
+    private long randomExistingKey()
+    {
+        return ThreadLocalRandom.current().nextLong( keyCount ) * 2;
+    }
+}
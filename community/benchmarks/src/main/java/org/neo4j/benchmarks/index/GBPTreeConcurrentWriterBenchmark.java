@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.index;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_MONITOR;
+
+/**
+ * Insert and remove throughput of 1..N {@link GBPTree#concurrentWriter() concurrent writers}, each changing keys in
+ * its own range of a {@link GBPTree} of long keys, compared to the one {@link GBPTree#writer() single writer}.
+ * The tree is initially populated with all the even keys from zero and up to twice the given key count, and the
+ * writers insert and remove odd keys, so that the tree keeps its size and the leaves split and merge all over it.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class GBPTreeConcurrentWriterBenchmark
+{
+    private static final int MAX_WRITERS = 8;
+
+    @Param( {"1000000"} )
+    public int keyCount;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private GBPTree<MutableLong,MutableLong> tree;
+    private final AtomicInteger nextRange = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "gbptree-writers" );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkFiles.createPageCache( fs, Math.max( keyCount / 100, 1024 ) );
+        tree = new GBPTree<>( pageCache, new File( directory, "tree" ), new LongLayout(), 0, NO_MONITOR,
+                NO_HEADER_READER, NO_HEADER_WRITER, RecoveryCleanupWorkCollector.immediate() );
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            MutableLong key = new MutableLong();
+            MutableLong value = new MutableLong();
+            for ( long i = 0; i < keyCount; i++ )
+            {
+                key.setValue( i * 2 );
+                value.setValue( i );
+                writer.put( key, value );
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        tree.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    /**
+     * Writer of one thread, with a range of keys of its own.
+     */
+    @State( Scope.Thread )
+    public static class ConcurrentWriterState
+    {
+        Writer<MutableLong,MutableLong> writer;
+        long rangeStart;
+        long rangeSize;
+        final MutableLong key = new MutableLong();
+        final MutableLong value = new MutableLong();
+
+        @Setup
+        public void assignRange( GBPTreeConcurrentWriterBenchmark benchmark )
+        {
+            rangeSize = benchmark.keyCount / MAX_WRITERS;
+            rangeStart = benchmark.nextRange.getAndIncrement() * rangeSize;
+        }
+
+        @Setup( Level.Iteration )
+        public void openWriter( GBPTreeConcurrentWriterBenchmark benchmark ) throws IOException
+        {
+            writer = benchmark.tree.concurrentWriter();
+        }
+
+        @TearDown( Level.Iteration )
+        public void closeWriter() throws IOException
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * The single writer, which has the whole tree to itself.
+     */
+    @State( Scope.Thread )
+    public static class SingleWriterState
+    {
+        Writer<MutableLong,MutableLong> writer;
+        final MutableLong key = new MutableLong();
+        final MutableLong value = new MutableLong();
+
+        @Setup( Level.Iteration )
+        public void openWriter( GBPTreeConcurrentWriterBenchmark benchmark ) throws IOException
+        {
+            writer = benchmark.tree.writer();
+        }
+
+        @TearDown( Level.Iteration )
+        public void closeWriter() throws IOException
+        {
+            writer.close();
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void singleWriter( SingleWriterState state ) throws IOException
+    {
+        change( state.writer, state.key, state.value, 0, keyCount );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void concurrentWriters1( ConcurrentWriterState state ) throws IOException
+    {
+        change( state );
+    }
+
+    @Benchmark
+    @Threads( 2 )
+    public void concurrentWriters2( ConcurrentWriterState state ) throws IOException
+    {
+        change( state );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public void concurrentWriters4( ConcurrentWriterState state ) throws IOException
+    {
+        change( state );
+    }
+
+    @Benchmark
+    @Threads( MAX_WRITERS )
+    public void concurrentWriters8( ConcurrentWriterState state ) throws IOException
+    {
+        change( state );
+    }
+
+    private static void change( ConcurrentWriterState state ) throws IOException
+    {
+        change( state.writer, state.key, state.value, state.rangeStart, state.rangeSize );
+    }
+
+    /**
+     * Inserts or removes, with equal probability, a random odd key in the given range.
+     */
+    private static void change( Writer<MutableLong,MutableLong> writer, MutableLong key, MutableLong value,
+            long rangeStart, long rangeSize ) throws IOException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        key.setValue( (rangeStart + random.nextLong( rangeSize )) * 2 + 1 );
+        if ( random.nextBoolean() )
+        {
+            value.setValue( random.nextLong() );
+            writer.put( key, value );
+        }
+        else
+        {
+            writer.remove( key );
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.GlobalMemoryTracker;
+
+/**
+ * The file system and page cache setup shared by the benchmarks.
+ */
+public final class BenchmarkFiles
+{
+    private BenchmarkFiles()
+    {
+    }
+
+    public static File createTemporaryDirectory( String name )
+    {
+        try
+        {
+            return Files.createTempDirectory( "neo4j-benchmark-" + name ).toFile();
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public static void deleteRecursively( File directory ) throws IOException
+    {
+        FileUtils.deleteRecursively( directory );
+    }
+
+    /**
+     * Create a page cache with room for the given number of pages, that does no tracing.
+     */
+    public static PageCache createPageCache( FileSystemAbstraction fs, int maxPages )
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator memoryAllocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), GlobalMemoryTracker.INSTANCE );
+        return new MuninnPageCache( swapperFactory, memoryAllocator, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, EmptyVersionContextSupplier.EMPTY );
+    }
+
+    /**
+     * Create a page cache with room for the given number of pages, that does no tracing, and has the given number of
+     * page partitions and freelist stripes per partition. A count of zero leaves it to the feature toggles.
+     */
+    public static MuninnPageCache createPageCache( FileSystemAbstraction fs, int maxPages, int partitions, int stripes )
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator memoryAllocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), GlobalMemoryTracker.INSTANCE );
+        return new MuninnPageCache( swapperFactory, memoryAllocator, PageCache.PAGE_SIZE, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, EmptyVersionContextSupplier.EMPTY, EvictionPolicy.CLOCK, partitions, stripes );
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * Page faults, with different numbers of freelist stripes. The file is much bigger than the page cache, so almost
+ * every pin has to evict a page and fault in another.
+ * <p>
+ * Run it with increasing numbers of threads, e.g. {@code -t 1}, {@code -t 4} and {@code -t max}, to measure how the
+ * throughput scales.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class FaultThroughputBenchmark
+{
+    private static final int MAX_PAGES = 1024;
+    private static final int FILE_PAGES = MAX_PAGES * 16;
+
+    @Param( {"1", "4", "16"} )
+    public int stripes;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private MuninnPageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "fault-throughput" );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkFiles.createPageCache( fs, MAX_PAGES, 1, stripes );
+        pagedFile = pageCache.map( new File( directory, "file" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE );
+
+        // Write out the whole file, so the faults in the benchmark read real data.
+        try ( PageCursor cursor = pagedFile.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                cursor.next();
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    public long pageFault() throws IOException
+    {
+        long pageId = ThreadLocalRandom.current().nextInt( FILE_PAGES );
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        {
+            long value;
+            cursor.next();
+            do
+            {
+                value = cursor.getLong();
+            }
+            while ( cursor.shouldRetry() );
+            return value;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Pinning, reading and writing pages through a {@link PageCursor}, when the pages are already in memory.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class PageCursorBenchmark
+{
+    @Param( {"1024", "65536"} )
+    public int filePages;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+    private int pageSize;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "page-cursor" );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkFiles.createPageCache( fs, filePages + filePages / 4 );
+        pageSize = pageCache.pageSize();
+        pagedFile = pageCache.map( new File( directory, "file" ), pageSize, StandardOpenOption.CREATE );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < filePages; i++ )
+            {
+                cursor.next();
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    public boolean pin() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPageId(), PF_SHARED_READ_LOCK ) )
+        {
+            return cursor.next();
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException
+    {
+        int offset = randomOffset();
+        try ( PageCursor cursor = pagedFile.io( randomPageId(), PF_SHARED_READ_LOCK ) )
+        {
+            long value;
+            cursor.next();
+            do
+            {
+                value = cursor.getLong( offset );
+            }
+            while ( cursor.shouldRetry() );
+            return value;
+        }
+    }
+
+    @Benchmark
+    public void write() throws IOException
+    {
+        int offset = randomOffset();
+        try ( PageCursor cursor = pagedFile.io( randomPageId(), PF_SHARED_WRITE_LOCK ) )
+        {
+            cursor.next();
+            cursor.putLong( offset, offset );
+        }
+    }
+
+    private long randomPageId()
+    {
+        return ThreadLocalRandom.current().nextInt( filePages );
+    }
+
+    private int randomOffset()
+    {
+        return ThreadLocalRandom.current().nextInt( pageSize / Long.BYTES ) * Long.BYTES;
+    }
+}
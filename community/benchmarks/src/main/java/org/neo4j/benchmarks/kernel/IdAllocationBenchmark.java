@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.store.id.ConcurrentIdGenerator;
+import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.IdGenerator;
+import org.neo4j.kernel.impl.store.id.IdGeneratorImpl;
+import org.neo4j.kernel.impl.store.id.IdType;
+import org.neo4j.util.FeatureToggles;
+
+/**
+ * Id allocation from many threads at the same time, with the synchronized {@link IdGeneratorImpl} and with the
+ * {@link ConcurrentIdGenerator}. {@link #nextId(IdGenerators)} measures the id generator alone and
+ * {@link #createNodes(Database)} measures transactions creating nodes, which get their ids in batches from the
+ * node id generator. Run with different thread counts, f.ex. {@code -t 1} and {@code -t 32}, to see how
+ * throughput scales.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Threads( 8 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class IdAllocationBenchmark
+{
+    // highest node id of the standard record format
+    private static final long MAX_ID = (1L << 35) - 1;
+
+    @Param( {"false", "true"} )
+    public boolean concurrentIdAllocation;
+
+    @Param( {"10"} )
+    public int nodesPerTransaction;
+
+    /**
+     * A node id generator on its own, which hands out and frees ids.
+     */
+    @State( Scope.Benchmark )
+    public static class IdGenerators
+    {
+        private File directory;
+        private FileSystemAbstraction fs;
+        private IdGenerator idGenerator;
+
+        @Setup
+        public void setUp( IdAllocationBenchmark benchmark )
+        {
+            directory = BenchmarkFiles.createTemporaryDirectory( "id-allocation" );
+            fs = new DefaultFileSystemAbstraction();
+            File file = new File( directory, "node.id" );
+            IdGeneratorImpl.createGenerator( fs, file, 0, true );
+            idGenerator = benchmark.concurrentIdAllocation
+                          ? new ConcurrentIdGenerator( fs, file, 20_000, MAX_ID, false, IdType.NODE, () -> 0L )
+                          : new IdGeneratorImpl( fs, file, 20_000, MAX_ID, false, IdType.NODE, () -> 0L );
+        }
+
+        @TearDown
+        public void tearDown() throws IOException
+        {
+            idGenerator.close();
+            fs.close();
+            BenchmarkFiles.deleteRecursively( directory );
+        }
+    }
+
+    /**
+     * A database using either kind of id generator. Each parameter combination runs in its own fork, so setting
+     * the feature toggle before starting the database decides which id generator it uses.
+     */
+    @State( Scope.Benchmark )
+    public static class Database
+    {
+        private File directory;
+        private GraphDatabaseService db;
+
+        @Setup
+        public void setUp( IdAllocationBenchmark benchmark )
+        {
+            FeatureToggles.set( DefaultIdGeneratorFactory.class, "concurrentIdAllocation",
+                    benchmark.concurrentIdAllocation );
+            directory = BenchmarkFiles.createTemporaryDirectory( "id-allocation-db" );
+            db = new GraphDatabaseFactory().newEmbeddedDatabase( directory );
+        }
+
+        @TearDown
+        public void tearDown() throws IOException
+        {
+            db.shutdown();
+            BenchmarkFiles.deleteRecursively( directory );
+        }
+    }
+
+    @Benchmark
+    public long nextId( IdGenerators idGenerators )
+    {
+        return idGenerators.idGenerator.nextId();
+    }
+
+    @Benchmark
+    public long createNodes( Database database )
+    {
+        GraphDatabaseService db = database.db;
+        long lastId = -1;
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < nodesPerTransaction; i++ )
+            {
+                lastId = db.createNode().getId();
+            }
+            tx.success();
+        }
+        return lastId;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Reading small node properties through the kernel cursors, with the {@code standard} record format which keeps
+ * them in the property store and the {@code inlined_properties} format which also keeps a copy of them in the node
+ * record. Every node has an int, a boolean and a short string property, which together fit in one property record.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class NodePropertyBenchmark
+{
+    private static final int NODES_PER_TRANSACTION = 10_000;
+
+    @Param( {"standard", "inlined_properties"} )
+    public String recordFormat;
+
+    @Param( {"1000000"} )
+    public int nodeCount;
+
+    private File directory;
+    private GraphDatabaseAPI db;
+
+    @Setup
+    public void setUp()
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "node-property" );
+        db = (GraphDatabaseAPI) new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( directory )
+                .setConfig( GraphDatabaseSettings.record_format, recordFormat )
+                .newGraphDatabase();
+        for ( int i = 0; i < nodeCount; i += NODES_PER_TRANSACTION )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int j = i; j < Math.min( nodeCount, i + NODES_PER_TRANSACTION ); j++ )
+                {
+                    Node node = db.createNode();
+                    node.setProperty( "age", j % 100 );
+                    node.setProperty( "active", j % 10 == 0 );
+                    node.setProperty( "code", "c" + (j % 1000) );
+                }
+                tx.success();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        db.shutdown();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    /**
+     * A read transaction and its cursors, one per benchmark thread.
+     */
+    @State( Scope.Thread )
+    public static class Reader
+    {
+        private Transaction transaction;
+        private Read read;
+        private NodeCursor nodeCursor;
+        private PropertyCursor propertyCursor;
+        private int age;
+        private int active;
+
+        @Setup
+        public void setUp( NodePropertyBenchmark benchmark )
+        {
+            transaction = benchmark.db.beginTx();
+            KernelTransaction ktx = benchmark.db.getDependencyResolver()
+                    .resolveDependency( ThreadToStatementContextBridge.class )
+                    .getKernelTransactionBoundToThisThread( true );
+            read = ktx.dataRead();
+            nodeCursor = ktx.cursors().allocateNodeCursor();
+            propertyCursor = ktx.cursors().allocatePropertyCursor();
+            age = ktx.tokenRead().propertyKey( "age" );
+            active = ktx.tokenRead().propertyKey( "active" );
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            propertyCursor.close();
+            nodeCursor.close();
+            transaction.close();
+        }
+    }
+
+    @Benchmark
+    public Object pointLookup( Reader reader )
+    {
+        reader.read.singleNode( ThreadLocalRandom.current().nextLong( nodeCount ), reader.nodeCursor );
+        if ( reader.nodeCursor.next() )
+        {
+            reader.nodeCursor.properties( reader.propertyCursor );
+            while ( reader.propertyCursor.next() )
+            {
+                if ( reader.propertyCursor.propertyKey() == reader.age )
+                {
+                    return reader.propertyCursor.propertyValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.SECONDS )
+    public long filter( Reader reader )
+    {
+        long count = 0;
+        reader.read.allNodesScan( reader.nodeCursor );
+        while ( reader.nodeCursor.next() )
+        {
+            reader.nodeCursor.properties( reader.propertyCursor );
+            while ( reader.propertyCursor.next() )
+            {
+                if ( reader.propertyCursor.propertyKey() == reader.active )
+                {
+                    count += reader.propertyCursor.propertyValue().equals( Values.TRUE ) ? 1 : 0;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyColumnVisitor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Summing one property over all nodes with a label, by following the property chain of every node found in the
+ * label scan store and by scanning the columnar side store of the label and property.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class PropertyColumnScanBenchmark
+{
+    private static final int NODES_PER_TRANSACTION = 10_000;
+    private static final Label PERSON = Label.label( "Person" );
+
+    @Param( {"1000000"} )
+    public int nodeCount;
+
+    private File directory;
+    private GraphDatabaseAPI db;
+
+    @Setup
+    public void setUp()
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "property-column" );
+        db = (GraphDatabaseAPI) new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( directory )
+                .setConfig( GraphDatabaseSettings.property_columns, "Person.age" )
+                .newGraphDatabase();
+        for ( int i = 0; i < nodeCount; i += NODES_PER_TRANSACTION )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int j = i; j < Math.min( nodeCount, i + NODES_PER_TRANSACTION ); j++ )
+                {
+                    Node node = db.createNode( PERSON );
+                    node.setProperty( "age", j % 100 );
+                    node.setProperty( "name", "n" + j );
+                }
+                tx.success();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        db.shutdown();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    /**
+     * A read transaction and its cursors, one per benchmark thread.
+     */
+    @State( Scope.Thread )
+    public static class Reader
+    {
+        private Transaction transaction;
+        private Read read;
+        private NodeLabelIndexCursor labelCursor;
+        private NodeCursor nodeCursor;
+        private PropertyCursor propertyCursor;
+        private int person;
+        private int age;
+
+        @Setup
+        public void setUp( PropertyColumnScanBenchmark benchmark )
+        {
+            transaction = benchmark.db.beginTx();
+            KernelTransaction ktx = benchmark.db.getDependencyResolver()
+                    .resolveDependency( ThreadToStatementContextBridge.class )
+                    .getKernelTransactionBoundToThisThread( true );
+            read = ktx.dataRead();
+            labelCursor = ktx.cursors().allocateNodeLabelIndexCursor();
+            nodeCursor = ktx.cursors().allocateNodeCursor();
+            propertyCursor = ktx.cursors().allocatePropertyCursor();
+            person = ktx.tokenRead().nodeLabel( PERSON.name() );
+            age = ktx.tokenRead().propertyKey( "age" );
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            propertyCursor.close();
+            nodeCursor.close();
+            labelCursor.close();
+            transaction.close();
+        }
+    }
+
+    @Benchmark
+    public double propertyChains( Reader reader )
+    {
+        double sum = 0;
+        reader.read.nodeLabelScan( reader.person, reader.labelCursor );
+        while ( reader.labelCursor.next() )
+        {
+            reader.labelCursor.node( reader.nodeCursor );
+            if ( reader.nodeCursor.next() )
+            {
+                reader.nodeCursor.properties( reader.propertyCursor );
+                while ( reader.propertyCursor.next() )
+                {
+                    if ( reader.propertyCursor.propertyKey() == reader.age )
+                    {
+                        sum += ((NumberValue) reader.propertyCursor.propertyValue()).doubleValue();
+                        break;
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double columnScan( Reader reader )
+    {
+        Sum sum = new Sum();
+        reader.read.nodePropertyColumnScan( reader.person, reader.age, sum );
+        return sum.sum;
+    }
+
+    private static class Sum implements PropertyColumnVisitor
+    {
+        private double sum;
+
+        @Override
+        public void visitLongs( long[] nodes, long[] values, int size )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                sum += values[i];
+            }
+        }
+
+        @Override
+        public void visitDoubles( long[] nodes, double[] values, int size )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                sum += values[i];
+            }
+        }
+
+        @Override
+        public void visitValue( long node, Value value )
+        {
+            if ( value instanceof NumberValue )
+            {
+                sum += ((NumberValue) value).doubleValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+/**
+ * Node lookups and relationship expansion through the kernel cursors, over a graph where every node has the same
+ * number of outgoing relationships to random nodes. With the default dense node threshold, the larger degree makes
+ * all nodes dense, so both the sparse and the dense relationship chains are measured.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class StorageCursorBenchmark
+{
+    private static final RelationshipType TYPE = RelationshipType.withName( "REL" );
+    private static final int NODES_PER_TRANSACTION = 1_000;
+
+    @Param( {"100000"} )
+    public int nodeCount;
+
+    @Param( {"10", "100"} )
+    public int degree;
+
+    private File directory;
+    private GraphDatabaseAPI db;
+
+    @Setup
+    public void setUp()
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "storage-cursor" );
+        db = (GraphDatabaseAPI) new GraphDatabaseFactory().newEmbeddedDatabase( directory );
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] nodes = new long[nodeCount];
+        for ( int i = 0; i < nodeCount; i += NODES_PER_TRANSACTION )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int j = i; j < Math.min( nodeCount, i + NODES_PER_TRANSACTION ); j++ )
+                {
+                    nodes[j] = db.createNode().getId();
+                }
+                tx.success();
+            }
+        }
+        for ( int i = 0; i < nodeCount; i += NODES_PER_TRANSACTION )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int j = i; j < Math.min( nodeCount, i + NODES_PER_TRANSACTION ); j++ )
+                {
+                    Node node = db.getNodeById( nodes[j] );
+                    for ( int k = 0; k < degree; k++ )
+                    {
+                        node.createRelationshipTo( db.getNodeById( nodes[random.nextInt( nodeCount )] ), TYPE );
+                    }
+                }
+                tx.success();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        db.shutdown();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    /**
+     * A read transaction and its cursors, one per benchmark thread.
+     */
+    @State( Scope.Thread )
+    public static class Reader
+    {
+        private Transaction transaction;
+        private Read read;
+        private NodeCursor nodeCursor;
+        private RelationshipTraversalCursor relationshipCursor;
+
+        @Setup
+        public void setUp( StorageCursorBenchmark benchmark )
+        {
+            transaction = benchmark.db.beginTx();
+            KernelTransaction ktx = benchmark.db.getDependencyResolver()
+                    .resolveDependency( ThreadToStatementContextBridge.class )
+                    .getKernelTransactionBoundToThisThread( true );
+            read = ktx.dataRead();
+            nodeCursor = ktx.cursors().allocateNodeCursor();
+            relationshipCursor = ktx.cursors().allocateRelationshipTraversalCursor();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            relationshipCursor.close();
+            nodeCursor.close();
+            transaction.close();
+        }
+    }
+
+    @Benchmark
+    public long singleNode( Reader reader )
+    {
+        reader.read.singleNode( randomNode(), reader.nodeCursor );
+        return reader.nodeCursor.next() ? reader.nodeCursor.nodeReference() : -1;
+    }
+
+    @Benchmark
+    public long expand( Reader reader )
+    {
+        long sum = 0;
+        reader.read.singleNode( randomNode(), reader.nodeCursor );
+        if ( reader.nodeCursor.next() )
+        {
+            reader.nodeCursor.allRelationships( reader.relationshipCursor );
+            while ( reader.relationshipCursor.next() )
+            {
+                sum += reader.relationshipCursor.neighbourNodeReference();
+            }
+        }
+        return sum;
+    }
+
+    private long randomNode()
+    {
+        // Node ids are allocated from zero and up in an empty database.
+        return ThreadLocalRandom.current().nextLong( nodeCount );
+    }
+}
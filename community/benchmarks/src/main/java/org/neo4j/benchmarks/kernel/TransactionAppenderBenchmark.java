@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.io.BenchmarkFiles;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotationImpl;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.internal.KernelEventHandlers;
+import org.neo4j.kernel.lifecycle.Lifespan;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.NullLog;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static java.lang.System.currentTimeMillis;
+import static org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory.DEFAULT;
+
+/**
+ * Appending transactions of node commands to the transaction log, with the {@link BatchingTransactionAppender}.
+ * Every append forces the log, so with more than one benchmark thread this also measures how well concurrent
+ * appends are batched into the same force.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class TransactionAppenderBenchmark
+{
+    @Param( {"1", "100"} )
+    public int commandsPerTransaction;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private Lifespan life;
+    private TransactionAppender appender;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkFiles.createTemporaryDirectory( "transaction-appender" );
+        fs = new DefaultFileSystemAbstraction();
+        life = new Lifespan();
+        TransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        LogFiles logFiles = life.add( LogFilesBuilder.builder( directory, fs )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( new SimpleLogVersionRepository() )
+                .build() );
+        Log log = NullLog.getInstance();
+        DatabaseHealth databaseHealth =
+                new DatabaseHealth( new DatabasePanicEventGenerator( new KernelEventHandlers( log ) ), log );
+        LogRotation logRotation = new LogRotationImpl( NO_ROTATION_MONITOR, logFiles, databaseHealth );
+        appender = life.add( new BatchingTransactionAppender( logFiles, logRotation,
+                new TransactionMetadataCache( 100_000 ), transactionIdStore, IdOrderingQueue.BYPASS, databaseHealth ) );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        life.close();
+        fs.close();
+        BenchmarkFiles.deleteRecursively( directory );
+    }
+
+    /**
+     * The transaction appended by a benchmark thread. It is created once and appended over and over, since creating
+     * it is not what is measured.
+     */
+    @State( Scope.Thread )
+    public static class Transactions
+    {
+        private PhysicalTransactionRepresentation transaction;
+
+        @Setup
+        public void setUp( TransactionAppenderBenchmark benchmark )
+        {
+            List<StorageCommand> commands = new ArrayList<>( benchmark.commandsPerTransaction );
+            for ( int i = 0; i < benchmark.commandsPerTransaction; i++ )
+            {
+                NodeRecord before = new NodeRecord( i, false, false, -1, -1, 0 );
+                NodeRecord after = new NodeRecord( i, true, false, -1, -1, 0 );
+                commands.add( new Command.NodeCommand( before, after ) );
+            }
+            transaction = new PhysicalTransactionRepresentation( commands );
+            TransactionHeaderInformation header = DEFAULT.create();
+            transaction.setHeader( header.getAdditionalHeader(), header.getMasterId(), header.getAuthorId(),
+                    currentTimeMillis(), 0, currentTimeMillis(), -1 );
+        }
+    }
+
+    @Benchmark
+    public long append( Transactions transactions ) throws IOException
+    {
+        return appender.append( new TransactionToApply( transactions.transaction ), LogAppendEvent.NULL );
+    }
+
+    private static final LogRotation.Monitor NO_ROTATION_MONITOR = new LogRotation.Monitor()
+    {
+        @Override
+        public void startedRotating( long currentVersion )
+        {
+        }
+
+        @Override
+        public void finishedRotating( long currentVersion )
+        {
+        }
+    };
+}
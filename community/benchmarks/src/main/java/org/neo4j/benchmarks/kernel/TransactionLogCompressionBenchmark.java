@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static java.lang.System.currentTimeMillis;
+import static org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory.DEFAULT;
+
+/**
+ * Writing transactions with string property commands to an in-memory channel, with and without compressed command
+ * entries, see {@link LogEntryWriter#LogEntryWriter(org.neo4j.kernel.impl.transaction.log.FlushableChannel, boolean)}.
+ * The number of bytes written per millisecond is reported as the secondary {@code bytes} result, which divided by the
+ * primary result gives the average size of a transaction in the log.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class TransactionLogCompressionBenchmark
+{
+    private static final int CHANNEL_SIZE = 64 * 1024 * 1024;
+
+    @Param( {"false", "true"} )
+    public boolean compress;
+
+    @Param( {"10"} )
+    public int propertiesPerTransaction;
+
+    private InMemoryClosableChannel channel;
+    private TransactionLogWriter writer;
+    private PhysicalTransactionRepresentation transaction;
+    private long transactionsWritten;
+
+    @Setup
+    public void setUp()
+    {
+        channel = new InMemoryClosableChannel( CHANNEL_SIZE );
+        writer = new TransactionLogWriter( new LogEntryWriter( channel, compress ) );
+        List<StorageCommand> commands = new ArrayList<>( propertiesPerTransaction );
+        for ( int i = 0; i < propertiesPerTransaction; i++ )
+        {
+            commands.add( propertyCommand( i ) );
+        }
+        transaction = new PhysicalTransactionRepresentation( commands );
+        TransactionHeaderInformation header = DEFAULT.create();
+        transaction.setHeader( header.getAdditionalHeader(), header.getMasterId(), header.getAuthorId(),
+                currentTimeMillis(), 0, currentTimeMillis(), -1 );
+    }
+
+    @Benchmark
+    public int write( WrittenBytes writtenBytes ) throws IOException
+    {
+        if ( channel.writerPosition() > CHANNEL_SIZE / 2 )
+        {
+            channel.reset();
+        }
+        int positionBefore = channel.writerPosition();
+        writer.append( transaction, transactionsWritten++ );
+        writtenBytes.bytes += channel.writerPosition() - positionBefore;
+        return channel.writerPosition();
+    }
+
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.OPERATIONS )
+    public static class WrittenBytes
+    {
+        public long bytes;
+
+        @Setup( Level.Iteration )
+        public void reset()
+        {
+            bytes = 0;
+        }
+    }
+
+    private static Command.PropertyCommand propertyCommand( long id )
+    {
+        String value = "{\"id\":" + id + ",\"name\":\"customer-" + id + "\",\"address\":\"Street " + id +
+                ", City\",\"tags\":[\"customer\",\"active\",\"newsletter\"],\"notes\":\"no notes\"}";
+        byte[] data = value.getBytes( StandardCharsets.UTF_8 );
+        DynamicRecord valueRecord = new DynamicRecord( id );
+        valueRecord.setInUse( true, PropertyType.STRING.intValue() );
+        valueRecord.setCreated();
+        valueRecord.setStartRecord( true );
+        valueRecord.setData( data );
+
+        PropertyBlock block = new PropertyBlock();
+        PropertyStore.setSingleBlockValue( block, 1, PropertyType.STRING, id );
+        block.addValueRecord( valueRecord );
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( true );
+        after.setCreated();
+        after.addPropertyBlock( block );
+        return new Command.PropertyCommand( new PropertyRecord( id ), after );
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.kernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.api.state.TxState;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Building up the transaction state of a write transaction, which is what every change made by a transaction goes
+ * through before commit. Measured as the time it takes to build the state of a whole transaction.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class TxStateBenchmark
+{
+    private static final int LABEL = 0;
+    private static final int PROPERTY_KEY = 0;
+    private static final int RELATIONSHIP_TYPE = 0;
+
+    @Param( {"100", "10000"} )
+    public int nodesPerTransaction;
+
+    @Benchmark
+    public TxState createNodes()
+    {
+        TxState state = new TxState();
+        for ( long node = 0; node < nodesPerTransaction; node++ )
+        {
+            state.nodeDoCreate( node );
+            state.nodeDoAddLabel( LABEL, node );
+            state.nodeDoAddProperty( node, PROPERTY_KEY, Values.longValue( node ) );
+        }
+        return state;
+    }
+
+    @Benchmark
+    public TxState createNodesAndRelationships()
+    {
+        TxState state = new TxState();
+        for ( long node = 0; node < nodesPerTransaction; node++ )
+        {
+            state.nodeDoCreate( node );
+        }
+        // Connect the nodes in a ring, so every node gets both an outgoing and an incoming relationship.
+        for ( long node = 0; node < nodesPerTransaction; node++ )
+        {
+            state.relationshipDoCreate( node, RELATIONSHIP_TYPE, node, (node + 1) % nodesPerTransaction );
+        }
+        return state;
+    }
+}
@@ -148,6 +148,9 @@ public interface Status
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
                 "or modified a bookmark since it was generated by Neo4j." ),
+        TransactionMemoryLimitExceeded( ClientError,
+                "The transaction state of this transaction has grown beyond the configured memory limit. You may " +
+                "want to split the work into smaller transactions or increase the limit." ),
 
         // database errors
         TransactionStartFailed( DatabaseError,
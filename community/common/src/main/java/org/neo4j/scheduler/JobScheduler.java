@@ -150,6 +150,11 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group checkPoint = new Group( "CheckPoint" );
 
+        /**
+         * Forces the transaction log on behalf of the committing transactions, in the pipelined log force mode.
+         */
+        public static final Group transactionLogForce = new Group( "TransactionLogForce" );
+
         /**
          * Raft Log pruning
          */
@@ -200,6 +205,16 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group recoveryCleanup = new Group( "RecoveryCleanup" );
 
+        /**
+         * Replays recovered transactions concurrently, in the parallel recovery.
+         */
+        public static final Group recovery = new Group( "Recovery" );
+
+        /**
+         * Creates the commands of large transactions in parallel with the committing thread.
+         */
+        public static final Group commandExtraction = new Group( "CommandExtraction" );
+
         /**
          * Kernel transaction timeout monitor.
          */
@@ -42,7 +42,7 @@ import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.StoreAccess;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
 import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
@@ -106,12 +106,12 @@ public class FullCheck
         if ( checkGraph )
         {
             CountsAccessor countsAccessor = stores.nativeStores().getCounts();
-            if ( countsAccessor instanceof CountsTracker )
+            if ( countsAccessor instanceof CountsStore )
             {
-                CountsTracker tracker = (CountsTracker) countsAccessor;
+                CountsStore countsStore = (CountsStore) countsAccessor;
                 try
                 {
-                    tracker.start();
+                    countsStore.start();
                 }
                 catch ( Exception e )
                 {
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.index.internal.gbptree.TreeNode.Overflow;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO_NEED_DEFRAG;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
+
+/**
+ * Implementation of bottom-up bulk loading of a GB+ tree from keys in ascending order.
+ * <p>
+ * Key/value pairs are appended to the current leaf until it's full, at which point a new right sibling leaf is
+ * started and its first key is appended, together with the new leaf as right child, to the current node of the
+ * level above. Internal levels fill up the same way, except that the key which doesn't fit in a full internal node
+ * moves up to the level above instead of into the new internal node, which only gets the new child. A new level is
+ * started on top when the current top node gets a sibling. The current node of every level is the rightmost one,
+ * so nothing already written is ever touched again, except for linking siblings.
+ * <p>
+ * The nodes are written in the unstable generation and the tree isn't reachable from the root until
+ * {@link #finish()} returns the id of the new root, so readers and the last checkpoint keep seeing the tree
+ * as it was before the load.
+ *
+ * @param <KEY> type of internal/leaf keys
+ * @param <VALUE> type of leaf values
+ */
+class BulkLoadTreeLogic<KEY,VALUE>
+{
+    private final IdProvider idProvider;
+    private final TreeNode<KEY,VALUE> bTreeNode;
+    private final Layout<KEY,VALUE> layout;
+    private final PageCursor leafCursor;
+    private final PageCursor internalCursor;
+    private final long stableGeneration;
+    private final long unstableGeneration;
+    private final KEY previousKey;
+    private final KEY splitter;
+    private boolean hasPreviousKey;
+
+    /**
+     * Id of the current, i.e. rightmost, node of each level, leaves at level 0.
+     */
+    private long[] levelNodes = new long[8];
+    /**
+     * Key count of the current node of each level.
+     */
+    private int[] levelKeyCounts = new int[levelNodes.length];
+    private int height;
+
+    /**
+     * @param idProvider {@link IdProvider} to acquire ids of new nodes from.
+     * @param bTreeNode {@link TreeNode} for reading and writing nodes.
+     * @param layout {@link Layout} of keys and values.
+     * @param leafCursor {@link PageCursor} which is kept on the current leaf.
+     * @param internalCursor {@link PageCursor} for writing internal nodes.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @throws IOException on cursor failure.
+     */
+    BulkLoadTreeLogic( IdProvider idProvider, TreeNode<KEY,VALUE> bTreeNode, Layout<KEY,VALUE> layout,
+            PageCursor leafCursor, PageCursor internalCursor, long stableGeneration, long unstableGeneration )
+            throws IOException
+    {
+        this.idProvider = idProvider;
+        this.bTreeNode = bTreeNode;
+        this.layout = layout;
+        this.leafCursor = leafCursor;
+        this.internalCursor = internalCursor;
+        this.stableGeneration = stableGeneration;
+        this.unstableGeneration = unstableGeneration;
+        this.previousKey = layout.newKey();
+        this.splitter = layout.newKey();
+
+        levelNodes[0] = newNode( leafCursor, "new leaf" );
+        bTreeNode.initializeLeaf( leafCursor, stableGeneration, unstableGeneration );
+        height = 1;
+    }
+
+    /**
+     * Appends {@code key} and {@code value} to the tree.
+     *
+     * @param key key to add, must be greater than the previously added key.
+     * @param value value to associate with key.
+     * @throws IOException on cursor failure.
+     */
+    void add( KEY key, VALUE value ) throws IOException
+    {
+        if ( hasPreviousKey && layout.compare( previousKey, key ) >= 0 )
+        {
+            throw new IllegalArgumentException( "Keys must be added in strictly ascending order, but " + key +
+                    " was added after " + previousKey );
+        }
+        bTreeNode.validateKeyValueSize( key, value );
+
+        int keyCount = levelKeyCounts[0];
+        Overflow overflow = bTreeNode.leafOverflow( leafCursor, keyCount, key, value );
+        if ( overflow == YES )
+        {
+            long leftLeaf = levelNodes[0];
+            long rightLeaf = newSibling( leafCursor, "new leaf" );
+            bTreeNode.initializeLeaf( leafCursor, stableGeneration, unstableGeneration );
+            TreeNode.setLeftSibling( leafCursor, leftLeaf, stableGeneration, unstableGeneration );
+            levelNodes[0] = rightLeaf;
+            keyCount = 0;
+            layout.minimalSplitter( previousKey, key, splitter );
+            appendToLevel( 1, splitter, leftLeaf, rightLeaf );
+        }
+        else if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentLeaf( leafCursor );
+        }
+
+        bTreeNode.insertKeyValueAt( leafCursor, key, value, keyCount, keyCount );
+        TreeNode.setKeyCount( leafCursor, keyCount + 1 );
+        levelKeyCounts[0] = keyCount + 1;
+
+        layout.copyKey( key, previousKey );
+        hasPreviousKey = true;
+    }
+
+    /**
+     * @return id of the root of the loaded tree.
+     */
+    long finish()
+    {
+        return levelNodes[height - 1];
+    }
+
+    /**
+     * Appends {@code key} and {@code rightChild} to the current node at {@code level}, where {@code leftChild} is
+     * the child to the left of {@code key}, i.e. the previous current node of the level below.
+     */
+    private void appendToLevel( int level, KEY key, long leftChild, long rightChild ) throws IOException
+    {
+        if ( level == height )
+        {
+            // The current top node got a sibling, start a new level on top of them
+            ensureLevelCapacity( level );
+            levelNodes[level] = newNode( internalCursor, "new internal" );
+            levelKeyCounts[level] = 0;
+            bTreeNode.initializeInternal( internalCursor, stableGeneration, unstableGeneration );
+            bTreeNode.setChildAt( internalCursor, leftChild, 0, stableGeneration, unstableGeneration );
+            height++;
+        }
+        else
+        {
+            PageCursorUtil.goTo( internalCursor, "internal", levelNodes[level] );
+        }
+
+        int keyCount = levelKeyCounts[level];
+        Overflow overflow = bTreeNode.internalOverflow( internalCursor, keyCount, key );
+        if ( overflow == YES )
+        {
+            long leftNode = levelNodes[level];
+            long rightNode = newSibling( internalCursor, "new internal" );
+            bTreeNode.initializeInternal( internalCursor, stableGeneration, unstableGeneration );
+            TreeNode.setLeftSibling( internalCursor, leftNode, stableGeneration, unstableGeneration );
+            bTreeNode.setChildAt( internalCursor, rightChild, 0, stableGeneration, unstableGeneration );
+            levelNodes[level] = rightNode;
+            levelKeyCounts[level] = 0;
+            appendToLevel( level + 1, key, leftNode, rightNode );
+            return;
+        }
+        if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentInternal( internalCursor );
+        }
+
+        bTreeNode.insertKeyAndRightChildAt( internalCursor, key, rightChild, keyCount, keyCount,
+                stableGeneration, unstableGeneration );
+        TreeNode.setKeyCount( internalCursor, keyCount + 1 );
+        levelKeyCounts[level] = keyCount + 1;
+    }
+
+    /**
+     * Links a new right sibling to the node {@code cursor} is at and leaves {@code cursor} at the new sibling.
+     *
+     * @return id of the new sibling.
+     */
+    private long newSibling( PageCursor cursor, String nodeDescription ) throws IOException
+    {
+        long sibling = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+        TreeNode.setRightSibling( cursor, sibling, stableGeneration, unstableGeneration );
+        PageCursorUtil.goTo( cursor, nodeDescription, sibling );
+        return sibling;
+    }
+
+    private long newNode( PageCursor cursor, String nodeDescription ) throws IOException
+    {
+        long id = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+        PageCursorUtil.goTo( cursor, nodeDescription, id );
+        return id;
+    }
+
+    private void ensureLevelCapacity( int level )
+    {
+        if ( level >= levelNodes.length )
+        {
+            levelNodes = Arrays.copyOf( levelNodes, levelNodes.length * 2 );
+            levelKeyCounts = Arrays.copyOf( levelKeyCounts, levelNodes.length );
+        }
+    }
+}
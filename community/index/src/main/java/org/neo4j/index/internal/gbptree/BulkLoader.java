@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Loads key/value pairs, given in strictly ascending key order, into an empty {@link GBPTree}.
+ * The tree is built bottom-up, packing every node full, so loading is sequential and results in a compact tree.
+ * After all key/value pairs have been added the loader must be {@link #close() closed}, typically using
+ * try-with-resource clause, which completes the upper levels of the tree and makes it visible to readers.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+public interface BulkLoader<KEY,VALUE> extends Closeable
+{
+    /**
+     * Adds given {@code key} associated with given {@code value}. Keys must be added in strictly ascending order,
+     * i.e. every key must be greater than the previously added key.
+     *
+     * @param key key to add.
+     * @param value value to associate with key.
+     * @throws IOException on index access error.
+     * @throws IllegalArgumentException if {@code key} isn't greater than the previously added key.
+     */
+    void add( KEY key, VALUE value ) throws IOException;
+
+    /**
+     * Completes the tree, making all added key/value pairs visible to readers.
+     *
+     * @throws IOException on index access error.
+     */
+    @Override
+    void close() throws IOException;
+}
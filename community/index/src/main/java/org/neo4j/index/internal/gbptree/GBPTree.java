@@ -27,7 +27,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -36,6 +40,8 @@ import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.RawCursor;
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.pagecache.CursorException;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
@@ -51,6 +57,7 @@ import static org.neo4j.index.internal.gbptree.Header.CARRY_OVER_PREVIOUS_HEADER
 import static org.neo4j.index.internal.gbptree.Header.replace;
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
 
 /**
  * A generation-aware B+tree (GB+Tree) implementation directly atop a {@link PageCache} with no caching in between.
@@ -76,6 +83,8 @@ import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor
  * <p>
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Alternatively multiple {@link #concurrentWriter() concurrent writers} can change the tree at the same time,
+ * as long as there's no single writer. An empty tree can also be {@link #bulkLoader() bulk loaded} from sorted keys.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -264,6 +273,12 @@ public class GBPTree<KEY,VALUE> implements Closeable
      */
     private final TreeNode<KEY,VALUE> bTreeNode;
 
+    /**
+     * Format of {@link #bTreeNode}, used to instantiate one {@link TreeNode} per {@link #concurrentWriter()}, since
+     * a {@link TreeNode} may keep scratch state while changing a node.
+     */
+    private final TreeNodeSelector.Factory format;
+
     /**
      * A free-list of released ids. Acquiring new ids involves first trying out the free-list and then,
      * as a fall-back allocate a new id at the end of the store.
@@ -298,6 +313,17 @@ public class GBPTree<KEY,VALUE> implements Closeable
      */
     private final GBPTreeLock lock = new GBPTreeLock();
 
+    /**
+     * Lock between {@link ConcurrentWriter concurrent writers}. Changes made in place in a leaf only need the
+     * shared part, and the leaf latched in {@link #latches}. Changes to the tree structure need the exclusive part.
+     */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * Latches for leaves changed in place by {@link ConcurrentWriter concurrent writers}.
+     */
+    private final NodeLatches latches = new NodeLatches();
+
     /**
      * Page size, i.e. tree node size, of the tree nodes in this tree. The page size is determined on
      * tree creation, stored in meta page and read when opening tree later.
@@ -470,6 +496,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 meta.verify( layout );
                 format = TreeNodeSelector.selectByFormat( meta.getFormatIdentifier(), meta.getFormatVersion() );
             }
+            this.format = format;
             this.bTreeNode = format.create( pageSize, layout );
             this.freeList = new FreeListIdProvider( pagedFile, pageSize, rootId, FreeListIdProvider.NO_MONITOR );
             this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout ) );
@@ -626,9 +653,33 @@ public class GBPTree<KEY,VALUE> implements Closeable
      */
     public static void readHeader( PageCache pageCache, File indexFile, Header.Reader headerReader )
             throws IOException, MetadataMismatchException
+    {
+        readHeader( pageCache, indexFile, null, headerReader );
+    }
+
+    /**
+     * Like {@link #readHeader(PageCache, File, Header.Reader)}, but first verifies that the index was created with
+     * a layout compatible with {@code layout}, and with the tree node format it selects. An index for which this fails
+     * can't be opened with {@code layout}.
+     *
+     * @param pageCache {@link PageCache} to use to map index file
+     * @param indexFile {@link File} containing the actual index
+     * @param layout {@link Layout} the index is expected to have been created with, or {@code null} to not verify it
+     * @param headerReader reads header data, previously written using {@link #checkpoint(IOLimiter, Consumer)}
+     * or {@link #close()}
+     * @throws IOException On page cache error
+     * @throws MetadataMismatchException if some meta page is missing (tree not fully initialized), or if the index
+     * was created with an incompatible layout or tree node format
+     */
+    public static void readHeader( PageCache pageCache, File indexFile, Layout<?,?> layout, Header.Reader headerReader )
+            throws IOException, MetadataMismatchException
     {
         try ( PagedFile pagedFile = openExistingIndexFile( pageCache, indexFile ) )
         {
+            if ( layout != null )
+            {
+                readMeta( layout, pagedFile ).verify( layout );
+            }
             Pair<TreeState,TreeState> states = loadStatePages( pagedFile );
             TreeState state = TreeStatePair.selectNewestValidState( states );
             try ( PageCursor cursor = pagedFile.io( state.pageId(), PagedFile.PF_SHARED_READ_LOCK ) )
@@ -860,6 +911,189 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 exceptionDecorator, SeekCursor.DEFAULT_MAX_READ_AHEAD );
     }
 
+    /**
+     * Seeks hits in this tree, given a key range, like {@link #seek(Object, Object)}, but with the range split
+     * into partitions which can be read independently of each other, e.g. in parallel from different threads.
+     * The range is split on keys of internal tree nodes, from the level closest to the root which has enough keys
+     * within the range, so that each partition covers roughly the same number of leaves.
+     * <p>
+     * Each returned {@link RawCursor} seeks its own part of the range in ascending order and the cursors are
+     * returned in ascending order of their parts. Partitions are decided from the tree structure at the time of
+     * this call, so concurrent changes may make partitions uneven, but never change which hits the cursors find.
+     * All returned cursors must be closed.
+     *
+     * @param fromInclusive lower bound of the range to seek (inclusive).
+     * @param toExclusive higher bound of the range to seek (exclusive), must not be lower than {@code fromInclusive}.
+     * @param desiredNumberOfPartitions number of partitions to split the range into. Fewer partitions are returned
+     * if there are not enough internal keys within the range, e.g. if the tree is a single leaf.
+     * @return {@link RawCursor cursors} used to iterate over the hits within each part of the specified key range.
+     * @throws IOException on error reading from index.
+     */
+    public List<RawCursor<Hit<KEY,VALUE>,IOException>> partitionedSeek( KEY fromInclusive, KEY toExclusive,
+            int desiredNumberOfPartitions ) throws IOException
+    {
+        if ( desiredNumberOfPartitions < 1 )
+        {
+            throw new IllegalArgumentException( "Need at least one partition, got " + desiredNumberOfPartitions );
+        }
+        if ( layout.compare( fromInclusive, toExclusive ) > 0 )
+        {
+            throw new IllegalArgumentException( "Partitioned seek only supports ascending ranges, got from " + fromInclusive +
+                    " to " + toExclusive );
+        }
+
+        List<KEY> edges = partitionEdges( fromInclusive, toExclusive, desiredNumberOfPartitions );
+        List<RawCursor<Hit<KEY,VALUE>,IOException>> partitions = new ArrayList<>( edges.size() + 1 );
+        try
+        {
+            KEY from = fromInclusive;
+            for ( KEY edge : edges )
+            {
+                partitions.add( seek( from, edge ) );
+                from = edge;
+            }
+            partitions.add( seek( from, toExclusive ) );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            IOUtils.closeAllSilently( partitions );
+            throw e;
+        }
+        return partitions;
+    }
+
+    /**
+     * Reads internal tree nodes level by level from the root, collecting the keys within the range, until a level
+     * has enough keys to split the range into the desired number of partitions, or the next level is the leaves.
+     * Keys are only used as edges between partitions, so a node which cannot be read consistently, e.g. because it
+     * has been reused by concurrent changes, simply stops the descent.
+     *
+     * @return sorted keys, between {@code fromInclusive} (exclusive) and {@code toExclusive} (exclusive), where to
+     * split the range, at most {@code desiredNumberOfPartitions - 1} of them.
+     */
+    private List<KEY> partitionEdges( KEY fromInclusive, KEY toExclusive, int desiredNumberOfPartitions ) throws IOException
+    {
+        long generation = this.generation;
+        long stableGeneration = stableGeneration( generation );
+        long unstableGeneration = unstableGeneration( generation );
+
+        List<KEY> edges = new ArrayList<>();
+        try ( PageCursor cursor = pagedFile.io( 0L /*ignored*/, PagedFile.PF_SHARED_READ_LOCK ) )
+        {
+            List<Long> level = new ArrayList<>();
+            level.add( root.id() );
+            while ( edges.size() < desiredNumberOfPartitions - 1 && !level.isEmpty() )
+            {
+                List<KEY> levelKeys = new ArrayList<>();
+                List<Long> children = new ArrayList<>();
+                for ( long nodeId : level )
+                {
+                    if ( !readInternalNodeInRange( cursor, nodeId, fromInclusive, toExclusive, stableGeneration,
+                            unstableGeneration, levelKeys, children ) )
+                    {
+                        children = null;
+                        break;
+                    }
+                }
+                if ( children == null )
+                {
+                    break;
+                }
+                edges = levelKeys;
+                level = children;
+            }
+        }
+
+        // Tree nodes read at slightly different times may overlap, keep only strictly ascending keys
+        edges.sort( layout );
+        List<KEY> distinctEdges = new ArrayList<>( edges.size() );
+        for ( KEY edge : edges )
+        {
+            if ( distinctEdges.isEmpty() || layout.compare( distinctEdges.get( distinctEdges.size() - 1 ), edge ) < 0 )
+            {
+                distinctEdges.add( edge );
+            }
+        }
+
+        // Spread the selected edges evenly over the keys of the level
+        int numberOfEdges = distinctEdges.size();
+        if ( numberOfEdges < desiredNumberOfPartitions )
+        {
+            return distinctEdges;
+        }
+        List<KEY> selectedEdges = new ArrayList<>( desiredNumberOfPartitions - 1 );
+        for ( int partition = 1; partition < desiredNumberOfPartitions; partition++ )
+        {
+            selectedEdges.add( distinctEdges.get( partition * (numberOfEdges + 1) / desiredNumberOfPartitions - 1 ) );
+        }
+        return selectedEdges;
+    }
+
+    /**
+     * Reads the keys and children of an internal tree node, which are within the given range.
+     *
+     * @return {@code true} if the node was read as an internal node, otherwise {@code false}, e.g. if it's a leaf.
+     */
+    private boolean readInternalNodeInRange( PageCursor cursor, long nodeId, KEY fromInclusive, KEY toExclusive,
+            long stableGeneration, long unstableGeneration, List<KEY> keys, List<Long> children ) throws IOException
+    {
+        TreeNode.goTo( cursor, "partition edge", nodeId );
+        List<KEY> nodeKeys = new ArrayList<>();
+        List<Long> nodeChildren = new ArrayList<>();
+        boolean internal;
+        do
+        {
+            nodeKeys.clear();
+            nodeChildren.clear();
+            int keyCount = TreeNode.keyCount( cursor );
+            internal = TreeNode.nodeType( cursor ) == TreeNode.NODE_TYPE_TREE_NODE && TreeNode.isInternal( cursor ) &&
+                    bTreeNode.reasonableKeyCount( keyCount );
+            if ( !internal )
+            {
+                continue;
+            }
+
+            KEY previousKey = null;
+            for ( int pos = 0; pos <= keyCount; pos++ )
+            {
+                KEY key = pos < keyCount ? bTreeNode.keyAt( cursor, layout.newKey(), pos, INTERNAL ) : null;
+                boolean childAfterFrom = key == null || layout.compare( key, fromInclusive ) > 0;
+                boolean childBeforeTo = previousKey == null || layout.compare( previousKey, toExclusive ) < 0;
+                if ( childAfterFrom && childBeforeTo )
+                {
+                    long child = bTreeNode.childAt( cursor, pos, stableGeneration, unstableGeneration );
+                    internal &= GenerationSafePointerPair.isSuccess( child );
+                    nodeChildren.add( GenerationSafePointerPair.pointer( child ) );
+                }
+                if ( key != null && childAfterFrom && layout.compare( key, toExclusive ) < 0 )
+                {
+                    nodeKeys.add( key );
+                }
+                previousKey = key;
+            }
+        }
+        while ( cursor.shouldRetry() );
+
+        if ( cursor.checkAndClearBoundsFlag() )
+        {
+            return false;
+        }
+        try
+        {
+            cursor.checkAndClearCursorException();
+        }
+        catch ( CursorException e )
+        {
+            return false;
+        }
+        if ( internal )
+        {
+            keys.addAll( nodeKeys );
+            children.addAll( nodeChildren );
+        }
+        return internal;
+    }
+
     /**
      * Checkpoints and flushes any pending changes to storage. After a successful call to this method
      * the data is durable and safe. {@link #writer() Changes} made after this call and until crashing or
@@ -1006,6 +1240,49 @@ public class GBPTree<KEY,VALUE> implements Closeable
         return writer;
     }
 
+    /**
+     * Returns a new {@link Writer} able to modify the index concurrently with other writers returned from this
+     * method, but not with the {@link #writer() single writer}. Each concurrent writer must only be used by one
+     * thread at a time, and must be closed after usage, typically by using try-with-resource clause.
+     * <p>
+     * Inserts and removals which can be done in place in a leaf are done concurrently, latching only that leaf.
+     * Those which change the structure of the tree, e.g. split or merge leaves, are done one at a time. So writers
+     * scale well when changing keys in different leaves of a tree that is already populated, i.e. where the share
+     * of changes causing splits is small. Changes to the same key from concurrent writers are applied in some order.
+     * <p>
+     * Concurrent writers block {@link #checkpoint(IOLimiter) checkpoints} just like the single writer does.
+     * A pending checkpoint blocks new concurrent writers until it has completed.
+     *
+     * @return a new {@link Writer} for this index. The returned writer must be {@link Writer#close() closed}.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> concurrentWriter() throws IOException
+    {
+        ConcurrentWriter concurrentWriter = new ConcurrentWriter();
+        concurrentWriter.initialize();
+        changesSinceLastCheckpoint = true;
+        return concurrentWriter;
+    }
+
+    /**
+     * Returns a {@link BulkLoader} for loading key/value pairs, in strictly ascending key order, into this tree,
+     * which must be empty. The tree is built bottom-up, which is much faster than inserting the same key/value pairs
+     * using a {@link #writer() writer}, and results in packed nodes. The loader excludes writers and checkpoints
+     * just like the single writer does. The loaded key/value pairs become visible to readers when the loader is
+     * {@link BulkLoader#close() closed}, and are persisted by the next {@link #checkpoint(IOLimiter) checkpoint}.
+     *
+     * @return a {@link BulkLoader} for this index. The returned loader must be {@link BulkLoader#close() closed}.
+     * @throws IOException on error accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     */
+    public BulkLoader<KEY,VALUE> bulkLoader() throws IOException
+    {
+        TreeBulkLoader bulkLoader = new TreeBulkLoader();
+        bulkLoader.initialize();
+        changesSinceLastCheckpoint = true;
+        return bulkLoader;
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1278,17 +1555,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         {
             if ( structurePropagation.hasRightKeyInsert )
             {
-                // New root
-                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
-                PageCursorUtil.goTo( cursor, "new root", newRootId );
-
-                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
-                        stableGeneration, unstableGeneration );
-                TreeNode.setKeyCount( cursor, 1 );
-                setRoot( newRootId );
+                setRoot( newRoot( cursor, structurePropagation, stableGeneration, unstableGeneration ) );
             }
             else if ( structurePropagation.hasMidChildUpdate )
             {
@@ -1319,6 +1586,348 @@ public class GBPTree<KEY,VALUE> implements Closeable
         }
     }
 
+    /**
+     * Creates a new root above a split root, leaving the cursor at the new root.
+     *
+     * @return id of the new root.
+     */
+    private long newRoot( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
+            long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
+        PageCursorUtil.goTo( cursor, "new root", newRootId );
+
+        bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+        bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                stableGeneration, unstableGeneration );
+        bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
+                stableGeneration, unstableGeneration );
+        TreeNode.setKeyCount( cursor, 1 );
+        return newRootId;
+    }
+
+    /**
+     * One of possibly many concurrent writers, see {@link #concurrentWriter()}. Every change starts from the root,
+     * since the path down the tree remembered by {@link InternalTreeLogic} may have been changed by other writers.
+     * The change is first tried in place in the leaf, holding the shared part of {@link #structureLock}. If the
+     * change requires structural changes it's instead redone holding the exclusive part.
+     */
+    private class ConcurrentWriter implements Writer<KEY,VALUE>
+    {
+        private final InternalTreeLogic<KEY,VALUE> treeLogic =
+                new InternalTreeLogic<>( freeList, format.create( pageSize, layout ), layout );
+        private final StructurePropagation<KEY> structurePropagation =
+                new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
+        private PageCursor cursor;
+        private boolean locked;
+
+        // Writer can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+
+        void initialize() throws IOException
+        {
+            boolean success = false;
+            try
+            {
+                // Block here until cleaning has completed, if cleaning was required
+                lock.concurrentWriterLock();
+                locked = true;
+                assertRecoveryCleanSuccessful();
+                cursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK );
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value ) throws IOException
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
+        {
+            try
+            {
+                boolean inserted;
+                structureLock.readLock().lock();
+                try
+                {
+                    goToRoot();
+                    inserted = treeLogic.insertInPlace( cursor, latches, key, value, valueMerger,
+                            stableGeneration, unstableGeneration );
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+
+                if ( !inserted )
+                {
+                    structureLock.writeLock().lock();
+                    try
+                    {
+                        goToRoot();
+                        treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
+                                stableGeneration, unstableGeneration );
+                        handleStructureChanges();
+                    }
+                    finally
+                    {
+                        structureLock.writeLock().unlock();
+                    }
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+
+            checkOutOfBounds( cursor );
+        }
+
+        @Override
+        public VALUE remove( KEY key ) throws IOException
+        {
+            VALUE result = layout.newValue();
+            try
+            {
+                InternalTreeLogic.InPlaceRemoval removal;
+                structureLock.readLock().lock();
+                try
+                {
+                    goToRoot();
+                    removal = treeLogic.removeInPlace( cursor, latches, key, result,
+                            stableGeneration, unstableGeneration );
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+
+                switch ( removal )
+                {
+                case NOT_FOUND:
+                    result = null;
+                    break;
+                case REMOVED:
+                    break;
+                case REMOVED_UNDERFLOW:
+                    structureLock.writeLock().lock();
+                    try
+                    {
+                        goToRoot();
+                        treeLogic.rebalanceUnderflow( cursor, structurePropagation, key,
+                                stableGeneration, unstableGeneration );
+                        handleStructureChanges();
+                    }
+                    finally
+                    {
+                        structureLock.writeLock().unlock();
+                    }
+                    break;
+                case NOT_IN_PLACE:
+                    structureLock.writeLock().lock();
+                    try
+                    {
+                        goToRoot();
+                        result = treeLogic.remove( cursor, structurePropagation, key, result,
+                                stableGeneration, unstableGeneration );
+                        handleStructureChanges();
+                    }
+                    finally
+                    {
+                        structureLock.writeLock().unlock();
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException( "Unknown removal outcome " + removal );
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+
+            checkOutOfBounds( cursor );
+            return result;
+        }
+
+        private void goToRoot() throws IOException
+        {
+            root.goTo( cursor );
+            assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
+            treeLogic.initialize( cursor );
+        }
+
+        private void handleStructureChanges() throws IOException
+        {
+            if ( structurePropagation.hasRightKeyInsert )
+            {
+                GBPTree.this.setRoot(
+                        newRoot( cursor, structurePropagation, stableGeneration, unstableGeneration ), unstableGeneration );
+            }
+            else if ( structurePropagation.hasMidChildUpdate )
+            {
+                GBPTree.this.setRoot( GenerationSafePointerPair.pointer( structurePropagation.midChild ),
+                        unstableGeneration );
+            }
+            structurePropagation.clear();
+        }
+
+        @Override
+        public void close()
+        {
+            if ( cursor != null )
+            {
+                cursor.close();
+                cursor = null;
+            }
+            if ( locked )
+            {
+                locked = false;
+                lock.concurrentWriterUnlock();
+            }
+        }
+    }
+
+    /**
+     * {@link BulkLoader} building a new tree using {@link BulkLoadTreeLogic} and replacing the empty root with
+     * the root of the new tree when closed.
+     */
+    private class TreeBulkLoader implements BulkLoader<KEY,VALUE>
+    {
+        private PageCursor leafCursor;
+        private PageCursor internalCursor;
+        private BulkLoadTreeLogic<KEY,VALUE> treeLogic;
+        private long emptyRootId;
+        private boolean locked;
+
+        // Loader can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+
+        void initialize() throws IOException
+        {
+            boolean success = false;
+            try
+            {
+                // Block here until cleaning has completed, if cleaning was required
+                lock.writerAndCleanerLock();
+                locked = true;
+                assertRecoveryCleanSuccessful();
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                leafCursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK );
+                if ( !TreeNode.isLeaf( leafCursor ) || TreeNode.keyCount( leafCursor ) != 0 )
+                {
+                    throw new IllegalStateException( "Can only bulk load into an empty tree" );
+                }
+                emptyRootId = root.id();
+                internalCursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK );
+                treeLogic = new BulkLoadTreeLogic<>( freeList, bTreeNode, layout, leafCursor, internalCursor,
+                        stableGeneration, unstableGeneration );
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    closeCursors();
+                    unlock();
+                }
+            }
+        }
+
+        @Override
+        public void add( KEY key, VALUE value ) throws IOException
+        {
+            if ( treeLogic == null )
+            {
+                throw new IllegalStateException( "Bulk loader of " + GBPTree.this + " is already closed." );
+            }
+            try
+            {
+                treeLogic.add( key, value );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            checkOutOfBounds( leafCursor );
+            checkOutOfBounds( internalCursor );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if ( treeLogic == null )
+            {
+                throw new IllegalStateException( "Tried to close bulk loader of " + GBPTree.this +
+                        ", but bulk loader is already closed." );
+            }
+            try
+            {
+                setRoot( treeLogic.finish(), unstableGeneration );
+                freeList.releaseId( stableGeneration, unstableGeneration, emptyRootId );
+            }
+            finally
+            {
+                treeLogic = null;
+                closeCursors();
+                unlock();
+            }
+        }
+
+        private void closeCursors()
+        {
+            if ( leafCursor != null )
+            {
+                leafCursor.close();
+                leafCursor = null;
+            }
+            if ( internalCursor != null )
+            {
+                internalCursor.close();
+                internalCursor = null;
+            }
+        }
+
+        private void unlock()
+        {
+            if ( locked )
+            {
+                locked = false;
+                lock.writerAndCleanerUnlock();
+            }
+        }
+    }
+
     public boolean wasDirtyOnStartup()
     {
         return dirtyOnStartup;
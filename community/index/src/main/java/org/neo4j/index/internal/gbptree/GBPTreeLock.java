@@ -24,11 +24,20 @@ import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+/**
+ * Lock with an exclusive writer part and an exclusive cleaner part, as well as a shared part for concurrent writers.
+ * Concurrent writers hold the lock together, excluding both the writer and the cleaner part, and vice versa.
+ * Anyone waiting for the writer or cleaner part blocks new concurrent writers, so that a steady stream of
+ * overlapping concurrent writers can't starve a checkpoint.
+ */
 class GBPTreeLock
 {
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    private static final long exclusiveWaitingBit = 0x00000000_00000004L;
+    private static final long concurrentWriterUnit = 0x00000001_00000000L;
+    private static final long concurrentWritersMask = 0x7FFFFFFF_00000000L;
     private volatile long state;
 
     // Used for testing
@@ -69,6 +78,35 @@ class GBPTreeLock
         doUnlock( writerLockBit | cleanerLockBit );
     }
 
+    void concurrentWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( (currentState & (writerLockBit | cleanerLockBit | exclusiveWaitingBit)) != 0 )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + concurrentWriterUnit ) );
+    }
+
+    void concurrentWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & concurrentWritersMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock lock that is already locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - concurrentWriterUnit ) );
+    }
+
     private void doLock( long targetLockBit )
     {
         long currentState;
@@ -78,11 +116,16 @@ class GBPTreeLock
             currentState = state;
             while ( !canLock( currentState, targetLockBit ) )
             {
+                if ( (currentState & targetLockBit) == 0 && (currentState & exclusiveWaitingBit) == 0 )
+                {
+                    // Only waiting for concurrent writers, keep new ones from coming in meanwhile
+                    UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState | exclusiveWaitingBit );
+                }
                 // sleep
                 sleep();
                 currentState = state;
             }
-            newState = currentState | targetLockBit;
+            newState = (currentState | targetLockBit) & ~exclusiveWaitingBit;
         } while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, newState ) );
     }
 
@@ -104,7 +147,7 @@ class GBPTreeLock
 
     private boolean canLock( long state, long targetLockBit )
     {
-        return (state & targetLockBit) == 0;
+        return (state & (targetLockBit | concurrentWritersMask)) == 0;
     }
 
     private boolean canUnlock( long state, long targetLockBit )
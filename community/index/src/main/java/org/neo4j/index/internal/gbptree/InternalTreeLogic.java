@@ -22,6 +22,7 @@ package org.neo4j.index.internal.gbptree;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.locks.Lock;
 
 import org.neo4j.index.internal.gbptree.TreeNode.Overflow;
 import org.neo4j.io.pagecache.PageCursor;
@@ -84,6 +85,22 @@ import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
  */
 class InternalTreeLogic<KEY,VALUE>
 {
+    /**
+     * Outcome of {@link #removeInPlace(PageCursor, NodeLatches, Object, Object, long, long)}.
+     */
+    enum InPlaceRemoval
+    {
+        /** Key not found, nothing removed. */
+        NOT_FOUND,
+        /** Key removed. */
+        REMOVED,
+        /** Key removed, but the leaf underflowed and needs {@link #rebalanceUnderflow(PageCursor,
+         * StructurePropagation, Object, long, long) rebalancing}. */
+        REMOVED_UNDERFLOW,
+        /** Nothing removed, since removing the key requires structural changes. */
+        NOT_IN_PLACE
+    }
+
     private final IdProvider idProvider;
     private final TreeNode<KEY,VALUE> bTreeNode;
     private final Layout<KEY,VALUE> layout;
@@ -358,6 +375,69 @@ class InternalTreeLogic<KEY,VALUE>
         handleStructureChanges( cursor, structurePropagation, stableGeneration, unstableGeneration );
     }
 
+    /**
+     * Insert {@code key} and associate it with {@code value}, or merge with the existing value, if that can be done
+     * in place in the leaf, i.e. without splitting it or creating a new generation of it. Internal nodes are only
+     * read, so concurrent callers need to be excluded from structural changes, but not from each other. The leaf is
+     * latched using {@code latches} while it's read and changed.
+     * <p>
+     * If the insert can't be done in place nothing is changed, and it has to be done by
+     * {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, long, long)} instead.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree, after {@link #initialize(PageCursor)}.
+     * @param latches {@link NodeLatches} for the leaf.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return {@code true} if the insert was done, otherwise {@code false}.
+     * @throws IOException on cursor failure
+     */
+    boolean insertInPlace( PageCursor cursor, NodeLatches latches, KEY key, VALUE value,
+            ValueMerger<KEY,VALUE> valueMerger, long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        bTreeNode.validateKeyValueSize( key, value );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
+
+        Lock latch = latches.latch( cursor.getCurrentPageId() );
+        latch.lock();
+        try
+        {
+            if ( TreeNode.generation( cursor ) != unstableGeneration )
+            {
+                return false;
+            }
+            int keyCount = TreeNode.keyCount( cursor );
+            int search = search( cursor, LEAF, key, readKey, keyCount );
+            int pos = positionOf( search );
+            if ( isHit( search ) )
+            {
+                bTreeNode.valueAt( cursor, readValue, pos );
+                VALUE mergedValue = valueMerger.merge( readKey, key, readValue, value );
+                return mergedValue == null || bTreeNode.setValueAt( cursor, mergedValue, pos );
+            }
+
+            Overflow overflow = bTreeNode.leafOverflow( cursor, keyCount, key, value );
+            if ( overflow == YES )
+            {
+                return false;
+            }
+            if ( overflow == NO_NEED_DEFRAG )
+            {
+                bTreeNode.defragmentLeaf( cursor );
+            }
+            bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
+            TreeNode.setKeyCount( cursor, keyCount + 1 );
+            return true;
+        }
+        finally
+        {
+            latch.unlock();
+        }
+    }
+
     private int search( PageCursor cursor, TreeNode.Type type, KEY key, KEY readKey, int keyCount )
     {
         int searchResult = KeySearch.search( cursor, bTreeNode, type, key, readKey, keyCount );
@@ -716,6 +796,92 @@ class InternalTreeLogic<KEY,VALUE>
         return into;
     }
 
+    /**
+     * Remove given {@code key} and associated value if that can be done in place in the leaf, i.e. without creating
+     * a new generation of it. Concurrency works like for
+     * {@link #insertInPlace(PageCursor, NodeLatches, Object, Object, ValueMerger, long, long)}.
+     * <p>
+     * A leaf which underflows as a result of the removal is left as is, to be
+     * {@link #rebalanceUnderflow(PageCursor, StructurePropagation, Object, long, long) rebalanced} by the caller
+     * when structural changes are allowed.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree, after {@link #initialize(PageCursor)}.
+     * @param latches {@link NodeLatches} for the leaf.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return outcome of the removal.
+     * @throws IOException on cursor failure
+     */
+    InPlaceRemoval removeInPlace( PageCursor cursor, NodeLatches latches, KEY key, VALUE into,
+            long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
+
+        Lock latch = latches.latch( cursor.getCurrentPageId() );
+        latch.lock();
+        try
+        {
+            int keyCount = TreeNode.keyCount( cursor );
+            int search = search( cursor, LEAF, key, readKey, keyCount );
+            if ( !isHit( search ) )
+            {
+                return InPlaceRemoval.NOT_FOUND;
+            }
+            if ( TreeNode.generation( cursor ) != unstableGeneration )
+            {
+                return InPlaceRemoval.NOT_IN_PLACE;
+            }
+            keyCount = simplyRemoveFromLeaf( cursor, into, keyCount, positionOf( search ) );
+            // A leaf without siblings, i.e. the root, has nothing to rebalance with
+            boolean hasSibling =
+                    TreeNode.isNode( TreeNode.leftSibling( cursor, stableGeneration, unstableGeneration ) ) ||
+                    TreeNode.isNode( TreeNode.rightSibling( cursor, stableGeneration, unstableGeneration ) );
+            return hasSibling && bTreeNode.leafUnderflow( cursor, keyCount )
+                   ? InPlaceRemoval.REMOVED_UNDERFLOW : InPlaceRemoval.REMOVED;
+        }
+        finally
+        {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Rebalances, or merges, the leaf covering {@code key} with its siblings if it underflows, e.g. after
+     * {@link #removeInPlace(PageCursor, NodeLatches, Object, Object, long, long)}. The leaf may have been rebalanced
+     * already, or may no longer underflow, in which case nothing is changed.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree, after {@link #initialize(PageCursor)}.
+     * @param structurePropagation {@link StructurePropagation} used to report structure changes between tree levels.
+     * @param key key in the range of the leaf.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @throws IOException on cursor failure
+     */
+    void rebalanceUnderflow( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY key,
+            long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
+
+        int keyCount = TreeNode.keyCount( cursor );
+        if ( !bTreeNode.leafUnderflow( cursor, keyCount ) )
+        {
+            return;
+        }
+        createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD, stableGeneration, unstableGeneration );
+        underflowInLeaf( cursor, structurePropagation, keyCount, stableGeneration, unstableGeneration );
+
+        handleStructureChanges( cursor, structurePropagation, stableGeneration, unstableGeneration );
+
+        if ( currentLevel <= 0 )
+        {
+            tryShrinkTree( cursor, structurePropagation, stableGeneration, unstableGeneration );
+        }
+    }
+
     private void handleStructureChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
             long stableGeneration, long unstableGeneration ) throws IOException
     {
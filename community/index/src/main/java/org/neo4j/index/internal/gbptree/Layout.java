@@ -109,6 +109,35 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      * @return true if keys and values are fixed size, otherwise true.
      */
     boolean fixedSize();
+
+    /**
+     * Indicate if keys, as written by {@link #writeKey(PageCursor, Object)}, commonly share leading bytes with
+     * neighbouring keys, e.g. strings like URLs or email addresses. For such a dynamic size layout the tree
+     * uses a format which stores the leading bytes that all keys in a tree node have in common only once per node.
+     * Changing the answer of this method changes the format of the tree and so requires a new {@link #minorVersion()}.
+     *
+     * @return true if the tree should compress common key prefixes, otherwise false.
+     */
+    default boolean compressKeyPrefixes()
+    {
+        return false;
+    }
+
+    /**
+     * Writes into {@code into} the smallest key, possibly shorter than {@code right}, which is greater than
+     * {@code left} and less than or equal to {@code right}, such that it can separate the two keys in an internal
+     * tree node. Shorter separator keys gives higher fan-out of internal nodes.
+     * The returned key is only ever compared with other keys, never returned from a seek.
+     *
+     * @param left key which is less than {@code right}.
+     * @param right key which is greater than {@code left}.
+     * @param into key to write the separator into, not the same instance as {@code left} or {@code right}.
+     */
+    default void minimalSplitter( KEY left, KEY right, KEY into )
+    {
+        copyKey( right, into );
+    }
+
     /**
      * Used as verification when loading an index after creation, to verify that the same layout is used,
      * as the one it was initially created with.
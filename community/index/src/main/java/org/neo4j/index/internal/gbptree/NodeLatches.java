@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latches for tree nodes, used by concurrent writers to change leaves in place. Latches are striped by node id,
+ * so nodes sharing a stripe are latched together, which is fine since a writer never holds more than one latch.
+ */
+class NodeLatches
+{
+    private static final int STRIPES = 1 << 10;
+
+    private final Lock[] latches = new Lock[STRIPES];
+
+    NodeLatches()
+    {
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            latches[i] = new ReentrantLock();
+        }
+    }
+
+    Lock latch( long nodeId )
+    {
+        return latches[(int) (nodeId ^ (nodeId >>> 32)) & (STRIPES - 1)];
+    }
+}
@@ -61,11 +61,24 @@ import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
  *  0         1     2           6         10            34           58         82           84          86
  *
  * See {@link DynamicSizeUtil} for more detailed layout for individual offset array entries and key / key_value entries.
+ *
+ * PREFIX COMPRESSION
+ * In format version {@link #FORMAT_VERSION_PREFIX_COMPRESSION} the header also contains the length of a prefix, which
+ * all keys in the node have in common. The prefix is stored once, at the end of the page, and each key is stored
+ * without it, i.e. only its suffix. Key sizes in the key entries are sizes of those suffixes.
+ * [                                   HEADER   88B                                                   ]|...[  KEYS  ][PREFIX]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR][ALLOCOFFSET][DEADSPACE][PREFIXLENGTH]|
+ *  0         1     2           6         10            34           58         82           84         86            88
+ *
+ * The prefix shrinks when inserting a key which doesn't start with the whole prefix and it grows when the node gets
+ * defragmented, which is also done to avoid splitting a node which would fit the new key with a longer prefix.
+ * Separator keys of leaf splits are also made as short as possible, see {@link Layout#minimalSplitter(Object, Object, Object)}.
  */
 public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 {
     static final byte FORMAT_IDENTIFIER = 3;
     static final byte FORMAT_VERSION = 0;
+    static final byte FORMAT_VERSION_PREFIX_COMPRESSION = 1;
 
     /**
      * Concepts
@@ -85,6 +98,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private static final int BYTE_POS_ALLOCOFFSET = BASE_HEADER_LENGTH;
     private static final int BYTE_POS_DEADSPACE = BYTE_POS_ALLOCOFFSET + bytesPageOffset();
     private static final int HEADER_LENGTH_DYNAMIC = BYTE_POS_DEADSPACE + bytesPageOffset();
+    private static final int BYTE_POS_PREFIXLENGTH = HEADER_LENGTH_DYNAMIC;
+    private static final int HEADER_LENGTH_PREFIX_COMPRESSION = BYTE_POS_PREFIXLENGTH + bytesPageOffset();
 
     private static final int LEAST_NUMBER_OF_ENTRIES_PER_PAGE = 2;
     private static final int MINIMUM_ENTRY_SIZE_CAP = Long.SIZE;
@@ -96,13 +111,33 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private final int[] newOffset = new int[maxKeyCount];
     private final int totalSpace;
     private final int halfSpace;
+    private final boolean prefixCompression;
+    private final int headerLength;
+
+    // Only used with prefix compression. Keys read by readers are decoded in a buffer of the reading thread,
+    // other buffers are only used when writing, which is done by a single thread per instance.
+    private final ThreadLocal<KeyBuffer> readKeyBuffer;
+    private final KeyBuffer writeKeyBuffer;
+    private final byte[] nodeBuffer;
+    private final PageCursor nodeBufferCursor;
+    private final KEY splitLeftKey;
+    private final KEY splitRightKey;
+    private final int[] splitSpaces;
+    private final int[] splitNewPrefixSpaces;
 
     TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        this( pageSize, layout, false );
+    }
+
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, boolean prefixCompression )
     {
         super( pageSize, layout );
-        totalSpace = pageSize - HEADER_LENGTH_DYNAMIC;
+        this.prefixCompression = prefixCompression;
+        headerLength = prefixCompression ? HEADER_LENGTH_PREFIX_COMPRESSION : HEADER_LENGTH_DYNAMIC;
+        totalSpace = pageSize - headerLength;
         halfSpace = totalSpace / 2;
-        keyValueSizeCap = keyValueSizeCapFromPageSize( pageSize );
+        keyValueSizeCap = keyValueSizeCap( pageSize, headerLength );
 
         if ( keyValueSizeCap < MINIMUM_ENTRY_SIZE_CAP )
         {
@@ -111,12 +146,46 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                             "with current page size of %dB. We require this cap to be at least %dB.",
                     LEAST_NUMBER_OF_ENTRIES_PER_PAGE, keyValueSizeCap, pageSize, Long.SIZE );
         }
+
+        if ( prefixCompression )
+        {
+            readKeyBuffer = ThreadLocal.withInitial( () -> new KeyBuffer( keyValueSizeCap ) );
+            writeKeyBuffer = new KeyBuffer( pageSize );
+            nodeBuffer = new byte[pageSize];
+            nodeBufferCursor = new ScratchPageCursor( nodeBuffer );
+            splitLeftKey = layout.newKey();
+            splitRightKey = layout.newKey();
+            splitSpaces = new int[maxKeyCount + 1];
+            splitNewPrefixSpaces = new int[maxKeyCount + 1];
+        }
+        else
+        {
+            readKeyBuffer = null;
+            writeKeyBuffer = null;
+            nodeBuffer = null;
+            nodeBufferCursor = null;
+            splitLeftKey = null;
+            splitRightKey = null;
+            splitSpaces = null;
+            splitNewPrefixSpaces = null;
+        }
     }
 
     @VisibleForTesting
     public static int keyValueSizeCapFromPageSize( int pageSize )
     {
-        return (pageSize - HEADER_LENGTH_DYNAMIC) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - SIZE_TOTAL_OVERHEAD;
+        return keyValueSizeCap( pageSize, HEADER_LENGTH_DYNAMIC );
+    }
+
+    @VisibleForTesting
+    public static int prefixCompressedKeyValueSizeCapFromPageSize( int pageSize )
+    {
+        return keyValueSizeCap( pageSize, HEADER_LENGTH_PREFIX_COMPRESSION );
+    }
+
+    private static int keyValueSizeCap( int pageSize, int headerLength )
+    {
+        return (pageSize - headerLength) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - SIZE_TOTAL_OVERHEAD;
     }
 
     @Override
@@ -124,6 +193,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     {
         setAllocOffset( cursor, pageSize );
         setDeadSpace( cursor, 0 );
+        if ( prefixCompression )
+        {
+            setPrefixLength( cursor, 0 );
+        }
     }
 
     @Override
@@ -140,7 +213,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
             return into;
         }
-        layout.readKey( cursor, into, keySize );
+        readKey( cursor, into, keySize );
         return into;
     }
 
@@ -157,7 +230,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
             return;
         }
-        layout.readKey( cursor, intoKey, keySize );
+        readKey( cursor, intoKey, keySize );
         layout.readValue( cursor, intoValue, valueSize );
     }
 
@@ -165,15 +238,18 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount, long stableGeneration,
             long unstableGeneration )
     {
+        // Which prefix can key be written with?
+        int prefixLength = prefixLengthForNewKey( cursor, key, keyCount, INTERNAL );
+
         // Where to write key?
         int currentKeyOffset = getAllocOffset( cursor );
-        int keySize = layout.keySize( key );
+        int keySize = layout.keySize( key ) - prefixLength;
         int newKeyOffset = currentKeyOffset - keySize - getOverhead( keySize, 0 );
 
         // Write key
         cursor.setOffset( newKeyOffset );
         putKeySize( cursor, keySize );
-        layout.writeKey( cursor, key );
+        writeKey( cursor, key, prefixLength, keySize );
 
         // Update alloc space
         setAllocOffset( cursor, newKeyOffset );
@@ -188,16 +264,19 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount )
     {
+        // Which prefix can key be written with?
+        int prefixLength = prefixLengthForNewKey( cursor, key, keyCount, LEAF );
+
         // Where to write key?
         int currentKeyValueOffset = getAllocOffset( cursor );
-        int keySize = layout.keySize( key );
+        int keySize = layout.keySize( key ) - prefixLength;
         int valueSize = layout.valueSize( value );
         int newKeyValueOffset = currentKeyValueOffset - keySize - valueSize - getOverhead( keySize, valueSize );
 
         // Write key and value
         cursor.setOffset( newKeyValueOffset );
         putKeyValueSize( cursor, keySize, valueSize );
-        layout.writeKey( cursor, key );
+        writeKey( cursor, key, prefixLength, keySize );
         layout.writeValue( cursor, value );
 
         // Update alloc space
@@ -286,11 +365,17 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         {
             readUnreliableKeyValueSize( cursor, oldKeySize, oldValueSize, keyValueSize, pos );
         }
-        int newKeySize = layout.keySize( key );
+        int prefixLength = prefixLength( cursor );
+        if ( prefixLength > 0 && matchingPrefixLength( cursor, key, prefixLength ) < prefixLength )
+        {
+            // Key doesn't start with the prefix of this node
+            return false;
+        }
+        int newKeySize = layout.keySize( key ) - prefixLength;
         if ( newKeySize == oldKeySize )
         {
             // Fine, we can just overwrite
-            layout.writeKey( cursor, key );
+            writeKey( cursor, key, prefixLength, newKeySize );
             return true;
         }
         return false;
@@ -392,6 +477,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     Overflow internalOverflow( PageCursor cursor, int currentKeyCount, KEY newKey )
     {
+        if ( prefixCompression )
+        {
+            return prefixCompressedOverflow( cursor, currentKeyCount, newKey, null, INTERNAL );
+        }
+
         // How much space do we have?
         int allocSpace = getAllocSpace( cursor, currentKeyCount, INTERNAL );
         int deadSpace = getDeadSpace( cursor );
@@ -407,6 +497,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     Overflow leafOverflow( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue )
     {
+        if ( prefixCompression )
+        {
+            return prefixCompressedOverflow( cursor, currentKeyCount, newKey, newValue, LEAF );
+        }
+
         // How much space do we have?
         int deadSpace = getDeadSpace( cursor );
         int allocSpace = getAllocSpace( cursor, currentKeyCount, LEAF );
@@ -419,16 +514,65 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                neededSpace < allocSpace + deadSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
     }
 
+    private Overflow prefixCompressedOverflow( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue, Type type )
+    {
+        int prefixLength = prefixLength( cursor );
+        int matchingPrefixLength = matchingPrefixLength( cursor, newKey, prefixLength );
+        int neededSpace = totalSpaceOfNewKey( newKey, newValue, matchingPrefixLength, type );
+        if ( matchingPrefixLength < prefixLength )
+        {
+            // Inserting this key will rewrite the node with a shorter prefix, which makes all other keys longer
+            int availableSpace = totalSpace - activeSpace( cursor, currentKeyCount, type, matchingPrefixLength );
+            return neededSpace < availableSpace ? Overflow.NO : Overflow.YES;
+        }
+
+        int allocSpace = getAllocSpace( cursor, currentKeyCount, type );
+        int deadSpace = getDeadSpace( cursor );
+        if ( neededSpace < allocSpace )
+        {
+            return Overflow.NO;
+        }
+        if ( neededSpace < allocSpace + deadSpace )
+        {
+            return Overflow.NO_NEED_DEFRAG;
+        }
+
+        // Rather than splitting, see if the key fits after defragmenting with a longer prefix
+        int longerPrefixLength = commonPrefixLength( cursor, currentKeyCount, type, writeKeyBuffer.bytes, layout.keySize( newKey ) );
+        if ( longerPrefixLength > prefixLength )
+        {
+            neededSpace = totalSpaceOfNewKey( newKey, newValue, longerPrefixLength, type );
+            int availableSpace = totalSpace - activeSpace( cursor, currentKeyCount, type, longerPrefixLength );
+            if ( neededSpace < availableSpace )
+            {
+                return Overflow.NO_NEED_DEFRAG;
+            }
+        }
+        return Overflow.YES;
+    }
+
     @Override
     void defragmentLeaf( PageCursor cursor )
     {
-        doDefragment( cursor, LEAF );
+        defragment( cursor, keyCount( cursor ), LEAF );
     }
 
     @Override
     void defragmentInternal( PageCursor cursor )
     {
-        doDefragment( cursor, INTERNAL );
+        defragment( cursor, keyCount( cursor ), INTERNAL );
+    }
+
+    private void defragment( PageCursor cursor, int keyCount, Type type )
+    {
+        if ( prefixCompression )
+        {
+            compact( cursor, keyCount, type );
+        }
+        else
+        {
+            doDefragment( cursor, type );
+        }
     }
 
     private void doDefragment( PageCursor cursor, Type type )
@@ -583,10 +727,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
+        // Keys moved to right sibling will share the prefix that the two siblings have in common
+        int prefixLength = sharedPrefixLength( leftCursor, rightCursor );
+        int prefixDelta = prefixLength( leftCursor ) - prefixLength;
         int leftActiveSpace = totalActiveSpace( leftCursor, leftKeyCount );
-        int rightActiveSpace = totalActiveSpace( rightCursor, rightKeyCount );
+        int rightActiveSpace = activeSpace( rightCursor, rightKeyCount, LEAF, prefixLength );
 
-        if ( leftActiveSpace + rightActiveSpace < totalSpace )
+        if ( mergedActiveSpace( leftCursor, leftKeyCount, rightActiveSpace, prefixLength ) < totalSpace )
         {
             // We can merge
             return -1;
@@ -601,12 +748,15 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int currentDelta = Math.abs( leftActiveSpace - rightActiveSpace );
         int keysToMove = 0;
         int lastChunkSize;
+        int lastMovedChunkSize;
         do
         {
             keysToMove++;
             lastChunkSize = totalSpaceOfKeyValue( leftCursor, leftKeyCount - keysToMove );
+            lastMovedChunkSize = prefixDelta == 0 ? lastChunkSize :
+                                 totalSpaceOfKeyValue( leftCursor, leftKeyCount - keysToMove, prefixDelta );
             leftActiveSpace -= lastChunkSize;
-            rightActiveSpace += lastChunkSize;
+            rightActiveSpace += lastMovedChunkSize;
 
             prevDelta = currentDelta;
             currentDelta = Math.abs( leftActiveSpace - rightActiveSpace );
@@ -614,20 +764,29 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         while ( currentDelta < prevDelta );
         keysToMove--; // Move back to optimal split
         leftActiveSpace += lastChunkSize;
-        rightActiveSpace -= lastChunkSize;
+        rightActiveSpace -= lastMovedChunkSize;
 
         int halfSpace = this.halfSpace;
-        boolean canRebalance = leftActiveSpace > halfSpace && rightActiveSpace > halfSpace;
+        boolean canRebalance = leftActiveSpace > halfSpace && rightActiveSpace > halfSpace && rightActiveSpace <= totalSpace;
         return canRebalance ? keysToMove : 0;
     }
 
     @Override
     boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
-        int leftActiveSpace = totalActiveSpace( leftCursor, leftKeyCount );
-        int rightActiveSpace = totalActiveSpace( rightCursor, rightKeyCount );
+        int prefixLength = sharedPrefixLength( leftCursor, rightCursor );
+        int rightActiveSpace = activeSpace( rightCursor, rightKeyCount, LEAF, prefixLength );
         int totalSpace = this.totalSpace;
-        return totalSpace >= leftActiveSpace + rightActiveSpace;
+        return totalSpace >= mergedActiveSpace( leftCursor, leftKeyCount, rightActiveSpace, prefixLength );
+    }
+
+    /**
+     * @return active space of right sibling if all keys in left sibling were copied into it, both having given prefix.
+     */
+    private int mergedActiveSpace( PageCursor leftCursor, int leftKeyCount, int rightActiveSpace, int prefixLength )
+    {
+        // The prefix is stored only once in merged node
+        return activeSpace( leftCursor, leftKeyCount, LEAF, prefixLength ) - prefixLength + rightActiveSpace;
     }
 
     @Override
@@ -636,7 +795,9 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     {
         // Find middle
         int keyCountAfterInsert = leftKeyCount + 1;
-        int middlePos = middlePosInLeaf( leftCursor, insertPos, newKey, newValue, keyCountAfterInsert );
+        int middlePos = prefixCompression ?
+                        prefixCompressedMiddlePos( leftCursor, insertPos, newKey, newValue, keyCountAfterInsert, LEAF ) :
+                        middlePosInLeaf( leftCursor, insertPos, newKey, newValue, keyCountAfterInsert );
 
         if ( middlePos == insertPos )
         {
@@ -647,6 +808,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             keyAt( leftCursor, newSplitter, insertPos < middlePos ? middlePos - 1 : middlePos, LEAF );
         }
         int rightKeyCount = keyCountAfterInsert - middlePos;
+        copyPrefix( leftCursor, rightCursor );
 
         if ( insertPos < middlePos )
         {
@@ -675,6 +837,16 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         }
         TreeNode.setKeyCount( leftCursor, middlePos );
         TreeNode.setKeyCount( rightCursor, rightKeyCount );
+
+        if ( prefixCompression )
+        {
+            compact( rightCursor, rightKeyCount, LEAF );
+
+            // Separate the two leaves by as short key as possible, which keeps internal nodes small
+            keyAt( leftCursor, splitLeftKey, middlePos - 1, LEAF );
+            keyAt( rightCursor, splitRightKey, 0, LEAF );
+            layout.minimalSplitter( splitLeftKey, splitRightKey, newSplitter );
+        }
     }
 
     @Override
@@ -682,7 +854,9 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter )
     {
         int keyCountAfterInsert = leftKeyCount + 1;
-        int middlePos = middleInternal( leftCursor, insertPos, newKey, keyCountAfterInsert );
+        int middlePos = prefixCompression ?
+                        prefixCompressedMiddlePos( leftCursor, insertPos, newKey, null, keyCountAfterInsert, INTERNAL ) :
+                        middleInternal( leftCursor, insertPos, newKey, keyCountAfterInsert );
 
         if ( middlePos == insertPos )
         {
@@ -693,6 +867,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             keyAt( leftCursor, newSplitter, insertPos < middlePos ? middlePos - 1 : middlePos, INTERNAL );
         }
         int rightKeyCount = keyCountAfterInsert - middlePos - 1; // -1 because don't keep prim key in internal
+        copyPrefix( leftCursor, rightCursor );
 
         if ( insertPos < middlePos )
         {
@@ -706,7 +881,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             moveKeysAndChildren( leftCursor, middlePos, rightCursor, 0, rightKeyCount, true );
             // Rightmost key in left is the one we send up to parent, remove it from here.
             removeKeyAndRightChildAt( leftCursor, middlePos - 1, middlePos );
-            defragmentInternal( leftCursor );
+            defragment( leftCursor, middlePos - 1, INTERNAL );
             insertKeyAndRightChildAt( leftCursor, newKey, newRightChild, insertPos, middlePos - 1, stableGeneration, unstableGeneration );
         }
         else
@@ -735,7 +910,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 int copyFrom = middlePos;
                 int copyCount = leftKeyCount - copyFrom;
                 moveKeysAndChildren( leftCursor, copyFrom, rightCursor, 0, copyCount, false );
-                defragmentInternal( leftCursor );
+                defragment( leftCursor, middlePos, INTERNAL );
                 setChildAt( rightCursor, newRightChild, 0, stableGeneration, unstableGeneration );
             }
             else
@@ -745,20 +920,25 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 moveKeysAndChildren( leftCursor, copyFrom, rightCursor, 0, copyCount, true );
                 // Rightmost key in left is the one we send up to parent, remove it from here.
                 removeKeyAndRightChildAt( leftCursor, middlePos, middlePos + 1 );
-                defragmentInternal( leftCursor );
+                defragment( leftCursor, middlePos, INTERNAL );
                 insertKeyAndRightChildAt( rightCursor, newKey, newRightChild, insertPos - copyFrom, copyCount,
                         stableGeneration, unstableGeneration );
             }
         }
         TreeNode.setKeyCount( leftCursor, middlePos );
         TreeNode.setKeyCount( rightCursor, rightKeyCount );
+
+        if ( prefixCompression )
+        {
+            compact( rightCursor, rightKeyCount, INTERNAL );
+        }
     }
 
     @Override
     void moveKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount,
             int fromPosInLeftNode )
     {
-        defragmentLeaf( rightCursor );
+        prepareRightSibling( leftCursor, rightCursor, rightKeyCount );
         int numberOfKeysToMove = leftKeyCount - fromPosInLeftNode;
 
         // Push keys and values in right sibling to the right
@@ -771,14 +951,33 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         setKeyCount( rightCursor, rightKeyCount + numberOfKeysToMove );
     }
 
+    /**
+     * Defragments right sibling before keys gets moved or copied into it from left sibling. With prefix compression
+     * the right sibling also gets the prefix that it has in common with left sibling.
+     */
+    private void prepareRightSibling( PageCursor leftCursor, PageCursor rightCursor, int rightKeyCount )
+    {
+        if ( prefixCompression )
+        {
+            rewrite( rightCursor, rightKeyCount, LEAF, sharedPrefixLength( leftCursor, rightCursor ) );
+        }
+        else
+        {
+            defragmentLeaf( rightCursor );
+        }
+    }
+
     // NOTE: Does update keyCount
     private void moveKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
     {
-        int firstAllocOffset = getAllocOffset( toCursor );
-        int toAllocOffset = firstAllocOffset;
+        int prefixDelta = loadPrefixDelta( fromCursor, toCursor );
+        int toAllocOffset = getAllocOffset( toCursor );
+        int totalMovedBytes = 0;
         for ( int i = 0; i < count; i++, toPos++ )
         {
-            toAllocOffset = moveRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset );
+            // Moved entries may grow in 'to', dead space in 'from' is their size in 'from'
+            totalMovedBytes += totalSpaceOfKeyValue( fromCursor, fromPos + i ) - bytesKeyOffset();
+            toAllocOffset = moveRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset, prefixDelta );
             toCursor.setOffset( keyPosOffsetLeaf( toPos ) );
             putKeyOffset( toCursor, toAllocOffset );
         }
@@ -786,7 +985,6 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
         // Update deadspace
         int deadSpace = getDeadSpace( fromCursor );
-        int totalMovedBytes = firstAllocOffset - toAllocOffset;
         setDeadSpace( fromCursor, deadSpace + totalMovedBytes );
 
         // Key count
@@ -798,19 +996,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
      * Mark transferred key as dead.
      * @return new alloc offset in 'to'
      */
-    private int moveRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset )
+    private int moveRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset, int prefixDelta )
     {
-        // What to copy?
         placeCursorAtActualKey( fromCursor, fromPos, LEAF );
         int fromKeyOffset = fromCursor.getOffset();
-        long keyValueSize = readKeyValueSize( fromCursor );
-        int keySize = extractKeySize( keyValueSize );
-        int valueSize = extractValueSize( keyValueSize );
-
-        // Copy
-        int toCopy = getOverhead( keySize, valueSize ) + keySize + valueSize;
-        int newRightAllocSpace = toAllocOffset - toCopy;
-        fromCursor.copyTo( fromKeyOffset, toCursor, newRightAllocSpace, toCopy );
+        int newRightAllocSpace = transferRawKeyValue( fromCursor, toCursor, toAllocOffset, prefixDelta );
 
         // Put tombstone
         fromCursor.setOffset( fromKeyOffset );
@@ -821,7 +1011,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     void copyKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
-        defragmentLeaf( rightCursor );
+        prepareRightSibling( leftCursor, rightCursor, rightKeyCount );
 
         // Push keys and values in right sibling to the right
         insertSlotsAt( rightCursor, 0, leftKeyCount, rightKeyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
@@ -835,10 +1025,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
     private void copyKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
     {
+        int prefixDelta = loadPrefixDelta( fromCursor, toCursor );
         int toAllocOffset = getAllocOffset( toCursor );
         for ( int i = 0; i < count; i++, toPos++ )
         {
-            toAllocOffset = copyRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset );
+            toAllocOffset = copyRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset, prefixDelta );
             toCursor.setOffset( keyPosOffsetLeaf( toPos ) );
             putKeyOffset( toCursor, toAllocOffset );
         }
@@ -850,19 +1041,43 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
      * Does NOT mark transferred key as dead.
      * @return new alloc offset in 'to'
      */
-    private int copyRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset )
+    private int copyRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset, int prefixDelta )
     {
-        // What to copy?
         placeCursorAtActualKey( fromCursor, fromPos, LEAF );
+        return transferRawKeyValue( fromCursor, toCursor, toAllocOffset, prefixDelta );
+    }
+
+    /**
+     * Copy key and value at current offset of 'from' to physical position next to current alloc offset in 'to'.
+     * If 'to' has a shorter prefix than 'from', the prefix bytes it lacks, previously loaded by
+     * {@link #loadPrefixDelta(PageCursor, PageCursor)}, are prepended to the copied key.
+     * @return new alloc offset in 'to'
+     */
+    private int transferRawKeyValue( PageCursor fromCursor, PageCursor toCursor, int toAllocOffset, int prefixDelta )
+    {
+        // What to copy?
         int fromKeyOffset = fromCursor.getOffset();
         long keyValueSize = readKeyValueSize( fromCursor );
         int keySize = extractKeySize( keyValueSize );
         int valueSize = extractValueSize( keyValueSize );
 
-        // Copy
-        int toCopy = getOverhead( keySize, valueSize ) + keySize + valueSize;
-        int newRightAllocSpace = toAllocOffset - toCopy;
-        fromCursor.copyTo( fromKeyOffset, toCursor, newRightAllocSpace, toCopy );
+        if ( prefixDelta == 0 )
+        {
+            // Copy
+            int toCopy = getOverhead( keySize, valueSize ) + keySize + valueSize;
+            int newRightAllocSpace = toAllocOffset - toCopy;
+            fromCursor.copyTo( fromKeyOffset, toCursor, newRightAllocSpace, toCopy );
+            return newRightAllocSpace;
+        }
+
+        // Copy with longer key
+        int keyOffset = fromCursor.getOffset();
+        int newKeySize = keySize + prefixDelta;
+        int newRightAllocSpace = toAllocOffset - getOverhead( newKeySize, valueSize ) - newKeySize - valueSize;
+        toCursor.setOffset( newRightAllocSpace );
+        putKeyValueSize( toCursor, newKeySize, valueSize );
+        toCursor.putBytes( writeKeyBuffer.bytes, 0, prefixDelta );
+        fromCursor.copyTo( keyOffset, toCursor, toCursor.getOffset(), keySize + valueSize );
         return newRightAllocSpace;
     }
 
@@ -1082,6 +1297,92 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return middle;
     }
 
+    /**
+     * Calculates where to split a node with prefix compression if inserting a key overflows. Keys on the side of the
+     * split which gets the new key will have the prefix that the new key has in common with the node, which is shorter
+     * than the current prefix if the new key doesn't start with all of it, whereas keys on the other side keep
+     * the current prefix. Out of the positions where keys on both sides fit, the one which gives the left side
+     * the space closest to half of the node is selected, like for nodes without prefix compression.
+     *
+     * @param cursor {@link PageCursor} to use for reading sizes of existing entries.
+     * @param insertPos the pos which the new key will be inserted at.
+     * @param newKey key to be inserted.
+     * @param newValue value to be inserted, or {@code null} for internal nodes.
+     * @param keyCountAfterInsert key count including the new key.
+     * @param type {@link Type} of the node.
+     * @return the pos where to split, for internal nodes the pos of the key which goes up to the parent.
+     */
+    private int prefixCompressedMiddlePos( PageCursor cursor, int insertPos, KEY newKey, VALUE newValue, int keyCountAfterInsert,
+            Type type )
+    {
+        int prefixLength = prefixLength( cursor );
+        int newPrefixLength = newKeyPrefixLength( cursor, newKey );
+        int prefixDelta = prefixLength - newPrefixLength;
+
+        // Space of each key, with current prefix and with the prefix of the side which gets the new key
+        int[] spaces = splitSpaces;
+        int[] newPrefixSpaces = splitNewPrefixSpaces;
+        int totalKeySpace = 0;
+        int totalNewPrefixKeySpace = 0;
+        for ( int pos = 0, keyPos = 0; pos < keyCountAfterInsert; pos++ )
+        {
+            if ( pos == insertPos )
+            {
+                spaces[pos] = totalSpaceOfNewKey( newKey, newValue, newPrefixLength, type );
+                newPrefixSpaces[pos] = spaces[pos];
+            }
+            else
+            {
+                spaces[pos] = type == LEAF ? totalSpaceOfKeyValue( cursor, keyPos, 0 ) : totalSpaceOfKeyChild( cursor, keyPos, 0 );
+                newPrefixSpaces[pos] = prefixDelta == 0 ? spaces[pos] :
+                                       type == LEAF ? totalSpaceOfKeyValue( cursor, keyPos, prefixDelta ) :
+                                       totalSpaceOfKeyChild( cursor, keyPos, prefixDelta );
+                keyPos++;
+            }
+            totalKeySpace += spaces[pos];
+            totalNewPrefixKeySpace += newPrefixSpaces[pos];
+        }
+
+        // Leftmost child is always included in internal nodes
+        int baseSpace = type == LEAF ? 0 : childSize();
+        int middle = -1;
+        int bestDelta = Integer.MAX_VALUE;
+        int leftKeySpace = 0;
+        int leftNewPrefixKeySpace = 0;
+        for ( int pos = 0; pos < keyCountAfterInsert; pos++ )
+        {
+            // Leaves keep the key at pos in the right node, internal nodes send it up to parent
+            int rightKeySpace = totalKeySpace - leftKeySpace;
+            int rightNewPrefixKeySpace = totalNewPrefixKeySpace - leftNewPrefixKeySpace;
+            if ( type == INTERNAL )
+            {
+                rightKeySpace -= spaces[pos];
+                rightNewPrefixKeySpace -= newPrefixSpaces[pos];
+            }
+            int rightFromPos = type == LEAF ? pos : pos + 1;
+            int leftSpace = baseSpace + (insertPos < pos ? newPrefixLength + leftNewPrefixKeySpace : prefixLength + leftKeySpace);
+            int rightSpace = baseSpace + (insertPos >= rightFromPos ? newPrefixLength + rightNewPrefixKeySpace : prefixLength + rightKeySpace);
+
+            boolean possible = (type == INTERNAL || pos > 0) && leftSpace <= totalSpace && rightSpace <= totalSpace;
+            int delta = Math.abs( leftSpace - halfSpace );
+            if ( possible && delta < bestDelta )
+            {
+                middle = pos;
+                bestDelta = delta;
+            }
+            leftKeySpace += spaces[pos];
+            leftNewPrefixKeySpace += newPrefixSpaces[pos];
+        }
+
+        if ( middle == -1 )
+        {
+            throw new IllegalStateException(
+                    format( "There's not enough space to insert new key, even when splitting the node. Space needed:%d, max space allowed:%d",
+                            totalNewPrefixKeySpace + newPrefixLength, totalSpace * 2 ) );
+        }
+        return middle;
+    }
+
     private int totalActiveSpace( PageCursor cursor, int keyCount )
     {
         int deadSpace = getDeadSpace( cursor );
@@ -1089,32 +1390,80 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return totalSpace - deadSpace - allocSpace;
     }
 
+    /**
+     * @return active space of node if it was rewritten with prefix of given length, including the prefix itself.
+     */
+    private int activeSpace( PageCursor cursor, int keyCount, Type type, int newPrefixLength )
+    {
+        int prefixLength = prefixLength( cursor );
+        if ( newPrefixLength == prefixLength )
+        {
+            return totalSpace - getDeadSpace( cursor ) - getAllocSpace( cursor, keyCount, type );
+        }
+
+        int prefixDelta = prefixLength - newPrefixLength;
+        int space = newPrefixLength + (type == LEAF ? keyPosOffsetLeaf( 0 ) : keyPosOffsetInternal( 0 )) - headerLength;
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            space += type == LEAF ? totalSpaceOfKeyValue( cursor, pos, prefixDelta ) : totalSpaceOfKeyChild( cursor, pos, prefixDelta );
+        }
+        return space;
+    }
+
+    private int totalSpaceOfNewKey( KEY key, VALUE value, int prefixLength, Type type )
+    {
+        return type == LEAF ? totalSpaceOfKeyValue( key, value, prefixLength ) : totalSpaceOfKeyChild( key, prefixLength );
+    }
+
     private int totalSpaceOfKeyValue( KEY key, VALUE value )
     {
-        int keySize = layout.keySize( key );
+        return totalSpaceOfKeyValue( key, value, 0 );
+    }
+
+    private int totalSpaceOfKeyValue( KEY key, VALUE value, int prefixLength )
+    {
+        int keySize = layout.keySize( key ) - prefixLength;
         int valueSize = layout.valueSize( value );
         return bytesKeyOffset() + getOverhead( keySize, valueSize ) + keySize + valueSize;
     }
 
     private int totalSpaceOfKeyChild( KEY key )
     {
-        int keySize = layout.keySize( key );
+        return totalSpaceOfKeyChild( key, 0 );
+    }
+
+    private int totalSpaceOfKeyChild( KEY key, int prefixLength )
+    {
+        int keySize = layout.keySize( key ) - prefixLength;
         return bytesKeyOffset() + getOverhead( keySize, 0 ) + childSize() + keySize;
     }
 
     private int totalSpaceOfKeyValue( PageCursor cursor, int pos )
+    {
+        return totalSpaceOfKeyValue( cursor, pos, 0 );
+    }
+
+    /**
+     * @param prefixDelta number of bytes that the key at given pos would grow with if the node got a shorter prefix.
+     */
+    private int totalSpaceOfKeyValue( PageCursor cursor, int pos, int prefixDelta )
     {
         placeCursorAtActualKey( cursor, pos, LEAF );
         long keyValueSize = readKeyValueSize( cursor );
-        int keySize = extractKeySize( keyValueSize );
+        int keySize = extractKeySize( keyValueSize ) + prefixDelta;
         int valueSize = extractValueSize( keyValueSize );
         return bytesKeyOffset() + getOverhead( keySize, valueSize ) + keySize + valueSize;
     }
 
     private int totalSpaceOfKeyChild( PageCursor cursor, int pos )
+    {
+        return totalSpaceOfKeyChild( cursor, pos, 0 );
+    }
+
+    private int totalSpaceOfKeyChild( PageCursor cursor, int pos, int prefixDelta )
     {
         placeCursorAtActualKey( cursor, pos, INTERNAL );
-        int keySize = extractKeySize( readKeyValueSize( cursor ) );
+        int keySize = extractKeySize( readKeyValueSize( cursor ) ) + prefixDelta;
         return bytesKeyOffset() + getOverhead( keySize, 0 ) + childSize() + keySize;
     }
 
@@ -1138,6 +1487,284 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return PageCursorUtil.getUnsignedShort( cursor, BYTE_POS_DEADSPACE );
     }
 
+    private void setPrefixLength( PageCursor cursor, int prefixLength )
+    {
+        putUnsignedShort( cursor, BYTE_POS_PREFIXLENGTH, prefixLength );
+    }
+
+    private int prefixLength( PageCursor cursor )
+    {
+        return prefixCompression ? PageCursorUtil.getUnsignedShort( cursor, BYTE_POS_PREFIXLENGTH ) : 0;
+    }
+
+    /**
+     * Reads key, of given stored size, at current offset of cursor. With prefix compression the prefix of the node and
+     * the stored suffix are first put together in a buffer, from which the key is read.
+     * Leaves cursor at the end of the stored key.
+     */
+    private void readKey( PageCursor cursor, KEY into, int keySize )
+    {
+        int prefixLength = prefixLength( cursor );
+        if ( prefixLength == 0 )
+        {
+            layout.readKey( cursor, into, keySize );
+            return;
+        }
+
+        if ( keyValueSizeTooLarge( prefixLength + keySize, 0 ) )
+        {
+            cursor.setCursorException( format( "Read unreliable key, prefixLength=%d, keySize=%d, keyValueSizeCap=%d",
+                    prefixLength, keySize, keyValueSizeCap() ) );
+            return;
+        }
+        KeyBuffer buffer = readKeyBuffer.get();
+        int suffixOffset = cursor.getOffset();
+        cursor.setOffset( pageSize - prefixLength );
+        cursor.getBytes( buffer.bytes, 0, prefixLength );
+        cursor.setOffset( suffixOffset );
+        cursor.getBytes( buffer.bytes, prefixLength, keySize );
+        buffer.cursor.setOffset( 0 );
+        layout.readKey( buffer.cursor, into, prefixLength + keySize );
+    }
+
+    /**
+     * Writes key at current offset of cursor, without the first {@code prefixLength} bytes. A non-zero prefix length
+     * must come from {@link #prefixLengthForNewKey(PageCursor, Object, int, Type)} for the same key, which leaves
+     * the key encoded in the write key buffer.
+     */
+    private void writeKey( PageCursor cursor, KEY key, int prefixLength, int keySize )
+    {
+        if ( prefixLength == 0 )
+        {
+            layout.writeKey( cursor, key );
+        }
+        else
+        {
+            cursor.putBytes( writeKeyBuffer.bytes, prefixLength, keySize );
+        }
+    }
+
+    /**
+     * Encodes given key into the write key buffer and compares it with the prefix of the node.
+     * Doesn't move the cursor.
+     *
+     * @return length of the part of the prefix of the node which given key starts with.
+     */
+    private int matchingPrefixLength( PageCursor cursor, KEY key, int prefixLength )
+    {
+        KeyBuffer buffer = writeKeyBuffer;
+        buffer.cursor.setOffset( 0 );
+        layout.writeKey( buffer.cursor, key );
+        int maxLength = Math.min( prefixLength, layout.keySize( key ) );
+        int prefixOffset = pageSize - prefixLength;
+        int length = 0;
+        while ( length < maxLength && cursor.getByte( prefixOffset + length ) == buffer.bytes[length] )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    private int newKeyPrefixLength( PageCursor cursor, KEY key )
+    {
+        int prefixLength = prefixLength( cursor );
+        return prefixLength == 0 ? 0 : matchingPrefixLength( cursor, key, prefixLength );
+    }
+
+    /**
+     * Makes sure that the prefix of the node is one which given key starts with, by rewriting the node with a shorter
+     * prefix if needed.
+     *
+     * @return length of prefix to strip from given key when writing it.
+     */
+    private int prefixLengthForNewKey( PageCursor cursor, KEY key, int keyCount, Type type )
+    {
+        int prefixLength = prefixLength( cursor );
+        if ( prefixLength == 0 )
+        {
+            return 0;
+        }
+        int matchingPrefixLength = matchingPrefixLength( cursor, key, prefixLength );
+        if ( matchingPrefixLength < prefixLength )
+        {
+            rewrite( cursor, keyCount, type, matchingPrefixLength );
+        }
+        return matchingPrefixLength;
+    }
+
+    /**
+     * @param candidate bytes of a key which starts with the prefix of the node.
+     * @return length of the longest prefix which given candidate has in common with all keys in the node.
+     */
+    private int commonPrefixLength( PageCursor cursor, int keyCount, Type type, byte[] candidate, int candidateLength )
+    {
+        int prefixLength = prefixLength( cursor );
+        int commonPrefixLength = candidateLength;
+        for ( int pos = 0; pos < keyCount && commonPrefixLength > prefixLength; pos++ )
+        {
+            placeCursorAtActualKey( cursor, pos, type );
+            int keySize = extractKeySize( readKeyValueSize( cursor ) );
+            int suffixOffset = cursor.getOffset() - prefixLength;
+            int length = prefixLength;
+            int maxLength = Math.min( commonPrefixLength, prefixLength + keySize );
+            while ( length < maxLength && cursor.getByte( suffixOffset + length ) == candidate[length] )
+            {
+                length++;
+            }
+            commonPrefixLength = length;
+        }
+        return commonPrefixLength;
+    }
+
+    /**
+     * @return length of the longest prefix that the prefixes of the two sibling nodes have in common.
+     */
+    private int sharedPrefixLength( PageCursor leftCursor, PageCursor rightCursor )
+    {
+        int leftPrefixLength = prefixLength( leftCursor );
+        int rightPrefixLength = prefixLength( rightCursor );
+        int maxLength = Math.min( leftPrefixLength, rightPrefixLength );
+        int leftPrefixOffset = pageSize - leftPrefixLength;
+        int rightPrefixOffset = pageSize - rightPrefixLength;
+        int length = 0;
+        while ( length < maxLength && leftCursor.getByte( leftPrefixOffset + length ) == rightCursor.getByte( rightPrefixOffset + length ) )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Gives an empty node the same prefix as the node which keys will be moved from, so that they can be moved as is.
+     */
+    private void copyPrefix( PageCursor fromCursor, PageCursor toCursor )
+    {
+        int prefixLength = prefixLength( fromCursor );
+        if ( prefixLength > 0 )
+        {
+            fromCursor.copyTo( pageSize - prefixLength, toCursor, pageSize - prefixLength, prefixLength );
+            setAllocOffset( toCursor, pageSize - prefixLength );
+            setPrefixLength( toCursor, prefixLength );
+        }
+    }
+
+    /**
+     * Loads the bytes of the prefix of 'from' that 'to' lacks, i.e. what keys moved from 'from' to 'to' are to be
+     * prepended with, into the write key buffer. The prefix of 'to' must be a prefix of the prefix of 'from'.
+     *
+     * @return number of loaded bytes.
+     */
+    private int loadPrefixDelta( PageCursor fromCursor, PageCursor toCursor )
+    {
+        int fromPrefixLength = prefixLength( fromCursor );
+        int toPrefixLength = prefixLength( toCursor );
+        int prefixDelta = fromPrefixLength - toPrefixLength;
+        if ( prefixDelta > 0 )
+        {
+            fromCursor.setOffset( pageSize - fromPrefixLength + toPrefixLength );
+            fromCursor.getBytes( writeKeyBuffer.bytes, 0, prefixDelta );
+        }
+        return prefixDelta;
+    }
+
+    /**
+     * Rewrites node with the longest prefix that all its keys have in common, which also gets rid of dead space.
+     */
+    private void compact( PageCursor cursor, int keyCount, Type type )
+    {
+        int commonPrefixLength = 0;
+        if ( keyCount > 0 )
+        {
+            // Find how much of the first key all other keys also start with
+            int prefixLength = prefixLength( cursor );
+            placeCursorAtActualKey( cursor, 0, type );
+            int keySize = extractKeySize( readKeyValueSize( cursor ) );
+            int suffixOffset = cursor.getOffset();
+            byte[] firstKey = writeKeyBuffer.bytes;
+            cursor.setOffset( pageSize - prefixLength );
+            cursor.getBytes( firstKey, 0, prefixLength );
+            cursor.setOffset( suffixOffset );
+            cursor.getBytes( firstKey, prefixLength, keySize );
+            commonPrefixLength = commonPrefixLength( cursor, keyCount, type, firstKey, prefixLength + keySize );
+        }
+        rewrite( cursor, keyCount, type, commonPrefixLength );
+    }
+
+    /**
+     * Rewrites the keys of the node, in a copy of it, such that they are stored with a prefix of given length instead
+     * of the current prefix. A shorter prefix makes the stored keys longer and a longer prefix makes them shorter.
+     * Keys are written in the same physical order as the offset array, without any dead space.
+     */
+    private void rewrite( PageCursor cursor, int keyCount, Type type, int newPrefixLength )
+    {
+        int prefixLength = prefixLength( cursor );
+        int allocOffset = getAllocOffset( cursor );
+
+        // Copy the node data, which is read from the copy while rewriting the node
+        cursor.setOffset( allocOffset );
+        cursor.getBytes( nodeBuffer, allocOffset, pageSize - allocOffset );
+        PageCursor fromCursor = nodeBufferCursor;
+
+        // The new prefix, where a longer prefix takes its additional bytes from the first key
+        int newAllocOffset = pageSize - newPrefixLength;
+        cursor.setOffset( newAllocOffset );
+        cursor.putBytes( nodeBuffer, pageSize - prefixLength, Math.min( prefixLength, newPrefixLength ) );
+        if ( newPrefixLength > prefixLength )
+        {
+            placeCursorAtActualKey( cursor, 0, type );
+            fromCursor.setOffset( cursor.getOffset() );
+            readKeyValueSize( fromCursor );
+            cursor.setOffset( pageSize - newPrefixLength + prefixLength );
+            cursor.putBytes( nodeBuffer, fromCursor.getOffset(), newPrefixLength - prefixLength );
+        }
+
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            placeCursorAtActualKey( cursor, pos, type );
+            fromCursor.setOffset( cursor.getOffset() );
+            long keyValueSize = readKeyValueSize( fromCursor );
+            int keySize = extractKeySize( keyValueSize );
+            int valueSize = type == LEAF ? extractValueSize( keyValueSize ) : 0;
+            int suffixOffset = fromCursor.getOffset();
+
+            int newKeySize = keySize + prefixLength - newPrefixLength;
+            newAllocOffset -= getOverhead( newKeySize, valueSize ) + newKeySize + valueSize;
+            cursor.setOffset( newAllocOffset );
+            if ( type == LEAF )
+            {
+                putKeyValueSize( cursor, newKeySize, valueSize );
+            }
+            else
+            {
+                putKeySize( cursor, newKeySize );
+            }
+            if ( newPrefixLength < prefixLength )
+            {
+                // Key grows with the part of the old prefix which isn't in the new prefix
+                cursor.putBytes( nodeBuffer, pageSize - prefixLength + newPrefixLength, prefixLength - newPrefixLength );
+                cursor.putBytes( nodeBuffer, suffixOffset, keySize + valueSize );
+            }
+            else
+            {
+                // Key shrinks with the part of the new prefix which wasn't in the old prefix
+                int shrink = newPrefixLength - prefixLength;
+                cursor.putBytes( nodeBuffer, suffixOffset + shrink, keySize - shrink + valueSize );
+            }
+
+            cursor.setOffset( keyPosOffset( pos, type ) );
+            putKeyOffset( cursor, newAllocOffset );
+        }
+
+        // Zero pad freed space
+        if ( newAllocOffset > allocOffset )
+        {
+            zeroPad( cursor, allocOffset, newAllocOffset - allocOffset );
+        }
+        setAllocOffset( cursor, newAllocOffset );
+        setDeadSpace( cursor, 0 );
+        setPrefixLength( cursor, newPrefixLength );
+    }
+
     private void placeCursorAtActualKey( PageCursor cursor, int pos, Type type )
     {
         // Set cursor to correct place in offset array
@@ -1148,10 +1775,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int keyOffset = readKeyOffset( cursor );
 
         // Verify offset is reasonable
-        if ( keyOffset >= pageSize || keyOffset < HEADER_LENGTH_DYNAMIC )
+        if ( keyOffset >= pageSize || keyOffset < headerLength )
         {
             cursor.setCursorException( format( "Tried to read key on offset=%d, headerLength=%d, pageSize=%d, pos=%d",
-                    keyOffset, HEADER_LENGTH_DYNAMIC, pageSize, pos ) );
+                    keyOffset, headerLength, pageSize, pos ) );
             return;
         }
 
@@ -1184,13 +1811,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
     private int keyPosOffsetLeaf( int pos )
     {
-        return HEADER_LENGTH_DYNAMIC + pos * bytesKeyOffset();
+        return headerLength + pos * bytesKeyOffset();
     }
 
     private int keyPosOffsetInternal( int pos )
     {
         // header + childPointer + pos * (keyPosOffsetSize + childPointer)
-        return HEADER_LENGTH_DYNAMIC + childSize() + pos * keyChildSize();
+        return headerLength + childSize() + pos * keyChildSize();
     }
 
     private int keyChildSize()
@@ -1216,7 +1843,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     public String toString()
     {
-        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() + "]";
+        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() +
+               ", prefixCompression:" + prefixCompression + "]";
     }
 
     private String asString( PageCursor cursor, boolean includeValue, boolean includeAllocSpace,
@@ -1232,7 +1860,9 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         // HEADER
         int allocOffset = getAllocOffset( cursor );
         int deadSpace = getDeadSpace( cursor );
-        String additionalHeader = "{" + cursor.getCurrentPageId() + "} [allocOffset=" + allocOffset + " deadSpace=" + deadSpace + "] ";
+        int prefixLength = prefixLength( cursor );
+        String additionalHeader = "{" + cursor.getCurrentPageId() + "} [allocOffset=" + allocOffset + " deadSpace=" + deadSpace +
+                (prefixCompression ? " prefixLength=" + prefixLength : "") + "] ";
 
         // OFFSET ARRAY
         String offsetArray = readOffsetArray( cursor, stableGeneration, unstableGeneration, type );
@@ -1249,7 +1879,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         VALUE readValue = layout.newValue();
         StringJoiner keys = new StringJoiner( " " );
         cursor.setOffset( allocOffset );
-        while ( cursor.getOffset() < cursor.getCurrentPageSize() )
+        while ( cursor.getOffset() < cursor.getCurrentPageSize() - prefixLength )
         {
             StringJoiner singleKey = new StringJoiner( "|" );
             singleKey.add( Integer.toString( cursor.getOffset() ) );
@@ -1268,7 +1898,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             {
                 singleKey.add( "_" );
             }
-            layout.readKey( cursor, readKey, keySize );
+            readKey( cursor, readKey, keySize );
             if ( type == LEAF )
             {
                 layout.readValue( cursor, readValue, valueSize );
@@ -1336,4 +1966,16 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         }
         return offsetArray.toString();
     }
+
+    private static class KeyBuffer
+    {
+        private final byte[] bytes;
+        private final PageCursor cursor;
+
+        KeyBuffer( int size )
+        {
+            bytes = new byte[size];
+            cursor = new ScratchPageCursor( bytes );
+        }
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.index.internal.gbptree.SimpleLongLayout.longLayout;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+@RunWith( Parameterized.class )
+public class GBPTreeBulkLoadTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    @Parameterized.Parameters( name = "fixedSize:{0}" )
+    public static Collection<Object[]> layouts()
+    {
+        return Arrays.asList( new Object[]{true}, new Object[]{false} );
+    }
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final Layout<MutableLong,MutableLong> layout;
+
+    public GBPTreeBulkLoadTest( boolean fixedSize )
+    {
+        layout = longLayout().withFixedSize( fixedSize ).build();
+    }
+
+    @Test
+    public void shouldLoadSortedKeysIntoEmptyTree() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> expected = randomEntries( random.nextInt( 10_000, 50_000 ) );
+        PageCache pageCache = pageCache();
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache ) )
+        {
+            // when
+            load( tree, expected );
+
+            // then
+            assertContents( tree, expected );
+            assertTrue( tree.consistencyCheck() );
+            tree.checkpoint( IOLimiter.unlimited() );
+        }
+
+        // and when reopened
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache ) )
+        {
+            assertContents( tree, expected );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldLoadSingleLeaf() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> expected = randomEntries( 3 );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            // when
+            load( tree, expected );
+
+            // then
+            assertContents( tree, expected );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldLeaveTreeEmptyWhenLoadingNothing() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            // when
+            load( tree, new TreeMap<>() );
+
+            // then
+            assertContents( tree, new TreeMap<>() );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldSupportRegularWritesAfterLoad() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> expected = randomEntries( 10_000 );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            load( tree, expected );
+            tree.checkpoint( IOLimiter.unlimited() );
+
+            // when
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+            {
+                for ( int i = 0; i < 5_000; i++ )
+                {
+                    long key = random.nextLong( 1_000_000 );
+                    if ( random.nextBoolean() )
+                    {
+                        long value = random.nextLong();
+                        writer.put( new MutableLong( key ), new MutableLong( value ) );
+                        expected.put( key, value );
+                    }
+                    else
+                    {
+                        writer.remove( new MutableLong( key ) );
+                        expected.remove( key );
+                    }
+                }
+            }
+
+            // then
+            assertContents( tree, expected );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldThrowOnKeysNotInStrictlyAscendingOrder() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() );
+              BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader() )
+        {
+            loader.add( new MutableLong( 10 ), new MutableLong( 1 ) );
+            try
+            {
+                // when
+                loader.add( new MutableLong( 10 ), new MutableLong( 2 ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // then good
+            }
+        }
+    }
+
+    @Test
+    public void shouldThrowWhenLoadingIntoNonEmptyTree() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            // given
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+            {
+                writer.put( new MutableLong( 1 ), new MutableLong( 1 ) );
+            }
+
+            try
+            {
+                // when
+                tree.bulkLoader();
+                fail( "Should have failed" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // then good
+            }
+
+            // and the writer is still available
+            tree.writer().close();
+        }
+    }
+
+    private TreeMap<Long,Long> randomEntries( int count )
+    {
+        TreeMap<Long,Long> entries = new TreeMap<>();
+        while ( entries.size() < count )
+        {
+            entries.put( random.nextLong( 1_000_000 ), random.nextLong() );
+        }
+        return entries;
+    }
+
+    private static void load( GBPTree<MutableLong,MutableLong> tree, TreeMap<Long,Long> entries ) throws IOException
+    {
+        MutableLong key = new MutableLong();
+        MutableLong value = new MutableLong();
+        try ( BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader() )
+        {
+            for ( Map.Entry<Long,Long> entry : entries.entrySet() )
+            {
+                key.setValue( entry.getKey() );
+                value.setValue( entry.getValue() );
+                loader.add( key, value );
+            }
+        }
+    }
+
+    private static void assertContents( GBPTree<MutableLong,MutableLong> tree, TreeMap<Long,Long> expected )
+            throws IOException
+    {
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      tree.seek( new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            for ( Map.Entry<Long,Long> entry : expected.entrySet() )
+            {
+                assertTrue( "Expected key " + entry.getKey(), cursor.next() );
+                assertEquals( entry.getKey().longValue(), cursor.get().key().longValue() );
+                assertEquals( entry.getValue().longValue(), cursor.get().value().longValue() );
+            }
+            assertFalse( cursor.next() );
+        }
+        // and exact seeks, which go down through the internal levels
+        for ( Map.Entry<Long,Long> entry : expected.entrySet() )
+        {
+            try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                          tree.seek( new MutableLong( entry.getKey() ), new MutableLong( entry.getKey() + 1 ) ) )
+            {
+                assertTrue( "Expected key " + entry.getKey(), cursor.next() );
+                assertEquals( entry.getValue().longValue(), cursor.get().value().longValue() );
+            }
+        }
+    }
+
+    private PageCache pageCache()
+    {
+        return pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+    }
+
+    private GBPTree<MutableLong,MutableLong> index( PageCache pageCache ) throws IOException
+    {
+        return new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+    }
+}
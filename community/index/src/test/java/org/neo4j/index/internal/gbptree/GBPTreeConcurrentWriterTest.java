@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.index.internal.gbptree.SimpleLongLayout.longLayout;
+import static org.neo4j.index.internal.gbptree.ThrowingRunnable.throwing;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+@RunWith( Parameterized.class )
+public class GBPTreeConcurrentWriterTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    @Parameterized.Parameters( name = "fixedSize:{0}" )
+    public static Collection<Object[]> layouts()
+    {
+        return Arrays.asList( new Object[]{true}, new Object[]{false} );
+    }
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final Layout<MutableLong,MutableLong> layout;
+
+    public GBPTreeConcurrentWriterTest( boolean fixedSize )
+    {
+        layout = longLayout().withFixedSize( fixedSize ).build();
+    }
+
+    @Test
+    public void shouldInsertAndRemoveConcurrentlyInDisjointRanges() throws Throwable
+    {
+        // given
+        int threads = 4;
+        int keysPerThread = 2_000;
+        TreeMap<Long,Long>[] expected = newExpected( threads );
+        try ( GBPTree<MutableLong,MutableLong> tree = index() )
+        {
+            // when
+            Race race = new Race();
+            for ( int t = 0; t < threads; t++ )
+            {
+                long seed = random.nextLong();
+                long rangeStart = (long) t * keysPerThread;
+                TreeMap<Long,Long> threadExpected = expected[t];
+                race.addContestant( throwing( () ->
+                        randomChanges( tree, new Random( seed ), rangeStart, keysPerThread, threadExpected ) ) );
+            }
+            race.go();
+
+            // then
+            TreeMap<Long,Long> all = new TreeMap<>();
+            for ( TreeMap<Long,Long> threadExpected : expected )
+            {
+                all.putAll( threadExpected );
+            }
+            assertContents( tree, all );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldMergeValuesOfSameKeysFromConcurrentWriters() throws Throwable
+    {
+        // given
+        int threads = 4;
+        int keys = 500;
+        int rounds = 10;
+        ValueMerger<MutableLong,MutableLong> adder = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            existingValue.add( newValue.longValue() );
+            return existingValue;
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = index() )
+        {
+            // when
+            Race race = new Race();
+            race.addContestants( threads, throwing( () ->
+            {
+                for ( int round = 0; round < rounds; round++ )
+                {
+                    try ( Writer<MutableLong,MutableLong> writer = tree.concurrentWriter() )
+                    {
+                        for ( long key = 0; key < keys; key++ )
+                        {
+                            writer.merge( new MutableLong( key ), new MutableLong( 1 ), adder );
+                        }
+                    }
+                }
+            } ) );
+            race.go();
+
+            // then
+            TreeMap<Long,Long> expected = new TreeMap<>();
+            for ( long key = 0; key < keys; key++ )
+            {
+                expected.put( key, (long) threads * rounds );
+            }
+            assertContents( tree, expected );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldKeepChangesFromConcurrentWritersOverCheckpoint() throws Throwable
+    {
+        // given
+        TreeMap<Long,Long>[] expected = newExpected( 2 );
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache ) )
+        {
+            Race race = new Race();
+            race.addContestant( throwing( () -> randomChanges( tree, new Random( 1 ), 0, 1_000, expected[0] ) ) );
+            race.addContestant( throwing( () -> randomChanges( tree, new Random( 2 ), 1_000, 1_000, expected[1] ) ) );
+            race.addContestant( throwing( () ->
+            {
+                for ( int i = 0; i < 5; i++ )
+                {
+                    tree.checkpoint( IOLimiter.unlimited() );
+                }
+            } ) );
+            race.go();
+            tree.checkpoint( IOLimiter.unlimited() );
+        }
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache ) )
+        {
+            // then
+            TreeMap<Long,Long> all = new TreeMap<>( expected[0] );
+            all.putAll( expected[1] );
+            assertContents( tree, all );
+            assertTrue( tree.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldBlockSingleWriterUntilConcurrentWritersClosed() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try ( GBPTree<MutableLong,MutableLong> tree = index() )
+        {
+            // given
+            Writer<MutableLong,MutableLong> first = tree.concurrentWriter();
+            Writer<MutableLong,MutableLong> second = tree.concurrentWriter();
+
+            // when
+            Future<?> singleWriter = executor.submit( () ->
+            {
+                tree.writer().close();
+                return null;
+            } );
+
+            // then
+            assertBlocked( singleWriter );
+            first.close();
+            assertBlocked( singleWriter );
+            second.close();
+            singleWriter.get( 10, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldBlockNewConcurrentWritersWhileCheckpointWaits() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try ( GBPTree<MutableLong,MutableLong> tree = index() )
+        {
+            // given
+            Writer<MutableLong,MutableLong> writer = tree.concurrentWriter();
+            Future<?> checkpoint = executor.submit( () ->
+            {
+                tree.checkpoint( IOLimiter.unlimited() );
+                return null;
+            } );
+            assertBlocked( checkpoint );
+
+            // when
+            Future<?> newWriter = executor.submit( () ->
+            {
+                tree.concurrentWriter().close();
+                return null;
+            } );
+
+            // then
+            assertBlocked( newWriter );
+            writer.close();
+            checkpoint.get( 10, TimeUnit.SECONDS );
+            newWriter.get( 10, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void randomChanges( GBPTree<MutableLong,MutableLong> tree, Random random, long rangeStart, int rangeSize,
+            TreeMap<Long,Long> expected ) throws IOException
+    {
+        MutableLong key = new MutableLong();
+        MutableLong value = new MutableLong();
+        for ( int batch = 0; batch < 20; batch++ )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.concurrentWriter() )
+            {
+                for ( int i = 0; i < 200; i++ )
+                {
+                    long k = rangeStart + random.nextInt( rangeSize );
+                    key.setValue( k );
+                    // Bias towards inserts so that the tree grows, with removals causing rebalancing along the way
+                    if ( random.nextInt( 3 ) > 0 )
+                    {
+                        long v = random.nextLong();
+                        value.setValue( v );
+                        writer.put( key, value );
+                        expected.put( k, v );
+                    }
+                    else
+                    {
+                        MutableLong removed = writer.remove( key );
+                        Long expectedRemoved = expected.remove( k );
+                        assertEquals( expectedRemoved, removed == null ? null : removed.longValue() );
+                    }
+                }
+            }
+        }
+    }
+
+    private void assertContents( GBPTree<MutableLong,MutableLong> tree, TreeMap<Long,Long> expected )
+            throws IOException
+    {
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      tree.seek( new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            for ( Map.Entry<Long,Long> entry : expected.entrySet() )
+            {
+                assertTrue( "Expected key " + entry.getKey(), cursor.next() );
+                assertEquals( entry.getKey().longValue(), cursor.get().key().longValue() );
+                assertEquals( entry.getValue().longValue(), cursor.get().value().longValue() );
+            }
+            assertFalse( cursor.next() );
+        }
+    }
+
+    private static void assertBlocked( Future<?> future ) throws Exception
+    {
+        try
+        {
+            future.get( 100, TimeUnit.MILLISECONDS );
+            fail( "Expected to be blocked" );
+        }
+        catch ( TimeoutException e )
+        {
+            // good
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static TreeMap<Long,Long>[] newExpected( int count )
+    {
+        TreeMap<Long,Long>[] expected = new TreeMap[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            expected[i] = new TreeMap<>();
+        }
+        return expected;
+    }
+
+    private GBPTree<MutableLong,MutableLong> index() throws IOException
+    {
+        return index( pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) ) );
+    }
+
+    private GBPTree<MutableLong,MutableLong> index( PageCache pageCache ) throws IOException
+    {
+        return new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+    }
+}
@@ -31,6 +31,7 @@ import org.neo4j.helpers.collection.Pair;
 import org.neo4j.test.Race;
 import org.neo4j.test.rule.concurrent.OtherThreadRule;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -161,6 +162,70 @@ public class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test( timeout = 10_000 )
+    public void test_race_concurrentWriterVsConcurrentWriter() throws Throwable
+    {
+        assertBothSucceeds( lock::concurrentWriterLock, lock::concurrentWriterLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void test_race_concurrentWriterVsLU() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::concurrentWriterLock, lock::writerLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void test_race_concurrentWriterVsUL() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::concurrentWriterLock, lock::cleanerLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void test_race_concurrentWriterVsLL() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::concurrentWriterLock, lock::writerAndCleanerLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void waitingWriterShouldBlockNewConcurrentWriters() throws Throwable
+    {
+        // given
+        lock.concurrentWriterLock();
+        LockContestant writer = new LockContestant( lock::writerLock );
+        Future<Object> writerFuture = executor.execute( state ->
+        {
+            writer.run();
+            return null;
+        } );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+
+        // when
+        LockContestant concurrentWriter = new LockContestant( lock::concurrentWriterLock );
+        Thread concurrentWriterThread = new Thread( concurrentWriter );
+        concurrentWriterThread.start();
+        LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 50 ) );
+
+        // then
+        assertTrue( concurrentWriter.started() );
+        assertFalse( concurrentWriter.lockAcquired() );
+        assertFalse( writer.lockAcquired() );
+        lock.concurrentWriterUnlock();
+        writerFuture.get();
+        assertTrue( writer.lockAcquired() );
+        assertFalse( concurrentWriter.lockAcquired() );
+        lock.writerUnlock();
+        concurrentWriterThread.join();
+        assertTrue( concurrentWriter.lockAcquired() );
+        lock.concurrentWriterUnlock();
+        assertUU();
+    }
+
+    @Test
+    public void shouldThrowOnConcurrentWriterUnlockWhenNotLocked()
+    {
+        assertThrow( lock::concurrentWriterUnlock );
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.index.internal.gbptree.SimpleLongLayout.longLayout;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+@RunWith( Parameterized.class )
+public class GBPTreePartitionedSeekTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    @Parameterized.Parameters( name = "fixedSize:{0}" )
+    public static Collection<Object[]> layouts()
+    {
+        return Arrays.asList( new Object[]{true}, new Object[]{false} );
+    }
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final Layout<MutableLong,MutableLong> layout;
+
+    public GBPTreePartitionedSeekTest( boolean fixedSize )
+    {
+        layout = longLayout().withFixedSize( fixedSize ).build();
+    }
+
+    @Test
+    public void shouldFindAllHitsInRangeAcrossPartitions() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> entries = randomEntries( random.nextInt( 1_000, 20_000 ) );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            insert( tree, entries );
+
+            for ( int round = 0; round < 20; round++ )
+            {
+                long from = random.nextLong( 1_000_000 );
+                long to = from + random.nextLong( 1_000_000 - from + 1 );
+                int desiredNumberOfPartitions = random.nextInt( 1, 20 );
+
+                // when
+                List<RawCursor<Hit<MutableLong,MutableLong>,IOException>> partitions =
+                        tree.partitionedSeek( new MutableLong( from ), new MutableLong( to ), desiredNumberOfPartitions );
+
+                // then
+                assertTrue( partitions.size() >= 1 && partitions.size() <= desiredNumberOfPartitions );
+                assertHits( partitions, entries.subMap( from, true, to, false ) );
+            }
+        }
+    }
+
+    @Test
+    public void shouldSplitLargeTreeIntoDesiredNumberOfNonEmptyPartitions() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> entries = randomEntries( 20_000 );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            insert( tree, entries );
+            int desiredNumberOfPartitions = random.nextInt( 2, 16 );
+
+            // when
+            List<RawCursor<Hit<MutableLong,MutableLong>,IOException>> partitions = tree.partitionedSeek(
+                    new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ), desiredNumberOfPartitions );
+
+            // then
+            assertEquals( desiredNumberOfPartitions, partitions.size() );
+            long total = 0;
+            try
+            {
+                for ( RawCursor<Hit<MutableLong,MutableLong>,IOException> partition : partitions )
+                {
+                    long count = 0;
+                    while ( partition.next() )
+                    {
+                        count++;
+                    }
+                    assertTrue( "Expected non-empty partition", count > 0 );
+                    total += count;
+                }
+            }
+            finally
+            {
+                IOUtils.closeAll( partitions );
+            }
+            assertEquals( entries.size(), total );
+        }
+    }
+
+    @Test
+    public void shouldReturnSinglePartitionForSingleLeaf() throws Exception
+    {
+        // given
+        TreeMap<Long,Long> entries = randomEntries( 3 );
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            insert( tree, entries );
+
+            // when
+            List<RawCursor<Hit<MutableLong,MutableLong>,IOException>> partitions =
+                    tree.partitionedSeek( new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ), 4 );
+
+            // then
+            assertEquals( 1, partitions.size() );
+            assertHits( partitions, entries );
+        }
+    }
+
+    @Test
+    public void shouldThrowOnBackwardsRange() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = index( pageCache() ) )
+        {
+            try
+            {
+                // when
+                tree.partitionedSeek( new MutableLong( 10 ), new MutableLong( 0 ), 4 );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // then good
+            }
+        }
+    }
+
+    private TreeMap<Long,Long> randomEntries( int count )
+    {
+        TreeMap<Long,Long> entries = new TreeMap<>();
+        while ( entries.size() < count )
+        {
+            entries.put( random.nextLong( 1_000_000 ), random.nextLong() );
+        }
+        return entries;
+    }
+
+    private static void insert( GBPTree<MutableLong,MutableLong> tree, TreeMap<Long,Long> entries ) throws IOException
+    {
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            for ( Map.Entry<Long,Long> entry : entries.entrySet() )
+            {
+                writer.put( new MutableLong( entry.getKey() ), new MutableLong( entry.getValue() ) );
+            }
+        }
+    }
+
+    private static void assertHits( List<RawCursor<Hit<MutableLong,MutableLong>,IOException>> partitions,
+            Map<Long,Long> expected ) throws IOException
+    {
+        List<Long> keys = new ArrayList<>();
+        try
+        {
+            for ( RawCursor<Hit<MutableLong,MutableLong>,IOException> partition : partitions )
+            {
+                while ( partition.next() )
+                {
+                    Hit<MutableLong,MutableLong> hit = partition.get();
+                    assertEquals( expected.get( hit.key().longValue() ).longValue(), hit.value().longValue() );
+                    keys.add( hit.key().longValue() );
+                }
+                assertFalse( partition.next() );
+            }
+        }
+        finally
+        {
+            IOUtils.closeAll( partitions );
+        }
+        // Partitions are disjoint and in ascending order
+        assertEquals( new ArrayList<>( expected.keySet() ), keys );
+    }
+
+    private PageCache pageCache()
+    {
+        return pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+    }
+
+    private GBPTree<MutableLong,MutableLong> index( PageCache pageCache ) throws IOException
+    {
+        return new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+    }
+}
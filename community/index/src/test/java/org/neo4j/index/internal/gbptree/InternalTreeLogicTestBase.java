@@ -48,7 +48,7 @@ import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 import static org.neo4j.index.internal.gbptree.ConsistencyChecker.assertNoCrashOrBrokenPointerInGSPP;
 import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.pointer;
-import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
 import static org.neo4j.index.internal.gbptree.ValueMergers.overwrite;
@@ -158,7 +158,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int keyCount = 0;
         KEY newKey = key( someHighSeed );
         VALUE newValue = value( someHighSeed );
-        while ( node.leafOverflow( cursor, keyCount, newKey, newValue ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, newKey, newValue ) != YES )
         {
             insert( newKey, newValue );
 
@@ -182,7 +182,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             // when
             insert( key, value );
@@ -209,7 +209,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         long middleValue = keyCount % 2 == 0 ? keyCount / 2 : someHighSeed - keyCount / 2;
         KEY key = key( middleValue );
         VALUE value = value( middleValue );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -234,7 +234,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int middle = keyCount % 2 == 0 ? keyCount : someMiddleSeed - keyCount;
         KEY key = key( middle );
         VALUE value = value( middle );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -260,7 +260,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -287,7 +287,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int someHighSeed = 1000;
         KEY key = key( someHighSeed - keyCount );
         VALUE value = value( someHighSeed - keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -314,7 +314,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int keyCount = 0;
         KEY key = key( someLargeSeed - keyCount );
         VALUE value = value( someLargeSeed - keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -389,7 +389,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -421,7 +421,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -455,7 +455,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -547,7 +547,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -1272,7 +1272,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             keyCount++;
@@ -1291,7 +1291,7 @@ public abstract class InternalTreeLogicTestBase<KEY,VALUE>
         long rightChild = childAt( readCursor, 1, stableGeneration, unstableGeneration );
         goTo( readCursor, rightChild );
         int rightChildKeyCount = TreeNode.keyCount( readCursor );
-        while ( node.leafOverflow( readCursor, rightChildKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( readCursor, rightChildKeyCount, key, value ) != YES )
         {
             insert( key, value );
             keyCount++;
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+
+public class TreeNodeDynamicSizePrefixCompressionTest extends TreeNodeDynamicSizeTest
+{
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout( false );
+
+    @Override
+    protected TreeNodeDynamicSize<RawBytes,RawBytes> getNode( int pageSize, Layout<RawBytes,RawBytes> layout )
+    {
+        return new TreeNodeDynamicSize<>( pageSize, layout, true );
+    }
+
+    @Test
+    public void shouldStoreCommonPrefixOnceWhenDefragmenting()
+    {
+        // GIVEN
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, layout );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        String[] keys = {"prefix-a", "prefix-b", "prefix-c"};
+        insertKeys( node, keys );
+        int allocOffsetBefore = node.getAllocOffset( cursor );
+
+        // WHEN
+        node.defragmentLeaf( cursor );
+
+        // THEN
+        // "prefix-" is stored once, instead of once per key
+        assertEquals( allocOffsetBefore + 2 * "prefix-".length(), node.getAllocOffset( cursor ) );
+        assertKeys( node, keys );
+    }
+
+    @Test
+    public void shouldShortenPrefixWhenInsertingKeyNotStartingWithIt()
+    {
+        // GIVEN
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, layout );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        insertKeys( node, "prefix-a", "prefix-b", "prefix-c" );
+        node.defragmentLeaf( cursor );
+
+        // WHEN
+        node.insertKeyValueAt( cursor, key( "pre-x" ), value(), 0, 3 );
+        TreeNode.setKeyCount( cursor, 4 );
+
+        // THEN
+        // prefix "pre" and suffixes "-x", "fix-a", "fix-b" and "fix-c" with one byte key size each
+        assertEquals( PAGE_SIZE - 3 - (1 + 2) - 3 * (1 + 5), node.getAllocOffset( cursor ) );
+        assertKeys( node, "pre-x", "prefix-a", "prefix-b", "prefix-c" );
+    }
+
+    private void insertKeys( TreeNodeDynamicSize<RawBytes,RawBytes> node, String... keys )
+    {
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            node.insertKeyValueAt( cursor, key( keys[i] ), value(), i, i );
+            TreeNode.setKeyCount( cursor, i + 1 );
+        }
+    }
+
+    private void assertKeys( TreeNodeDynamicSize<RawBytes,RawBytes> node, String... keys )
+    {
+        assertEquals( keys.length, TreeNode.keyCount( cursor ) );
+        RawBytes readKey = layout.newKey();
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            node.keyAt( cursor, readKey, i, LEAF );
+            assertArrayEquals( key( keys[i] ).bytes, readKey.bytes );
+        }
+    }
+
+    private RawBytes key( String key )
+    {
+        RawBytes rawBytes = layout.newKey();
+        rawBytes.bytes = key.getBytes( UTF_8 );
+        return rawBytes;
+    }
+
+    private RawBytes value()
+    {
+        RawBytes rawBytes = layout.newValue();
+        rawBytes.bytes = new byte[0];
+        return rawBytes;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A {@link SingleFilePageSwapper} that serves page faults by copying directly out of memory mapped regions of the
+ * file, instead of issuing a read system call per fault. This is meant for read-mostly stores, where the page faults
+ * are the bulk of the IO.
+ * <p>
+ * Writes still go through the file channel. The operating system keeps the mappings and the file coherent, so pages
+ * that are written are visible in the mapped regions as well.
+ * <p>
+ * The file is mapped lazily, in regions of a whole number of file pages, and only the parts that already exist in the
+ * file are mapped. Accessing a mapping past the end of the file would crash the JVM, so truncation and closing takes
+ * an exclusive lock on all the mappings, while the page faults take a shared lock. Page faults that fall outside of
+ * the mapped parts of the file, or on a file system that cannot be mapped, fall back to the regular reads.
+ * <p>
+ * As the file grows, the mapping of its last region is only replaced once the file has grown by a sizable chunk past
+ * the mapped part, so that appending to the file does not remap the region for every new page. Replaced mappings are
+ * unmapped under the exclusive lock, once no page fault can be reading from them. If the JVM does not support
+ * unmapping explicitly, the mappings are released by the garbage collector, and this swapper should then not be used
+ * on platforms that refuse to delete or truncate files that are still mapped, such as Windows.
+ */
+public class MappedFilePageSwapper extends SingleFilePageSwapper
+{
+    private static final MappedByteBuffer[] NO_REGIONS = new MappedByteBuffer[0];
+
+    private final int filePageSize;
+    private final int pagesPerRegion;
+    private final int remapChunkPages;
+    private final StampedLock regionLock = new StampedLock();
+    // Guarded by the regionLock, and only ever grows while the swapper is open. Individual regions are replaced with
+    // larger mappings as the file grows, under the write lock.
+    private volatile MappedByteBuffer[] regions = NO_REGIONS;
+    private volatile boolean mappingUnsupported;
+
+    public MappedFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize,
+            PageEvictionCallback onEviction, long regionSize ) throws IOException
+    {
+        super( file, fs, filePageSize, onEviction );
+        this.filePageSize = filePageSize;
+        long maxPagesPerRegion = Integer.MAX_VALUE / filePageSize;
+        this.pagesPerRegion = (int) Math.max( 1, Math.min( maxPagesPerRegion, regionSize / filePageSize ) );
+        this.remapChunkPages = Math.max( 1, pagesPerRegion / 16 );
+        this.mappingUnsupported = underlyingFileChannel() == null;
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        if ( !mappingUnsupported && filePageId >= 0 )
+        {
+            long stamp = regionLock.readLock();
+            try
+            {
+                long regionAddress = regionAddress( filePageId );
+                if ( regionAddress != 0 )
+                {
+                    UnsafeUtil.copyMemory( regionAddress + offsetInRegion( filePageId ), bufferAddress, filePageSize );
+                    return filePageSize;
+                }
+            }
+            finally
+            {
+                regionLock.unlockRead( stamp );
+            }
+            if ( worthMapping( filePageId ) && mapRegionOf( filePageId ) )
+            {
+                return read( filePageId, bufferAddress, bufferSize );
+            }
+        }
+        return super.read( filePageId, bufferAddress, bufferSize );
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        if ( mappingUnsupported )
+        {
+            return super.read( startFilePageId, bufferAddresses, bufferSize, arrayOffset, length );
+        }
+        long bytesRead = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesRead += read( startFilePageId + i, bufferAddresses[arrayOffset + i], bufferSize );
+        }
+        return bytesRead;
+    }
+
+    /**
+     * @return the address of the mapped region that contains the whole of the given page, or {@code 0} if the page is
+     * not mapped.
+     */
+    private long regionAddress( long filePageId )
+    {
+        MappedByteBuffer[] regions = this.regions;
+        long region = filePageId / pagesPerRegion;
+        if ( region < regions.length )
+        {
+            MappedByteBuffer buffer = regions[(int) region];
+            if ( buffer != null && offsetInRegion( filePageId ) + filePageSize <= buffer.capacity() )
+            {
+                return UnsafeUtil.getDirectByteBufferAddress( buffer );
+            }
+        }
+        return 0;
+    }
+
+    private long offsetInRegion( long filePageId )
+    {
+        return (filePageId % pagesPerRegion) * filePageSize;
+    }
+
+    /**
+     * Decide, without taking the exclusive lock, if the region of the given unmapped page should be mapped, or have
+     * its mapping grown. Pages past the end of the file cannot be mapped, and a region is only remapped once the file
+     * extends a whole chunk past its current mapping, or covers the whole region. Until then, the pages in between are
+     * read through the file channel.
+     */
+    private boolean worthMapping( long filePageId )
+    {
+        long fileSize = getCurrentFileSize();
+        if ( (filePageId + 1) * filePageSize > fileSize )
+        {
+            return false;
+        }
+        MappedByteBuffer[] regions = this.regions;
+        long region = filePageId / pagesPerRegion;
+        MappedByteBuffer buffer = region < regions.length ? regions[(int) region] : null;
+        if ( buffer == null )
+        {
+            return true;
+        }
+        long regionStart = region * pagesPerRegion * filePageSize;
+        long pagesInFile = Math.min( pagesPerRegion, (fileSize - regionStart) / filePageSize );
+        long mappedPages = buffer.capacity() / filePageSize;
+        return pagesInFile == pagesPerRegion || pagesInFile - mappedPages >= remapChunkPages;
+    }
+
+    /**
+     * Map, or grow the mapping of, the region that contains the given page, as far as the file currently extends.
+     *
+     * @return {@code true} if the page is now mapped, otherwise {@code false} if the page is past the end of the file.
+     */
+    private boolean mapRegionOf( long filePageId ) throws IOException
+    {
+        long stamp = regionLock.tryOptimisticRead();
+        if ( regionAddress( filePageId ) != 0 && regionLock.validate( stamp ) )
+        {
+            // Another page fault mapped the region while we were waiting.
+            return true;
+        }
+        stamp = regionLock.writeLock();
+        try
+        {
+            if ( regionAddress( filePageId ) != 0 )
+            {
+                return true;
+            }
+            FileChannel channel = underlyingFileChannel();
+            if ( channel == null || !channel.isOpen() || Thread.currentThread().isInterrupted() )
+            {
+                // Let the regular read deal with interrupts, reopening the channel, or a swapper that has been closed.
+                return false;
+            }
+            long region = filePageId / pagesPerRegion;
+            long regionStart = region * pagesPerRegion * filePageSize;
+            MappedByteBuffer buffer;
+            try
+            {
+                long pagesInFile = (channel.size() - regionStart) / filePageSize;
+                long pagesToMap = Math.min( pagesPerRegion, pagesInFile );
+                if ( pagesToMap <= filePageId % pagesPerRegion )
+                {
+                    return false;
+                }
+                buffer = channel.map( FileChannel.MapMode.READ_ONLY, regionStart, pagesToMap * filePageSize );
+            }
+            catch ( ClosedChannelException e )
+            {
+                return false;
+            }
+            catch ( UnsupportedOperationException e )
+            {
+                mappingUnsupported = true;
+                return false;
+            }
+            MappedByteBuffer[] regions = this.regions;
+            if ( region >= regions.length )
+            {
+                regions = Arrays.copyOf( regions, (int) region + 1 );
+            }
+            MappedByteBuffer superseded = regions[(int) region];
+            regions[(int) region] = buffer;
+            this.regions = regions;
+            if ( superseded != null )
+            {
+                // We hold the exclusive lock, so no page fault can be reading from the old mapping.
+                UnsafeUtil.invokeCleaner( superseded );
+            }
+            return true;
+        }
+        finally
+        {
+            regionLock.unlockWrite( stamp );
+        }
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        // The mappings must be dropped before the file shrinks, and no page faults can be allowed to map the file
+        // again until it has been truncated, since reading from a mapping past the end of the file would crash.
+        long stamp = regionLock.writeLock();
+        try
+        {
+            unmapAllRegions();
+            super.truncate();
+        }
+        finally
+        {
+            regionLock.unlockWrite( stamp );
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        long stamp = regionLock.writeLock();
+        try
+        {
+            unmapAllRegions();
+            super.close();
+        }
+        finally
+        {
+            regionLock.unlockWrite( stamp );
+        }
+    }
+
+    private void unmapAllRegions()
+    {
+        MappedByteBuffer[] regions = this.regions;
+        this.regions = NO_REGIONS;
+        for ( MappedByteBuffer buffer : regions )
+        {
+            if ( buffer != null )
+            {
+                UnsafeUtil.invokeCleaner( buffer );
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedFilePageSwapper{" +
+               "filePageSize=" + filePageSize +
+               ", file=" + file() +
+               '}';
+    }
+}
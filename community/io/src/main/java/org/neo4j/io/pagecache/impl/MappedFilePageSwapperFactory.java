@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * A factory for MappedFilePageSwapper instances.
+ *
+ * @see org.neo4j.io.pagecache.impl.MappedFilePageSwapper
+ */
+public class MappedFilePageSwapperFactory extends SingleFilePageSwapperFactory
+{
+    public static final String IMPLEMENTATION_NAME = "mapped";
+
+    // The size, in mebibytes, of the regions that files are mapped in.
+    private static final int regionSizeMiB = getInteger( MappedFilePageSwapperFactory.class, "regionSizeMiB", 1024 );
+
+    private final long regionSize;
+
+    public MappedFilePageSwapperFactory()
+    {
+        this( regionSizeMiB * 1024L * 1024L );
+    }
+
+    MappedFilePageSwapperFactory( long regionSize )
+    {
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    protected PageSwapper createSwapper( File file, FileSystemAbstraction fs, int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        return new MappedFilePageSwapper( file, fs, filePageSize, onEviction, regionSize );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return IMPLEMENTATION_NAME;
+    }
+}
@@ -180,7 +180,7 @@ public class SingleFilePageSwapper implements PageSwapper
                 this, fileSizeOffset, currentFileSize, newFileSize ) );
     }
 
-    private long getCurrentFileSize()
+    long getCurrentFileSize()
     {
         return UnsafeUtil.getLongVolatile( this, fileSizeOffset );
     }
@@ -223,6 +223,18 @@ public class SingleFilePageSwapper implements PageSwapper
         return channels[stripe];
     }
 
+    /**
+     * Get the {@link FileChannel} that backs this swapper, for optimisations like memory mapping.
+     *
+     * @return the underlying file channel, or {@code null} if the file is not backed by a plain {@link FileChannel},
+     * as is the case for in-memory and other special file systems.
+     */
+    protected FileChannel underlyingFileChannel()
+    {
+        StoreChannel channel = channel( tokenFilePageId );
+        return channel.getClass() == StoreFileChannel.class ? StoreFileChannelUnwrapper.unwrap( channel ) : null;
+    }
+
     private static int stripe( long filePageId )
     {
         return (int) (filePageId >>> channelStripeShift) & channelStripeMask;
@@ -355,9 +367,9 @@ public class SingleFilePageSwapper implements PageSwapper
         long bytesRead = lockPositionReadVectorAndRetryIfInterrupted( startFilePageId, channel, fileOffset, srcs, MAX_INTERRUPTED_CHANNEL_REOPEN_ATTEMPTS );
         if ( bytesRead == -1 )
         {
-            for ( long address : bufferAddresses )
+            for ( int i = 0; i < length; i++ )
             {
-                UnsafeUtil.setMemory( address, filePageSize, MuninnPageCache.ZERO_BYTE );
+                UnsafeUtil.setMemory( bufferAddresses[arrayOffset + i], filePageSize, MuninnPageCache.ZERO_BYTE );
             }
             return 0;
         }
@@ -68,6 +68,15 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
                 throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
             }
         }
+        return createSwapper( file, fs, filePageSize, onEviction );
+    }
+
+    /**
+     * Create the swapper for an existing file.
+     */
+    protected PageSwapper createSwapper( File file, FileSystemAbstraction fs, int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
         return new SingleFilePageSwapper( file, fs, filePageSize, onEviction );
     }
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policies that the {@link MuninnPageCache} can use when choosing which pages to evict.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The classic clock sweep. Every page the eviction arm passes over gets its usage counter decremented, and pages
+     * whose counter reaches zero are evicted.
+     * <p>
+     * This is simple and cheap, but a single large sequential scan will push the arm around the cache many times,
+     * which ages out the hot working set along with the scanned pages.
+     */
+    CLOCK,
+
+    /**
+     * A scan resistant variant of the clock sweep, in the spirit of 2Q and CLOCK-Pro.
+     * <p>
+     * Pages that have been accessed at most once since they were faulted in are considered <em>cold</em>, and are
+     * evicted on sight. Pages that have been accessed more than once are <em>hot</em>, and their usage counters are
+     * only aged on every few revolutions of the eviction arm, or when a whole revolution failed to find any cold pages.
+     * On top of that, the page cache keeps a ghost list of recently evicted file pages. Pages that are faulted back in
+     * shortly after being evicted are admitted straight into the hot set.
+     * <p>
+     * The effect is that the pages brought in by a large scan are the first to go, and that the hot working set
+     * survives the scan.
+     */
+    SCAN_RESISTANT
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * One of the freelists of a {@link PagePartition}.
+ * <p>
+ * The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null. Initially, the field is
+ * an AtomicInteger that counts from zero to the page count of this stripe, at which point all of the pages have been
+ * put in use. The page ids it hands out are relative to the firstPageId of the stripe. Once this happens, the field is
+ * set to null to allow the background eviction thread to start its work. From that point on, the field will operate as
+ * a concurrent stack of FreePage objects. The eviction thread pushes newly freed FreePage objects onto the stack, and
+ * page faulting threads pops FreePage objects from the stack. The FreePage objects are single-use, to avoid running
+ * into the ABA-problem.
+ * <p>
+ * Each partition has a number of stripes, so that concurrent page faults are spread over as many freelist heads, and
+ * as many cache lines, as there are stripes.
+ */
+final class FreelistStripe
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset = UnsafeUtil.getFieldOffset( FreelistStripe.class, "freelist" );
+
+    // The id of the first page in this stripe.
+    final int firstPageId;
+    // The number of pages in this stripe.
+    final int pageCount;
+
+    // Padding, so that the freelist heads of different stripes do not share cache lines.
+    @SuppressWarnings( "unused" )
+    private long p0, p1, p2, p3, p4, p5, p6;
+
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    @SuppressWarnings( "unused" )
+    private long q0, q1, q2, q3, q4, q5, q6;
+
+    FreelistStripe( int firstPageId, int pageCount )
+    {
+        this.firstPageId = firstPageId;
+        this.pageCount = pageCount;
+        setFreelistHead( new AtomicInteger() );
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    void setFreelistHead( Object newFreelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+    }
+
+    /**
+     * @return the number of free pages, both previously used and never used, that are currently in this stripe.
+     * This is only an estimate, since the freelist can change concurrently.
+     */
+    int availablePages()
+    {
+        Object head = getFreelistHead();
+        if ( head == null )
+        {
+            return 0;
+        }
+        if ( head.getClass() == AtomicInteger.class )
+        {
+            return Math.max( pageCount - ((AtomicInteger) head).get(), 0 );
+        }
+        return ((FreePage) head).count;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * The GhostList remembers the identities of file pages that were recently evicted from the page cache, but none of
+ * their contents. It is used by the {@link EvictionPolicy#SCAN_RESISTANT} eviction policy to recognise pages that are
+ * faulted back in shortly after they were evicted, since such pages belong to the working set, and should not have
+ * been evicted in the first place.
+ * <p>
+ * The list is a direct mapped hash table, so newer evictions simply overwrite older entries that hash to the same
+ * slot. Entries are removed when they are found, such that a page must be evicted again before it can be given hot
+ * admission again. All accesses are benignly racy; losing an entry only means that a page gets admitted as cold.
+ */
+final class GhostList
+{
+    private static final long EMPTY = 0;
+    private static final int arrayBase = UnsafeUtil.arrayBaseOffset( long[].class );
+    private static final int arrayScale = UnsafeUtil.arrayIndexScale( long[].class );
+
+    private final long[] entries;
+    private final long mask;
+
+    /**
+     * @param capacity The desired capacity of the ghost list. It will be rounded up to the nearest power of two.
+     */
+    GhostList( int capacity )
+    {
+        int size = Integer.highestOneBit( Math.max( capacity - 1, 1 ) ) << 1;
+        entries = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Remember that the given file page was evicted.
+     */
+    void evicted( int swapperId, long filePageId )
+    {
+        long key = key( swapperId, filePageId );
+        UnsafeUtil.putLongVolatile( entries, offset( key ), key );
+    }
+
+    /**
+     * Check if the given file page was recently evicted, and forget about it if it was.
+     * @return {@code true} if the given file page was found in the ghost list.
+     */
+    boolean remove( int swapperId, long filePageId )
+    {
+        long key = key( swapperId, filePageId );
+        long offset = offset( key );
+        return UnsafeUtil.getLongVolatile( entries, offset ) == key &&
+               UnsafeUtil.compareAndSwapLong( entries, offset, key, EMPTY );
+    }
+
+    int capacity()
+    {
+        return entries.length;
+    }
+
+    private long offset( long key )
+    {
+        return UnsafeUtil.arrayOffset( (int) (mix( key ) & mask), arrayBase, arrayScale );
+    }
+
+    private static long key( int swapperId, long filePageId )
+    {
+        // The file page id is at most 40 bits, and the swapper id is at most 21 bits. We add 1 to the file page id,
+        // such that the key of file page 0 of swapper 0 does not collide with the empty marker.
+        return (((long) swapperId) << 40) | (filePageId + 1);
+    }
+
+    private static long mix( long key )
+    {
+        key ^= key << 21;
+        key ^= key >>> 35;
+        key ^= key << 4;
+        return key;
+    }
+}
@@ -44,7 +44,6 @@ import org.neo4j.io.pagecache.PageCacheOpenOptions;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
-import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
@@ -126,15 +125,39 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // With the scan resistant eviction policy, this is how many revolutions the background eviction clock arm will
+    // make, before it ages the usage counters of the hot pages. This MUST be greater than 0.
+    private static final int hotPageAgingInterval = getInteger(
+            MuninnPageCache.class, "hotPageAgingInterval", 4 );
+
+    // The number of partitions the pages are divided into. Each partition has its own freelist and eviction clock arm,
+    // and page faulting threads prefer to take their free pages from their own home partition. Setting this to the
+    // number of NUMA nodes, or sockets, on the machine keeps threads recycling the same memory regions, and spreads
+    // the contention on the freelists. The partition count is capped such that no partition is smaller than
+    // minPagesPerPartition pages.
+    private static final int pagePartitions = getInteger(
+            MuninnPageCache.class, "pagePartitions", 1 );
+    private static final int minPagesPerPartition = getInteger(
+            MuninnPageCache.class, "minPagesPerPartition", 1024 );
+
+    // The number of freelist stripes in each partition. Page faulting threads are spread over the stripes, so they
+    // don't all contend on the same freelist head. The stripe count is capped such that no stripe is smaller than
+    // minPagesPerFreelistStripe pages.
+    private static final int freelistStripes = getInteger(
+            MuninnPageCache.class, "freelistStripes", Math.min( Runtime.getRuntime().availableProcessors(), 16 ) );
+    private static final int minPagesPerFreelistStripe = getInteger(
+            MuninnPageCache.class, "minPagesPerFreelistStripe", 64 );
+
+    // The background eviction thread hands off the pages it evicts to the freelists in batches of this many pages,
+    // using a single CAS per batch.
+    private static final int evictionBatchSize = getInteger(
+            MuninnPageCache.class, "evictionBatchSize", 16 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -161,24 +184,24 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final VersionContextSupplier versionContextSupplier;
+    private final EvictionPolicy evictionPolicy;
+    private final boolean scanResistant;
+    // The ghost list of recently evicted file pages, or null if the eviction policy does not use one.
+    private final GhostList ghostList;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
-    // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The pages are divided into one or more partitions, each with one or more freelist stripes.
+    // See FreelistStripe for how the freelists work.
+    private final PagePartition[] partitions;
+    // The number of pages in every partition, except possibly the last one which can be smaller.
+    private final int pagesPerPartition;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
@@ -255,7 +278,31 @@ public class MuninnPageCache implements PageCache
             PageCursorTracerSupplier pageCursorTracerSupplier,
             VersionContextSupplier versionContextSupplier )
     {
-        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, pageCursorTracerSupplier, versionContextSupplier );
+        this( swapperFactory, memoryAllocator, pageCacheTracer, pageCursorTracerSupplier, versionContextSupplier,
+                EvictionPolicy.CLOCK );
+    }
+
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide
+     *        access to thread local version context
+     * @param evictionPolicy the policy used for choosing which pages to evict
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, evictionPolicy );
     }
 
     /**
@@ -271,6 +318,39 @@ public class MuninnPageCache implements PageCache
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier,
             VersionContextSupplier versionContextSupplier )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, EvictionPolicy.CLOCK );
+    }
+
+    private MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, evictionPolicy, 0, 0 );
+    }
+
+    /**
+     * Constructor variant that allows setting the number of page partitions and freelist stripes directly, regardless of
+     * the {@code pagePartitions}, {@code freelistStripes} and related feature toggles. A count of zero means that the
+     * feature toggles decide. Only ever use this for testing and benchmarking.
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            EvictionPolicy evictionPolicy,
+            int partitionCount,
+            int stripeCount )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -283,16 +363,33 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.versionContextSupplier = versionContextSupplier;
+        this.evictionPolicy = evictionPolicy;
+        this.scanResistant = evictionPolicy == EvictionPolicy.SCAN_RESISTANT;
+        this.ghostList = scanResistant ? new GhostList( maxPages ) : null;
         this.printExceptionsOnClose = true;
         long alignment = swapperFactory.getRequiredBufferAlignment();
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
         this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment );
 
-        setFreelistHead( new AtomicInteger() );
+        int requestedPartitions = partitionCount > 0 ? partitionCount :
+                                  Math.min( pagePartitions, maxPages / Math.max( minPagesPerPartition, 1 ) );
+        requestedPartitions = Math.max( 1, Math.min( requestedPartitions, maxPages ) );
+        this.pagesPerPartition = (maxPages + requestedPartitions - 1) / requestedPartitions;
+        this.partitions = new PagePartition[(maxPages + pagesPerPartition - 1) / pagesPerPartition];
+        int keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
+        int keepFreePerPartition = (keepFree + partitions.length - 1) / partitions.length;
+        int stripesPerPartition = stripeCount > 0 ? stripeCount :
+                                  Math.min( freelistStripes, pagesPerPartition / Math.max( minPagesPerFreelistStripe, 1 ) );
+        for ( int i = 0; i < partitions.length; i++ )
+        {
+            int firstPageId = i * pagesPerPartition;
+            int pageCount = Math.min( pagesPerPartition, maxPages - firstPageId );
+            partitions[i] = new PagePartition(
+                    i, firstPageId, pageCount, Math.min( keepFreePerPartition, pageCount / 2 ), stripesPerPartition );
+        }
     }
 
     private static void verifyHacks()
@@ -599,8 +696,7 @@ public class MuninnPageCache implements PageCache
                 MuninnPagedFile muninnPagedFile = (MuninnPagedFile) file;
                 try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper ) )
                 {
-                    FlushEventOpportunity flushOpportunity = fileFlush.flushEventOpportunity();
-                    muninnPagedFile.flushAndForceInternal( flushOpportunity, false, limiter );
+                    muninnPagedFile.flushAndForceInternal( fileFlush, false, limiter );
                 }
                 catch ( ClosedChannelException e )
                 {
@@ -730,52 +826,135 @@ public class MuninnPageCache implements PageCache
 
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the partitions field before making changes to
         // this part of the code.
-        // Whatever the case, we're going to the head-pointer of the freelist,
-        // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
-        // We can discover a FreePage object, in which case we'll do a similar
-        // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
-        // given by the FreePage object.
+        // Whatever the case, we're going to the head-pointer of the freelist
+        // of our home partition, and in doing so, we can discover a number of
+        // things.
+        // We can discover an AtomicInteger, in which case we try to increment
+        // it to claim a page that has never been used before.
+        // We can discover a FreePage object, in which case we'll attempt to
+        // CAS the freelist to the FreePage objects next pointer, and if we
+        // succeed then we've grabbed the MuninnPage given by the FreePage
+        // object.
         // We can discover a null-pointer, in which case the freelist has just
-        // been emptied for whatever it contained before. New FreePage objects
-        // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
+        // been emptied for whatever it contained before. We then look at the
+        // freelists of the other partitions, before we give up on them. New
+        // FreePage objects are eventually going to be added to the freelists,
+        // but we are not going to wait around for that to happen. If all the
+        // freelists are empty, then we do our own eviction to get a free page.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
+        long probe = Thread.currentThread().getId();
+        PagePartition home = homePartition( probe );
+        int stripeHint = stripeHint( probe );
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
-            if ( current == null )
+            long pageRef = grabFreePage( home, stripeHint, true );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor();
+            pageRef = cooperativelyEvict( home.stripe( stripeHint ), faultEvent );
+            if ( pageRef != 0 )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
+                return pageRef;
+            }
+        }
+    }
+
+    /**
+     * Grab a free page, but only if one is immediately available. Unlike
+     * {@link #grabFreeAndExclusivelyLockedPage(PageFaultEvent)}, this method never does any eviction, so it is
+     * suitable for opportunistic work such as read-ahead, which must not compete with the page faults for the pages
+     * that eviction frees up.
+     * @return An exclusively locked free page, or {@code 0} if no free page was immediately available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage()
+    {
+        long probe = Thread.currentThread().getId();
+        long pageRef = grabFreePage( homePartition( probe ), stripeHint( probe ), false );
+        if ( pageRef == 0 )
+        {
+            unparkEvictor();
+        }
+        return pageRef;
+    }
+
+    /**
+     * The partition the current thread should take its free pages from first. Threads are spread over the partitions
+     * by their thread id, so a given thread keeps using the same partition for as long as it lives.
+     */
+    private PagePartition homePartition( long probe )
+    {
+        PagePartition[] partitions = this.partitions;
+        int count = partitions.length;
+        return count == 1 ? partitions[0] : partitions[(int) (probe % count)];
+    }
+
+    /**
+     * The freelist stripe the current thread should take its free pages from first, within any partition. This is
+     * spread independently of the home partition, so the threads that share a home partition use different stripes.
+     */
+    private int stripeHint( long probe )
+    {
+        return (int) ((probe / partitions.length) & Integer.MAX_VALUE);
+    }
+
+    private PagePartition partitionOf( long pageRef )
+    {
+        return partitions[pages.toId( pageRef ) / pagesPerPartition];
+    }
+
+    /**
+     * Pop a free page from the freelist stripes of the given home partition, starting with the stripe given by the
+     * stripe hint, or from the freelist stripes of any other partition if the home partition has none.
+     * @return An exclusively locked free page, or {@code 0} if all the freelists were empty.
+     */
+    private long grabFreePage( PagePartition home, int stripeHint, boolean throwOnShutdown )
+    {
+        int count = partitions.length;
+        for ( int i = 0; i < count; i++ )
+        {
+            FreelistStripe[] stripes = partitions[(home.index + i) % count].stripes;
+            int stripeCount = stripes.length;
+            for ( int j = 0; j < stripeCount; j++ )
+            {
+                long pageRef = grabFreePageFromStripe( stripes[(stripeHint + j) % stripeCount], throwOnShutdown );
                 if ( pageRef != 0 )
                 {
                     return pageRef;
                 }
             }
+        }
+        return 0;
+    }
+
+    private long grabFreePageFromStripe( FreelistStripe stripe, boolean throwOnShutdown )
+    {
+        for (;;)
+        {
+            Object current = stripe.getFreelistHead();
+            if ( current == null )
+            {
+                return 0;
+            }
             else if ( current instanceof AtomicInteger )
             {
-                int pageCount = pages.getPageCount();
+                int pageCount = stripe.pageCount;
                 AtomicInteger counter = (AtomicInteger) current;
                 int pageId = counter.get();
                 if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
                 {
-                    return pages.deref( pageId );
+                    return pages.deref( stripe.firstPageId + pageId );
                 }
                 if ( pageId >= pageCount )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    stripe.compareAndSetFreelistHead( current, null );
                 }
             }
             else if ( current instanceof FreePage )
@@ -783,10 +962,14 @@ public class MuninnPageCache implements PageCache
                 FreePage freePage = (FreePage) current;
                 if ( freePage == shutdownSignal )
                 {
-                    throw new IllegalStateException( "The PageCache has been shut down." );
+                    if ( throwOnShutdown )
+                    {
+                        throw new IllegalStateException( "The PageCache has been shut down." );
+                    }
+                    return 0;
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( stripe.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.pageRef;
                 }
@@ -794,17 +977,20 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
+    private long cooperativelyEvict( FreelistStripe home, PageFaultEvent faultEvent ) throws IOException
     {
+        // We sweep the entire cache, but start at a random page in our home stripe, so that the pages we free up
+        // are most likely to be local to us.
         int iterations = 0;
         int pageCount = pages.getPageCount();
-        int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        int clockArm = home.firstPageId + ThreadLocalRandom.current().nextInt( home.pageCount );
+        int pagesVisited = 0;
         boolean evicted = false;
         long pageRef;
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( home.getFreelistHead() != null )
             {
                 return 0;
             }
@@ -820,11 +1006,14 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            // Only start aging the hot pages once we have looked at every page, and found no cold page to evict.
+            boolean visitedAllPages = pagesVisited >= pageCount;
+            if ( pages.isLoaded( pageRef ) && isEvictionCandidate( pageRef, visitedAllPages ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
             clockArm++;
+            pagesVisited++;
         }
         while ( !evicted );
         return pageRef;
@@ -862,52 +1051,50 @@ public class MuninnPageCache implements PageCache
         evictorParked = false;
     }
 
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private void setFreelistHead( Object newFreelistHead )
-    {
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
-    }
-
     /**
      * Scan through all the pages, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
+     * Every partition has its own clock arm, and only sweeps the pages it owns.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
     void continuouslySweepPages()
     {
         evictionThread = Thread.currentThread();
-        int clockArm = 0;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired();
             try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                for ( PagePartition partition : partitions )
+                {
+                    int partitionPagesToEvict = tryGetNumberOfAvailablePages( partition );
+                    if ( partitionPagesToEvict != UNKNOWN_AVAILABLE_PAGES )
+                    {
+                        partition.clockArm = evictPages(
+                                partition, partitionPagesToEvict, partition.clockArm, evictionRunEvent );
+                    }
+                }
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
-        // the freelist. This signal is looked out for in grabFreePage.
-        setFreelistHead( shutdownSignal );
+        // the freelists. This signal is looked out for in grabFreePage.
+        for ( PagePartition partition : partitions )
+        {
+            for ( FreelistStripe stripe : partition.stripes )
+            {
+                stripe.setFreelistHead( shutdownSignal );
+            }
+        }
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired()
     {
         // Park until we're either interrupted, or the number of free pages drops
-        // bellow keepFree.
+        // bellow keepFree in any of the partitions.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
@@ -917,7 +1104,7 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            int availablePages = tryGetNumberOfAvailablePages( keepFree );
+            int availablePages = tryGetNumberOfAvailablePages();
             if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
             {
                 return availablePages;
@@ -925,59 +1112,104 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private int tryGetNumberOfAvailablePages( int keepFree )
+    /**
+     * @return the number of pages that needs to be evicted across all partitions, for all of them to have their
+     * keepFree number of free pages, or {@link #UNKNOWN_AVAILABLE_PAGES} if no partition needs any eviction.
+     */
+    private int tryGetNumberOfAvailablePages()
     {
-        Object freelistHead = getFreelistHead();
-
-        if ( freelistHead == null )
+        int total = UNKNOWN_AVAILABLE_PAGES;
+        for ( PagePartition partition : partitions )
         {
-            return keepFree;
-        }
-        else if ( freelistHead.getClass() == FreePage.class )
-        {
-            int availablePages = ((FreePage) freelistHead).count;
-            if ( availablePages < keepFree )
+            int availablePages = tryGetNumberOfAvailablePages( partition );
+            if ( availablePages == UNKNOWN_AVAILABLE_PAGES && hasUnusedPages( partition ) )
+            {
+                // This partition still has plenty of pages that have never been used. Page faults will take those
+                // before they start evicting anything, so we hold off eviction until they have been used up.
+                return UNKNOWN_AVAILABLE_PAGES;
+            }
+            if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
             {
-                return keepFree - availablePages;
+                total = total == UNKNOWN_AVAILABLE_PAGES ? availablePages : total + availablePages;
             }
         }
-        else if ( freelistHead.getClass() == AtomicInteger.class )
+        return total;
+    }
+
+    private int tryGetNumberOfAvailablePages( PagePartition partition )
+    {
+        int keepFree = partition.keepFree;
+        int availablePages = 0;
+        for ( FreelistStripe stripe : partition.stripes )
         {
-            AtomicInteger counter = (AtomicInteger) freelistHead;
-            long count = pages.getPageCount() - counter.get();
-            if ( count < keepFree )
+            Object freelistHead = stripe.getFreelistHead();
+            if ( freelistHead == shutdownSignal )
+            {
+                return UNKNOWN_AVAILABLE_PAGES;
+            }
+            availablePages += stripe.availablePages();
+            if ( availablePages >= keepFree )
             {
-                return count < 0 ? keepFree : (int) (keepFree - count);
+                return UNKNOWN_AVAILABLE_PAGES;
             }
         }
-        return UNKNOWN_AVAILABLE_PAGES;
+        return keepFree - availablePages;
     }
 
+    /**
+     * Evict the given number of pages, starting at the given clock arm position, within the partition that owns that
+     * page. A clock arm at or past the last page, as returned after evicting the last page of the last partition,
+     * wraps around to the first page.
+     * @return the new clock arm position.
+     */
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        if ( clockArm >= pages.getPageCount() )
+        {
+            clockArm = 0;
+        }
+        return evictPages( partitions[clockArm / pagesPerPartition], pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( PagePartition partition, int pageCountToEvict, int clockArm,
+            EvictionRunEvent evictionRunEvent )
+    {
+        int endPageId = partition.firstPageId + partition.pageCount;
+        // The evicted pages are handed off to the freelists in batches, to cut down on the CAS traffic on the freelist
+        // heads that the page faulting threads are popping pages off of.
+        long[] evictedPages = new long[Math.max( Math.min( pageCountToEvict, evictionBatchSize ), 1 )];
+        int evictedPageCount = 0;
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == endPageId )
             {
-                clockArm = 0;
+                clockArm = partition.firstPageId;
+                startNewClockRevolution( partition );
             }
 
             if ( closed )
             {
                 // The page cache has been shut down.
+                addFreePagesToFreelist( partition.emptiestStripe(), evictedPages, evictedPageCount );
                 return 0;
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && isEvictionCandidate( pageRef, partition.ageHotPages ) )
             {
+                partition.foundEvictionCandidate = true;
                 try
                 {
                     pageCountToEvict--;
                     if ( pages.tryEvict( pageRef, evictionRunEvent ) )
                     {
                         clearEvictorException();
-                        addFreePageToFreelist( pageRef );
+                        evictedPages[evictedPageCount++] = pageRef;
+                        if ( evictedPageCount == evictedPages.length )
+                        {
+                            addFreePagesToFreelist( partition.emptiestStripe(), evictedPages, evictedPageCount );
+                            evictedPageCount = 0;
+                        }
                     }
                 }
                 catch ( IOException e )
@@ -998,23 +1230,113 @@ public class MuninnPageCache implements PageCache
             clockArm++;
         }
 
+        addFreePagesToFreelist( partition.emptiestStripe(), evictedPages, evictedPageCount );
         return clockArm;
     }
 
+    private static void startNewClockRevolution( PagePartition partition )
+    {
+        // Hot pages are aged on every hotPageAgingInterval'th revolution, or if the last revolution could not find any
+        // cold pages to evict. The latter makes sure that we eventually make progress when every page is hot.
+        partition.clockRevolutions++;
+        partition.ageHotPages = !partition.foundEvictionCandidate ||
+                                partition.clockRevolutions % hotPageAgingInterval == 0;
+        partition.foundEvictionCandidate = false;
+    }
+
+    /**
+     * Decide if the given page should be evicted, as far as its usage is concerned, and age its usage counter.
+     * With the {@link EvictionPolicy#SCAN_RESISTANT scan resistant} eviction policy, hot pages are passed over without
+     * being aged, unless {@code ageHotPages} is {@code true}.
+     */
+    private boolean isEvictionCandidate( long pageRef, boolean ageHotPages )
+    {
+        if ( scanResistant && !ageHotPages && pages.isHot( pageRef ) )
+        {
+            return false;
+        }
+        return pages.decrementUsage( pageRef );
+    }
+
+    /**
+     * Called when the given file page is evicted from the cache.
+     */
+    void recordEviction( int swapperId, long filePageId )
+    {
+        if ( ghostList != null )
+        {
+            ghostList.evicted( swapperId, filePageId );
+        }
+    }
+
+    /**
+     * Called when the given file page has been faulted in.
+     * @return {@code true} if the page was evicted recently, and should be admitted directly into the hot set.
+     */
+    boolean isRecentlyEvicted( int swapperId, long filePageId )
+    {
+        return ghostList != null && ghostList.remove( swapperId, filePageId );
+    }
+
+    EvictionPolicy getEvictionPolicy()
+    {
+        return evictionPolicy;
+    }
+
     void addFreePageToFreelist( long pageRef )
     {
+        FreelistStripe stripe = partitionOf( pageRef ).stripe( stripeHint( Thread.currentThread().getId() ) );
         Object current;
         FreePage freePage = new FreePage( pageRef );
         do
         {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
+            current = stripe.getFreelistHead();
+            freePage.setNext( nextOfPushedPage( stripe, current ) );
+        }
+        while ( !stripe.compareAndSetFreelistHead( current, freePage ) );
+    }
+
+    /**
+     * Push the given pages onto the given freelist stripe, as a single chain of FreePage objects, with a single CAS.
+     */
+    private static void addFreePagesToFreelist( FreelistStripe stripe, long[] pageRefs, int count )
+    {
+        if ( count == 0 )
+        {
+            return;
+        }
+        FreePage[] chain = new FreePage[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            chain[i] = new FreePage( pageRefs[i] );
+        }
+        Object current;
+        do
+        {
+            // The chain is not visible to any other thread until our CAS succeeds, so we can safely relink it, and
+            // recompute the counts, if we have to retry.
+            current = stripe.getFreelistHead();
+            chain[0].setNext( nextOfPushedPage( stripe, current ) );
+            for ( int i = 1; i < count; i++ )
             {
-                current = null;
+                chain[i].setNext( chain[i - 1] );
             }
-            freePage.setNext( current );
         }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        while ( !stripe.compareAndSetFreelistHead( current, chain[count - 1] ) );
+    }
+
+    /**
+     * The freelist entry that a page pushed onto the given stripe should link to, given the current head of that
+     * stripe. An exhausted initial page counter is dropped from the freelist, but the push must still compare and set
+     * against the counter, since that is what the head of the stripe is.
+     */
+    private static Object nextOfPushedPage( FreelistStripe stripe, Object head )
+    {
+        if ( head instanceof AtomicInteger && ((AtomicInteger) head).get() >= stripe.pageCount )
+        {
+            return null;
+        }
+        return head;
     }
 
     void clearEvictorException()
@@ -1028,14 +1350,15 @@ public class MuninnPageCache implements PageCache
     @Override
     public String toString()
     {
-        int availablePages = tryGetNumberOfAvailablePages( keepFree );
-        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, availablePages:%s]", getClass().getSimpleName(),
-                pageCacheId, cachePageSize, pages.getPageCount(), availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A" );
+        int availablePages = tryGetNumberOfAvailablePages();
+        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, partitions:%d, availablePages:%s, evictionPolicy:%s]",
+                getClass().getSimpleName(), pageCacheId, cachePageSize, pages.getPageCount(), partitions.length,
+                availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A", evictionPolicy );
     }
 
     void vacuum( SwapperSet swappers )
     {
-        if ( getFreelistHead() instanceof AtomicInteger && swappers.countAvailableIds() > 200 )
+        if ( hasUnusedPages() && swappers.countAvailableIds() > 200 )
         {
             return; // We probably still have plenty of free pages left. Don't bother vacuuming just yet.
         }
@@ -1063,4 +1386,34 @@ public class MuninnPageCache implements PageCache
             }
         } );
     }
+
+    private boolean hasUnusedPages()
+    {
+        for ( PagePartition partition : partitions )
+        {
+            if ( hasUnusedPages( partition ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasUnusedPages( PagePartition partition )
+    {
+        for ( FreelistStripe stripe : partition.stripes )
+        {
+            Object head = stripe.getFreelistHead();
+            if ( head instanceof AtomicInteger && ((AtomicInteger) head).get() < stripe.pageCount )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getPartitionCount()
+    {
+        return partitions.length;
+    }
 }
@@ -38,9 +38,11 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -49,6 +51,10 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The maximum number of pages that a cursor with PF_READ_AHEAD will fault in ahead of itself, when it detects that
+    // it is page faulting its way through a file sequentially.
+    private static final int readAheadPages = getInteger( MuninnPageCursor.class, "readAheadPages", 8 );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -67,6 +73,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected boolean eagerFlush;
     protected boolean noFault;
     protected boolean noGrow;
+    protected boolean readAhead;
     protected long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
@@ -77,6 +84,15 @@ abstract class MuninnPageCursor extends PageCursor
     private int offset;
     private boolean outOfBounds;
     private boolean isLinkedCursor;
+    // The number of hits and faults this cursor has observed, that have not yet been reported to the paged file.
+    private long fileHits;
+    private long fileFaults;
+    // The file page id of the page that was most recently pinned by this cursor, used for detecting sequential access.
+    private long lastPinnedPageId;
+    // Scratch space for read-ahead, allocated on first use.
+    private long[] readAheadPageRefs;
+    private long[] readAheadAddresses;
+    private LatchMap.Latch[] readAheadLatches;
     // This is a String with the exception message if usePreciseCursorErrorStackTraces is false, otherwise it is a
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
@@ -101,6 +117,8 @@ abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault | isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.readAhead = !noFault & readAheadPages > 0 & isFlagRaised( pf_flags, PF_READ_AHEAD );
+        this.lastPinnedPageId = UNBOUND_PAGE_ID;
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -179,6 +197,7 @@ abstract class MuninnPageCursor extends PageCursor
         while ( cursor != null && cursor.pagedFile != null )
         {
             cursor.unpinCurrentPage();
+            cursor.reportFileAccesses();
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
@@ -186,6 +205,16 @@ abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    private void reportFileAccesses()
+    {
+        if ( (fileHits | fileFaults) != 0 )
+        {
+            pagedFile.reportFileAccesses( fileHits, fileFaults );
+            fileHits = 0;
+            fileFaults = 0;
+        }
+    }
+
     private void closeLinkedCursorIfAny()
     {
         if ( linkedCursor != null )
@@ -296,6 +325,8 @@ abstract class MuninnPageCursor extends PageCursor
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
                     pinEvent.hit();
+                    fileHits++;
+                    lastPinnedPageId = filePageId;
                     return;
                 }
                 if ( locked )
@@ -307,6 +338,7 @@ abstract class MuninnPageCursor extends PageCursor
             {
                 if ( uncommonPin( filePageId, chunkOffset, chunk ) )
                 {
+                    lastPinnedPageId = filePageId;
                     return;
                 }
             }
@@ -339,6 +371,13 @@ abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                fileFaults++;
+                if ( readAhead && lastPinnedPageId != UNBOUND_PAGE_ID && filePageId == lastPinnedPageId + 1 )
+                {
+                    // We are page faulting our way through the file in sequential order, so we can expect to need
+                    // the next few pages as well. Fault them in now, with a single vectored read.
+                    readAhead( filePageId + 1 );
+                }
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -351,6 +390,122 @@ abstract class MuninnPageCursor extends PageCursor
         return false;
     }
 
+    /**
+     * Opportunistically fault in a run of pages following the one we just faulted in, so the next pins will be hits.
+     * <p>
+     * Read-ahead is best-effort: it stops at the first page that is already mapped or being faulted in by someone else,
+     * at the end of the file, and when there are no immediately available free pages. It never waits for latches or
+     * does any eviction, and any failure is ignored, since it will be reported by the page fault that actually
+     * needs the page.
+     */
+    private void readAhead( long startFilePageId )
+    {
+        long lastPageId;
+        try
+        {
+            lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
+        }
+        catch ( FileIsNotMappedException e )
+        {
+            return;
+        }
+        int length = (int) Math.min( readAheadPages, lastPageId - startFilePageId + 1 );
+        if ( length <= 0 )
+        {
+            return;
+        }
+        if ( readAheadPageRefs == null )
+        {
+            readAheadPageRefs = new long[readAheadPages];
+            readAheadAddresses = new long[readAheadPages];
+            readAheadLatches = new LatchMap.Latch[readAheadPages];
+        }
+
+        int[][] tt = pagedFile.translationTable;
+        int count = 0;
+        while ( count < length )
+        {
+            long filePageId = startFilePageId + count;
+            int chunkId = MuninnPagedFile.computeChunkId( filePageId );
+            if ( tt.length <= chunkId )
+            {
+                break;
+            }
+            int[] chunk = tt[chunkId];
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( filePageId );
+            if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+            {
+                break;
+            }
+            LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( filePageId );
+            if ( latch == null )
+            {
+                break;
+            }
+            long pageRef;
+            if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE ||
+                 (pageRef = pagedFile.tryGrabFreeAndExclusivelyLockedPage()) == 0 )
+            {
+                latch.release();
+                break;
+            }
+            readAheadLatches[count] = latch;
+            readAheadPageRefs[count] = pageRef;
+            count++;
+        }
+        if ( count > 0 )
+        {
+            readAheadFault( startFilePageId, count, tt );
+        }
+    }
+
+    private void readAheadFault( long startFilePageId, int count, int[][] tt )
+    {
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                pagedFile.initBuffer( readAheadPageRefs[i] );
+            }
+            pagedFile.faultVectored(
+                    readAheadPageRefs, readAheadAddresses, count, swapper, swapperId, startFilePageId, faultEvent );
+        }
+        catch ( Throwable throwable )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                long pageRef = readAheadPageRefs[i];
+                if ( pagedFile.isLoaded( pageRef ) )
+                {
+                    // Let the eviction thread pick up our trash.
+                    pagedFile.unlockExclusive( pageRef );
+                }
+                else
+                {
+                    pagedFile.returnFreePage( pageRef );
+                }
+                readAheadLatches[i].release();
+                readAheadLatches[i] = null;
+            }
+            faultEvent.done( throwable );
+            return;
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            long filePageId = startFilePageId + i;
+            long pageRef = readAheadPageRefs[i];
+            pagedFile.initialiseUsage( pageRef, filePageId );
+            int[] chunk = tt[MuninnPagedFile.computeChunkId( filePageId )];
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( filePageId );
+            UnsafeUtil.putIntVolatile( chunk, chunkOffset, pagedFile.toId( pageRef ) );
+            pagedFile.unlockExclusive( pageRef );
+            readAheadLatches[i].release();
+            readAheadLatches[i] = null;
+        }
+        faultEvent.done();
+    }
+
     private long pageFault(
             long filePageId, PageSwapper swapper, long chunkOffset, int[] chunk, LatchMap.Latch latch )
             throws IOException
@@ -389,6 +544,7 @@ abstract class MuninnPageCursor extends PageCursor
             assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
             pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            pagedFile.initialiseUsage( pageRef, filePageId );
         }
         catch ( Throwable throwable )
         {
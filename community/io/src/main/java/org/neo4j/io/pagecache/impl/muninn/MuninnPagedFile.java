@@ -26,6 +26,10 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
@@ -45,6 +49,8 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.util.FeatureToggles.getInteger;
+
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 {
     static final int UNMAPPED_TTE = -1;
@@ -55,6 +61,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( int[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( int[].class );
 
+    // The maximum number of threads that will concurrently flush a file. Each translation table chunk is a region of
+    // the file that is flushed by one thread, so only files that span more than one chunk will use extra threads.
+    private static final int flushThreads = getInteger( MuninnPagedFile.class, "flushThreads", 4 );
+    private static final Executor flushExecutor = BackgroundThreadExecutor.INSTANCE;
+
     private static final long headerStateOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
     private static final int headerStateRefCountShift = 48;
@@ -286,7 +297,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         try ( MajorFlushEvent flushEvent = pageCacheTracer.beginFileFlush( swapper ) )
         {
-            flushAndForceInternal( flushEvent.flushEventOpportunity(), false, limiter );
+            flushAndForceInternal( flushEvent, false, limiter );
             syncDevice();
         }
         pageCache.clearEvictorException();
@@ -304,7 +315,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         try ( MajorFlushEvent flushEvent = pageCacheTracer.beginFileFlush( swapper ) )
         {
-            flushAndForceInternal( flushEvent.flushEventOpportunity(), true, IOLimiter.unlimited() );
+            flushAndForceInternal( flushEvent, true, IOLimiter.unlimited() );
             syncDevice();
         }
         pageCache.clearEvictorException();
@@ -357,12 +368,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
     }
 
-    void flushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
+    void flushAndForceInternal( MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter )
             throws IOException
     {
         try
         {
-            doFlushAndForceInternal( flushes, forClosing, limiter );
+            doFlushAndForceInternal( flushEvent, forClosing, limiter );
         }
         catch ( ClosedChannelException e )
         {
@@ -371,21 +382,98 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
     }
 
-    private void doFlushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
+    private void doFlushAndForceInternal( MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter )
             throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
-        long[] pages = new long[translationTableChunkSize];
-        long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
-        long[] bufferAddresses = new long[translationTableChunkSize];
-        long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
-        long limiterStamp = IOLimiter.INITIAL_STAMP;
         int[][] tt = this.translationTable;
-        for ( int[] chunk : tt )
+        int helpers = Math.max( Math.min( flushThreads, tt.length ) - 1, 0 );
+        RegionFlush flush = new RegionFlush( tt, flushEvent, forClosing, limiter, helpers );
+        for ( int i = 0; i < helpers; i++ )
+        {
+            flushExecutor.execute( flush );
+        }
+        try
+        {
+            flush.flushRegions();
+        }
+        catch ( Throwable throwable )
+        {
+            flush.failed( throwable );
+        }
+        flush.awaitHelpers();
+        flush.rethrowFailure();
+
+        swapper.force();
+    }
+
+    /**
+     * A flush of this file, where the regions of the file covered by each translation table chunk can be flushed by
+     * any number of threads concurrently. Regions are handed out one at a time, and the given {@link IOLimiter} is
+     * shared by all the flushing threads, so IO is limited for the flush as a whole.
+     */
+    private final class RegionFlush implements Runnable
+    {
+        private final int[][] tt;
+        private final MajorFlushEvent flushEvent;
+        private final boolean forClosing;
+        private final IOLimiter limiter;
+        private final AtomicInteger nextRegion = new AtomicInteger();
+        private final AtomicInteger completedRegions = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CountDownLatch helpersDone;
+        private long limiterStamp = IOLimiter.INITIAL_STAMP;
+
+        RegionFlush( int[][] tt, MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter, int helpers )
+        {
+            this.tt = tt;
+            this.flushEvent = flushEvent;
+            this.forClosing = forClosing;
+            this.limiter = limiter;
+            this.helpersDone = new CountDownLatch( helpers );
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                flushRegions();
+            }
+            catch ( Throwable throwable )
+            {
+                failed( throwable );
+            }
+            finally
+            {
+                helpersDone.countDown();
+            }
+        }
+
+        void flushRegions() throws IOException
+        {
+            FlushEventOpportunity flushes = flushEvent.flushEventOpportunity();
+            long[] pages = new long[translationTableChunkSize];
+            long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
+            long[] bufferAddresses = new long[translationTableChunkSize];
+            int regionCount = tt.length;
+            int region;
+            while ( failure.get() == null && (region = nextRegion.getAndIncrement()) < regionCount )
+            {
+                flushRegion( region, pages, flushStamps, bufferAddresses, flushes );
+                flushEvent.regionFlushed( completedRegions.incrementAndGet(), regionCount );
+            }
+        }
+
+        private void flushRegion( int region, long[] pages, long[] flushStamps, long[] bufferAddresses,
+                FlushEventOpportunity flushes ) throws IOException
         {
             // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
             // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
             // TODO garbage to the file.
+            int[] chunk = tt[region];
+            // Start one before the region because we increment at the *start* of the chunk-loop iteration.
+            long filePageId = ((long) region << translationTableChunkSizePower) - 1;
             int pagesGrabbed = 0;
             chunkLoop:
             for ( int i = 0; i < chunk.length; i++ )
@@ -440,18 +528,72 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 if ( pagesGrabbed > 0 )
                 {
                     vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                    limitIO( pagesGrabbed );
                     pagesGrabbed = 0;
                 }
             }
             if ( pagesGrabbed > 0 )
             {
                 vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                limitIO( pagesGrabbed );
             }
         }
 
-        swapper.force();
+        private synchronized void limitIO( int pagesFlushed )
+        {
+            limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesFlushed, MuninnPagedFile.this );
+        }
+
+        void failed( Throwable throwable )
+        {
+            if ( !failure.compareAndSet( null, throwable ) )
+            {
+                failure.get().addSuppressed( throwable );
+            }
+        }
+
+        void awaitHelpers()
+        {
+            boolean interrupted = false;
+            for (;;)
+            {
+                try
+                {
+                    helpersDone.await();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    // We cannot leave while any of the helpers might still be flushing pages.
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void rethrowFailure() throws IOException
+        {
+            Throwable throwable = failure.get();
+            if ( throwable instanceof IOException )
+            {
+                throw (IOException) throwable;
+            }
+            if ( throwable instanceof RuntimeException )
+            {
+                throw (RuntimeException) throwable;
+            }
+            if ( throwable instanceof Error )
+            {
+                throw (Error) throwable;
+            }
+            if ( throwable != null )
+            {
+                throw new IOException( throwable );
+            }
+        }
     }
 
     private void vectoredFlush(
@@ -676,6 +818,23 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Grab a free page for the purpose of read-ahead, but only if one is immediately available.
+     * @return An exclusively locked free page, or {@code 0} if none was available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage()
+    {
+        return pageCache.tryGrabFreeAndExclusivelyLockedPage();
+    }
+
+    /**
+     * Give back an exclusively locked page, that was grabbed but never faulted into, to the free-list.
+     */
+    void returnFreePage( long pageRef )
+    {
+        pageCache.addFreePageToFreelist( pageRef );
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -690,6 +849,30 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         long pageRef = deref( mappedPageId );
         setHighestEvictedTransactionId( getAndResetLastModifiedTransactionId( pageRef ) );
         UnsafeUtil.putIntVolatile( chunk, chunkOffset, UNMAPPED_TTE );
+        pageCache.recordEviction( swapperId, filePageId );
+    }
+
+    /**
+     * Give the freshly faulted page its initial usage, according to the eviction policy of the page cache.
+     * Pages that were evicted shortly before being faulted back in, are given an extra usage count, which makes them
+     * hot as soon as they are pinned.
+     * @param pageRef The page that has just been faulted in.
+     * @param filePageId The file page id the page is bound to.
+     */
+    void initialiseUsage( long pageRef, long filePageId )
+    {
+        if ( pageCache.isRecentlyEvicted( swapperId, filePageId ) )
+        {
+            incrementUsage( pageRef );
+        }
+    }
+
+    /**
+     * Report the hits and faults observed by a page cursor of this file, to the page cache tracer.
+     */
+    void reportFileAccesses( long hits, long faults )
+    {
+        pageCacheTracer.fileAccesses( file(), hits, faults );
     }
 
     private void setHighestEvictedTransactionId( long modifiedTransactionId )
@@ -345,6 +345,15 @@ class PageList
         return usage <= 1;
     }
 
+    /**
+     * A page is hot if it has been accessed more than once since it was faulted in, or since its usage counter was
+     * last aged by eviction. Pages that are not hot are cold, and would be evicted by {@link #decrementUsage(long)}.
+     **/
+    boolean isHot( long pageRef )
+    {
+        return getUsageCounter( pageRef ) > 1;
+    }
+
     long getFilePageId( long pageRef )
     {
         long filePageId = UnsafeUtil.getLong( offPageBinding( pageRef ) ) >>> SHIFT_FILE_PAGE_ID;
@@ -437,6 +446,49 @@ class PageList
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault in a run of consecutive file pages, starting from the given {@code startFilePageId}, with a single vectored
+     * read. This works like {@link #fault(long, PageSwapper, int, long, PageFaultEvent)}, except for many pages at once.
+     * All of the given pages must be exclusively locked and unbound.
+     *
+     * @param pageRefs The pages to fault into, in file page order.
+     * @param bufferAddresses Scratch space for the buffer addresses of the pages. At least {@code length} long.
+     * @param length The number of pages to fault in.
+     */
+    void faultVectored( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId, PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 ||
+                 currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, startFilePageId + i, currentSwapper,
+                        currentFilePageId );
+            }
+        }
+        // See the comment in fault() about why we assign the file page ids before we swap the pages in.
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i );
+            bufferAddresses[i] = getAddress( pageRefs[i] );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
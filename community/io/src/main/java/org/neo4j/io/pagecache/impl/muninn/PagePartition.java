@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * A contiguous range of the pages in the {@link PageList}, with its own freelist stripes and its own eviction clock arm.
+ * <p>
+ * Page faulting threads have a home partition that they grab their free pages from first, and pages that are evicted
+ * are always returned to the freelist of the partition they belong to. This way, each partition keeps recycling the
+ * same region of memory.
+ */
+final class PagePartition
+{
+    final int index;
+    // The id of the first page in this partition.
+    final int firstPageId;
+    // The number of pages in this partition.
+    final int pageCount;
+    // The number of free pages the background eviction thread will try to keep in this partition.
+    final int keepFree;
+    // The freelists of this partition. Each stripe owns a contiguous sub-range of the pages in the partition, for as
+    // long as its freelist is still counting through its never-used pages.
+    final FreelistStripe[] stripes;
+
+    // The state of the background eviction clock arm. Only accessed by the background eviction thread.
+    int clockArm;
+    long clockRevolutions;
+    boolean ageHotPages;
+    boolean foundEvictionCandidate;
+
+    PagePartition( int index, int firstPageId, int pageCount, int keepFree, int stripeCount )
+    {
+        this.index = index;
+        this.firstPageId = firstPageId;
+        this.pageCount = pageCount;
+        this.keepFree = keepFree;
+        this.clockArm = firstPageId;
+
+        stripeCount = Math.max( 1, Math.min( stripeCount, pageCount ) );
+        int pagesPerStripe = (pageCount + stripeCount - 1) / stripeCount;
+        stripes = new FreelistStripe[(pageCount + pagesPerStripe - 1) / pagesPerStripe];
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            int stripeFirstPageId = i * pagesPerStripe;
+            stripes[i] = new FreelistStripe(
+                    firstPageId + stripeFirstPageId, Math.min( pagesPerStripe, pageCount - stripeFirstPageId ) );
+        }
+    }
+
+    FreelistStripe stripe( int stripeHint )
+    {
+        return stripes[stripeHint % stripes.length];
+    }
+
+    /**
+     * @return the stripe with the fewest free pages. This is where the eviction thread hands off its evicted pages.
+     */
+    FreelistStripe emptiestStripe()
+    {
+        FreelistStripe emptiest = stripes[0];
+        int fewestPages = emptiest.availablePages();
+        for ( int i = 1; i < stripes.length && fewestPages > 0; i++ )
+        {
+            int availablePages = stripes[i].availablePages();
+            if ( availablePages < fewestPages )
+            {
+                emptiest = stripes[i];
+                fewestPages = availablePages;
+            }
+        }
+        return emptiest;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PagePartition[index:" + index + ", firstPageId:" + firstPageId + ", pageCount:" + pageCount +
+               ", stripes:" + stripes.length + "]";
+    }
+}
@@ -21,6 +21,8 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -44,6 +46,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
+    private final ConcurrentMap<File,FileAccessCounters> fileAccesses = new ConcurrentHashMap<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -131,6 +134,11 @@ public class DefaultPageCacheTracer implements PageCacheTracer
             return flushEventOpportunity;
         }
 
+        @Override
+        public void regionFlushed( int completedRegions, int totalRegions )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -147,6 +155,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     public void unmappedFile( File file )
     {
         filesUnmapped.increment();
+        fileAccesses.remove( file );
     }
 
     @Override
@@ -304,4 +313,36 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         this.maxPages.set( maxPages );
     }
+
+    @Override
+    public void fileAccesses( File file, long hits, long faults )
+    {
+        FileAccessCounters counters = fileAccesses.get( file );
+        if ( counters == null )
+        {
+            counters = fileAccesses.computeIfAbsent( file, f -> new FileAccessCounters() );
+        }
+        counters.hits.add( hits );
+        counters.faults.add( faults );
+    }
+
+    @Override
+    public long fileHits( File file )
+    {
+        FileAccessCounters counters = fileAccesses.get( file );
+        return counters == null ? 0 : counters.hits.sum();
+    }
+
+    @Override
+    public long fileFaults( File file )
+    {
+        FileAccessCounters counters = fileAccesses.get( file );
+        return counters == null ? 0 : counters.faults.sum();
+    }
+
+    private static class FileAccessCounters
+    {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder faults = new LongAdder();
+    }
 }
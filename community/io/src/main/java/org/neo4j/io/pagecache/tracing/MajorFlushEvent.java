@@ -35,6 +35,11 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheTracerEvent
             return FlushEventOpportunity.NULL;
         }
 
+        @Override
+        public void regionFlushed( int completedRegions, int totalRegions )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -45,4 +50,14 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheTracerEvent
      * Mass-flushing obviously imply flushing opportunities.
      */
     FlushEventOpportunity flushEventOpportunity();
+
+    /**
+     * Files are flushed in regions, and large files may have their regions flushed by several threads concurrently.
+     * This is called, possibly concurrently, every time a region has been completely flushed, so progress can be
+     * tracked.
+     *
+     * @param completedRegions The number of regions of the file that have been flushed so far.
+     * @param totalRegions The total number of regions to be flushed in the file.
+     */
+    void regionFlushed( int completedRegions, int totalRegions );
 }
@@ -192,6 +192,23 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void fileAccesses( File file, long hits, long faults )
+        {
+        }
+
+        @Override
+        public long fileHits( File file )
+        {
+            return 0;
+        }
+
+        @Override
+        public long fileFaults( File file )
+        {
+            return 0;
+        }
+
         @Override
         public String toString()
         {
@@ -287,4 +304,24 @@ public interface PageCacheTracer extends PageCacheCounters
      * @param maxPages the total number of available pages.
      */
     void maxPages( long maxPages );
+
+    /**
+     * Report number of hits and faults observed by page cursors for a particular mapped file.
+     * @param file the file the page cursors were accessing
+     * @param hits number of hits in the given file
+     * @param faults number of faults in the given file
+     */
+    void fileAccesses( File file, long hits, long faults );
+
+    /**
+     * @param file the file of interest
+     * @return The number of page cache hits observed for the given file since it was mapped.
+     */
+    long fileHits( File file );
+
+    /**
+     * @param file the file of interest
+     * @return The number of page faults observed for the given file since it was mapped.
+     */
+    long fileFaults( File file );
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedFilePageSwapperWithRealFileSystemIT extends SingleFilePageSwapperWithRealFileSystemIT
+{
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        // Use small regions, so the tests cover pages in many different regions, and partially mapped regions.
+        MappedFilePageSwapperFactory factory = new MappedFilePageSwapperFactory( 3 * cachePageSize() );
+        factory.open( getFs(), Configuration.EMPTY );
+        return factory;
+    }
+
+    @Test
+    public void mustReadPagesWrittenAfterTheirRegionWasMapped() throws Exception
+    {
+        File file = getFile();
+        PageSwapperFactory factory = createSwapperFactory();
+        PageSwapper swapper = createSwapperAndFile( factory, file );
+        long page = createPage();
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            putLong( page, 0, i );
+            swapper.write( i, page );
+            clear( page );
+            // Read back the page right away, so its region is mapped while the file is still growing.
+            assertThat( swapper.read( i, page, sizeOfAsInt( page ) ), is( sizeOfAsLong( page ) ) );
+            assertThat( getLong( page, 0 ), is( (long) i ) );
+        }
+        for ( int i = 0; i < 8; i++ )
+        {
+            putLong( page, 0, i + 100 );
+            swapper.write( i, page );
+        }
+        for ( int i = 0; i < 8; i++ )
+        {
+            clear( page );
+            assertThat( swapper.read( i, page, sizeOfAsInt( page ) ), is( sizeOfAsLong( page ) ) );
+            assertThat( getLong( page, 0 ), is( (long) i + 100 ) );
+        }
+    }
+
+    @Test
+    public void mustReadAppendedPagesWhetherOrNotTheirRegionHasBeenRemapped() throws Exception
+    {
+        File file = getFile();
+        // Large enough regions that the last region is only remapped every few appended pages.
+        MappedFilePageSwapperFactory factory = new MappedFilePageSwapperFactory( 64 * cachePageSize() );
+        factory.open( getFs(), Configuration.EMPTY );
+        PageSwapper swapper = createSwapperAndFile( factory, file );
+        long page = createPage();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            putLong( page, 0, i + 1 );
+            swapper.write( i, page );
+            for ( int j = 0; j <= i; j++ )
+            {
+                clear( page );
+                assertThat( swapper.read( j, page, sizeOfAsInt( page ) ), is( sizeOfAsLong( page ) ) );
+                assertThat( getLong( page, 0 ), is( (long) j + 1 ) );
+            }
+            clear( page );
+            assertThat( swapper.read( i + 1, page, sizeOfAsInt( page ) ), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void mustNotReadFromMappingsAfterTruncation() throws Exception
+    {
+        File file = getFile();
+        PageSwapperFactory factory = createSwapperFactory();
+        PageSwapper swapper = createSwapperAndFile( factory, file );
+        long page = createPage();
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            putLong( page, 0, i + 1 );
+            swapper.write( i, page );
+            assertThat( swapper.read( i, page, sizeOfAsInt( page ) ), is( sizeOfAsLong( page ) ) );
+        }
+        swapper.truncate();
+        putLong( page, 0, 42 );
+        swapper.write( 0, page );
+
+        clear( page );
+        assertThat( swapper.read( 0, page, sizeOfAsInt( page ) ), is( sizeOfAsLong( page ) ) );
+        assertThat( getLong( page, 0 ), is( 42L ) );
+        clear( page );
+        putLong( page, 0, -1 );
+        assertThat( swapper.read( 1, page, sizeOfAsInt( page ) ), is( 0L ) );
+        assertThat( getLong( page, 0 ), is( 0L ) );
+    }
+}
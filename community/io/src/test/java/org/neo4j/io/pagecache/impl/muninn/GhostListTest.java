@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class GhostListTest
+{
+    private final GhostList ghostList = new GhostList( 100 );
+
+    @Test
+    public void capacityMustBeRoundedUpToPowerOfTwo()
+    {
+        assertThat( ghostList.capacity(), is( 128 ) );
+        assertThat( new GhostList( 128 ).capacity(), is( 128 ) );
+        assertThat( new GhostList( 1 ).capacity(), is( 2 ) );
+    }
+
+    @Test
+    public void mustNotFindPagesThatWereNeverEvicted()
+    {
+        assertFalse( ghostList.remove( 0, 0 ) );
+        assertFalse( ghostList.remove( 1, 42 ) );
+    }
+
+    @Test
+    public void mustFindEvictedPageOnlyOnce()
+    {
+        ghostList.evicted( 1, 42 );
+        assertTrue( ghostList.remove( 1, 42 ) );
+        assertFalse( ghostList.remove( 1, 42 ) );
+    }
+
+    @Test
+    public void mustDistinguishPagesOfDifferentSwappers()
+    {
+        ghostList.evicted( 1, 0 );
+        assertFalse( ghostList.remove( 2, 0 ) );
+        assertFalse( ghostList.remove( 0, 0 ) );
+        assertTrue( ghostList.remove( 1, 0 ) );
+    }
+
+    @Test
+    public void mustRememberRecentEvictionsUpToCapacity()
+    {
+        // Colliding entries overwrite each other, so we can't expect to remember every eviction,
+        // but most of them should still be there.
+        for ( int i = 0; i < ghostList.capacity(); i++ )
+        {
+            ghostList.evicted( 1, i );
+        }
+        int found = 0;
+        for ( int i = 0; i < ghostList.capacity(); i++ )
+        {
+            if ( ghostList.remove( 1, i ) )
+            {
+                found++;
+            }
+        }
+        assertTrue( "found " + found, found > ghostList.capacity() / 2 );
+    }
+}
@@ -70,6 +70,18 @@ public class LatchMapTest
         assertThat( future.get( 1, TimeUnit.SECONDS ), is( nullValue() ) );
     }
 
+    @Test
+    public void tryTakeLatchMustReturnNullInsteadOfAwaitingExistingLatch()
+    {
+        BinaryLatch latch = latches.tryTakeLatch( 42 );
+        assertThat( latch, is( notNullValue() ) );
+        assertThat( latches.tryTakeLatch( 42 ), is( nullValue() ) );
+        latch.release();
+        latch = latches.tryTakeLatch( 42 );
+        assertThat( latch, is( notNullValue() ) );
+        latch.release();
+    }
+
     @Test
     public void takeOrAwaitLatchMustNotLetUnrelatedLatchesConflictTooMuch() throws Exception
     {
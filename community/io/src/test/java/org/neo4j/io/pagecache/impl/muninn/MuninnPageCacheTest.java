@@ -25,40 +25,59 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
+import org.neo4j.graphdb.config.Configuration;
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.ConfigurablePageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
+import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
+import org.neo4j.memory.LocalMemoryTracker;
 
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
@@ -679,6 +698,411 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void scanResistantEvictionPolicyMustKeepHotPagesThroughSequentialScan() throws Exception
+    {
+        fixture.evictionPolicy = EvictionPolicy.SCAN_RESISTANT;
+        int maxPages = 100;
+        int hotPages = 10;
+        int scannedPages = 500;
+        try ( MuninnPageCache pageCache = createPageCache( fs, maxPages, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL );
+              PagedFile hot = pageCache.map( file( "hot" ), filePageSize, StandardOpenOption.CREATE );
+              PagedFile scanned = pageCache.map( file( "scanned" ), filePageSize, StandardOpenOption.CREATE ) )
+        {
+            writePages( scanned, scannedPages );
+            writePages( hot, hotPages );
+
+            // Make the hot pages hot, by accessing them repeatedly.
+            for ( int i = 0; i < 4; i++ )
+            {
+                readPages( hot, hotPages );
+            }
+
+            // Then do a sequential scan that is many times bigger than the page cache.
+            readPages( scanned, scannedPages );
+
+            try ( PageCursor cursor = hot.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( long pageId = 0; pageId < hotPages; pageId++ )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    assertThat( "hot page " + pageId + " must not be evicted by the scan",
+                            cursor.getCurrentPageId(), is( pageId ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scanResistantEvictionPolicyMustStillEvictWhenAllPagesAreHot() throws Exception
+    {
+        fixture.evictionPolicy = EvictionPolicy.SCAN_RESISTANT;
+        int maxPages = 20;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, maxPages, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), filePageSize, StandardOpenOption.CREATE ) )
+        {
+            writePages( pagedFile, maxPages * 2 );
+            long faultsBeforeReading = tracer.fileFaults( pagedFile.file() );
+            for ( int i = 0; i < 4; i++ )
+            {
+                readPages( pagedFile, maxPages * 2 );
+            }
+
+            // Every pass reads twice as many pages as fit in the cache, so at least half of them must have been
+            // faulted in on each pass, and some page evicted to make room for every one of those faults.
+            long faultsWhileReading = tracer.fileFaults( pagedFile.file() ) - faultsBeforeReading;
+            assertThat( faultsWhileReading, greaterThanOrEqualTo( (long) maxPages * 4 ) );
+        }
+    }
+
+    @Test
+    public void mustForgetPerFileHitsAndFaultsWhenFileIsUnmapped() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, tracer, PageCursorTracerSupplier.NULL ) )
+        {
+            PagedFile a = pageCache.map( file( "a" ), 8 );
+            File mappedFile = a.file();
+            try ( PageCursor cursor = a.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( tracer.fileFaults( mappedFile ), is( 1L ) );
+
+            a.close();
+
+            assertThat( tracer.fileFaults( mappedFile ), is( 0L ) );
+            assertThat( tracer.fileHits( mappedFile ), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void mustReportPerFileHitsAndFaultsToPageCacheTracer() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile a = pageCache.map( file( "a" ), 8 );
+              PagedFile b = pageCache.map( file( "b" ), 8 ) )
+        {
+            try ( PageCursor cursor = a.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+            try ( PageCursor cursor = a.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            try ( PageCursor cursor = b.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            assertThat( tracer.fileFaults( a.file() ), is( 2L ) );
+            assertThat( tracer.fileHits( a.file() ), is( 1L ) );
+            assertThat( tracer.fileFaults( b.file() ), is( 1L ) );
+            assertThat( tracer.fileHits( b.file() ), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void readAheadMustFaultInFollowingPagesOfSequentialScan() throws Exception
+    {
+        int pageCount = 50;
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( (long) i ) );
+                }
+                assertFalse( cursor.next() );
+            }
+
+            assertThat( tracer.fileFaults( pagedFile.file() ) + tracer.fileHits( pagedFile.file() ),
+                    is( (long) pageCount ) );
+            assertThat( tracer.fileFaults( pagedFile.file() ), lessThan( (long) pageCount / 2 ) );
+        }
+    }
+
+    @Test
+    public void readAheadMustNotFaultInPagesOfRandomAccess() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            writePages( pagedFile, 50 );
+        }
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                assertTrue( cursor.next( 10 ) );
+                assertTrue( cursor.next( 20 ) );
+                assertTrue( cursor.next( 5 ) );
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( long pageId : new long[]{11, 21, 6} )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flushOfFileSpanningManyRegionsMustFlushAllPagesAndReportRegionProgress() throws Exception
+    {
+        // Three translation table chunks worth of pages, where the last one is only partially used.
+        int pageCount = 2 * 4096 + 10;
+        AtomicInteger regionsFlushed = new AtomicInteger();
+        AtomicInteger totalRegions = new AtomicInteger();
+        DefaultPageCacheTracer defaultTracer = new DefaultPageCacheTracer();
+        PageCacheTracer tracer = new DelegatingPageCacheTracer( defaultTracer )
+        {
+            @Override
+            public MajorFlushEvent beginFileFlush( PageSwapper swapper )
+            {
+                MajorFlushEvent event = super.beginFileFlush( swapper );
+                return new MajorFlushEvent()
+                {
+                    @Override
+                    public FlushEventOpportunity flushEventOpportunity()
+                    {
+                        return event.flushEventOpportunity();
+                    }
+
+                    @Override
+                    public void regionFlushed( int completedRegions, int regionCount )
+                    {
+                        regionsFlushed.incrementAndGet();
+                        totalRegions.set( regionCount );
+                    }
+
+                    @Override
+                    public void close()
+                    {
+                        event.close();
+                    }
+                };
+            }
+        };
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, pageCount + 100, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), pageCachePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            assertThat( defaultTracer.bytesWritten(), is( (long) pageCount * pageCachePageSize ) );
+            assertThat( totalRegions.get(), is( 3 ) );
+            assertThat( regionsFlushed.get(), is( 3 ) );
+
+            // Everything is clean now, so flushing again must not write anything.
+            pagedFile.flushAndForce();
+            assertThat( defaultTracer.bytesWritten(), is( (long) pageCount * pageCachePageSize ) );
+        }
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), pageCachePageSize );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong();
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( (long) i ) );
+            }
+            assertFalse( cursor.next() );
+        }
+    }
+
+    @Test
+    public void partitionCountMustNotExceedPageCount() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 3, 8, 1 ) )
+        {
+            assertThat( pageCache.getPartitionCount(), is( 3 ) );
+        }
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 10, 4, 1 ) )
+        {
+            assertThat( pageCache.getPartitionCount(), is( 4 ) );
+        }
+    }
+
+    @Test
+    public void evictionClockArmPastTheLastPageMustWrapAroundToTheFirstPage() throws Exception
+    {
+        // 10 pages in partitions of 4, 4 and 2 pages, and 9 pages in partitions of 3 pages each
+        for ( int[] pagesAndPartitions : new int[][]{{10, 3}, {9, 3}} )
+        {
+            try ( MuninnPageCache pageCache = createPartitionedPageCache( pagesAndPartitions[0], pagesAndPartitions[1], 1 ) )
+            {
+                int maxPages = (int) pageCache.maxCachedPages();
+                assertThat( maxPages, is( pagesAndPartitions[0] ) );
+                assertThat( pageCache.getPartitionCount(), is( pagesAndPartitions[1] ) );
+                assertThat( pageCache.evictPages( 0, maxPages, EvictionRunEvent.NULL ), is( 0 ) );
+                assertThat( pageCache.evictPages( 0, maxPages - 1, EvictionRunEvent.NULL ), is( maxPages - 1 ) );
+            }
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void partitionedPageCacheMustEvictAndReusePagesFromAllPartitions() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, 4, 1 ) )
+        {
+            concurrentlyReadPagesThroughEviction( pageCache );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void stripedFreelistsMustEvictAndReusePagesFromAllStripes() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, 1, 4 ) )
+        {
+            concurrentlyReadPagesThroughEviction( pageCache );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void stripedFreelistsInManyPartitionsMustEvictAndReusePages() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 64, 2, 4 ) )
+        {
+            concurrentlyReadPagesThroughEviction( pageCache );
+        }
+    }
+
+    private void concurrentlyReadPagesThroughEviction( MuninnPageCache pageCache ) throws Exception
+    {
+        int filePageCount = 400;
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+
+            List<Future<?>> readers = new ArrayList<>();
+            for ( int i = 0; i < 8; i++ )
+            {
+                readers.add( executor.submit( () ->
+                {
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                    {
+                        for ( int j = 0; j < 2000; j++ )
+                        {
+                            long pageId = rng.nextInt( filePageCount );
+                            assertTrue( cursor.next( pageId ) );
+                            long value;
+                            do
+                            {
+                                value = cursor.getLong( 0 );
+                            }
+                            while ( cursor.shouldRetry() );
+                            assertThat( value, is( pageId ) );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> reader : readers )
+            {
+                reader.get();
+            }
+        }
+    }
+
+    private MuninnPageCache createPartitionedPageCache( int maxPages, int partitionCount, int stripeCount )
+    {
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        return new MuninnPageCache( swapperFactory, allocator, PageCache.PAGE_SIZE, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, EmptyVersionContextSupplier.EMPTY, EvictionPolicy.CLOCK, partitionCount,
+                stripeCount );
+    }
+
+    private void writePages( PagedFile pagedFile, int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( x );
+            }
+        }
+    }
+
+    private void readPages( PagedFile pagedFile, int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong();
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( x ) );
+            }
+        }
+    }
+
     private void evictAllPages( MuninnPageCache pageCache ) throws IOException
     {
         PageList pages = pageCache.pages;
@@ -1294,6 +1294,20 @@ public class PageListTest
         assertFalse( pageList.decrementUsage( nextPageRef ) );
     }
 
+    @Test
+    public void pageMustOnlyBeHotWhenUsedMoreThanOnce()
+    {
+        assertFalse( pageList.isHot( pageRef ) );
+        pageList.incrementUsage( pageRef );
+        assertFalse( pageList.isHot( pageRef ) );
+        pageList.incrementUsage( pageRef );
+        assertTrue( pageList.isHot( pageRef ) );
+        assertFalse( pageList.isHot( prevPageRef ) );
+        assertFalse( pageList.isHot( nextPageRef ) );
+        pageList.decrementUsage( pageRef );
+        assertFalse( pageList.isHot( pageRef ) );
+    }
+
     @Test
     public void filePageIdIsUnboundByDefault()
     {
@@ -1473,6 +1487,48 @@ public class PageListTest
         }
     }
 
+    @Test
+    public void vectoredFaultMustReadIntoAllPagesAndBindThem() throws Exception
+    {
+        short swapperId = 1;
+        long startFilePageId = 7;
+        long[] pageRefs = {pageRef, nextPageRef};
+        PageSwapper swapper = new DummyPageSwapper( "some file", pageSize )
+        {
+            @Override
+            public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset,
+                    int length )
+            {
+                for ( int i = 0; i < length; i++ )
+                {
+                    UnsafeUtil.setMemory( bufferAddresses[arrayOffset + i], bufferSize, (byte) (startFilePageId + i) );
+                }
+                return (long) bufferSize * length;
+            }
+        };
+        pageList.initBuffer( pageRef );
+        pageList.initBuffer( nextPageRef );
+        StubPageFaultEvent event = new StubPageFaultEvent();
+        pageList.faultVectored( pageRefs, new long[2], 2, swapper, swapperId, startFilePageId, event );
+
+        assertThat( event.bytesRead, is( 2L * pageSize ) );
+        assertTrue( pageList.isBoundTo( pageRef, swapperId, startFilePageId ) );
+        assertTrue( pageList.isBoundTo( nextPageRef, swapperId, startFilePageId + 1 ) );
+        assertThat( UnsafeUtil.getByte( pageList.getAddress( pageRef ) + pageSize - 1 ), is( (byte) 7 ) );
+        assertThat( UnsafeUtil.getByte( pageList.getAddress( nextPageRef ) ), is( (byte) 8 ) );
+    }
+
+    @Test
+    public void vectoredFaultMustThrowIfAnyPageIsAlreadyBound() throws Exception
+    {
+        pageList.initBuffer( pageRef );
+        pageList.initBuffer( nextPageRef );
+        pageList.fault( nextPageRef, DUMMY_SWAPPER, (short) 1, 8, PageFaultEvent.NULL );
+        exception.expect( IllegalStateException.class );
+        pageList.faultVectored( new long[]{pageRef, nextPageRef}, new long[2], 2, DUMMY_SWAPPER, (short) 1, 7,
+                PageFaultEvent.NULL );
+    }
+
     @Test
     public void faultMustPopulatePageFaultEvent() throws Exception
     {
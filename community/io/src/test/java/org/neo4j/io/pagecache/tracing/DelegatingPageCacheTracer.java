@@ -181,6 +181,24 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.maxPages( maxPages );
     }
 
+    @Override
+    public void fileAccesses( File file, long hits, long faults )
+    {
+        delegate.fileAccesses( file, hits, faults );
+    }
+
+    @Override
+    public long fileHits( File file )
+    {
+        return delegate.fileHits( file );
+    }
+
+    @Override
+    public long fileFaults( File file )
+    {
+        return delegate.fileFaults( file );
+    }
+
     @Override
     public long filesMapped()
     {
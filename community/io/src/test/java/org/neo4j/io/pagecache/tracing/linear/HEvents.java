@@ -218,6 +218,11 @@ class HEvents
             return tracer.add( new FlushHEvent( tracer, filePageId, cachePageId, swapper ) );
         }
 
+        @Override
+        public void regionFlushed( int completedRegions, int totalRegions )
+        {
+        }
+
         @Override
         void printBody( PrintStream out, String exceptionLinePrefix )
         {
@@ -205,4 +205,21 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     public void maxPages( long maxPages )
     {
     }
+
+    @Override
+    public void fileAccesses( File file, long hits, long faults )
+    {
+    }
+
+    @Override
+    public long fileHits( File file )
+    {
+        return 0;
+    }
+
+    @Override
+    public long fileFaults( File file )
+    {
+        return 0;
+    }
 }
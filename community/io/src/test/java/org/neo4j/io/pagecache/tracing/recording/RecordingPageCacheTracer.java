@@ -214,6 +214,23 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public void fileAccesses( File file, long hits, long faults )
+    {
+    }
+
+    @Override
+    public long fileHits( File file )
+    {
+        return 0;
+    }
+
+    @Override
+    public long fileFaults( File file )
+    {
+        return 0;
+    }
+
     private void evicted( long filePageId, PageSwapper swapper )
     {
         record( new Evict( swapper, filePageId ) );
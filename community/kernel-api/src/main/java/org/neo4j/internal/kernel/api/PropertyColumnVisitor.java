@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.neo4j.values.storable.Value;
+
+/**
+ * Receives the values of a property of all nodes with a label from
+ * {@link Read#nodePropertyColumnScan(int, int, PropertyColumnVisitor)}. Numbers are handed over in batches of
+ * primitive arrays, which are reused between calls, other values one at a time. The order of nodes is unspecified.
+ */
+public interface PropertyColumnVisitor
+{
+    /**
+     * Visits integral values, {@code nodes[i]} has the value {@code values[i]} for {@code 0 <= i < size}.
+     */
+    void visitLongs( long[] nodes, long[] values, int size );
+
+    /**
+     * Visits floating point values, {@code nodes[i]} has the value {@code values[i]} for {@code 0 <= i < size}.
+     */
+    void visitDoubles( long[] nodes, double[] values, int size );
+
+    /**
+     * Visits a value which isn't a number, or the value of a node which is changed in the transaction.
+     */
+    void visitValue( long node, Value value );
+}
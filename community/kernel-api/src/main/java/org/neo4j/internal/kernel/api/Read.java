@@ -328,6 +328,20 @@ public interface Read
 
     void graphProperties( PropertyCursor cursor );
 
+    /**
+     * Scans the values of a property of all nodes with a label, using the columnar side store of that label and
+     * property. The side store keeps the values in node id order, so this reads them sequentially instead of
+     * following the property chain of every node, which makes it suited for aggregating one property over many nodes.
+     * Changes in the transaction state are included.
+     *
+     * @param label the label of the nodes.
+     * @param propertyKey the property to get the values of.
+     * @param visitor receiving the values.
+     * @return {@code true} if the values were visited, or {@code false} if there is no side store for the label and
+     * property, in which case nothing is visited.
+     */
+    boolean nodePropertyColumnScan( int label, int propertyKey, PropertyColumnVisitor visitor );
+
     // hints to the page cache about data we will be accessing in the future:
 
     void futureNodeReferenceRead( long reference );
@@ -25,6 +25,7 @@ import org.neo4j.internal.kernel.api.IndexReference;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
 import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyColumnVisitor;
 import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.RelationshipGroupCursor;
@@ -211,6 +212,12 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean nodePropertyColumnScan( int label, int propertyKey, PropertyColumnVisitor visitor )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void futureNodeReferenceRead( long reference )
     {
@@ -35,6 +35,7 @@ import org.neo4j.graphdb.config.Setting;
 import org.neo4j.helpers.AdvertisedSocketAddress;
 import org.neo4j.helpers.ListenSocketAddress;
 import org.neo4j.io.ByteUnit;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.kernel.configuration.BoltConnectorValidator;
 import org.neo4j.kernel.configuration.ConfigurationMigrator;
 import org.neo4j.kernel.configuration.GraphDatabaseConfigurationMigrator;
@@ -148,7 +149,9 @@ public class GraphDatabaseSettings implements LoadableConfig
     @Description( "Whether to allow an upgrade in case the current version of the database starts against an older version." )
     public static final Setting<Boolean> allow_upgrade = setting( "dbms.allow_upgrade", BOOLEAN, FALSE );
 
-    @Description( "Database record format. Valid values: `standard`, `high_limit`. " +
+    @Description( "Database record format. Valid values: `standard`, `inlined_properties`, `high_limit`. " +
+            "The `inlined_properties` format keeps a copy of the first few properties of every node in the node " +
+            "record, which makes reading small node properties cheaper at the cost of larger node records. " +
             "The `high_limit` format is available for Enterprise Edition only. " +
             "It is required if you have a graph that is larger than 34 billion nodes, 34 billion relationships, or 68 billion properties. " +
             "A change of the record format is irreversible. " +
@@ -421,6 +424,13 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Duration> counts_store_rotation_timeout =
             setting( "unsupported.dbms.counts_store_rotation_timeout", DURATION, "10m" );
 
+    @Description( "Format of the counts store. 'kvstore' rewrites the whole store file on every checkpoint, " +
+            "'gbptree' keeps the counts in a GB+Tree and only writes the counts changed since the last checkpoint. " +
+            "Changing the format rebuilds the counts store on next startup." )
+    @Internal
+    public static final Setting<String> counts_store_format =
+            setting( "unsupported.dbms.counts_store_format", options( "kvstore", "gbptree" ), "kvstore" );
+
     @Description( "Minimum time interval after last rotation of the debug log before it may be rotated again." )
     public static final Setting<Duration> store_internal_log_rotation_delay =
             setting( "dbms.logs.debug.rotation.delay", DURATION, "300s" );
@@ -549,6 +559,7 @@ public class GraphDatabaseSettings implements LoadableConfig
     public enum SchemaIndex
     {
         // These strings are supposed to match provider names, i.e. key-version, see IndexProvider.Descriptor#name()
+        NATIVE30( "lucene+native-3.0" ),
         NATIVE20( "lucene+native-2.0" ),
         NATIVE10( "lucene+native-1.0" ),
         LUCENE10( "lucene-1.0" );
@@ -577,6 +588,9 @@ public class GraphDatabaseSettings implements LoadableConfig
             "of a string to index cannot be larger than that limit, or the transaction trying to index such a value will fail. " +
             "This version of the native string index also has reduced performance for CONTAINS and ENDS WITH queries, " +
             "due to resorting to index scan+filter internally. " +
+            "lucene+native-3.0: Store strings like lucene+native-2.0, but also keep an n-gram index next to each native string index. " +
+            "This improves performance for CONTAINS and ENDS WITH queries, at the cost of more disk space and slower writes " +
+            "for indexed strings. " +
             "Native indexes generally has these benefits over Lucene:\n" +
             "- Faster writes\n" +
             "- Less garbage and heap presence\n" +
@@ -584,7 +598,8 @@ public class GraphDatabaseSettings implements LoadableConfig
             "- Controllable memory usage, due to being bound by the page cache" )
             public static final Setting<String> default_schema_provider =
             setting( "dbms.index.default_schema_provider",
-                    optionsIgnoreCase( SchemaIndex.NATIVE20.providerName(), SchemaIndex.NATIVE10.providerName(), SchemaIndex.LUCENE10.providerName() ),
+                    optionsIgnoreCase( SchemaIndex.NATIVE30.providerName(), SchemaIndex.NATIVE20.providerName(), SchemaIndex.NATIVE10.providerName(),
+                            SchemaIndex.LUCENE10.providerName() ),
                     null );
 
     @Description( "Location where Neo4j keeps the logical transaction logs." )
@@ -612,6 +627,15 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    @Description( "Target commit latency for adaptive group commit. When forcing the logical log is the bottleneck, " +
+            "the committer about to force it waits, at most this long minus the time a force takes, for more " +
+            "transactions to join the batch. A value of `0` disables the waiting, and then every force only covers " +
+            "the transactions that happen to be queued up when it begins." )
+    @Internal
+    public static final Setting<Duration> tx_log_group_commit_target_latency =
+            buildSetting( "unsupported.dbms.tx_log.group_commit_target_latency", DURATION, "0ms" )
+                    .constraint( min( Duration.ZERO ) ).build();
+
     @Description( "If `true`, Neo4j will abort recovery if any errors are encountered in the logical log. Setting " +
             "this to `false` will allow Neo4j to restore as much as possible from the corrupted log files and ignore " +
             "the rest, but, the integrity of the database might be compromised." )
@@ -653,11 +677,22 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<String> pagecache_memory =
             buildSetting( "dbms.memory.pagecache.size", STRING, null ).build();
 
-    @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+    @Description( "Specify which page swapper to use for doing paged IO. The `mapped` swapper serves page faults " +
+                  "by copying from memory mapped store files, which saves a system call per page fault on " +
+                  "read-mostly databases. Other swappers are only used when integrating with proprietary storage " +
+                  "technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Internal
+    @Description( "Specify which eviction policy the page cache should use when choosing which pages to evict. " +
+                  "The CLOCK policy is a plain clock sweep. The SCAN_RESISTANT policy evicts pages that have only " +
+                  "been accessed once before it ages the rest of the cache, such that large sequential scans, like " +
+                  "label scans or consistency checks, are less likely to push the hot working set out of memory." )
+    public static final Setting<EvictionPolicy> pagecache_eviction_policy = buildSetting(
+            "unsupported.dbms.memory.pagecache.eviction_policy", options( EvictionPolicy.class, true ),
+            EvictionPolicy.CLOCK.name() ).build();
+
     @Internal
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
                   "warmup after a restart, reducing the mean time to performance. " +
@@ -737,6 +772,30 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Integer> dense_node_threshold =
             buildSetting( "dbms.relationship_grouping_threshold", INTEGER, "50" ).constraint( min( 1 ) ).build();
 
+    @Description( "Interval at which the relationship chains of dense nodes are checked for compaction. A compacted " +
+            "chain links its relationships in relationship id order, such that traversing it reads the relationship " +
+            "store sequentially. Every compacted node is relinked in a transaction of its own, which locks the node " +
+            "and its relationships. A value of `0` disables compaction." )
+    @Internal
+    public static final Setting<Duration> relationship_chain_compaction_interval =
+            buildSetting( "unsupported.dbms.relationship_chain_compaction.interval", DURATION, "0s" )
+                    .constraint( min( Duration.ZERO ) ).build();
+
+    @Description( "Minimum number of relationships in a relationship chain of a dense node for it to be compacted." )
+    @Internal
+    public static final Setting<Integer> relationship_chain_compaction_min_degree =
+            buildSetting( "unsupported.dbms.relationship_chain_compaction.min_degree", INTEGER, "1000" )
+                    .constraint( min( 1 ) ).build();
+
+    @Description( "Minimum fragmentation of a relationship chain of a dense node for it to be compacted. " +
+            "Fragmentation is the number of times a traversal of the chain moves to another page of the relationship " +
+            "store, divided by the number of pages the chain occupies. A chain reading each of its pages once has " +
+            "a fragmentation of 1." )
+    @Internal
+    public static final Setting<Double> relationship_chain_compaction_min_fragmentation =
+            buildSetting( "unsupported.dbms.relationship_chain_compaction.min_fragmentation", DOUBLE, "2.0" )
+                    .constraint( min( 1.0 ) ).build();
+
     @Description( "Log executed queries that take longer than the configured threshold, dbms.logs.query.threshold. " +
             "Log entries are by default written to the file _query.log_ located in the Logs directory. " +
             "For location of the Logs directory, see <<file-locations>>. " +
@@ -837,6 +896,12 @@ public class GraphDatabaseSettings implements LoadableConfig
             setting( "dbms.label_index", optionsIgnoreCase( LabelIndex.NATIVE.name(), LabelIndex.AUTO.name() ),
                     LabelIndex.NATIVE.name() );
 
+    @Description( "Node properties to keep in columnar side stores for sequential scans, as a list of " +
+            "Label.propertyKey entries. A column holds the values of the property of all nodes with the label." )
+    @Internal
+    public static final Setting<List<String>> property_columns =
+            setting( "unsupported.dbms.property_columns", STRING_LIST, "" );
+
     // Security settings
 
     @Description( "Enable auth requirement to access Neo4j." )
@@ -977,6 +1042,21 @@ public class GraphDatabaseSettings implements LoadableConfig
             options( TransactionStateMemoryAllocation.class, true ),
             TransactionStateMemoryAllocation.ON_HEAP.name() ).build();
 
+    @Internal
+    @Description( "[Experimental] Maximum amount of off-heap memory the state of a single transaction may use, " +
+            "only applies when transaction state is allocated off-heap. Transactions exceeding this limit fail." )
+    public static final Setting<Long> tx_state_max_off_heap_memory = buildSetting(
+            "unsupported.dbms.tx_state.max_off_heap_memory", BYTES, "2g" )
+            .constraint( min( 1048576L ) ).build();
+
+    @Internal
+    @Description( "[Experimental] Amount of memory used for property values of a single transaction after which " +
+            "they are moved to a temporary file in the store directory, which allows transactions larger than " +
+            "available memory. Only applies when transaction state is allocated off-heap. 0 disables spilling." )
+    public static final Setting<Long> tx_state_spill_threshold = buildSetting(
+            "unsupported.dbms.tx_state.spill_threshold", BYTES, "0" )
+            .constraint( min( 0L ) ).build();
+
     // Needed to validate config, accessed via reflection
     @SuppressWarnings( "unused" )
     public static final HttpConnectorValidator httpValidator = new HttpConnectorValidator();
@@ -81,6 +81,7 @@ import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.newapi.DefaultCursors;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RelationshipChainCompaction;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.StoreId;
@@ -418,7 +419,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         upgradeStore( formats, tailScanner );
 
         // Build all modules and their services
-        StorageEngine storageEngine = null;
+        RecordStorageEngine storageEngine = null;
         try
         {
             DatabaseSchemaState databaseSchemaState = new DatabaseSchemaState( logProvider );
@@ -563,7 +564,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 format, tailScanner ).migrate( storeDir );
     }
 
-    private StorageEngine buildStorageEngine(
+    private RecordStorageEngine buildStorageEngine(
             PropertyKeyTokenHolder propertyKeyTokenHolder, LabelTokenHolder labelTokens,
             RelationshipTypeTokenHolder relationshipTypeTokens,
             ExplicitIndexProviderLookup explicitIndexProviderLookup, IndexConfigStore indexConfigStore,
@@ -606,7 +607,8 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, scheduler, config.get( GraphDatabaseSettings.tx_log_group_commit_target_latency ).toNanos(),
+                monitors.newMonitor( BatchingTransactionAppender.Monitor.class ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors,
                         failOnCorruptedLogFiles );
@@ -641,7 +643,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             LogVersionRepository logVersionRepository )
     {
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                logicalTransactionStore, logVersionRepository, positionMonitor );
+                logicalTransactionStore, logVersionRepository, positionMonitor, scheduler );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( storeDir, logFiles, fileSystemAbstraction );
         ProgressReporter progressReporter = new LogProgressReporter( logService.getInternalLog( Recovery.class ) );
         Recovery recovery = new Recovery( recoveryService, startupStatistics, logsTruncator, recoveryMonitor,
@@ -652,7 +654,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
     private NeoStoreKernelModule buildKernel( LogFiles logFiles, TransactionAppender appender,
             IndexingService indexingService,
             StoreReadLayer storeLayer, DatabaseSchemaState databaseSchemaState, LabelScanStore labelScanStore,
-            StorageEngine storageEngine, IndexConfigStore indexConfigStore, TransactionIdStore transactionIdStore,
+            RecordStorageEngine storageEngine, IndexConfigStore indexConfigStore, TransactionIdStore transactionIdStore,
             AvailabilityGuard availabilityGuard, SystemNanoClock clock, PropertyAccessor propertyAccessor )
     {
         AtomicReference<CpuClock> cpuClockRef = setupCpuClockAtomicReference();
@@ -689,6 +691,12 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         buildTransactionMonitor( kernelTransactions, clock, config );
 
+        RelationshipChainCompaction relationshipChainCompaction = new RelationshipChainCompaction( storageEngine,
+                transactionCommitProcess, statementLocksFactory, transactionHeaderInformationFactory, transactionIdStore,
+                scheduler, config, clock, logProvider );
+        dependencies.satisfyDependency( relationshipChainCompaction );
+        life.add( relationshipChainCompaction );
+
         final KernelImpl kernel = new KernelImpl( kernelTransactions, hooks, databaseHealth, transactionMonitor, procedures,
                 config, storageEngine );
 
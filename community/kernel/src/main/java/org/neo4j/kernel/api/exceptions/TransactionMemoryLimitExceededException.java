@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.exceptions;
+
+import org.neo4j.graphdb.TransactionFailureException;
+
+/**
+ * Thrown when the off-heap memory used by the state of a transaction exceeds the configured limit.
+ */
+public class TransactionMemoryLimitExceededException extends TransactionFailureException implements Status.HasStatus
+{
+    private static final long serialVersionUID = -6667770931565106180L;
+
+    public TransactionMemoryLimitExceededException( long usedMemory, long maxMemory )
+    {
+        super( String.format( "Transaction state is using %d bytes of memory, which exceeds the limit of %d bytes. " +
+                              "Split the work into smaller transactions or increase the limit.", usedMemory, maxMemory ) );
+    }
+
+    @Override
+    public Status status()
+    {
+        return Status.Transaction.TransactionMemoryLimitExceeded;
+    }
+}
@@ -66,6 +66,20 @@ public interface IndexPopulator
     void add( Collection<? extends IndexEntryUpdate<?>> updates )
             throws IndexEntryConflictException, IOException;
 
+    /**
+     * Called when the scan over existing data has completed, i.e. after the last call to {@link #add(Collection)}
+     * coming from the scan. Populators which defer building the index structure until all scanned data is known,
+     * e.g. by sorting it and bulk loading it, may complete that work here, before the index gets flipped online.
+     * Calls to {@link #add(Collection)} or {@link #newPopulatingUpdater(PropertyAccessor)} may still follow.
+     *
+     * @throws IndexEntryConflictException if this is a uniqueness index and the completed data is detected
+     * to violate that constraint.
+     * @throws IOException on I/O error.
+     */
+    default void scanCompleted() throws IndexEntryConflictException, IOException
+    {   // no-op by default
+    }
+
     /**
      * Verifies that each value in this index is unique.
      * This method is called after the index has been fully populated and is guaranteed to not have
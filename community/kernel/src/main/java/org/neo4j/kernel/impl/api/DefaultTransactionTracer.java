@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.neo4j.kernel.impl.transaction.tracing.CommandCreationEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
@@ -35,19 +36,29 @@ import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.SystemNanoClock;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+import static org.neo4j.util.FeatureToggles.flag;
+
+public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor, CommitPhasesMonitor
 {
     public interface Monitor
     {
         void lastLogRotationEventDuration( long millis );
     }
 
+    // timing commit phases creates events for every commit, so commits share untimed events unless asked for
+    private static final boolean TRACE_COMMIT_PHASES = flag( DefaultTransactionTracer.class, "traceCommitPhases", false );
+
     private final SystemNanoClock clock;
     private final Monitor monitor;
     private final JobScheduler jobScheduler;
+    private final boolean traceCommitPhases;
 
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong commandCreationTimeNanos = new AtomicLong();
+    private final AtomicLong logAppendTimeNanos = new AtomicLong();
+    private final AtomicLong storeApplyTimeNanos = new AtomicLong();
 
     private long startTimeNanos;
 
@@ -99,16 +110,22 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         {
         }
 
+        @Override
+        public CommandCreationEvent beginCommandCreation()
+        {
+            return traceCommitPhases ? new PhaseEvent( commandCreationTimeNanos ) : CommandCreationEvent.NULL;
+        }
+
         @Override
         public LogAppendEvent beginLogAppend()
         {
-            return logAppendEvent;
+            return traceCommitPhases ? new TimedLogAppendEvent() : logAppendEvent;
         }
 
         @Override
         public StoreApplyEvent beginStoreApply()
         {
-            return StoreApplyEvent.NULL;
+            return traceCommitPhases ? new PhaseEvent( storeApplyTimeNanos ) : StoreApplyEvent.NULL;
         }
     };
 
@@ -153,10 +170,21 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
     }
 
     public DefaultTransactionTracer( SystemNanoClock clock, Monitor monitor, JobScheduler jobScheduler )
+    {
+        this( clock, monitor, jobScheduler, TRACE_COMMIT_PHASES );
+    }
+
+    /**
+     * @param traceCommitPhases whether or not to time the phases of every commit, as reported through
+     * {@link CommitPhasesMonitor}. Those totals stay zero otherwise.
+     */
+    public DefaultTransactionTracer( SystemNanoClock clock, Monitor monitor, JobScheduler jobScheduler,
+            boolean traceCommitPhases )
     {
         this.clock = clock;
         this.monitor = monitor;
         this.jobScheduler = jobScheduler;
+        this.traceCommitPhases = traceCommitPhases;
     }
 
     @Override
@@ -177,6 +205,30 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfCommits()
+    {
+        return commits.get();
+    }
+
+    @Override
+    public long commandCreationAccumulatedTotalTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( commandCreationTimeNanos.get() );
+    }
+
+    @Override
+    public long logAppendAccumulatedTotalTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( logAppendTimeNanos.get() );
+    }
+
+    @Override
+    public long storeApplyAccumulatedTotalTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( storeApplyTimeNanos.get() );
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
@@ -188,4 +240,70 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
             monitor.lastLogRotationEventDuration( millis );
         } );
     }
+
+    /**
+     * Times a single phase of a commit, adding its duration to the given accumulator when closed.
+     */
+    private class PhaseEvent implements CommandCreationEvent, StoreApplyEvent
+    {
+        private final AtomicLong accumulatedTimeNanos;
+        private final long startTimeNanos;
+
+        PhaseEvent( AtomicLong accumulatedTimeNanos )
+        {
+            this.accumulatedTimeNanos = accumulatedTimeNanos;
+            this.startTimeNanos = clock.nanos();
+        }
+
+        @Override
+        public void close()
+        {
+            accumulatedTimeNanos.addAndGet( clock.nanos() - startTimeNanos );
+        }
+    }
+
+    private class TimedLogAppendEvent extends PhaseEvent implements LogAppendEvent
+    {
+        TimedLogAppendEvent()
+        {
+            super( logAppendTimeNanos );
+        }
+
+        @Override
+        public void close()
+        {
+            super.close();
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void setLogRotated( boolean logRotated )
+        {
+            logAppendEvent.setLogRotated( logRotated );
+        }
+
+        @Override
+        public LogRotateEvent beginLogRotate()
+        {
+            return logAppendEvent.beginLogRotate();
+        }
+
+        @Override
+        public SerializeTransactionEvent beginSerializeTransaction()
+        {
+            return logAppendEvent.beginSerializeTransaction();
+        }
+
+        @Override
+        public LogForceWaitEvent beginLogForceWait()
+        {
+            return logAppendEvent.beginLogForceWait();
+        }
+
+        @Override
+        public LogForceEvent beginLogForce()
+        {
+            return logAppendEvent.beginLogForce();
+        }
+    }
 }
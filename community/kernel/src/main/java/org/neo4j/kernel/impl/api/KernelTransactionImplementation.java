@@ -89,6 +89,7 @@ import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.tracing.CommandCreationEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
@@ -438,7 +439,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         if ( hasTxStateWithChanges() )
         {
-            for ( SchemaIndexDescriptor createdConstraintIndex : txState().constraintIndexesCreatedInTx() )
+            for ( SchemaIndexDescriptor createdConstraintIndex : txState.constraintIndexesCreatedInTx() )
             {
                 // TODO logically, which statement should this operation be performed on?
                 constraintIndexCreator.dropUniquenessConstraintIndex( createdConstraintIndex );
@@ -645,15 +646,23 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
 
                 // Gather up commands from the various sources
                 Collection<StorageCommand> extractedCommands = new ArrayList<>();
-                storageEngine.createCommands(
-                        extractedCommands,
-                        txState,
-                        storageStatement,
-                        commitLocks,
-                        lastTransactionIdWhenStarted );
-                if ( hasExplicitIndexChanges() )
+                CommandCreationEvent commandCreationEvent = commitEvent.beginCommandCreation();
+                try
+                {
+                    storageEngine.createCommands(
+                            extractedCommands,
+                            txState,
+                            storageStatement,
+                            commitLocks,
+                            lastTransactionIdWhenStarted );
+                    if ( hasExplicitIndexChanges() )
+                    {
+                        explicitIndexTransactionState.extractCommands( extractedCommands );
+                    }
+                }
+                finally
                 {
-                    explicitIndexTransactionState.extractCommands( extractedCommands );
+                    commandCreationEvent.close();
                 }
 
                 /* Here's the deal: we track a quick-to-access hasChanges in transaction state which is true
@@ -110,6 +110,7 @@ public class IndexPopulationJob implements Runnable
                     // We remain in POPULATING state
                     return;
                 }
+                multiPopulator.scanCompleted();
                 multiPopulator.flipAfterPopulation();
             }
             catch ( Throwable t )
@@ -243,6 +243,12 @@ public class MultipleIndexPopulator implements IndexPopulator
         }
     }
 
+    @Override
+    public void scanCompleted()
+    {
+        forEachPopulation( IndexPopulation::scanCompleted );
+    }
+
     @Override
     public void verifyDeferredConstraints( PropertyAccessor accessor )
     {
@@ -550,6 +556,22 @@ public class MultipleIndexPopulator implements IndexPopulator
             }
         }
 
+        void scanCompleted() throws IndexEntryConflictException, IOException
+        {
+            populatorLock.lock();
+            try
+            {
+                if ( populationOngoing )
+                {
+                    populator.scanCompleted();
+                }
+            }
+            finally
+            {
+                populatorLock.unlock();
+            }
+        }
+
         private void onUpdate( IndexEntryUpdate<?> update )
         {
             populator.includeSample( update );
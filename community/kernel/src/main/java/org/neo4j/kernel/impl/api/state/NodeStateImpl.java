@@ -30,6 +30,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.kernel.impl.api.state.RelationshipChangesForNode.DiffStrategy;
 import org.neo4j.kernel.impl.newapi.RelationshipDirection;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.storageengine.api.Direction;
@@ -189,9 +190,9 @@ class NodeStateImpl extends PropertyContainerStateImpl implements NodeState
     private Set<PrimitiveLongDiffSets> indexDiffs;
     private final TxState state;
 
-    NodeStateImpl( long id, TxState state )
+    NodeStateImpl( long id, TxState state, CollectionsFactory collectionsFactory )
     {
-        super( id );
+        super( id, collectionsFactory );
         this.state = state;
     }
 
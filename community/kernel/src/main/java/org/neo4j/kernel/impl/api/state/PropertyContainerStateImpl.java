@@ -23,10 +23,15 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Predicate;
 
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.helpers.collection.PrefetchingIterator;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.kernel.api.properties.PropertyKeyValue;
 import org.neo4j.kernel.impl.util.VersionedHashMap;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.ValuesMap;
 import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
 import org.neo4j.values.storable.Value;
@@ -37,9 +42,10 @@ import static java.util.Collections.newSetFromMap;
 class PropertyContainerStateImpl implements PropertyContainerState
 {
     private final long id;
+    private final CollectionsFactory collectionsFactory;
 
-    private VersionedHashMap<Integer, Value> addedProperties;
-    private VersionedHashMap<Integer, Value> changedProperties;
+    private ValuesMap addedProperties;
+    private ValuesMap changedProperties;
     private Set<Integer> removedProperties;
 
     private final Predicate<StorageProperty> excludePropertiesWeKnowAbout = new Predicate<StorageProperty>()
@@ -54,8 +60,14 @@ class PropertyContainerStateImpl implements PropertyContainerState
     };
 
     PropertyContainerStateImpl( long id )
+    {
+        this( id, OnHeapCollectionsFactory.INSTANCE );
+    }
+
+    PropertyContainerStateImpl( long id, CollectionsFactory collectionsFactory )
     {
         this.id = id;
+        this.collectionsFactory = collectionsFactory;
     }
 
     public long getId()
@@ -89,7 +101,7 @@ class PropertyContainerStateImpl implements PropertyContainerState
 
         if ( changedProperties == null )
         {
-            changedProperties = new VersionedHashMap<>();
+            changedProperties = collectionsFactory.newValuesMap();
         }
         changedProperties.put( propertyKeyId, value );
 
@@ -110,14 +122,14 @@ class PropertyContainerStateImpl implements PropertyContainerState
         }
         if ( addedProperties == null )
         {
-            addedProperties = new VersionedHashMap<>();
+            addedProperties = collectionsFactory.newValuesMap();
         }
         addedProperties.put( propertyKeyId, value );
     }
 
     void removeProperty( int propertyKeyId )
     {
-        if ( addedProperties != null && addedProperties.remove( propertyKeyId ) != null )
+        if ( addedProperties != null && addedProperties.remove( propertyKeyId ) )
         {
             return;
         }
@@ -224,16 +236,32 @@ class PropertyContainerStateImpl implements PropertyContainerState
         return removedProperties != null && removedProperties.contains( propertyKeyId );
     }
 
-    private Iterator<StorageProperty> toPropertyIterator( VersionedHashMap<Integer,Value> propertyMap )
+    private Iterator<StorageProperty> toPropertyIterator( ValuesMap propertyMap )
     {
-        return propertyMap == null ? emptyIterator() :
-               Iterators.map(
-                    entry -> new PropertyKeyValue( entry.getKey(), entry.getValue() ),
-                    propertyMap.entrySet().iterator()
-                );
+        if ( propertyMap == null )
+        {
+            return emptyIterator();
+        }
+        PrimitiveIntIterator keys = propertyMap.keyIterator();
+        return new PrefetchingIterator<StorageProperty>()
+        {
+            @Override
+            protected StorageProperty fetchNextOrNull()
+            {
+                while ( keys.hasNext() )
+                {
+                    PropertyKeyValue property = getPropertyOrNull( propertyMap, keys.next() );
+                    if ( property != null )
+                    {
+                        return property;
+                    }
+                }
+                return null;
+            }
+        };
     }
 
-    private PropertyKeyValue getPropertyOrNull( VersionedHashMap<Integer,Value> propertyMap, int propertyKeyId )
+    private PropertyKeyValue getPropertyOrNull( ValuesMap propertyMap, int propertyKeyId )
     {
         Value value = propertyMap.get( propertyKeyId );
         return value == null ? null : new PropertyKeyValue( propertyKeyId, value );
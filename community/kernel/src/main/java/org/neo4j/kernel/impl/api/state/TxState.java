@@ -905,7 +905,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             nodeStatesMap = collectionsFactory.newLongObjectMap();
         }
-        return nodeStatesMap.computeIfAbsent( nodeId, unused -> new NodeStateImpl( nodeId, this ) );
+        return nodeStatesMap.computeIfAbsent( nodeId, unused -> new NodeStateImpl( nodeId, this, collectionsFactory ) );
     }
 
     private RelationshipStateImpl getOrCreateRelationshipState( long relationshipId )
@@ -914,14 +914,15 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationshipStatesMap = collectionsFactory.newLongObjectMap();
         }
-        return relationshipStatesMap.computeIfAbsent( relationshipId, unused -> new RelationshipStateImpl( relationshipId ) );
+        return relationshipStatesMap.computeIfAbsent( relationshipId,
+                unused -> new RelationshipStateImpl( relationshipId, collectionsFactory ) );
     }
 
     private GraphState getOrCreateGraphState()
     {
         if ( graphState == null )
         {
-            graphState = new GraphState();
+            graphState = new GraphState( collectionsFactory );
         }
         return graphState;
     }
@@ -1229,7 +1230,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     private PrimitiveLongDiffSets getIndexUpdatesForSeek( Map<ValueTuple,PrimitiveLongDiffSets> updates,
             ValueTuple values, boolean create )
     {
-        return create ? updates.computeIfAbsent( values, value -> new PrimitiveLongDiffSets() ) : updates.get( values );
+        return create ? updates.computeIfAbsent( values, value -> collectionsFactory.newLongDiffSets() ) : updates.get( values );
     }
 
     private Map<ValueTuple,PrimitiveLongDiffSets> getIndexUpdatesByDescriptor( SchemaDescriptor schema,
@@ -1308,6 +1309,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             return;
         }
+        collectionsFactory.release();
         if ( labelStatesMap != null )
         {
             labelStatesMap.close();
@@ -1336,6 +1338,13 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationships.removedFromAdded.close();
         }
+        if ( indexUpdates != null )
+        {
+            for ( Map<ValueTuple,PrimitiveLongDiffSets> updates : indexUpdates.values() )
+            {
+                updates.values().forEach( PrimitiveLongDiffSets::close );
+            }
+        }
     }
 
     private static class LabelTokenStateVisitor implements PrimitiveIntObjectVisitor<String,RuntimeException>
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.neo4j.kernel.impl.api.DegreeVisitor;
+
+/**
+ * Caches the committed degrees of dense nodes, per relationship type and direction.
+ * <p>
+ * The store keeps the degree of every relationship chain of a dense node in the first relationship of that chain,
+ * so getting the degrees of a dense node means walking its relationship group chain and reading the first
+ * relationship of up to three chains per group, each one a random read. For hub nodes which are asked for their
+ * degrees over and over this cache turns that into a single lookup.
+ * <p>
+ * Cached degrees are invalidated when a transaction changing the relationships of the node is applied, see
+ * {@link #invalidate(long)}. Degrees loaded concurrently with such an invalidation are not cached, which is
+ * detected by comparing a modification stamp taken before loading, see {@link #stamp(long)}.
+ * <p>
+ * At most {@code maxNodes} nodes are cached. When full, a node is evicted using the clock algorithm, where a
+ * node that has been read since the clock hand last passed it gets a second chance. Reads are lock free, while
+ * caching a node, which only happens after a cache miss, is serialized.
+ */
+public class DegreeCache
+{
+    public static final DegreeCache NO_CACHE = new DegreeCache( 0 );
+
+    private static final int STRIPES = 1 << 10;
+
+    private final int maxNodes;
+    private final ConcurrentHashMap<Long,Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray( STRIPES );
+    // every cached entry occupies a slot, entries no longer in the cache just haven't been overwritten yet
+    private final Entry[] slots;
+    private int hand;
+
+    /**
+     * @param maxNodes max number of nodes to keep degrees for, {@code 0} disables the cache.
+     */
+    public DegreeCache( int maxNodes )
+    {
+        this.maxNodes = maxNodes;
+        this.slots = new Entry[maxNodes];
+    }
+
+    public boolean isEnabled()
+    {
+        return maxNodes > 0;
+    }
+
+    /**
+     * @return cached degrees of the given node, or {@code null} if not cached.
+     */
+    public Degrees get( long nodeId )
+    {
+        Entry entry = cache.get( nodeId );
+        if ( entry == null )
+        {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.degrees;
+    }
+
+    /**
+     * @return modification stamp to take before loading the degrees of the given node from store and to
+     * pass in to {@link #put(long, long, Degrees)} afterwards.
+     */
+    public long stamp( long nodeId )
+    {
+        return stamps.get( stripe( nodeId ) );
+    }
+
+    /**
+     * Caches degrees loaded from store, unless the node has been invalidated since {@code stamp} was taken.
+     */
+    public void put( long nodeId, long stamp, Degrees degrees )
+    {
+        if ( !isEnabled() )
+        {
+            return;
+        }
+        Entry entry = new Entry( nodeId, degrees );
+        synchronized ( slots )
+        {
+            slots[freeSlot()] = entry;
+            cache.put( nodeId, entry );
+        }
+        if ( stamps.get( stripe( nodeId ) ) != stamp )
+        {
+            // Raced with an invalidation, the degrees may have been loaded from before the change
+            cache.remove( nodeId, entry );
+        }
+    }
+
+    /**
+     * Moves the clock hand to a slot which is either unused, holds an entry that is no longer cached, or holds
+     * an entry that hasn't been read since the hand last passed it, in which case that entry is evicted.
+     */
+    private int freeSlot()
+    {
+        while ( true )
+        {
+            int slot = hand;
+            hand = (hand + 1) % slots.length;
+            Entry entry = slots[slot];
+            if ( entry == null || cache.get( entry.nodeId ) != entry )
+            {
+                return slot;
+            }
+            if ( entry.referenced )
+            {
+                entry.referenced = false;
+            }
+            else
+            {
+                cache.remove( entry.nodeId, entry );
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Forgets the degrees of the given node. Must be called after the changes to its relationships have
+     * been written to the store.
+     */
+    public void invalidate( long nodeId )
+    {
+        if ( isEnabled() )
+        {
+            stamps.incrementAndGet( stripe( nodeId ) );
+            cache.remove( nodeId );
+        }
+    }
+
+    public void clear()
+    {
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stamps.incrementAndGet( i );
+        }
+        synchronized ( slots )
+        {
+            cache.clear();
+            Arrays.fill( slots, null );
+        }
+    }
+
+    /**
+     * @return number of cached nodes.
+     */
+    int size()
+    {
+        return cache.size();
+    }
+
+    private static int stripe( long nodeId )
+    {
+        return (int) (nodeId ^ (nodeId >>> 32)) & (STRIPES - 1);
+    }
+
+    private static final class Entry
+    {
+        private final long nodeId;
+        private final Degrees degrees;
+        private volatile boolean referenced;
+
+        Entry( long nodeId, Degrees degrees )
+        {
+            this.nodeId = nodeId;
+            this.degrees = degrees;
+        }
+    }
+
+    /**
+     * Degrees of a dense node per relationship type. Outgoing and incoming counts don't include loops.
+     */
+    public static final class Degrees
+    {
+        private static final int OUTGOING = 0;
+        private static final int INCOMING = 1;
+        private static final int LOOP = 2;
+
+        private final int[] types;
+        private final long[] counts;
+
+        private Degrees( int[] types, long[] counts )
+        {
+            this.types = types;
+            this.counts = counts;
+        }
+
+        public long outgoing( int type )
+        {
+            return count( type, OUTGOING );
+        }
+
+        public long incoming( int type )
+        {
+            return count( type, INCOMING );
+        }
+
+        public long loops( int type )
+        {
+            return count( type, LOOP );
+        }
+
+        /**
+         * Visits the degrees of every type, with loops counted as both outgoing and incoming.
+         */
+        public void accept( DegreeVisitor visitor )
+        {
+            for ( int i = 0; i < types.length; i++ )
+            {
+                long loops = counts[i * 3 + LOOP];
+                visitor.visitDegree( types[i], counts[i * 3 + OUTGOING] + loops, counts[i * 3 + INCOMING] + loops );
+            }
+        }
+
+        private long count( int type, int direction )
+        {
+            int index = Arrays.binarySearch( types, type );
+            return index < 0 ? 0 : counts[index * 3 + direction];
+        }
+    }
+
+    /**
+     * Collects the degrees of a dense node, one relationship group at a time.
+     */
+    public static final class DegreesBuilder
+    {
+        private int[] types = new int[8];
+        private long[] counts = new long[types.length * 3];
+        private int size;
+
+        public DegreesBuilder add( int type, long outgoing, long incoming, long loops )
+        {
+            if ( size == types.length )
+            {
+                types = Arrays.copyOf( types, size * 2 );
+                counts = Arrays.copyOf( counts, size * 2 * 3 );
+            }
+            // Groups are chained in type order so this insertion sort is normally just an append
+            int index = size;
+            while ( index > 0 && types[index - 1] > type )
+            {
+                types[index] = types[index - 1];
+                System.arraycopy( counts, (index - 1) * 3, counts, index * 3, 3 );
+                index--;
+            }
+            types[index] = type;
+            counts[index * 3 + Degrees.OUTGOING] = outgoing;
+            counts[index * 3 + Degrees.INCOMING] = incoming;
+            counts[index * 3 + Degrees.LOOP] = loops;
+            size++;
+            return this;
+        }
+
+        public Degrees build()
+        {
+            return new Degrees( Arrays.copyOf( types, size ), Arrays.copyOf( counts, size * 3 ) );
+        }
+    }
+}
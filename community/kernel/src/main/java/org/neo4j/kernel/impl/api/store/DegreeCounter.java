@@ -54,6 +54,25 @@ class DegreeCounter
         throw new InvalidRecordException( "Node " + nodeId + " neither start nor end node of " + relationshipRecord );
     }
 
+    static DegreeCache.Degrees loadDegrees( long groupId, long nodeId, RelationshipRecord relationshipRecord,
+            RelationshipGroupRecord groupRecord, RecordCursors cursors )
+    {
+        DegreeCache.DegreesBuilder degrees = new DegreeCache.DegreesBuilder();
+        RecordCursor<RelationshipRecord> cursor = cursors.relationship();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.longValue() )
+        {
+            if ( cursors.relationshipGroup().next( groupId, groupRecord, FORCE ) )
+            {
+                degrees.add( groupRecord.getType(),
+                        countByFirstPrevPointer( groupRecord.getFirstOut(), cursor, nodeId, relationshipRecord ),
+                        countByFirstPrevPointer( groupRecord.getFirstIn(), cursor, nodeId, relationshipRecord ),
+                        countByFirstPrevPointer( groupRecord.getFirstLoop(), cursor, nodeId, relationshipRecord ) );
+            }
+            groupId = groupRecord.getNext();
+        }
+        return degrees.build();
+    }
+
     static int countRelationshipsInGroup( long groupId, Direction direction, Integer type, long nodeId,
             RelationshipRecord relationshipRecord, RelationshipGroupRecord groupRecord, RecordCursors cursors )
     {
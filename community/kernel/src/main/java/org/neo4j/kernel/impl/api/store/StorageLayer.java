@@ -65,7 +65,9 @@ import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.column.PropertyColumn;
+import org.neo4j.kernel.impl.store.column.PropertyColumns;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
@@ -88,6 +90,7 @@ import static org.neo4j.collection.primitive.Primitive.intSet;
 import static org.neo4j.function.Predicates.ALWAYS_TRUE_INT;
 import static org.neo4j.kernel.impl.api.store.DegreeCounter.countByFirstPrevPointer;
 import static org.neo4j.kernel.impl.api.store.DegreeCounter.countRelationshipsInGroup;
+import static org.neo4j.kernel.impl.api.store.DegreeCounter.loadDegrees;
 import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.FORCE;
@@ -107,14 +110,17 @@ public class StorageLayer implements StoreReadLayer
     private final RelationshipStore relationshipStore;
     private final RecordStore<RelationshipGroupRecord> relationshipGroupStore;
     private final SchemaStorage schemaStorage;
-    private final CountsTracker counts;
+    private final CountsStore counts;
     private final PropertyLoader propertyLoader;
     private final Supplier<StorageStatement> statementProvider;
     private final SchemaCache schemaCache;
+    private final DegreeCache degreeCache;
+    private final PropertyColumns propertyColumns;
 
     public StorageLayer( PropertyKeyTokenHolder propertyKeyTokenHolder, LabelTokenHolder labelTokenHolder,
             RelationshipTypeTokenHolder relationshipTokenHolder, SchemaStorage schemaStorage, NeoStores neoStores,
-            IndexingService indexService, Supplier<StorageStatement> storeStatementSupplier, SchemaCache schemaCache )
+            IndexingService indexService, Supplier<StorageStatement> storeStatementSupplier, SchemaCache schemaCache,
+            DegreeCache degreeCache, PropertyColumns propertyColumns )
     {
         this.relationshipTokenHolder = relationshipTokenHolder;
         this.schemaStorage = schemaStorage;
@@ -128,6 +134,8 @@ public class StorageLayer implements StoreReadLayer
         this.counts = neoStores.getCounts();
         this.propertyLoader = new PropertyLoader( neoStores );
         this.schemaCache = schemaCache;
+        this.degreeCache = degreeCache;
+        this.propertyColumns = propertyColumns;
     }
 
     @Override
@@ -612,6 +620,19 @@ public class StorageLayer implements StoreReadLayer
     public int degreeRelationshipsInGroup( StorageStatement storeStatement, long nodeId, long groupId,
             Direction direction, Integer relType )
     {
+        DegreeCache.Degrees degrees = cachedDegrees( storeStatement, nodeId, groupId );
+        if ( degrees != null )
+        {
+            int[] count = new int[1];
+            degrees.accept( ( type, outgoing, incoming ) ->
+            {
+                if ( relType == null || relType == type )
+                {
+                    count[0] += degreeByDirection( direction, outgoing, incoming, degrees.loops( type ) );
+                }
+            } );
+            return count[0];
+        }
         RelationshipRecord relationshipRecord = relationshipStore.newRecord();
         RelationshipGroupRecord relationshipGroupRecord = relationshipGroupStore.newRecord();
         return countRelationshipsInGroup( groupId, direction, relType, nodeId, relationshipRecord,
@@ -650,8 +671,55 @@ public class StorageLayer implements StoreReadLayer
         }
     }
 
+    @Override
+    public DegreeCache.Degrees cachedDegrees( StorageStatement statement, long nodeId, long firstGroupId )
+    {
+        if ( !degreeCache.isEnabled() )
+        {
+            return null;
+        }
+        DegreeCache.Degrees degrees = degreeCache.get( nodeId );
+        if ( degrees == null )
+        {
+            long stamp = degreeCache.stamp( nodeId );
+            degrees = loadDegrees( firstGroupId, nodeId, relationshipStore.newRecord(),
+                    relationshipGroupStore.newRecord(), statement.recordCursors() );
+            degreeCache.put( nodeId, stamp, degrees );
+        }
+        return degrees;
+    }
+
+    @Override
+    public PropertyColumn propertyColumn( int labelId, int propertyKeyId )
+    {
+        return propertyColumns.get( labelId, propertyKeyId );
+    }
+
+    private static long degreeByDirection( Direction direction, long outgoing, long incoming, long loops )
+    {
+        switch ( direction )
+        {
+        case OUTGOING:
+            return outgoing;
+        case INCOMING:
+            return incoming;
+        case BOTH:
+            // loops are included in both outgoing and incoming, but should only be counted once
+            return outgoing + incoming - loops;
+        default:
+            throw new IllegalArgumentException( direction.name() );
+        }
+    }
+
     private void visitDenseNode( StorageStatement statement, NodeItem nodeItem, DegreeVisitor visitor )
     {
+        DegreeCache.Degrees degrees = cachedDegrees( statement, nodeItem.id(), nodeItem.nextGroupId() );
+        if ( degrees != null )
+        {
+            degrees.accept( visitor );
+            return;
+        }
+
         RelationshipGroupRecord relationshipGroupRecord = relationshipGroupStore.newRecord();
         RecordCursor<RelationshipGroupRecord> relationshipGroupCursor = statement.recordCursors().relationshipGroup();
         RelationshipRecord relationshipRecord = relationshipStore.newRecord();
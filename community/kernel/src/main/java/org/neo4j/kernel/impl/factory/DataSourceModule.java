@@ -20,6 +20,8 @@
 package org.neo4j.kernel.impl.factory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Clock;
 import java.util.function.Supplier;
 
@@ -98,6 +100,8 @@ import static org.neo4j.kernel.api.proc.Context.SECURITY_CONTEXT;
  */
 public class DataSourceModule
 {
+    static final String TX_STATE_SPILL_DIRECTORY = "tx-state-spill";
+
     public final ThreadToStatementContextBridge threadToTransactionBridge;
 
     public final NeoStoreDataSource neoStoreDataSource;
@@ -170,7 +174,8 @@ public class DataSourceModule
                 editionModule.relationshipTypeTokenHolder,
                 editionModule.propertyKeyTokenHolder );
 
-        final CollectionsFactorySupplier collectionsFactorySupplier = createCollectionsFactorySupplier( config );
+        final CollectionsFactorySupplier collectionsFactorySupplier =
+                createCollectionsFactorySupplier( config, fileSystem, storeDir );
         neoStoreDataSource = deps.satisfyDependency( new NeoStoreDataSource(
                 storeDir,
                 config,
@@ -230,20 +235,37 @@ public class DataSourceModule
         procedures.registerComponent( GraphDatabaseService.class, gdsFactory::apply, true );
     }
 
-    private CollectionsFactorySupplier createCollectionsFactorySupplier( Config config )
+    private CollectionsFactorySupplier createCollectionsFactorySupplier( Config config, FileSystemAbstraction fileSystem,
+            File storeDir )
     {
+        File spillDirectory = new File( storeDir, TX_STATE_SPILL_DIRECTORY );
+        deleteSpillFiles( fileSystem, spillDirectory );
         final TransactionStateMemoryAllocation allocation = config.get( GraphDatabaseSettings.tx_state_memory_allocation );
         switch ( allocation )
         {
         case ON_HEAP:
             return CollectionsFactorySupplier.ON_HEAP;
         case OFF_HEAP:
-            return CollectionsFactorySupplier.OFF_HEAP;
+            return CollectionsFactorySupplier.offHeap( config.get( GraphDatabaseSettings.tx_state_max_off_heap_memory ),
+                    fileSystem, spillDirectory, config.get( GraphDatabaseSettings.tx_state_spill_threshold ) );
         default:
             throw new IllegalArgumentException( "Unknown transaction state memory allocation value: " + allocation );
         }
     }
 
+    private static void deleteSpillFiles( FileSystemAbstraction fileSystem, File spillDirectory )
+    {
+        // Spill files only live as long as their transaction state, anything found here was left behind by a crash
+        try
+        {
+            fileSystem.deleteRecursively( spillDirectory );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( "Unable to delete transaction state spill files in " + spillDirectory, e );
+        }
+    }
+
     private Guard createGuard( Dependencies deps, Clock clock, LogService logging )
     {
         TerminationGuard guard = createGuard();
@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.neo4j.function.ThrowingBiConsumer;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * External merge sort of index entries, used to feed a {@link GBPTree#bulkLoader() bulk loader} which requires
+ * all entries in ascending order.
+ * <p>
+ * Entries are {@link #add(List) added} in batches, which are sorted by the adding thread so that many threads can
+ * sort their batches in parallel. Sorted batches are kept in memory until they contain {@code memoryThreshold}
+ * entries, at which point the thread adding the last batch takes them and merges them into a sorted run, written to
+ * a temporary file mapped through the {@link PageCache}. Other threads keep adding batches while a run is written,
+ * only runs are written one at a time. On {@link #complete(ThrowingBiConsumer)} the runs, together with what's left
+ * in memory, are merged into one ascending stream of distinct entries. If there are more than {@code mergeFactor} runs,
+ * groups of runs are first merged into longer runs, appended to the same file.
+ * <p>
+ * Each entry in a run is written as {@code [keySize][valueSize][key][value]} and entries never cross page
+ * boundaries. A page which can't fit the next entry is ended with a {@link #END_OF_PAGE} marker, if there's room.
+ *
+ * @param <KEY> type of keys to sort.
+ * @param <VALUE> type of values associated with the keys.
+ */
+class BulkLoadSorter<KEY,VALUE> implements Closeable
+{
+    private static final int END_OF_PAGE = -1;
+    private static final int ENTRY_HEADER_SIZE = Integer.BYTES * 2;
+
+    private final PageCache pageCache;
+    private final File file;
+    private final Layout<KEY,VALUE> layout;
+    private final int memoryThreshold;
+    private final int mergeFactor;
+    private final Comparator<Entry<KEY,VALUE>> entryComparator;
+
+    // Guarded by this sorter's monitor
+    private List<List<Entry<KEY,VALUE>>> batches = new ArrayList<>();
+    private int entriesInMemory;
+    private List<Run> runs = new ArrayList<>();
+    private int spillsInProgress;
+    private boolean completed;
+
+    // Guarded by runWriteLock while spilling, and only touched by complete and close when no spills are in progress
+    private final Object runWriteLock = new Object();
+    private PagedFile pagedFile;
+    private long nextFreePageId;
+
+    BulkLoadSorter( PageCache pageCache, File file, Layout<KEY,VALUE> layout, int memoryThreshold, int mergeFactor )
+    {
+        if ( mergeFactor < 2 )
+        {
+            throw new IllegalArgumentException( "Merge factor must be at least 2, but was " + mergeFactor );
+        }
+        this.pageCache = pageCache;
+        this.file = file;
+        this.layout = layout;
+        this.memoryThreshold = memoryThreshold;
+        this.mergeFactor = mergeFactor;
+        this.entryComparator = ( e1, e2 ) -> layout.compare( e1.key, e2.key );
+    }
+
+    /**
+     * Sorts the given batch, in the calling thread, and adds it to this sorter. The entries are referenced,
+     * not copied, and so must not be changed after this call.
+     *
+     * @param batch entries to add, in any order.
+     * @return {@code true} if the batch was added, or {@code false} if this sorter has already been
+     * {@link #complete(ThrowingBiConsumer) completed}, in which case the caller will have to handle the entries itself.
+     * @throws IOException on I/O error writing a sorted run.
+     */
+    boolean add( List<Entry<KEY,VALUE>> batch ) throws IOException
+    {
+        batch.sort( entryComparator );
+        List<List<Entry<KEY,VALUE>>> batchesToSpill;
+        synchronized ( this )
+        {
+            if ( completed )
+            {
+                return false;
+            }
+            batches.add( batch );
+            entriesInMemory += batch.size();
+            if ( entriesInMemory < memoryThreshold )
+            {
+                return true;
+            }
+            batchesToSpill = batches;
+            batches = new ArrayList<>();
+            entriesInMemory = 0;
+            spillsInProgress++;
+        }
+
+        try
+        {
+            spill( batchesToSpill );
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                spillsInProgress--;
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges all added entries and hands them to the given {@code visitor} in ascending order. Entries with equal
+     * keys are only visited once. After this call no more entries can be added.
+     *
+     * @param visitor receives each distinct entry in ascending order. The key and value instances are reused
+     * between calls.
+     * @throws IOException on I/O error reading or writing sorted runs, or from the visitor.
+     */
+    synchronized void complete( ThrowingBiConsumer<KEY,VALUE,IOException> visitor ) throws IOException
+    {
+        if ( completed )
+        {
+            throw new IllegalStateException( "Sorter has already been completed" );
+        }
+        completed = true;
+        awaitSpills();
+        while ( runs.size() > mergeFactor )
+        {
+            mergePass();
+        }
+        List<Source<KEY,VALUE>> sources = new ArrayList<>();
+        for ( Run run : runs )
+        {
+            sources.add( new RunReader( run ) );
+        }
+        sources.addAll( memorySources( batches ) );
+        merge( sources, visitor );
+        batches.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        completed = true;
+        awaitSpills();
+        batches.clear();
+        runs.clear();
+        if ( pagedFile != null )
+        {
+            pagedFile.close();
+            pagedFile = null;
+        }
+    }
+
+    synchronized int numberOfRuns()
+    {
+        return runs.size();
+    }
+
+    private void spill( List<List<Entry<KEY,VALUE>>> batchesToSpill ) throws IOException
+    {
+        Run run;
+        synchronized ( runWriteLock )
+        {
+            run = writeRun( memorySources( batchesToSpill ) );
+        }
+        synchronized ( this )
+        {
+            runs.add( run );
+        }
+    }
+
+    /**
+     * Waits for runs being written by adding threads, which must not be going on while merging or closing.
+     * Must be called holding this sorter's monitor, after marking it as completed so that no new spills start.
+     */
+    private void awaitSpills() throws InterruptedIOException
+    {
+        while ( spillsInProgress > 0 )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting for sorted runs to be written" );
+            }
+        }
+    }
+
+    private void mergePass() throws IOException
+    {
+        List<Run> merged = new ArrayList<>();
+        for ( int start = 0; start < runs.size(); start += mergeFactor )
+        {
+            List<Run> group = runs.subList( start, min( start + mergeFactor, runs.size() ) );
+            if ( group.size() == 1 )
+            {
+                merged.add( group.get( 0 ) );
+            }
+            else
+            {
+                List<Source<KEY,VALUE>> sources = new ArrayList<>();
+                for ( Run run : group )
+                {
+                    sources.add( new RunReader( run ) );
+                }
+                merged.add( writeRun( sources ) );
+            }
+        }
+        runs = merged;
+    }
+
+    private List<Source<KEY,VALUE>> memorySources( List<List<Entry<KEY,VALUE>>> batches )
+    {
+        List<Source<KEY,VALUE>> sources = new ArrayList<>( batches.size() );
+        for ( List<Entry<KEY,VALUE>> batch : batches )
+        {
+            sources.add( new MemorySource<>( batch ) );
+        }
+        return sources;
+    }
+
+    private Run writeRun( List<Source<KEY,VALUE>> sources ) throws IOException
+    {
+        if ( pagedFile == null )
+        {
+            pagedFile = pageCache.map( file, pageCache.pageSize(), CREATE, TRUNCATE_EXISTING, DELETE_ON_CLOSE );
+        }
+        try ( RunWriter writer = new RunWriter( nextFreePageId ) )
+        {
+            merge( sources, writer );
+            nextFreePageId = writer.startPageId + writer.pageCount;
+            return new Run( writer.startPageId, writer.entryCount );
+        }
+    }
+
+    /**
+     * Merges the already sorted {@code sources} into the {@code visitor}, skipping entries with keys equal
+     * to the previously visited key. All sources are closed when this method returns.
+     */
+    private void merge( List<Source<KEY,VALUE>> sources, ThrowingBiConsumer<KEY,VALUE,IOException> visitor )
+            throws IOException
+    {
+        try
+        {
+            PriorityQueue<Source<KEY,VALUE>> heap =
+                    new PriorityQueue<>( max( 1, sources.size() ), ( s1, s2 ) -> layout.compare( s1.key(), s2.key() ) );
+            for ( Source<KEY,VALUE> source : sources )
+            {
+                if ( source.next() )
+                {
+                    heap.add( source );
+                }
+            }
+
+            KEY previousKey = layout.newKey();
+            boolean first = true;
+            while ( !heap.isEmpty() )
+            {
+                Source<KEY,VALUE> source = heap.poll();
+                if ( first || layout.compare( previousKey, source.key() ) != 0 )
+                {
+                    visitor.accept( source.key(), source.value() );
+                    layout.copyKey( source.key(), previousKey );
+                    first = false;
+                }
+                if ( source.next() )
+                {
+                    heap.add( source );
+                }
+            }
+        }
+        finally
+        {
+            for ( Source<KEY,VALUE> source : sources )
+            {
+                source.close();
+            }
+        }
+    }
+
+    static class Entry<KEY,VALUE>
+    {
+        final KEY key;
+        final VALUE value;
+
+        Entry( KEY key, VALUE value )
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static class Run
+    {
+        private final long startPageId;
+        private final long entryCount;
+
+        Run( long startPageId, long entryCount )
+        {
+            this.startPageId = startPageId;
+            this.entryCount = entryCount;
+        }
+    }
+
+    private interface Source<KEY,VALUE> extends Closeable
+    {
+        boolean next() throws IOException;
+
+        KEY key();
+
+        VALUE value();
+    }
+
+    private static class MemorySource<KEY,VALUE> implements Source<KEY,VALUE>
+    {
+        private final List<Entry<KEY,VALUE>> entries;
+        private int index = -1;
+
+        MemorySource( List<Entry<KEY,VALUE>> entries )
+        {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean next()
+        {
+            return ++index < entries.size();
+        }
+
+        @Override
+        public KEY key()
+        {
+            return entries.get( index ).key;
+        }
+
+        @Override
+        public VALUE value()
+        {
+            return entries.get( index ).value;
+        }
+
+        @Override
+        public void close()
+        {   // nothing to close
+        }
+    }
+
+    private class RunReader implements Source<KEY,VALUE>
+    {
+        private final PageCursor cursor;
+        private final KEY key = layout.newKey();
+        private final VALUE value = layout.newValue();
+        private final int pageSize;
+        private long remaining;
+        private int offset;
+
+        RunReader( Run run ) throws IOException
+        {
+            this.cursor = pagedFile.io( run.startPageId, PF_SHARED_READ_LOCK );
+            this.pageSize = pagedFile.pageSize();
+            this.remaining = run.entryCount;
+            // the first read will move the cursor to the first page of the run
+            this.offset = pageSize;
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            if ( remaining == 0 )
+            {
+                return false;
+            }
+            if ( !readEntry() )
+            {
+                if ( !cursor.next() )
+                {
+                    throw new IllegalStateException( format( "Unexpected end of sort file %s", file ) );
+                }
+                offset = 0;
+                if ( !readEntry() )
+                {
+                    throw new IllegalStateException( format( "Expected entry at start of page %d in sort file %s",
+                            cursor.getCurrentPageId(), file ) );
+                }
+            }
+            remaining--;
+            return true;
+        }
+
+        private boolean readEntry() throws IOException
+        {
+            if ( offset + ENTRY_HEADER_SIZE > pageSize )
+            {
+                return false;
+            }
+            int keySize;
+            do
+            {
+                cursor.setOffset( offset );
+                keySize = cursor.getInt();
+                if ( keySize != END_OF_PAGE )
+                {
+                    int valueSize = cursor.getInt();
+                    if ( keySize < 0 || valueSize < 0 ||
+                         (long) offset + ENTRY_HEADER_SIZE + keySize + valueSize > pageSize )
+                    {
+                        // inconsistent read, don't let the layout read keys of unreasonable sizes
+                        cursor.setCursorException( format( "Read unreliable entry, keySize=%d, valueSize=%d, offset=%d",
+                                keySize, valueSize, offset ) );
+                    }
+                    else
+                    {
+                        layout.readKey( cursor, key, keySize );
+                        layout.readValue( cursor, value, valueSize );
+                    }
+                }
+            }
+            while ( cursor.shouldRetry() );
+            if ( cursor.checkAndClearBoundsFlag() )
+            {
+                throw new IllegalStateException( format( "Read out of bounds at page %d in sort file %s",
+                        cursor.getCurrentPageId(), file ) );
+            }
+            cursor.checkAndClearCursorException();
+            if ( keySize == END_OF_PAGE )
+            {
+                return false;
+            }
+            offset = cursor.getOffset();
+            return true;
+        }
+
+        @Override
+        public KEY key()
+        {
+            return key;
+        }
+
+        @Override
+        public VALUE value()
+        {
+            return value;
+        }
+
+        @Override
+        public void close()
+        {
+            cursor.close();
+        }
+    }
+
+    private class RunWriter implements ThrowingBiConsumer<KEY,VALUE,IOException>, Closeable
+    {
+        private final PageCursor cursor;
+        private final long startPageId;
+        private final int pageSize;
+        private long pageCount;
+        private long entryCount;
+        private int offset;
+
+        RunWriter( long startPageId ) throws IOException
+        {
+            this.cursor = pagedFile.io( startPageId, PF_SHARED_WRITE_LOCK );
+            this.startPageId = startPageId;
+            this.pageSize = pagedFile.pageSize();
+            // the first write will move the cursor to the first page of the run
+            this.offset = pageSize;
+        }
+
+        @Override
+        public void accept( KEY key, VALUE value ) throws IOException
+        {
+            int keySize = layout.keySize( key );
+            int valueSize = layout.valueSize( value );
+            int entrySize = ENTRY_HEADER_SIZE + keySize + valueSize;
+            if ( entrySize > pageSize )
+            {
+                throw new IllegalArgumentException( format( "Entry of size %d doesn't fit in a page of size %d",
+                        entrySize, pageSize ) );
+            }
+            if ( offset + entrySize > pageSize )
+            {
+                if ( offset + Integer.BYTES <= pageSize )
+                {
+                    cursor.setOffset( offset );
+                    cursor.putInt( END_OF_PAGE );
+                }
+                if ( !cursor.next() )
+                {
+                    throw new IllegalStateException( format( "Unable to grow sort file %s", file ) );
+                }
+                pageCount++;
+                offset = 0;
+            }
+            cursor.setOffset( offset );
+            cursor.putInt( keySize );
+            cursor.putInt( valueSize );
+            layout.writeKey( cursor, key );
+            layout.writeValue( cursor, value );
+            if ( cursor.checkAndClearBoundsFlag() )
+            {
+                throw new IllegalStateException( format( "Wrote out of bounds at page %d in sort file %s",
+                        cursor.getCurrentPageId(), file ) );
+            }
+            offset = cursor.getOffset();
+            entryCount++;
+        }
+
+        @Override
+        public void close()
+        {
+            cursor.close();
+        }
+    }
+}
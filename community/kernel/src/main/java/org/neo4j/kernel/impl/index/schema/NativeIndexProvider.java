@@ -113,7 +113,9 @@ abstract class NativeIndexProvider<KEY extends NativeSchemaKey<KEY>,VALUE extend
     {
         try
         {
-            return NativeSchemaIndexes.readState( pageCache, nativeIndexFileFromIndexId( indexId ) );
+            // Verifying the layout makes an index created by an older version of the layout, or with another
+            // tree node format, get repopulated here rather than fail when opened online
+            return NativeSchemaIndexes.readState( pageCache, nativeIndexFileFromIndexId( indexId ), layout( descriptor ) );
         }
         catch ( MetadataMismatchException | IOException e )
         {
@@ -130,7 +132,7 @@ abstract class NativeIndexProvider<KEY extends NativeSchemaKey<KEY>,VALUE extend
         return StoreMigrationParticipant.NOT_PARTICIPATING;
     }
 
-    private File nativeIndexFileFromIndexId( long indexId )
+    File nativeIndexFileFromIndexId( long indexId )
     {
         return new File( directoryStructure().directoryForIndex( indexId ), indexFileName( indexId ) );
     }
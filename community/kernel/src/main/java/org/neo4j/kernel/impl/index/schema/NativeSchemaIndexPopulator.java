@@ -24,11 +24,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 import org.neo4j.concurrent.Work;
 import org.neo4j.concurrent.WorkSync;
+import org.neo4j.index.internal.gbptree.BulkLoader;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
@@ -50,6 +52,7 @@ import org.neo4j.kernel.impl.api.index.sampling.NonUniqueIndexSampler;
 import org.neo4j.kernel.impl.api.index.sampling.UniqueIndexSampler;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
 import static org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor.Type.GENERAL;
@@ -57,6 +60,13 @@ import static org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor.Type.UNIQU
 
 /**
  * {@link IndexPopulator} backed by a {@link GBPTree}.
+ * <p>
+ * Non-unique indexes are populated by sorting all scanned entries, using a {@link BulkLoadSorter}, and
+ * {@link GBPTree#bulkLoader() bulk loading} them into the tree when the {@link #scanCompleted() scan completes},
+ * which is much faster than inserting them one by one. Updates coming in through the
+ * {@link #newPopulatingUpdater(PropertyAccessor) populating updater} during the scan are kept, in order,
+ * and applied after the bulk load. Unique indexes are populated by inserting each entry, detecting conflicts
+ * as they are added.
  *
  * @param <KEY> type of {@link NativeSchemaKey}.
  * @param <VALUE> type of {@link NativeSchemaValue}.
@@ -68,6 +78,12 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
     static final byte BYTE_ONLINE = 1;
     static final byte BYTE_POPULATING = 2;
 
+    private static final boolean BULK_LOAD = FeatureToggles.flag( NativeSchemaIndexPopulator.class, "bulk_load", true );
+    private static final int BULK_LOAD_MEMORY_THRESHOLD =
+            FeatureToggles.getInteger( NativeSchemaIndexPopulator.class, "bulk_load_memory_threshold", 200_000 );
+    private static final int BULK_LOAD_MERGE_FACTOR =
+            FeatureToggles.getInteger( NativeSchemaIndexPopulator.class, "bulk_load_merge_factor", 32 );
+
     private final KEY treeKey;
     private final VALUE treeValue;
     private final UniqueIndexSampler uniqueSampler;
@@ -77,6 +93,10 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
     private WorkSync<IndexUpdateApply<KEY,VALUE>,IndexUpdateWork<KEY,VALUE>> additionsWorkSync;
     private WorkSync<IndexUpdateApply<KEY,VALUE>,IndexUpdateWork<KEY,VALUE>> updatesWorkSync;
 
+    // Set while populating in bulk load mode, i.e. from create until the scan has completed
+    private volatile BulkLoadSorter<KEY,VALUE> sorter;
+    private List<IndexEntryUpdate<?>> updatesDuringBulkLoad;
+
     private byte[] failureBytes;
     private boolean dropped;
     private boolean closed;
@@ -129,6 +149,14 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
         // for updates we have to have uniqueness on (value,entityId) to allow for intermediary violating updates.
         // there are added conflict checks after updates have been applied.
         updatesWorkSync = new WorkSync<>( new IndexUpdateApply<>( tree, treeKey, treeValue, new ConflictDetectingValueMerger<>( true ) ) );
+
+        if ( BULK_LOAD && descriptor.type() == GENERAL )
+        {
+            File sortFile = new File( storeFile.getParentFile(), storeFile.getName() + ".sort" );
+            sorter = new BulkLoadSorter<>( pageCache, sortFile, layout,
+                    BULK_LOAD_MEMORY_THRESHOLD, BULK_LOAD_MERGE_FACTOR );
+            updatesDuringBulkLoad = new ArrayList<>();
+        }
     }
 
     ConflictDetectingValueMerger<KEY,VALUE> getMainConflictDetector()
@@ -141,6 +169,7 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
     {
         try
         {
+            discardBulkLoad();
             closeTree();
             gbpTreeFileUtil.deleteFileIfPresent( storeFile );
         }
@@ -154,13 +183,92 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
     @Override
     public void add( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException, IndexEntryConflictException
     {
+        BulkLoadSorter<KEY,VALUE> bulkLoadSorter = sorter;
+        if ( bulkLoadSorter != null && bulkLoadSorter.add( toEntries( updates ) ) )
+        {
+            return;
+        }
         applyWithWorkSync( additionsWorkSync, updates );
     }
 
+    private List<BulkLoadSorter.Entry<KEY,VALUE>> toEntries( Collection<? extends IndexEntryUpdate<?>> updates )
+    {
+        List<BulkLoadSorter.Entry<KEY,VALUE>> entries = new ArrayList<>( updates.size() );
+        for ( IndexEntryUpdate<?> update : updates )
+        {
+            KEY key = layout.newKey();
+            VALUE value = layout.newValue();
+            key.from( update.getEntityId(), update.values() );
+            value.from( update.values() );
+            entries.add( new BulkLoadSorter.Entry<>( key, value ) );
+        }
+        return entries;
+    }
+
     @Override
-    public void verifyDeferredConstraints( PropertyAccessor propertyAccessor ) throws IndexEntryConflictException
+    public void scanCompleted() throws IndexEntryConflictException, IOException
     {
-        // No-op, uniqueness is checked for each update in add(IndexEntryUpdate)
+        completeBulkLoad();
+    }
+
+    /**
+     * Bulk loads all entries added so far into the tree and then applies the updates which came in during the scan.
+     * After this call the populator inserts added entries and updates directly into the tree.
+     */
+    private synchronized void completeBulkLoad() throws IOException, IndexEntryConflictException
+    {
+        BulkLoadSorter<KEY,VALUE> bulkLoadSorter = sorter;
+        if ( bulkLoadSorter == null )
+        {
+            return;
+        }
+        Collection<IndexEntryUpdate<?>> updates = updatesDuringBulkLoad;
+        sorter = null;
+        updatesDuringBulkLoad = null;
+
+        try ( BulkLoadSorter<KEY,VALUE> closeable = bulkLoadSorter;
+              BulkLoader<KEY,VALUE> loader = tree.bulkLoader() )
+        {
+            closeable.complete( loader::add );
+        }
+        if ( !updates.isEmpty() )
+        {
+            // Only non-unique indexes are bulk loaded, where the main conflict detector also compares entity ids.
+            // Applying through the same work sync as additions keeps this from racing with concurrent additions
+            // for the tree writer.
+            applyWithWorkSync( additionsWorkSync, updates );
+        }
+    }
+
+    private synchronized void discardBulkLoad() throws IOException
+    {
+        BulkLoadSorter<KEY,VALUE> bulkLoadSorter = sorter;
+        sorter = null;
+        updatesDuringBulkLoad = null;
+        closeIfPresent( bulkLoadSorter );
+    }
+
+    /**
+     * @return {@code true} if the updates were kept to be applied after the bulk load, otherwise {@code false}
+     * which means that the bulk load, if any, has already completed and the updates should be applied directly.
+     */
+    private synchronized boolean deferUntilBulkLoaded( Collection<IndexEntryUpdate<?>> updates )
+    {
+        if ( sorter == null )
+        {
+            return false;
+        }
+        updatesDuringBulkLoad.addAll( updates );
+        return true;
+    }
+
+    @Override
+    public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
+            throws IndexEntryConflictException, IOException
+    {
+        // Uniqueness is checked for each update in add(IndexEntryUpdate), but bulk loaded entries must be in place
+        // for anyone verifying constraints by reading the tree
+        completeBulkLoad();
     }
 
     @Override
@@ -181,7 +289,10 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
             @Override
             public void close() throws IOException, IndexEntryConflictException
             {
-                applyWithWorkSync( updatesWorkSync, updates );
+                if ( !deferUntilBulkLoaded( updates ) )
+                {
+                    applyWithWorkSync( updatesWorkSync, updates );
+                }
                 closed = true;
             }
 
@@ -223,6 +334,7 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
             if ( populationCompletedSuccessfully )
             {
                 assertPopulatorOpen();
+                completeBulkLoadOnClose();
                 markTreeAsOnline();
             }
             else
@@ -234,11 +346,25 @@ public abstract class NativeSchemaIndexPopulator<KEY extends NativeSchemaKey<KEY
         }
         finally
         {
+            discardBulkLoad();
             closeTree();
             closed = true;
         }
     }
 
+    private void completeBulkLoadOnClose() throws IOException
+    {
+        try
+        {
+            completeBulkLoad();
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            // Only non-unique indexes are bulk loaded and they can't have conflicts
+            throw new IllegalStateException( "Unexpected conflict completing bulk load of non-unique index", e );
+        }
+    }
+
     private void applyWithWorkSync( WorkSync<IndexUpdateApply<KEY,VALUE>,IndexUpdateWork<KEY,VALUE>> workSync,
             Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException, IndexEntryConflictException
     {
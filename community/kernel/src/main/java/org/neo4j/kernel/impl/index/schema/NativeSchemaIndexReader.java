@@ -21,8 +21,11 @@ package org.neo4j.kernel.impl.index.schema;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.neo4j.collection.primitive.PrimitiveLongResourceCollections;
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
@@ -58,7 +61,8 @@ abstract class NativeSchemaIndexReader<KEY extends NativeSchemaKey<KEY>, VALUE e
         this.layout = layout;
         this.samplingConfig = samplingConfig;
         this.descriptor = descriptor;
-        this.openSeekers = new HashSet<>();
+        // Partitions of a partitioned query may be read, and closed, from different threads
+        this.openSeekers = ConcurrentHashMap.newKeySet();
     }
 
     @Override
@@ -149,6 +153,37 @@ abstract class NativeSchemaIndexReader<KEY extends NativeSchemaKey<KEY>, VALUE e
         startSeekForInitializedRange( cursor, treeKeyFrom, treeKeyTo, predicates, needFilter );
     }
 
+    @Override
+    public List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... predicates )
+    {
+        validateQuery( IndexOrder.NONE, predicates );
+
+        KEY treeKeyFrom = layout.newKey();
+        KEY treeKeyTo = layout.newKey();
+
+        boolean needFilter = initializeRangeForQuery( treeKeyFrom, treeKeyTo, predicates );
+        if ( isBackwardsSeek( treeKeyFrom, treeKeyTo ) )
+        {
+            return Collections.singletonList( client -> client.initialize( descriptor, IndexProgressor.EMPTY, predicates ) );
+        }
+
+        try
+        {
+            List<RawCursor<Hit<KEY,VALUE>,IOException>> seekers = tree.partitionedSeek( treeKeyFrom, treeKeyTo, desiredNumberOfPartitions );
+            openSeekers.addAll( seekers );
+            List<Partition> partitions = new ArrayList<>( seekers.size() );
+            for ( RawCursor<Hit<KEY,VALUE>,IOException> seeker : seekers )
+            {
+                partitions.add( client -> client.initialize( descriptor, getIndexProgressor( seeker, client, needFilter, predicates ), predicates ) );
+            }
+            return partitions;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
     @Override
     public abstract boolean hasFullValuePrecision( IndexQuery... predicates );
 
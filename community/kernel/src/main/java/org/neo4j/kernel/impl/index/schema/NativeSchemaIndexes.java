@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
 import org.neo4j.internal.kernel.api.InternalIndexState;
 import org.neo4j.io.pagecache.PageCache;
 
@@ -36,9 +38,20 @@ public class NativeSchemaIndexes
     {}
 
     public static InternalIndexState readState( PageCache pageCache, File indexFile ) throws IOException
+    {
+        return readState( pageCache, indexFile, null );
+    }
+
+    /**
+     * @param layout the layout the index is expected to have been created with, or {@code null} to not verify it.
+     * @return the state of the index in {@code indexFile}.
+     * @throws MetadataMismatchException if the index was created with a layout, or tree node format, other than
+     * the one {@code layout} would open it with, in which case it needs to be repopulated.
+     */
+    static InternalIndexState readState( PageCache pageCache, File indexFile, Layout<?,?> layout ) throws IOException
     {
         NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
-        GBPTree.readHeader( pageCache, indexFile, headerReader );
+        GBPTree.readHeader( pageCache, indexFile, layout, headerReader );
         switch ( headerReader.state )
         {
         case BYTE_FAILED:
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.index.schema;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
@@ -109,6 +110,14 @@ public class SpatialIndexPartReader<VALUE extends NativeSchemaValue> extends Nat
         }
     }
 
+    @Override
+    public List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... predicates )
+    {
+        // A range in space is seeked as multiple ranges along the space filling curve, keep them in one partition
+        validateQuery( IndexOrder.NONE, predicates );
+        return Collections.singletonList( client -> query( client, IndexOrder.NONE, predicates ) );
+    }
+
     @Override
     public void distinctValues( IndexProgressor.NodeValueClient client, PropertyAccessor propertyAccessor )
     {
@@ -99,6 +99,15 @@ class SpatialIndexPopulator extends SpatialIndexCache<SpatialIndexPopulator.Part
         }
     }
 
+    @Override
+    public synchronized void scanCompleted() throws IndexEntryConflictException, IOException
+    {
+        for ( NativeSchemaIndexPopulator part : this )
+        {
+            part.scanCompleted();
+        }
+    }
+
     @Override
     public void verifyDeferredConstraints( PropertyAccessor propertyAccessor ) throws IndexEntryConflictException, IOException
     {
@@ -165,10 +174,11 @@ class SpatialIndexPopulator extends SpatialIndexCache<SpatialIndexPopulator.Part
         }
 
         @Override
-        public void verifyDeferredConstraints( PropertyAccessor nodePropertyAccessor ) throws IndexEntryConflictException
+        public void verifyDeferredConstraints( PropertyAccessor nodePropertyAccessor )
+                throws IndexEntryConflictException, IOException
         {
-            SpatialVerifyDeferredConstraint.verify( nodePropertyAccessor, layout, tree, descriptor );
             super.verifyDeferredConstraints( nodePropertyAccessor );
+            SpatialVerifyDeferredConstraint.verify( nodePropertyAccessor, layout, tree, descriptor );
         }
 
         @Override
@@ -44,14 +44,21 @@ import org.neo4j.values.storable.ValueCategory;
 public class StringIndexProvider extends NativeIndexProvider<StringSchemaKey,NativeSchemaValue>
 {
     public static final String KEY = "string";
-    static final IndexCapability CAPABILITY = new StringIndexCapability();
+    static final IndexCapability CAPABILITY = new StringIndexCapability( IndexLimitation.SLOW_CONTAINS );
     private static final Descriptor STRING_PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
 
     public StringIndexProvider( PageCache pageCache, FileSystemAbstraction fs,
             IndexDirectoryStructure.Factory directoryStructure, Monitor monitor, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
             boolean readOnly )
     {
-        super( STRING_PROVIDER_DESCRIPTOR, 0, directoryStructure, pageCache, fs, monitor, recoveryCleanupWorkCollector, readOnly );
+        this( STRING_PROVIDER_DESCRIPTOR, pageCache, fs, directoryStructure, monitor, recoveryCleanupWorkCollector, readOnly );
+    }
+
+    StringIndexProvider( Descriptor descriptor, PageCache pageCache, FileSystemAbstraction fs,
+            IndexDirectoryStructure.Factory directoryStructure, Monitor monitor, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            boolean readOnly )
+    {
+        super( descriptor, 0, directoryStructure, pageCache, fs, monitor, recoveryCleanupWorkCollector, readOnly );
     }
 
     @Override
@@ -89,9 +96,14 @@ public class StringIndexProvider extends NativeIndexProvider<StringSchemaKey,Nat
      *
      * For other queries there is no support
      */
-    private static class StringIndexCapability implements IndexCapability
+    static class StringIndexCapability implements IndexCapability
     {
-        private final IndexLimitation[] limitations = {IndexLimitation.SLOW_CONTAINS};
+        private final IndexLimitation[] limitations;
+
+        StringIndexCapability( IndexLimitation... limitations )
+        {
+            this.limitations = limitations;
+        }
 
         @Override
         public IndexOrder[] orderCapability( ValueCategory... valueCategories )
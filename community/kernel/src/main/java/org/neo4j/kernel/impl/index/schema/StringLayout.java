@@ -26,13 +26,14 @@ import static java.lang.String.format;
 import static org.neo4j.kernel.impl.index.schema.StringSchemaKey.ENTITY_ID_SIZE;
 
 /**
- * {@link Layout} for strings.
+ * {@link Layout} for strings. Keys are written with the string bytes first, so that neighbouring keys share leading bytes
+ * and can have their common prefixes compressed by the tree.
  */
 class StringLayout extends SchemaLayout<StringSchemaKey>
 {
     StringLayout()
     {
-        super( "USI", 0, 1 );
+        super( "USI", 0, 2 );
     }
 
     @Override
@@ -57,8 +58,8 @@ class StringLayout extends SchemaLayout<StringSchemaKey>
     @Override
     public void writeKey( PageCursor cursor, StringSchemaKey key )
     {
-        cursor.putLong( key.getEntityId() );
         cursor.putBytes( key.bytes, 0, key.bytesLength );
+        cursor.putLong( key.getEntityId() );
     }
 
     @Override
@@ -70,10 +71,10 @@ class StringLayout extends SchemaLayout<StringSchemaKey>
             into.setBytesLength( 0 );
             return;
         }
-        into.setEntityId( cursor.getLong() );
         int bytesLength = keySize - ENTITY_ID_SIZE;
         into.setBytesLength( bytesLength );
         cursor.getBytes( into.bytes, 0, bytesLength );
+        into.setEntityId( cursor.getLong() );
     }
 
     @Override
@@ -82,6 +83,47 @@ class StringLayout extends SchemaLayout<StringSchemaKey>
         return false;
     }
 
+    @Override
+    public boolean compressKeyPrefixes()
+    {
+        return true;
+    }
+
+    @Override
+    public void minimalSplitter( StringSchemaKey left, StringSchemaKey right, StringSchemaKey into )
+    {
+        if ( left.bytes == null || right.bytes == null )
+        {
+            copyKey( right, into );
+            return;
+        }
+
+        int commonLength = Math.min( left.bytesLength, right.bytesLength );
+        int length = 0;
+        while ( length < commonLength && left.bytes[length] == right.bytes[length] )
+        {
+            length++;
+        }
+        if ( length == right.bytesLength )
+        {
+            // Same value, keys are separated by entity id
+            copyKey( right, into );
+            return;
+        }
+
+        // Right is separated from left by its bytes up to and including the first byte that differs,
+        // but don't cut a multi-byte character in half
+        length++;
+        while ( length < right.bytesLength && (right.bytes[length] & 0xC0) == 0x80 )
+        {
+            length++;
+        }
+        into.setBytesLength( length );
+        System.arraycopy( right.bytes, 0, into.bytes, 0, length );
+        into.setEntityId( right.getEntityId() );
+        into.setCompareId( right.getCompareId() );
+    }
+
     @Override
     public String toString()
     {
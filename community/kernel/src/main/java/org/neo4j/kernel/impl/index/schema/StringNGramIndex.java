@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.internal.kernel.api.IndexQuery.StringContainsPredicate;
+import org.neo4j.internal.kernel.api.IndexQuery.StringSuffixPredicate;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.IndexProgressor.NodeValueClient;
+import org.neo4j.string.UTF8;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_MONITOR;
+
+/**
+ * A {@link GBPTree} next to the tree of a string index, which maps every n-gram, i.e. every sequence of {@link #GRAM_LENGTH}
+ * consecutive UTF-8 bytes, of each indexed value to the ids of the entities having that value. Each value is terminated by
+ * a byte which never occurs in UTF-8 encoded strings, such that the n-grams at the end of a value are distinguishable.
+ * <p>
+ * This makes it possible to find the entities which may have values containing, or ending with, a string by intersecting
+ * the entity ids of the n-grams of that string, instead of scanning and filtering all values in the string index.
+ * The found entities are only candidates, since a value having all the n-grams of a string doesn't necessarily contain that
+ * string, and so they need to be verified against the actual values.
+ * <p>
+ * The string tree has the state, e.g. online or failed, of the index, whereas this tree has no header of its own.
+ */
+class StringNGramIndex implements Closeable
+{
+    static final int GRAM_LENGTH = 3;
+    private static final String FILE_SUFFIX = ".ngram";
+    private static final int TERMINATOR = 0xFF;
+    private static final int[] NO_GRAMS = new int[0];
+
+    private final StringNGramLayout layout = new StringNGramLayout();
+    private final GBPTree<StringNGramKey,NativeSchemaValue> tree;
+
+    StringNGramIndex( PageCache pageCache, File file, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector ) throws IOException
+    {
+        this.tree = new GBPTree<>( pageCache, file, layout, 0, NO_MONITOR, NO_HEADER_READER, NO_HEADER_WRITER, recoveryCleanupWorkCollector );
+    }
+
+    /**
+     * @param storeFile file of the string tree of an index.
+     * @return the file of the n-gram tree belonging to the string tree in {@code storeFile}.
+     */
+    static File ngramFile( File storeFile )
+    {
+        return new File( storeFile.getParentFile(), storeFile.getName() + FILE_SUFFIX );
+    }
+
+    /**
+     * @param predicate predicate to check.
+     * @return whether or not entities matching the given predicate can be found by seeking for n-grams, which requires
+     * the string to look for to have at least one n-gram.
+     */
+    static boolean canSeek( IndexQuery predicate )
+    {
+        switch ( predicate.type() )
+        {
+        case stringContains:
+            return grams( ((StringContainsPredicate) predicate).contains(), false ).length > 0;
+        case stringSuffix:
+            return grams( ((StringSuffixPredicate) predicate).suffix(), true ).length > 0;
+        default:
+            return false;
+        }
+    }
+
+    Updater newUpdater() throws IOException
+    {
+        return new Updater( tree.writer() );
+    }
+
+    /**
+     * Starts a seek for entities which may match the given predicate, which must be one which {@link #canSeek(IndexQuery) can seek}.
+     * Entities are handed to the {@code client} in order of entity id, without values.
+     *
+     * @param client {@link NodeValueClient} to hand found entities to.
+     * @param predicate {@link StringContainsPredicate} or {@link StringSuffixPredicate} to find entities for.
+     * @param openSeekers seekers opened by this seek are added to this collection and removed again when the returned
+     * {@link IndexProgressor} is closed.
+     * @return {@link IndexProgressor} for the found entities.
+     * @throws IOException on I/O error.
+     */
+    IndexProgressor seek( NodeValueClient client, IndexQuery predicate,
+            Collection<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> openSeekers ) throws IOException
+    {
+        int[] grams = predicate.type() == IndexQuery.IndexQueryType.stringSuffix
+                      ? grams( ((StringSuffixPredicate) predicate).suffix(), true )
+                      : grams( ((StringContainsPredicate) predicate).contains(), false );
+        assert grams.length > 0 : "Can not seek for " + predicate;
+
+        List<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> seekers = new ArrayList<>( grams.length );
+        try
+        {
+            for ( int gram : grams )
+            {
+                RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException> seeker = seek( gram, Long.MIN_VALUE );
+                seekers.add( seeker );
+                openSeekers.add( seeker );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            IOUtils.closeAllSilently( seekers );
+            openSeekers.removeAll( seekers );
+            throw e;
+        }
+        return new StringNGramIndexProgressor( this, grams, seekers, client, openSeekers );
+    }
+
+    /**
+     * @param gram n-gram to seek the entities of.
+     * @param fromEntityId lowest entity id to seek from, inclusive.
+     * @return seeker over the ids of the entities having the given n-gram, in ascending order.
+     * @throws IOException on I/O error.
+     */
+    RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException> seek( int gram, long fromEntityId ) throws IOException
+    {
+        StringNGramKey from = layout.newKey();
+        StringNGramKey to = layout.newKey();
+        from.initialize( gram, fromEntityId );
+        to.initialize( gram, Long.MAX_VALUE );
+        return tree.seek( from, to );
+    }
+
+    void checkpoint( IOLimiter ioLimiter ) throws IOException
+    {
+        tree.checkpoint( ioLimiter );
+    }
+
+    boolean wasDirtyOnStartup()
+    {
+        return tree.wasDirtyOnStartup();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        tree.close();
+    }
+
+    /**
+     * @param value string to get the n-grams of.
+     * @param terminated whether or not to include the n-grams ending with the terminator byte, which are the n-grams
+     * at the end of an indexed value.
+     * @return the distinct n-grams of the given value, in ascending order.
+     */
+    static int[] grams( String value, boolean terminated )
+    {
+        byte[] bytes = UTF8.encode( value );
+        int length = bytes.length + (terminated ? 1 : 0);
+        int count = length - GRAM_LENGTH + 1;
+        if ( count <= 0 )
+        {
+            return NO_GRAMS;
+        }
+
+        int[] grams = new int[count];
+        int gram = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            int b = i < bytes.length ? bytes[i] & 0xFF : TERMINATOR;
+            // The n-gram is packed into the lowest bytes of the int, so that the ints order like the bytes
+            gram = ((gram << Byte.SIZE) | b) & 0xFFFFFF;
+            if ( i >= GRAM_LENGTH - 1 )
+            {
+                grams[i - GRAM_LENGTH + 1] = gram;
+            }
+        }
+
+        Arrays.sort( grams );
+        int distinct = 1;
+        for ( int i = 1; i < grams.length; i++ )
+        {
+            if ( grams[i] != grams[distinct - 1] )
+            {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == grams.length ? grams : Arrays.copyOf( grams, distinct );
+    }
+
+    private static int[] grams( Value[] values )
+    {
+        return grams( ((TextValue) values[0]).stringValue(), true );
+    }
+
+    /**
+     * Applies {@link IndexEntryUpdate updates} of a string index to its n-gram tree.
+     * All updates are idempotent, such that the same update can be applied multiple times, e.g. during recovery.
+     */
+    class Updater implements Closeable
+    {
+        private final Writer<StringNGramKey,NativeSchemaValue> writer;
+        private final StringNGramKey key = layout.newKey();
+
+        private Updater( Writer<StringNGramKey,NativeSchemaValue> writer )
+        {
+            this.writer = writer;
+        }
+
+        void process( IndexEntryUpdate<?> update ) throws IOException
+        {
+            long entityId = update.getEntityId();
+            switch ( update.updateMode() )
+            {
+            case ADDED:
+                put( entityId, grams( update.values() ), NO_GRAMS );
+                break;
+            case CHANGED:
+                int[] before = grams( update.beforeValues() );
+                int[] after = grams( update.values() );
+                remove( entityId, before, after );
+                put( entityId, after, before );
+                break;
+            case REMOVED:
+                remove( entityId, grams( update.values() ), NO_GRAMS );
+                break;
+            default:
+                throw new IllegalArgumentException( "Unknown update mode " + update.updateMode() );
+            }
+        }
+
+        /**
+         * Puts the n-grams in {@code grams} which are not in {@code except}, both distinct and in ascending order.
+         */
+        private void put( long entityId, int[] grams, int[] except ) throws IOException
+        {
+            int e = 0;
+            for ( int gram : grams )
+            {
+                while ( e < except.length && except[e] < gram )
+                {
+                    e++;
+                }
+                if ( e == except.length || except[e] != gram )
+                {
+                    key.initialize( gram, entityId );
+                    writer.put( key, NativeSchemaValue.INSTANCE );
+                }
+            }
+        }
+
+        /**
+         * Removes the n-grams in {@code grams} which are not in {@code except}, both distinct and in ascending order.
+         */
+        private void remove( long entityId, int[] grams, int[] except ) throws IOException
+        {
+            int e = 0;
+            for ( int gram : grams )
+            {
+                while ( e < except.length && except[e] < gram )
+                {
+                    e++;
+                }
+                if ( e == except.length || except[e] != gram )
+                {
+                    key.initialize( gram, entityId );
+                    writer.remove( key );
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.io.IOUtils;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.values.storable.Value;
+
+/**
+ * {@link IndexProgressor} over the entities found in all of a number of n-gram seekers, i.e. the intersection of the
+ * entity ids of a number of n-grams. Each seeker returns entity ids in ascending order and so the intersection is found
+ * by advancing the seekers in turn to the highest entity id seen so far, until all of them are on the same one.
+ * A seeker which lags behind by more than one entity is seeked again from that entity id, such that a rare n-gram
+ * skips over the entities of a frequent one instead of visiting all of them.
+ * Entities are handed to the client without values.
+ */
+class StringNGramIndexProgressor implements IndexProgressor
+{
+    private final StringNGramIndex ngramIndex;
+    private final int[] grams;
+    private final List<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> seekers;
+    private final long[] current;
+    private final NodeValueClient client;
+    private final Collection<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> openSeekers;
+    private long lastEntityId = -1;
+    private boolean closed;
+
+    StringNGramIndexProgressor( StringNGramIndex ngramIndex, int[] grams,
+            List<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> seekers, NodeValueClient client,
+            Collection<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> openSeekers )
+    {
+        this.ngramIndex = ngramIndex;
+        this.grams = grams;
+        this.seekers = seekers;
+        this.current = new long[seekers.size()];
+        Arrays.fill( current, Long.MIN_VALUE );
+        this.client = client;
+        this.openSeekers = openSeekers;
+    }
+
+    @Override
+    public boolean next()
+    {
+        try
+        {
+            while ( nextInAll() )
+            {
+                if ( client.acceptNode( lastEntityId, (Value[]) null ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private boolean nextInAll() throws IOException
+    {
+        if ( !advance( 0, lastEntityId + 1 ) )
+        {
+            return false;
+        }
+        long candidate = current[0];
+        int matching = 1;
+        int count = seekers.size();
+        for ( int i = 1 % count; matching < count; i = (i + 1) % count )
+        {
+            if ( !advance( i, candidate ) )
+            {
+                return false;
+            }
+            if ( current[i] == candidate )
+            {
+                matching++;
+            }
+            else
+            {
+                candidate = current[i];
+                matching = 1;
+            }
+        }
+        lastEntityId = candidate;
+        return true;
+    }
+
+    /**
+     * Advances the seeker at {@code index} to the first entity id which is equal to or greater than {@code entityId}.
+     * The next entity id of the seeker is tried first since it's often the one looked for, e.g. when the n-grams have
+     * mostly the same entities. Otherwise the seeker is replaced by one seeking from {@code entityId}.
+     *
+     * @return {@code true} if there was such an entity id, otherwise {@code false} since the seeker is exhausted.
+     */
+    private boolean advance( int index, long entityId ) throws IOException
+    {
+        if ( current[index] >= entityId )
+        {
+            return true;
+        }
+        if ( !nextIn( index ) )
+        {
+            return false;
+        }
+        if ( current[index] < entityId )
+        {
+            seek( index, entityId );
+            return nextIn( index );
+        }
+        return true;
+    }
+
+    private boolean nextIn( int index ) throws IOException
+    {
+        RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException> seeker = seekers.get( index );
+        if ( !seeker.next() )
+        {
+            return false;
+        }
+        current[index] = seeker.get().key().entityId;
+        return true;
+    }
+
+    private void seek( int index, long fromEntityId ) throws IOException
+    {
+        RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException> seeker = ngramIndex.seek( grams[index], fromEntityId );
+        RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException> previous = seekers.set( index, seeker );
+        openSeekers.add( seeker );
+        openSeekers.remove( previous );
+        previous.close();
+    }
+
+    @Override
+    public void close()
+    {
+        if ( !closed )
+        {
+            closed = true;
+            try
+            {
+                IOUtils.closeAll( seekers );
+                openSeekers.removeAll( seekers );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+}
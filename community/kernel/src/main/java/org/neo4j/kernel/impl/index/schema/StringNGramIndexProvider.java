@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.internal.kernel.api.IndexCapability;
+import org.neo4j.internal.kernel.api.IndexValueCapability;
+import org.neo4j.internal.kernel.api.InternalIndexState;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.values.storable.ValueCategory;
+
+/**
+ * Schema index provider for native string indexes which, in addition to the string tree of {@link StringIndexProvider},
+ * keeps an n-gram tree per index, see {@link StringNGramIndex}. This makes CONTAINS and ENDS WITH queries seek only the
+ * entities having the n-grams of the searched string, instead of scanning all values in the index, at the cost of
+ * more writes and disk space per indexed value.
+ */
+public class StringNGramIndexProvider extends StringIndexProvider
+{
+    public static final String KEY = "string-ngram";
+    static final IndexCapability CAPABILITY = new StringNGramIndexCapability();
+    private static final Descriptor STRING_NGRAM_PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
+
+    public StringNGramIndexProvider( PageCache pageCache, FileSystemAbstraction fs,
+            IndexDirectoryStructure.Factory directoryStructure, Monitor monitor, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            boolean readOnly )
+    {
+        super( STRING_NGRAM_PROVIDER_DESCRIPTOR, pageCache, fs, directoryStructure, monitor, recoveryCleanupWorkCollector, readOnly );
+    }
+
+    @Override
+    protected IndexPopulator newIndexPopulator( File storeFile, Layout<StringSchemaKey,NativeSchemaValue> layout,
+                                                SchemaIndexDescriptor descriptor, long indexId,
+                                                IndexSamplingConfig samplingConfig )
+    {
+        return new StringNGramSchemaIndexPopulator( pageCache, fs, storeFile, layout, monitor, descriptor, indexId, samplingConfig );
+    }
+
+    @Override
+    protected IndexAccessor newIndexAccessor( File storeFile, Layout<StringSchemaKey,NativeSchemaValue> layout, SchemaIndexDescriptor descriptor,
+            long indexId, IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        return new StringNGramSchemaIndexAccessor( pageCache, fs, storeFile, layout, recoveryCleanupWorkCollector, monitor, descriptor,
+                indexId, samplingConfig );
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId, SchemaIndexDescriptor descriptor )
+    {
+        InternalIndexState state = super.getInitialState( indexId, descriptor );
+        File ngramFile = StringNGramIndex.ngramFile( nativeIndexFileFromIndexId( indexId ) );
+        if ( state == InternalIndexState.ONLINE && !fs.fileExists( ngramFile ) )
+        {
+            // Without its n-grams the index would silently miss entities in CONTAINS and ENDS WITH queries
+            monitor.failedToOpenIndex( indexId, descriptor, "Requesting re-population.", new NoSuchFileException( ngramFile.getAbsolutePath() ) );
+            return InternalIndexState.POPULATING;
+        }
+        return state;
+    }
+
+    @Override
+    public IndexCapability getCapability( SchemaIndexDescriptor schemaIndexDescriptor )
+    {
+        return CAPABILITY;
+    }
+
+    /**
+     * Same as {@link StringIndexCapability}, except that values are PARTIAL since CONTAINS and ENDS WITH queries
+     * answered from the n-gram tree only provide the entity ids of candidates, not their values.
+     */
+    private static class StringNGramIndexCapability extends StringIndexCapability
+    {
+        @Override
+        public IndexValueCapability valueCapability( ValueCategory... valueCategories )
+        {
+            IndexValueCapability capability = super.valueCapability( valueCategories );
+            return capability == IndexValueCapability.YES ? IndexValueCapability.PARTIAL : capability;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import static java.lang.String.format;
+
+/**
+ * Key in the n-gram tree of a {@link StringNGramIndex}, i.e. an n-gram, packed into an {@code int}, and the id
+ * of an entity which has a string value containing that n-gram.
+ */
+class StringNGramKey
+{
+    static final int SIZE =
+            Integer.BYTES + /* n-gram */
+            Long.BYTES;     /* entityId */
+
+    int gram;
+    long entityId;
+
+    void initialize( int gram, long entityId )
+    {
+        this.gram = gram;
+        this.entityId = entityId;
+    }
+
+    int compareTo( StringNGramKey other )
+    {
+        int compare = Integer.compare( gram, other.gram );
+        return compare != 0 ? compare : Long.compare( entityId, other.entityId );
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "gram=%06x,entityId=%d", gram, entityId );
+    }
+}
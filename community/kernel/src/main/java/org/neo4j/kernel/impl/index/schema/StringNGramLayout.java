@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for the n-gram tree of a {@link StringNGramIndex}. Keys are fixed size and there are no values.
+ */
+class StringNGramLayout extends Layout.Adapter<StringNGramKey,NativeSchemaValue>
+{
+    private static final long IDENTIFIER = Layout.namedIdentifier( "USNG", NativeSchemaValue.SIZE );
+
+    @Override
+    public StringNGramKey newKey()
+    {
+        return new StringNGramKey();
+    }
+
+    @Override
+    public StringNGramKey copyKey( StringNGramKey key, StringNGramKey into )
+    {
+        into.initialize( key.gram, key.entityId );
+        return into;
+    }
+
+    @Override
+    public NativeSchemaValue newValue()
+    {
+        return NativeSchemaValue.INSTANCE;
+    }
+
+    @Override
+    public int keySize( StringNGramKey key )
+    {
+        return StringNGramKey.SIZE;
+    }
+
+    @Override
+    public int valueSize( NativeSchemaValue value )
+    {
+        return NativeSchemaValue.SIZE;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, StringNGramKey key )
+    {
+        cursor.putInt( key.gram );
+        cursor.putLong( key.entityId );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, NativeSchemaValue value )
+    {
+        // nothing to write
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, StringNGramKey into, int keySize )
+    {
+        into.gram = cursor.getInt();
+        into.entityId = cursor.getLong();
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, NativeSchemaValue into, int valueSize )
+    {
+        // nothing to read
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return true;
+    }
+
+    @Override
+    public long identifier()
+    {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 1;
+    }
+
+    @Override
+    public int compare( StringNGramKey o1, StringNGramKey o2 )
+    {
+        return o1.compareTo( o2 );
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexProvider;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+
+import static org.neo4j.helpers.collection.Iterators.asResourceIterator;
+import static org.neo4j.helpers.collection.Iterators.iterator;
+
+/**
+ * {@link IndexAccessor} for strings which keeps a {@link StringNGramIndex} next to the string tree, to serve CONTAINS and
+ * ENDS WITH queries.
+ */
+public class StringNGramSchemaIndexAccessor extends StringSchemaIndexAccessor
+{
+    private final File ngramFile;
+    private final StringNGramSchemaIndexUpdater singleUpdater;
+    private StringNGramIndex ngramIndex;
+
+    StringNGramSchemaIndexAccessor(
+            PageCache pageCache,
+            FileSystemAbstraction fs,
+            File storeFile,
+            Layout<StringSchemaKey,NativeSchemaValue> layout,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            IndexProvider.Monitor monitor,
+            SchemaIndexDescriptor descriptor,
+            long indexId,
+            IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        super( pageCache, fs, storeFile, layout, recoveryCleanupWorkCollector, monitor, descriptor, indexId, samplingConfig );
+        this.ngramFile = StringNGramIndex.ngramFile( storeFile );
+        this.singleUpdater = new StringNGramSchemaIndexUpdater( layout.newKey(), layout.newValue() );
+        try
+        {
+            this.ngramIndex = new StringNGramIndex( pageCache, ngramFile, recoveryCleanupWorkCollector );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            closeTree();
+            throw e;
+        }
+    }
+
+    @Override
+    public StringNGramSchemaIndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        assertOpen();
+        try
+        {
+            Writer<StringSchemaKey,NativeSchemaValue> writer = tree.writer();
+            try
+            {
+                return singleUpdater.initialize( writer, ngramIndex.newUpdater() );
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                writer.close();
+                throw e;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public IndexReader newReader()
+    {
+        assertOpen();
+        return new StringNGramSchemaIndexReader( tree, layout, samplingConfig, descriptor, ngramIndex );
+    }
+
+    @Override
+    public void force( IOLimiter ioLimiter ) throws IOException
+    {
+        super.force( ioLimiter );
+        ngramIndex.checkpoint( ioLimiter );
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        try
+        {
+            super.drop();
+        }
+        finally
+        {
+            ngramIndex = closeIfPresent( ngramIndex );
+            gbpTreeFileUtil.deleteFileIfPresent( ngramFile );
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            ngramIndex = closeIfPresent( ngramIndex );
+        }
+    }
+
+    @Override
+    public boolean isDirty()
+    {
+        return super.isDirty() || ngramIndex.wasDirtyOnStartup();
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles()
+    {
+        return asResourceIterator( iterator( storeFile, ngramFile ) );
+    }
+}
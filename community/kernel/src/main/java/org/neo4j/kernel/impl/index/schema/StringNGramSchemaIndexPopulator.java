@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexProvider;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+
+/**
+ * {@link IndexPopulator} for strings which populates a {@link StringNGramIndex} next to the string tree.
+ * N-grams are inserted directly into the n-gram tree as entries are added, also while the string tree is bulk loaded,
+ * since n-gram updates are independent of each other and idempotent. The n-gram tree is checkpointed before the string tree
+ * is marked as online.
+ */
+public class StringNGramSchemaIndexPopulator extends StringSchemaIndexPopulator
+{
+    private final File ngramFile;
+    private StringNGramIndex ngramIndex;
+
+    StringNGramSchemaIndexPopulator( PageCache pageCache, FileSystemAbstraction fs, File storeFile, Layout<StringSchemaKey,NativeSchemaValue> layout,
+            IndexProvider.Monitor monitor, SchemaIndexDescriptor descriptor, long indexId, IndexSamplingConfig samplingConfig )
+    {
+        super( pageCache, fs, storeFile, layout, monitor, descriptor, indexId, samplingConfig );
+        this.ngramFile = StringNGramIndex.ngramFile( storeFile );
+    }
+
+    @Override
+    public void clear() throws IOException
+    {
+        super.clear();
+        gbpTreeFileUtil.deleteFileIfPresent( ngramFile );
+    }
+
+    @Override
+    protected synchronized void create( Consumer<PageCursor> headerWriter ) throws IOException
+    {
+        super.create( headerWriter );
+        gbpTreeFileUtil.deleteFileIfPresent( ngramFile );
+        ngramIndex = new StringNGramIndex( pageCache, ngramFile, RecoveryCleanupWorkCollector.immediate() );
+    }
+
+    @Override
+    public synchronized void drop() throws IOException
+    {
+        try
+        {
+            super.drop();
+        }
+        finally
+        {
+            ngramIndex = closeIfPresent( ngramIndex );
+            gbpTreeFileUtil.deleteFileIfPresent( ngramFile );
+        }
+    }
+
+    @Override
+    public void add( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException, IndexEntryConflictException
+    {
+        super.add( updates );
+        applyToNGrams( updates );
+    }
+
+    @Override
+    public IndexUpdater newPopulatingUpdater( PropertyAccessor accessor )
+    {
+        IndexUpdater updater = super.newPopulatingUpdater( accessor );
+        return new IndexUpdater()
+        {
+            private final Collection<IndexEntryUpdate<?>> updates = new ArrayList<>();
+
+            @Override
+            public void process( IndexEntryUpdate<?> update ) throws IOException, IndexEntryConflictException
+            {
+                updater.process( update );
+                updates.add( update );
+            }
+
+            @Override
+            public void close() throws IOException, IndexEntryConflictException
+            {
+                updater.close();
+                applyToNGrams( updates );
+            }
+        };
+    }
+
+    private synchronized void applyToNGrams( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    {
+        if ( ngramIndex == null )
+        {
+            throw new IllegalStateException( "Populator has already been closed." );
+        }
+        try ( StringNGramIndex.Updater ngramUpdater = ngramIndex.newUpdater() )
+        {
+            for ( IndexEntryUpdate<?> update : updates )
+            {
+                ngramUpdater.process( update );
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close( boolean populationCompletedSuccessfully ) throws IOException
+    {
+        try
+        {
+            if ( populationCompletedSuccessfully && ngramIndex != null )
+            {
+                // The n-grams must be durable before the string tree says that the index is online
+                ngramIndex.checkpoint( IOLimiter.unlimited() );
+            }
+        }
+        finally
+        {
+            try
+            {
+                ngramIndex = closeIfPresent( ngramIndex );
+            }
+            finally
+            {
+                super.close( populationCompletedSuccessfully );
+            }
+        }
+    }
+}
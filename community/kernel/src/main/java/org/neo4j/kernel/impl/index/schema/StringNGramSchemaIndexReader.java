@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.internal.kernel.api.IndexOrder;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.io.IOUtils;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+
+/**
+ * {@link StringSchemaIndexReader} which finds entities for CONTAINS and ENDS WITH queries by seeking the n-grams of the searched
+ * string in a {@link StringNGramIndex}, instead of scanning and filtering all values. Entities found that way are only candidates,
+ * which is reflected in {@link #hasFullValuePrecision(IndexQuery...)}, and they are found in entity id order.
+ * Ordered queries and strings too short to have any n-grams are served by the string tree.
+ */
+class StringNGramSchemaIndexReader extends StringSchemaIndexReader
+{
+    private final StringNGramIndex ngramIndex;
+    private final Set<RawCursor<Hit<StringNGramKey,NativeSchemaValue>,IOException>> openNGramSeekers = ConcurrentHashMap.newKeySet();
+
+    StringNGramSchemaIndexReader( GBPTree<StringSchemaKey,NativeSchemaValue> tree, Layout<StringSchemaKey,NativeSchemaValue> layout,
+            IndexSamplingConfig samplingConfig, SchemaIndexDescriptor descriptor, StringNGramIndex ngramIndex )
+    {
+        super( tree, layout, samplingConfig, descriptor );
+        this.ngramIndex = ngramIndex;
+    }
+
+    @Override
+    public void query( IndexProgressor.NodeValueClient client, IndexOrder indexOrder, IndexQuery... predicates )
+    {
+        if ( !seeksNGrams( indexOrder, predicates ) )
+        {
+            super.query( client, indexOrder, predicates );
+            return;
+        }
+
+        validateQuery( indexOrder, predicates );
+        try
+        {
+            client.initialize( descriptor, ngramIndex.seek( client, predicates[0], openNGramSeekers ), predicates );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public boolean hasFullValuePrecision( IndexQuery... predicates )
+    {
+        // Ordered queries are served by the string tree and so these predicates may only need to be verified unnecessarily
+        return !seeksNGrams( IndexOrder.NONE, predicates );
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            try
+            {
+                IOUtils.closeAll( openNGramSeekers );
+                openNGramSeekers.clear();
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    private static boolean seeksNGrams( IndexOrder indexOrder, IndexQuery[] predicates )
+    {
+        return indexOrder == IndexOrder.NONE && predicates.length == 1 && StringNGramIndex.canSeek( predicates[0] );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+
+/**
+ * {@link NativeSchemaIndexUpdater} which also applies the updates to the n-gram tree of a {@link StringNGramIndex}.
+ */
+class StringNGramSchemaIndexUpdater extends NativeSchemaIndexUpdater<StringSchemaKey,NativeSchemaValue>
+{
+    private StringNGramIndex.Updater ngramUpdater;
+
+    StringNGramSchemaIndexUpdater( StringSchemaKey treeKey, NativeSchemaValue treeValue )
+    {
+        super( treeKey, treeValue );
+    }
+
+    StringNGramSchemaIndexUpdater initialize( Writer<StringSchemaKey,NativeSchemaValue> writer, StringNGramIndex.Updater ngramUpdater )
+    {
+        super.initialize( writer );
+        this.ngramUpdater = ngramUpdater;
+        return this;
+    }
+
+    @Override
+    public void process( IndexEntryUpdate<?> update ) throws IOException, IndexEntryConflictException
+    {
+        super.process( update );
+        ngramUpdater.process( update );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            ngramUpdater.close();
+        }
+    }
+}
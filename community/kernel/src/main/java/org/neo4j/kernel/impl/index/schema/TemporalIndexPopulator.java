@@ -93,6 +93,15 @@ class TemporalIndexPopulator extends TemporalIndexCache<TemporalIndexPopulator.P
         }
     }
 
+    @Override
+    public synchronized void scanCompleted() throws IndexEntryConflictException, IOException
+    {
+        for ( NativeSchemaIndexPopulator part : this )
+        {
+            part.scanCompleted();
+        }
+    }
+
     @Override
     public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
             throws IndexEntryConflictException, IOException
@@ -19,6 +19,10 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
 import org.neo4j.graphdb.Resource;
 import org.neo4j.helpers.collection.Iterators;
@@ -113,6 +117,30 @@ class TemporalIndexReader extends TemporalIndexCache<TemporalIndexPartReader<?>>
         }
     }
 
+    @Override
+    public List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... predicates )
+    {
+        if ( predicates.length != 1 )
+        {
+            throw new IllegalArgumentException( "Only single property temporal indexes are supported." );
+        }
+        IndexQuery predicate = predicates[0];
+        if ( predicate instanceof ExistsPredicate )
+        {
+            loadAll();
+            List<Partition> partitions = new ArrayList<>();
+            for ( NativeSchemaIndexReader<?,NativeSchemaValue> reader : this )
+            {
+                partitions.addAll( reader.partitionedQuery( desiredNumberOfPartitions, predicates ) );
+            }
+            return partitions;
+        }
+
+        NativeSchemaIndexReader<?,NativeSchemaValue> part = validPredicate( predicate ) ? uncheckedSelect( predicate.valueGroup() ) : null;
+        return part != null ? part.partitionedQuery( desiredNumberOfPartitions, predicates )
+                            : Collections.singletonList( client -> client.initialize( descriptor, IndexProgressor.EMPTY, predicates ) );
+    }
+
     @Override
     public boolean hasFullValuePrecision( IndexQuery... predicates )
     {
@@ -84,6 +84,16 @@ class FusionIndexPopulator extends FusionIndexBase<IndexPopulator> implements In
         }
     }
 
+    @Override
+    public void scanCompleted() throws IndexEntryConflictException, IOException
+    {
+        // Manual loop due do multiple exception types
+        for ( int slot = 0; slot < INSTANCE_COUNT; slot++ )
+        {
+            instanceSelector.select( slot ).scanCompleted();
+        }
+    }
+
     @Override
     public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
             throws IndexEntryConflictException, IOException
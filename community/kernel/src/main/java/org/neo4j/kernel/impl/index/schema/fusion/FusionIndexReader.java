@@ -19,7 +19,9 @@
  */
 package org.neo4j.kernel.impl.index.schema.fusion;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
 import org.neo4j.graphdb.Resource;
@@ -101,6 +103,20 @@ class FusionIndexReader extends FusionIndexBase<IndexReader> implements IndexRea
         }
     }
 
+    @Override
+    public List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        int slot = slotSelector.selectSlot( predicates, IndexQuery::valueGroup );
+        if ( slot != UNKNOWN )
+        {
+            return instanceSelector.select( slot ).partitionedQuery( desiredNumberOfPartitions, predicates );
+        }
+
+        List<Partition> partitions = new ArrayList<>();
+        instanceSelector.forAll( reader -> partitions.addAll( reader.partitionedQuery( desiredNumberOfPartitions, predicates ) ) );
+        return partitions;
+    }
+
     @Override
     public void distinctValues( IndexProgressor.NodeValueClient cursor, PropertyAccessor propertyAccessor )
     {
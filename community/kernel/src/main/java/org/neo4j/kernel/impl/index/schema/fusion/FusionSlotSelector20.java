@@ -26,7 +26,7 @@ import org.neo4j.values.storable.ValueGroup;
 
 
 /**
- * Selector for "lucene+native-2.x".
+ * Selector for "lucene+native-2.x" and "lucene+native-3.x".
  * Separates strings, numbers, temporal and spatial into native index.
  */
 public class FusionSlotSelector20 implements SlotSelector
@@ -67,12 +67,14 @@ import org.neo4j.kernel.impl.api.security.OverriddenAccessMode;
 import org.neo4j.kernel.impl.api.security.RestrictedAccessMode;
 import org.neo4j.kernel.impl.api.store.DefaultCapableIndexReference;
 import org.neo4j.kernel.impl.api.store.DefaultIndexReference;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.api.store.PropertyUtil;
 import org.neo4j.kernel.impl.index.ExplicitIndexStore;
 import org.neo4j.kernel.impl.index.IndexEntityType;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.column.PropertyColumn;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -749,6 +751,18 @@ public class AllStoreHolder extends Read
         groups.getRecordByCursor( reference, record, RecordLoad.FORCE, page );
     }
 
+    @Override
+    DegreeCache.Degrees cachedDegrees( long nodeReference, long groupReference )
+    {
+        return storeReadLayer.cachedDegrees( statement, nodeReference, groupReference );
+    }
+
+    @Override
+    PropertyColumn propertyColumn( int label, int propertyKey )
+    {
+        return storeReadLayer.propertyColumn( label, propertyKey );
+    }
+
     @Override
     long nodeHighMark()
     {
@@ -162,7 +162,14 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     @Override
     public void properties( PropertyCursor cursor )
     {
-        read.nodeProperties( getId(), propertiesReference(), cursor );
+        if ( hasInlinedProperties() )
+        {
+            read.nodeInlinedProperties( this, cursor );
+        }
+        else
+        {
+            read.nodeProperties( getId(), propertiesReference(), cursor );
+        }
     }
 
     @Override
@@ -31,8 +31,10 @@ import org.neo4j.kernel.impl.store.LongerShortString;
 import org.neo4j.kernel.impl.store.PropertyType;
 import org.neo4j.kernel.impl.store.ShortArray;
 import org.neo4j.kernel.impl.store.TemporalType;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.kernel.impl.util.Bits;
 import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
@@ -87,6 +89,22 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         }
     }
 
+    void initNodeInlined( NodeRecord node, Read read, AssertOpen assertOpen )
+    {
+        initNode( node.getId(), node.getNextProp(), read, assertOpen );
+
+        // Start off with the copy of the first record, as if it had been read from the property store
+        setId( node.getNextProp() );
+        initialize( true, Record.NO_PREVIOUS_PROPERTY.intValue(), node.getInlinedPropertiesNextProp() );
+        long[] blocks = node.getInlinedPropertyBlocks();
+        for ( int i = 0; i < node.getNumberOfInlinedPropertyBlocks(); i++ )
+        {
+            addLoadedBlock( blocks[i] );
+        }
+        this.next = getNextProp();
+        this.block = INITIAL_POSITION;
+    }
+
     void initRelationship( long relationshipReference, long reference, Read read, AssertOpen assertOpen )
     {
         assert relationshipReference != NO_ID;
@@ -28,6 +28,7 @@ import org.neo4j.internal.kernel.api.RelationshipGroupCursor;
 import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.newapi.DefaultRelationshipTraversalCursor.Record;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
@@ -52,6 +53,9 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
     private boolean hasCheckedTxState;
     private final PrimitiveIntSet txTypes = Primitive.intSet();
     private PrimitiveIntIterator txTypeIterator;
+    private long firstGroup;
+    private DegreeCache.Degrees degrees;
+    private boolean degreesLoaded;
 
     DefaultRelationshipGroupCursor( DefaultCursors pool )
     {
@@ -118,6 +122,9 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         hasCheckedTxState = false;
         setOwningNode( nodeReference );
         setNext( reference );
+        firstGroup = reference;
+        degrees = null;
+        degreesLoaded = false;
         if ( page == null )
         {
             page = read.groupPage( reference );
@@ -238,6 +245,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         if ( !isClosed() )
         {
             bufferedGroup = null;
+            degrees = null;
             read = null;
             setId( NO_ID );
             clear();
@@ -265,7 +273,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( outgoingRawId() );
+            count = count( outgoingRawId(), RelationshipDirection.OUTGOING );
         }
         return read.hasTxStateWithChanges()
                ? read.txState().getNodeState( getOwningNode() )
@@ -283,7 +291,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( incomingRawId() );
+            count = count( incomingRawId(), RelationshipDirection.INCOMING );
         }
         return read.hasTxStateWithChanges()
                ? read.txState().getNodeState( getOwningNode() )
@@ -300,7 +308,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( loopsRawId() );
+            count = count( loopsRawId(), RelationshipDirection.LOOP );
         }
 
         return read.hasTxStateWithChanges()
@@ -309,12 +317,31 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
 
     }
 
-    private int count( long reference )
+    private int count( long reference, RelationshipDirection direction )
     {
         if ( reference == NO_ID )
         {
             return 0;
         }
+        if ( !degreesLoaded )
+        {
+            degrees = read.cachedDegrees( getOwningNode(), firstGroup );
+            degreesLoaded = true;
+        }
+        if ( degrees != null )
+        {
+            switch ( direction )
+            {
+            case OUTGOING:
+                return (int) degrees.outgoing( getType() );
+            case INCOMING:
+                return (int) degrees.incoming( getType() );
+            case LOOP:
+                return (int) degrees.loops( getType() );
+            default:
+                throw new IllegalArgumentException( direction.name() );
+            }
+        }
         if ( edgePage == null )
         {
             edgePage = read.relationshipPage( reference );
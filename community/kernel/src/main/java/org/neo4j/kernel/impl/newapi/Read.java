@@ -21,6 +21,9 @@ package org.neo4j.kernel.impl.newapi;
 
 import java.util.Arrays;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.internal.kernel.api.CapableIndexReference;
 import org.neo4j.internal.kernel.api.IndexOrder;
 import org.neo4j.internal.kernel.api.IndexQuery;
@@ -29,6 +32,7 @@ import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.NodeExplicitIndexCursor;
 import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
 import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyColumnVisitor;
 import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.RelationshipExplicitIndexCursor;
 import org.neo4j.internal.kernel.api.RelationshipGroupCursor;
@@ -48,10 +52,12 @@ import org.neo4j.kernel.api.txstate.ExplicitIndexTransactionState;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.api.txstate.TxStateHolder;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.locking.LockTracer;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.column.PropertyColumn;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -61,6 +67,7 @@ import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.schema.IndexProgressor;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.LabelScanReader;
+import org.neo4j.storageengine.api.txstate.NodeState;
 import org.neo4j.values.storable.ArrayValue;
 import org.neo4j.values.storable.TextValue;
 import org.neo4j.values.storable.Value;
@@ -158,6 +165,13 @@ abstract class Read implements TxStateHolder,
                         }
                     }
                     break;
+                case stringSuffix:
+                case stringContains:
+                    if ( !reader.hasFullValuePrecision( q ) )
+                    {
+                        filters[j++] = q;
+                    }
+                    break;
                 default:
                     break;
                 }
@@ -446,6 +460,16 @@ abstract class Read implements TxStateHolder,
         ((DefaultPropertyCursor) cursor).initNode( nodeReference, reference, this, ktx );
     }
 
+    /**
+     * Same as {@link #nodeProperties(long, long, PropertyCursor)}, but starting from the copy of the first property
+     * record which the node record carries, see {@link NodeRecord#hasInlinedProperties()}.
+     */
+    final void nodeInlinedProperties( NodeRecord node, PropertyCursor cursor )
+    {
+        ktx.assertOpen();
+        ((DefaultPropertyCursor) cursor).initNodeInlined( node, this, ktx );
+    }
+
     @Override
     public final void relationshipProperties( long relationshipReference, long reference,
             PropertyCursor cursor )
@@ -463,6 +487,77 @@ abstract class Read implements TxStateHolder,
 
     abstract long graphPropertiesReference();
 
+    @Override
+    public final boolean nodePropertyColumnScan( int label, int propertyKey, PropertyColumnVisitor visitor )
+    {
+        ktx.assertOpen();
+        PropertyColumn column = propertyColumn( label, propertyKey );
+        if ( column == null )
+        {
+            return false;
+        }
+        if ( !ktx.securityContext().mode().allowsPropertyReads( propertyKey ) )
+        {
+            return true;
+        }
+
+        // Committed values of nodes changed in this transaction are replaced by their transaction state values
+        try ( DefaultNodeCursor node = cursors.allocateNodeCursor();
+              DefaultPropertyCursor property = cursors.allocatePropertyCursor();
+              PrimitiveLongSet changed = Primitive.longSet() )
+        {
+            if ( hasTxStateWithChanges() )
+            {
+                TransactionState txState = txState();
+                for ( NodeState nodeState : txState.modifiedNodes() )
+                {
+                    changed.add( nodeState.getId() );
+                }
+                for ( long nodeId : txState.addedAndRemovedNodes().getAdded() )
+                {
+                    changed.add( nodeId );
+                }
+                for ( long nodeId : txState.addedAndRemovedNodes().getRemoved() )
+                {
+                    changed.add( nodeId );
+                }
+            }
+
+            column.scan( changed, nodeId -> nodePropertyValue( nodeId, label, propertyKey, node, property ),
+                    visitor );
+
+            PrimitiveLongIterator changedNodes = changed.iterator();
+            while ( changedNodes.hasNext() )
+            {
+                long nodeId = changedNodes.next();
+                Value value = nodePropertyValue( nodeId, label, propertyKey, node, property );
+                if ( value != Values.NO_VALUE )
+                {
+                    visitor.visitValue( nodeId, value );
+                }
+            }
+        }
+        return true;
+    }
+
+    private Value nodePropertyValue( long nodeId, int label, int propertyKey, DefaultNodeCursor node,
+            DefaultPropertyCursor property )
+    {
+        singleNode( nodeId, node );
+        if ( node.next() && node.labels().contains( label ) )
+        {
+            node.properties( property );
+            while ( property.next() )
+            {
+                if ( property.propertyKey() == propertyKey )
+                {
+                    return property.propertyValue();
+                }
+            }
+        }
+        return Values.NO_VALUE;
+    }
+
     @Override
     public final void nodeExplicitIndexLookup(
             NodeExplicitIndexCursor cursor, String index, String key, Object value )
@@ -609,6 +704,17 @@ abstract class Read implements TxStateHolder,
 
     abstract void group( RelationshipGroupRecord record, long reference, PageCursor page );
 
+    /**
+     * @return committed degrees of the given dense node, or {@code null} if they aren't cached.
+     */
+    abstract DegreeCache.Degrees cachedDegrees( long nodeReference, long groupReference );
+
+    /**
+     * @return the column of committed values of the given property of the nodes with the given label, or
+     * {@code null} if there is none.
+     */
+    abstract PropertyColumn propertyColumn( int label, int propertyKey );
+
     abstract long nodeHighMark();
 
     abstract long relationshipHighMark();
@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.LongPredicate;
 import java.util.function.Supplier;
 
 import org.neo4j.concurrent.WorkSync;
@@ -62,6 +64,7 @@ import org.neo4j.kernel.impl.api.index.IndexingServiceFactory;
 import org.neo4j.kernel.impl.api.index.IndexingUpdateService;
 import org.neo4j.kernel.impl.api.index.PropertyPhysicalToLogicalConverter;
 import org.neo4j.kernel.impl.api.scan.FullLabelStream;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.api.store.SchemaCache;
 import org.neo4j.kernel.impl.api.store.StorageLayer;
 import org.neo4j.kernel.impl.cache.BridgingCacheAccess;
@@ -81,10 +84,16 @@ import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.column.PropertyColumns;
+import org.neo4j.kernel.impl.store.format.Capability;
 import org.neo4j.kernel.impl.store.format.RecordFormat;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.command.CacheInvalidationBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.DegreeCacheInvalidationBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.InlinedPropertiesBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.PropertyColumnsBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexActivator;
 import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
@@ -92,6 +101,10 @@ import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
+import org.neo4j.kernel.impl.transaction.state.Loaders;
+import org.neo4j.kernel.impl.transaction.state.RecordAccessSet;
+import org.neo4j.kernel.impl.transaction.state.RecordChangeSet;
+import org.neo4j.kernel.impl.transaction.state.RelationshipChainCompactor;
 import org.neo4j.kernel.impl.transaction.state.TransactionRecordState;
 import org.neo4j.kernel.impl.transaction.state.storeview.DynamicIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.storeview.NeoStoreIndexStoreView;
@@ -119,6 +132,7 @@ import org.neo4j.storageengine.api.txstate.TxStateVisitor;
 import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
 import static org.neo4j.storageengine.api.TransactionApplicationMode.REVERSE_RECOVERY;
 
@@ -126,6 +140,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 {
     private static final boolean takePropertyReadLocks = FeatureToggles.flag(
             RecordStorageEngine.class, "propertyReadLocks", false );
+    private static final boolean parallelCommandExtraction = FeatureToggles.flag(
+            RecordStorageEngine.class, "parallelCommandExtraction", false );
+    // relationship, property and relationship group commands are created by this many threads, shared by all
+    // committing transactions, while node commands are created by the committing thread
+    private static final int commandExtractionThreads = FeatureToggles.getInteger(
+            RecordStorageEngine.class, "commandExtractionThreads", 3 );
+    // max number of dense nodes to cache degrees for, 0 disables the cache
+    private static final int degreeCacheMaxNodes = FeatureToggles.getInteger(
+            RecordStorageEngine.class, "degreeCacheMaxNodes", 100_000 );
 
     private final StoreReadLayer storeLayer;
     private final IndexingService indexingService;
@@ -156,6 +179,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final IdController idController;
     private final int denseNodeThreshold;
     private final int recordIdBatchSize;
+    private final ExecutorService commandExtractionExecutor;
+    private final DegreeCache degreeCache;
+    private final PropertyColumns propertyColumns;
 
     public RecordStorageEngine(
             File storeDir,
@@ -224,10 +250,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                     propertyKeyTokenHolder, relationshipTypeTokens, labelTokens );
 
             storeStatementSupplier = storeStatementSupplier( neoStores );
+            degreeCache = degreeCacheMaxNodes > 0 ? new DegreeCache( degreeCacheMaxNodes ) : DegreeCache.NO_CACHE;
+            List<String> propertyColumnSpecs = config.get( GraphDatabaseSettings.property_columns );
+            propertyColumns = propertyColumnSpecs.isEmpty() ? PropertyColumns.NO_COLUMNS
+                    : new PropertyColumns( pageCache, fs, storeDir, neoStores, propertyColumnSpecs, labelTokens,
+                            propertyKeyTokenHolder );
             storeLayer = new StorageLayer(
                     propertyKeyTokenHolder, labelTokens, relationshipTypeTokens,
                     schemaStorage, neoStores, indexingService,
-                    storeStatementSupplier, schemaCache );
+                    storeStatementSupplier, schemaCache, degreeCache, propertyColumns );
 
             explicitIndexApplierLookup = new ExplicitIndexApplierLookup.Direct( explicitIndexProviderLookup );
 
@@ -238,6 +269,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 
             denseNodeThreshold = config.get( GraphDatabaseSettings.dense_node_threshold );
             recordIdBatchSize = config.get( GraphDatabaseSettings.record_id_batch_size );
+            commandExtractionExecutor = parallelCommandExtraction
+                    ? scheduler.workStealingExecutor( JobScheduler.Groups.commandExtraction, commandExtractionThreads )
+                    : null;
         }
         catch ( Throwable failure )
         {
@@ -309,11 +343,65 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             }
 
             // Convert record state into commands
-            recordState.extractCommands( commands );
+            recordState.extractCommands( commands, commandExtractionExecutor );
             countsRecordState.extractCommands( commands );
         }
     }
 
+    /**
+     * @return a {@link RelationshipChainCompactor} for the relationship store of this storage engine.
+     */
+    RelationshipChainCompactor relationshipChainCompactor( int minDegree, double minFragmentation )
+    {
+        return new RelationshipChainCompactor( neoStores.getRelationshipStore().getRecordsPerPage(), minDegree,
+                minFragmentation );
+    }
+
+    /**
+     * Visits the ids of the dense nodes which have relationship chains to compact, as decided by the given
+     * compactor without taking any locks, until the visitor returns {@code false}.
+     */
+    void visitRelationshipChainCompactionCandidates( RelationshipChainCompactor compactor, LongPredicate visitor )
+    {
+        RecordStore<NodeRecord> nodeStore = neoStores.getNodeStore();
+        NodeRecord node = nodeStore.newRecord();
+        RecordAccessSet records = new RecordChangeSet( new Loaders( neoStores ) );
+        long highId = nodeStore.getHighId();
+        for ( long nodeId = 0; nodeId < highId; nodeId++ )
+        {
+            nodeStore.getRecord( nodeId, node, CHECK );
+            if ( node.inUse() && node.isDense() && compactor.needsCompaction( nodeId, records ) && !visitor.test( nodeId ) )
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates the commands of a transaction relinking the relationship chains of a dense node in relationship id
+     * order, see {@link TransactionRecordState#relChainsCompact(long, RelationshipChainCompactor)}. Like
+     * {@link #createCommands(Collection, ReadableTransactionState, StorageStatement, ResourceLocker, long)} the
+     * records are locked using the given {@code locks}.
+     *
+     * @return number of chains which were relinked, no commands are created if none were.
+     */
+    int createRelationshipChainCompactionCommands( Collection<StorageCommand> commands, long nodeId,
+            RelationshipChainCompactor compactor, ResourceLocker locks, long lastTransactionIdWhenStarted )
+            throws TransactionFailureException
+    {
+        try ( RecordStorageCommandCreationContext creationContext = allocateCommandCreationContext() )
+        {
+            TransactionRecordState recordState =
+                    creationContext.createTransactionRecordState( integrityValidator, lastTransactionIdWhenStarted, locks );
+            int compacted = recordState.relChainsCompact( nodeId, compactor );
+            if ( compacted > 0 )
+            {
+                recordState.extractCommands( commands );
+            }
+            return compacted;
+        }
+    }
+
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
@@ -361,6 +449,18 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         {
             appliers.add( new CacheInvalidationBatchTransactionApplier( neoStores, cacheAccess ) );
         }
+        if ( degreeCache.isEnabled() )
+        {
+            appliers.add( new DegreeCacheInvalidationBatchTransactionApplier( degreeCache ) );
+        }
+        if ( neoStores.getRecordFormats().hasCapability( Capability.INLINED_PROPERTIES ) )
+        {
+            appliers.add( new InlinedPropertiesBatchTransactionApplier( neoStores, lockService( mode ) ) );
+        }
+        if ( !propertyColumns.isEmpty() )
+        {
+            appliers.add( new PropertyColumnsBatchTransactionApplier( propertyColumns, lockService( mode ), mode ) );
+        }
         if ( mode.needsAuxiliaryStores() )
         {
             // Counts store application
@@ -406,6 +506,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.init();
         labelScanStore.init();
+        propertyColumns.init();
     }
 
     @Override
@@ -424,6 +525,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         loadSchemaCache();
         indexingService.start();
         labelScanStore.start();
+        propertyColumns.start();
         idController.start();
     }
 
@@ -446,6 +548,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         indexingService.stop();
         labelScanStore.stop();
         idController.stop();
+        degreeCache.clear();
     }
 
     @Override
@@ -453,6 +556,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.shutdown();
         labelScanStore.shutdown();
+        propertyColumns.shutdown();
         neoStores.close();
     }
 
@@ -461,6 +565,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.forceAll( limiter );
         labelScanStore.force( limiter );
+        propertyColumns.force( limiter );
         for ( IndexImplementation index : explicitIndexProviderLookup.all() )
         {
             index.force();
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.neo4j.function.Predicates;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.StatementLocks;
+import org.neo4j.kernel.impl.locking.StatementLocksFactory;
+import org.neo4j.kernel.impl.store.InvalidRecordException;
+import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.state.RelationshipChainCompactor;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+/**
+ * Periodically relinks the relationship chains of dense nodes in relationship id order, such that traversing them
+ * reads the relationship store sequentially, see {@link RelationshipChainCompactor}.
+ * <p>
+ * Nodes are picked by the degree and fragmentation of their chains, measured without taking any locks. Every
+ * picked node is then compacted in a transaction of its own, which locks the node and the relationships of its
+ * chains and is committed through the commit process like any other transaction.
+ */
+public class RelationshipChainCompaction extends LifecycleAdapter
+{
+    private final RecordStorageEngine storageEngine;
+    private final TransactionCommitProcess commitProcess;
+    private final StatementLocksFactory locksFactory;
+    private final TransactionHeaderInformationFactory headerInformationFactory;
+    private final TransactionIdStore transactionIdStore;
+    private final JobScheduler scheduler;
+    private final Clock clock;
+    private final Log log;
+    private final long intervalMillis;
+    private final RelationshipChainCompactor compactor;
+
+    private volatile JobScheduler.JobHandle handle;
+    private volatile boolean stopped;
+    private volatile boolean compacting;
+
+    public RelationshipChainCompaction( RecordStorageEngine storageEngine, TransactionCommitProcess commitProcess,
+            StatementLocksFactory locksFactory, TransactionHeaderInformationFactory headerInformationFactory,
+            TransactionIdStore transactionIdStore, JobScheduler scheduler, Config config, Clock clock,
+            LogProvider logProvider )
+    {
+        this.storageEngine = storageEngine;
+        this.commitProcess = commitProcess;
+        this.locksFactory = locksFactory;
+        this.headerInformationFactory = headerInformationFactory;
+        this.transactionIdStore = transactionIdStore;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.log = logProvider.getLog( getClass() );
+        this.intervalMillis = config.get( GraphDatabaseSettings.read_only ) ? 0
+                : config.get( GraphDatabaseSettings.relationship_chain_compaction_interval ).toMillis();
+        this.compactor = storageEngine.relationshipChainCompactor(
+                config.get( GraphDatabaseSettings.relationship_chain_compaction_min_degree ),
+                config.get( GraphDatabaseSettings.relationship_chain_compaction_min_fragmentation ) );
+    }
+
+    @Override
+    public void start()
+    {
+        stopped = false;
+        if ( intervalMillis > 0 )
+        {
+            handle = scheduler.scheduleRecurring( JobScheduler.Groups.storageMaintenance, this::compactAll,
+                    intervalMillis, MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        stopped = true;
+        if ( handle != null )
+        {
+            handle.cancel( false );
+            handle = null;
+        }
+        // Wait for a running compaction to commit the node it's at, rather than interrupting it
+        Predicates.awaitForever( () -> !compacting, 100, MILLISECONDS );
+    }
+
+    /**
+     * Compacts the chains of all dense nodes which need it, one transaction per node.
+     *
+     * @return number of nodes which had chains relinked.
+     */
+    public synchronized long compactAll()
+    {
+        compacting = true;
+        try
+        {
+            long[] compacted = new long[1];
+            storageEngine.visitRelationshipChainCompactionCandidates( compactor, nodeId ->
+            {
+                if ( stopped )
+                {
+                    return false;
+                }
+                try
+                {
+                    if ( compact( nodeId ) > 0 )
+                    {
+                        compacted[0]++;
+                    }
+                }
+                catch ( DeadlockDetectedException | InvalidRecordException e )
+                {
+                    // Raced with a transaction changing the node, the next run will have another look at it
+                }
+                catch ( TransactionFailureException | RuntimeException e )
+                {
+                    log.warn( "Failed to compact the relationship chains of node " + nodeId, e );
+                    return false;
+                }
+                return !stopped;
+            } );
+            if ( compacted[0] > 0 )
+            {
+                log.info( "Compacted the relationship chains of " + compacted[0] + " dense nodes" );
+            }
+            return compacted[0];
+        }
+        finally
+        {
+            compacting = false;
+        }
+    }
+
+    /**
+     * Compacts the chains of the given node which need it, in a transaction of its own.
+     *
+     * @param nodeId id of a dense node.
+     * @return number of chains which were relinked.
+     * @throws TransactionFailureException if the transaction failed to commit.
+     */
+    public int compact( long nodeId ) throws TransactionFailureException
+    {
+        try ( StatementLocks locks = locksFactory.newInstance() )
+        {
+            Locks.Client commitLocks = locks.pessimistic();
+            long startTime = clock.millis();
+            long lastTransactionIdWhenStarted = transactionIdStore.getLastCommittedTransactionId();
+            Collection<StorageCommand> commands = new ArrayList<>();
+            int compacted = storageEngine.createRelationshipChainCompactionCommands( commands, nodeId, compactor,
+                    commitLocks, lastTransactionIdWhenStarted );
+            if ( !commands.isEmpty() )
+            {
+                PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+                TransactionHeaderInformation headerInformation = headerInformationFactory.create();
+                transaction.setHeader( headerInformation.getAdditionalHeader(), headerInformation.getMasterId(),
+                        headerInformation.getAuthorId(), startTime, lastTransactionIdWhenStarted, clock.millis(),
+                        commitLocks.getLockSessionId() );
+                commitProcess.commit( new TransactionToApply( transaction ), CommitEvent.NULL, INTERNAL );
+            }
+            return compacted;
+        }
+    }
+}
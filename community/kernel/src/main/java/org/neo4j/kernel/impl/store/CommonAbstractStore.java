@@ -416,7 +416,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         try
         {
             long pageId = pageIdForRecord( id );
-            return storeFile.io( pageId, PF_SHARED_READ_LOCK );
+            // Read-ahead only kicks in when the cursor is actually used for sequential page access, such as scans.
+            return storeFile.io( pageId, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
         }
         catch ( IOException e )
         {
@@ -41,7 +41,9 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.NeoStoresDiagnostics;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.counts.ReadOnlyCountsTracker;
 import org.neo4j.kernel.impl.store.format.CapabilityType;
 import org.neo4j.kernel.impl.store.format.FormatFamily;
@@ -254,7 +256,7 @@ public class NeoStores implements AutoCloseable
     {
         try
         {
-            CountsTracker counts = (CountsTracker) stores[StoreType.COUNTS.ordinal()];
+            CountsStore counts = (CountsStore) stores[StoreType.COUNTS.ordinal()];
             if ( counts != null )
             {
                 counts.rotate( getMetaDataStore().getLastCommittedTransactionId() );
@@ -432,9 +434,9 @@ public class NeoStores implements AutoCloseable
         return (SchemaStore) getStore( StoreType.SCHEMA );
     }
 
-    public CountsTracker getCounts()
+    public CountsStore getCounts()
     {
-        return (CountsTracker) getStore( StoreType.COUNTS );
+        return (CountsStore) getStore( StoreType.COUNTS );
     }
 
     private CountsTracker createWritableCountsTracker( File fileName )
@@ -631,13 +633,49 @@ public class NeoStores implements AutoCloseable
                 recordFormats, openOptions ) );
     }
 
-    CountsTracker createCountStore( String storeName )
+    /**
+     * The counts store format not in use isn't kept up to date, so whatever it has on disk would be stale if the
+     * format was switched back to it. Deleting it makes that switch rebuild the counts instead.
+     */
+    private void deleteInactiveCountsStoreFiles( File storeFile, String... suffixes )
+    {
+        for ( String suffix : suffixes )
+        {
+            File file = new File( storeFile.getPath() + suffix );
+            if ( fileSystemAbstraction.fileExists( file ) )
+            {
+                if ( !fileSystemAbstraction.deleteFile( file ) )
+                {
+                    throw new UnderlyingStorageException( "Unable to delete inactive counts store file " + file );
+                }
+                logProvider.getLog( getClass() ).info( "Deleted inactive counts store file %s", file );
+            }
+        }
+    }
+
+    CountsStore createCountStore( String storeName )
     {
         File storeFile = getStoreFile( storeName );
         boolean readOnly = config.get( GraphDatabaseSettings.read_only );
-        CountsTracker counts = readOnly
-                               ? createReadOnlyCountsTracker( storeFile )
-                               : createWritableCountsTracker( storeFile );
+        CountsStore counts;
+        if ( "gbptree".equals( config.get( GraphDatabaseSettings.counts_store_format ) ) )
+        {
+            if ( !readOnly )
+            {
+                deleteInactiveCountsStoreFiles( storeFile, CountsTracker.LEFT, CountsTracker.RIGHT );
+            }
+            counts = new GBPTreeCountsStore( pageCache, storeFile, config, readOnly, logProvider );
+        }
+        else
+        {
+            if ( !readOnly )
+            {
+                deleteInactiveCountsStoreFiles( storeFile, GBPTreeCountsStore.TREE );
+            }
+            counts = readOnly
+                     ? createReadOnlyCountsTracker( storeFile )
+                     : createWritableCountsTracker( storeFile );
+        }
         NeoStores neoStores = this;
         counts.setInitializer( new DataInitializer<CountsAccessor.Updater>()
         {
@@ -25,7 +25,9 @@ import java.util.Optional;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.id.IdType;
 
 public enum StoreType
@@ -151,7 +153,7 @@ public enum StoreType
     COUNTS( null, false, false )
             {
                 @Override
-                public CountsTracker open( final NeoStores neoStores )
+                public CountsStore open( final NeoStores neoStores )
                 {
                     return neoStores.createCountStore( StoreFactory.COUNTS_STORE );
                 }
@@ -161,7 +163,7 @@ public enum StoreType
                 {
                     try
                     {
-                        ((CountsTracker) object).shutdown();
+                        ((CountsStore) object).shutdown();
                     }
                     catch ( IOException e )
                     {
@@ -179,7 +181,8 @@ public enum StoreType
                 protected boolean isStoreFile( String fileName )
                 {
                     return matchStoreName( fileName, getStoreName() + CountsTracker.RIGHT ) ||
-                           matchStoreName( fileName, getStoreName() + CountsTracker.LEFT );
+                           matchStoreName( fileName, getStoreName() + CountsTracker.LEFT ) ||
+                           matchStoreName( fileName, getStoreName() + GBPTreeCountsStore.TREE );
                 }
             },
     META_DATA( StoreFile.NEO_STORE, true, true ) // Make sure this META store is last
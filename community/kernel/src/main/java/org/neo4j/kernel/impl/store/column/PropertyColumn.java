@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.column;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+import org.neo4j.internal.kernel.api.PropertyColumnVisitor;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.core.TokenHolder;
+import org.neo4j.values.storable.FloatingPointValue;
+import org.neo4j.values.storable.IntegralValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Columnar side store of the values of one property of the nodes with one label. The file is an array of fixed size
+ * slots indexed by node id, after a header page:
+ * <pre>
+ * type (byte), one of {@link #NO_VALUE}, {@link #LONG}, {@link #DOUBLE} or {@link #OTHER}
+ * value (long), integral value or bits of the floating point value
+ * </pre>
+ * Nodes without the label or the property have no value. Values which aren't numbers are marked as {@link #OTHER}
+ * and have to be read from the property store.
+ * <p>
+ * The header page holds a flag telling whether or not the column has been populated from the store. A column which
+ * isn't populated is rebuilt before use, see {@link PropertyColumns}.
+ */
+public class PropertyColumn implements Closeable
+{
+    static final byte NO_VALUE = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte OTHER = 3;
+
+    private static final int SLOT_SIZE = 1 + Long.BYTES;
+    private static final long HEADER_PAGE_ID = 0;
+    private static final int BATCH_SIZE = 1024;
+
+    private final String label;
+    private final String propertyKey;
+    private final File file;
+    private final PagedFile pagedFile;
+    private final int slotsPerPage;
+    private volatile int labelId = TokenHolder.NO_ID;
+    private volatile int propertyKeyId = TokenHolder.NO_ID;
+
+    PropertyColumn( PageCache pageCache, File file, String label, String propertyKey ) throws IOException
+    {
+        this.label = label;
+        this.propertyKey = propertyKey;
+        this.file = file;
+        this.pagedFile = pageCache.map( file, pageCache.pageSize(), CREATE );
+        this.slotsPerPage = pagedFile.pageSize() / SLOT_SIZE;
+    }
+
+    public String label()
+    {
+        return label;
+    }
+
+    public String propertyKey()
+    {
+        return propertyKey;
+    }
+
+    int labelId()
+    {
+        return labelId;
+    }
+
+    int propertyKeyId()
+    {
+        return propertyKeyId;
+    }
+
+    void setTokenIds( int labelId, int propertyKeyId )
+    {
+        this.labelId = labelId;
+        this.propertyKeyId = propertyKeyId;
+    }
+
+    File file()
+    {
+        return file;
+    }
+
+    boolean isPopulated() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE_ID, PF_SHARED_READ_LOCK ) )
+        {
+            if ( !cursor.next() )
+            {
+                return false;
+            }
+            byte populated;
+            do
+            {
+                populated = cursor.getByte( 0 );
+            }
+            while ( cursor.shouldRetry() );
+            return populated == 1;
+        }
+    }
+
+    void setPopulated( boolean populated ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE_ID, PF_SHARED_WRITE_LOCK ) )
+        {
+            cursor.next();
+            cursor.putByte( 0, populated ? (byte) 1 : 0 );
+        }
+        pagedFile.flushAndForce();
+    }
+
+    /**
+     * Sets the value of the given node, or clears it if {@code value} is {@link Values#NO_VALUE}.
+     */
+    void set( long nodeId, Value value )
+    {
+        if ( value == Values.NO_VALUE )
+        {
+            remove( nodeId );
+            return;
+        }
+
+        byte type;
+        long bits;
+        if ( value instanceof IntegralValue )
+        {
+            type = LONG;
+            bits = ((IntegralValue) value).longValue();
+        }
+        else if ( value instanceof FloatingPointValue )
+        {
+            type = DOUBLE;
+            bits = Double.doubleToRawLongBits( ((FloatingPointValue) value).doubleValue() );
+        }
+        else
+        {
+            type = OTHER;
+            bits = 0;
+        }
+        try ( PageCursor cursor = pagedFile.io( pageId( nodeId ), PF_SHARED_WRITE_LOCK ) )
+        {
+            cursor.next();
+            cursor.setOffset( offset( nodeId ) );
+            cursor.putByte( type );
+            cursor.putLong( bits );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Clears the value of the given node, without growing the file for nodes which never had a value.
+     */
+    void remove( long nodeId )
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId( nodeId ), PF_SHARED_WRITE_LOCK | PF_NO_GROW ) )
+        {
+            if ( cursor.next() && cursor.getByte( offset( nodeId ) ) != NO_VALUE )
+            {
+                cursor.putByte( offset( nodeId ), NO_VALUE );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Visits the values of all nodes in the column.
+     *
+     * @param skip nodes to not visit.
+     * @param otherValues gives the value of a node which value isn't a number, or {@link Values#NO_VALUE} if the
+     * node shouldn't be visited after all.
+     * @param visitor receiving the values.
+     */
+    public void scan( LongPredicate skip, LongFunction<Value> otherValues, PropertyColumnVisitor visitor )
+    {
+        long[] pageNodes = new long[slotsPerPage];
+        byte[] pageTypes = new byte[slotsPerPage];
+        long[] pageValues = new long[slotsPerPage];
+        Batch batch = new Batch( visitor );
+        try ( PageCursor cursor = pagedFile.io( HEADER_PAGE_ID + 1, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            while ( cursor.next() )
+            {
+                long firstNodeId = (cursor.getCurrentPageId() - 1) * slotsPerPage;
+                int count;
+                do
+                {
+                    count = 0;
+                    cursor.setOffset( 0 );
+                    for ( int slot = 0; slot < slotsPerPage; slot++ )
+                    {
+                        byte type = cursor.getByte();
+                        long value = cursor.getLong();
+                        if ( type != NO_VALUE )
+                        {
+                            pageNodes[count] = firstNodeId + slot;
+                            pageTypes[count] = type;
+                            pageValues[count] = value;
+                            count++;
+                        }
+                    }
+                }
+                while ( cursor.shouldRetry() );
+
+                for ( int i = 0; i < count; i++ )
+                {
+                    long nodeId = pageNodes[i];
+                    if ( !skip.test( nodeId ) )
+                    {
+                        batch.add( nodeId, pageTypes[i], pageValues[i], otherValues );
+                    }
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        batch.flush();
+    }
+
+    void force( IOLimiter limiter ) throws IOException
+    {
+        pagedFile.flushAndForce( limiter );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        pagedFile.close();
+    }
+
+    private long pageId( long nodeId )
+    {
+        return HEADER_PAGE_ID + 1 + nodeId / slotsPerPage;
+    }
+
+    private int offset( long nodeId )
+    {
+        return (int) (nodeId % slotsPerPage) * SLOT_SIZE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PropertyColumn[" + label + "." + propertyKey + "]";
+    }
+
+    private static class Batch
+    {
+        private final PropertyColumnVisitor visitor;
+        private final long[] longNodes = new long[BATCH_SIZE];
+        private final long[] longs = new long[BATCH_SIZE];
+        private final long[] doubleNodes = new long[BATCH_SIZE];
+        private final double[] doubles = new double[BATCH_SIZE];
+        private int longCount;
+        private int doubleCount;
+
+        Batch( PropertyColumnVisitor visitor )
+        {
+            this.visitor = visitor;
+        }
+
+        void add( long nodeId, byte type, long value, LongFunction<Value> otherValues )
+        {
+            switch ( type )
+            {
+            case LONG:
+                longNodes[longCount] = nodeId;
+                longs[longCount++] = value;
+                if ( longCount == BATCH_SIZE )
+                {
+                    visitor.visitLongs( longNodes, longs, longCount );
+                    longCount = 0;
+                }
+                break;
+            case DOUBLE:
+                doubleNodes[doubleCount] = nodeId;
+                doubles[doubleCount++] = Double.longBitsToDouble( value );
+                if ( doubleCount == BATCH_SIZE )
+                {
+                    visitor.visitDoubles( doubleNodes, doubles, doubleCount );
+                    doubleCount = 0;
+                }
+                break;
+            default:
+                Value other = otherValues.apply( nodeId );
+                if ( other != Values.NO_VALUE )
+                {
+                    visitor.visitValue( nodeId, other );
+                }
+            }
+        }
+
+        void flush()
+        {
+            if ( longCount > 0 )
+            {
+                visitor.visitLongs( longNodes, longs, longCount );
+            }
+            if ( doubleCount > 0 )
+            {
+                visitor.visitDoubles( doubleNodes, doubles, doubleCount );
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.column;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.core.TokenHolder;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeLabelsField;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * The {@link PropertyColumn property columns} of a store, as configured by
+ * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#property_columns}.
+ * <p>
+ * Columns are kept up to date by {@link #refresh(long) refreshing} the nodes changed by each applied transaction.
+ * A column which isn't known to be up to date, i.e. a new one or one which was open while transactions were
+ * recovered, is rebuilt from the node and property stores on {@link #start()}, when the tokens are available.
+ */
+public class PropertyColumns extends LifecycleAdapter
+{
+    public static final PropertyColumns NO_COLUMNS = new PropertyColumns( null, null, null, null,
+            Collections.emptyList(), null, null );
+
+    private static final String FILE_NAME_PREFIX = "neostore.propertycolumn.";
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File storeDir;
+    private final NeoStores neoStores;
+    private final List<String> specs;
+    private final TokenHolder<?> labelTokens;
+    private final TokenHolder<?> propertyKeyTokens;
+    private final List<PropertyColumn> columns = new ArrayList<>();
+
+    public PropertyColumns( PageCache pageCache, FileSystemAbstraction fs, File storeDir, NeoStores neoStores,
+            List<String> specs, TokenHolder<?> labelTokens, TokenHolder<?> propertyKeyTokens )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.storeDir = storeDir;
+        this.neoStores = neoStores;
+        this.specs = specs;
+        this.labelTokens = labelTokens;
+        this.propertyKeyTokens = propertyKeyTokens;
+    }
+
+    public boolean isEmpty()
+    {
+        return specs.isEmpty();
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        Set<String> fileNames = new HashSet<>();
+        for ( String spec : specs )
+        {
+            int separator = spec.indexOf( '.' );
+            if ( separator <= 0 || separator == spec.length() - 1 )
+            {
+                throw new IllegalArgumentException(
+                        "Invalid property column '" + spec + "', expected <label>.<property key>" );
+            }
+            String label = spec.substring( 0, separator );
+            String propertyKey = spec.substring( separator + 1 );
+            String fileName = FILE_NAME_PREFIX + fileNamePart( label ) + "." + fileNamePart( propertyKey );
+            if ( !fileNames.add( fileName ) )
+            {
+                throw new IllegalArgumentException( "Property column '" + spec + "' is configured more than once, " +
+                        "or clashes with another column stored in " + fileName );
+            }
+            columns.add( new PropertyColumn( pageCache, new File( storeDir, fileName ), label, propertyKey ) );
+        }
+    }
+
+    @Override
+    public void start() throws IOException
+    {
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            PropertyColumn column = columns.get( i );
+            if ( !column.isPopulated() )
+            {
+                column = rebuild( column );
+                columns.set( i, column );
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        for ( PropertyColumn column : columns )
+        {
+            column.close();
+        }
+        columns.clear();
+    }
+
+    /**
+     * @return the column of the given label and property key, or {@code null} if there is none.
+     */
+    public PropertyColumn get( int labelId, int propertyKeyId )
+    {
+        for ( PropertyColumn column : columns )
+        {
+            if ( resolve( column ) && column.labelId() == labelId && column.propertyKeyId() == propertyKeyId )
+            {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks all columns as needing to be rebuilt on {@link #start()}. Used when applying transactions before the
+     * tokens are available, i.e. during recovery.
+     */
+    public void markForRebuild()
+    {
+        try
+        {
+            for ( PropertyColumn column : columns )
+            {
+                if ( column.isPopulated() )
+                {
+                    column.setPopulated( false );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Updates the values of the given node in all columns from the committed state in the store. Must be called
+     * holding the node lock after the changes to the node have been written to the store.
+     */
+    public void refresh( long nodeId )
+    {
+        NodeStore nodeStore = neoStores.getNodeStore();
+        NodeRecord node = nodeStore.getRecord( nodeId, nodeStore.newRecord(), CHECK );
+        long[] labels = node.inUse() ? NodeLabelsField.get( node, nodeStore ) : null;
+        boolean[] resolved = new boolean[columns.size()];
+        for ( int i = 0; i < resolved.length; i++ )
+        {
+            resolved[i] = resolve( columns.get( i ) );
+        }
+        Value[] values = null;
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            PropertyColumn column = columns.get( i );
+            if ( labels == null || !resolved[i] || !contains( labels, column.labelId() ) )
+            {
+                column.remove( nodeId );
+                continue;
+            }
+            if ( values == null )
+            {
+                values = propertyValues( node );
+            }
+            column.set( nodeId, values[i] );
+        }
+    }
+
+    public void force( IOLimiter limiter )
+    {
+        try
+        {
+            for ( PropertyColumn column : columns )
+            {
+                column.force( limiter );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private PropertyColumn rebuild( PropertyColumn column ) throws IOException
+    {
+        // Start from an empty file so that no slot is left over from before
+        column.close();
+        fs.deleteFile( column.file() );
+        PropertyColumn rebuilt = new PropertyColumn( pageCache, column.file(), column.label(), column.propertyKey() );
+        rebuilt.setTokenIds( column.labelId(), column.propertyKeyId() );
+        if ( resolve( rebuilt ) )
+        {
+            NodeStore nodeStore = neoStores.getNodeStore();
+            NodeRecord node = nodeStore.newRecord();
+            long highId = nodeStore.getHighId();
+            for ( long nodeId = 0; nodeId < highId; nodeId++ )
+            {
+                nodeStore.getRecord( nodeId, node, CHECK );
+                if ( node.inUse() && contains( NodeLabelsField.get( node, nodeStore ), rebuilt.labelId() ) )
+                {
+                    Value value = propertyValue( node, rebuilt.propertyKeyId() );
+                    if ( value != Values.NO_VALUE )
+                    {
+                        rebuilt.set( nodeId, value );
+                    }
+                }
+            }
+        }
+        // else the label or property key doesn't exist yet and so neither does any value of the column
+        rebuilt.setPopulated( true );
+        return rebuilt;
+    }
+
+    private boolean resolve( PropertyColumn column )
+    {
+        if ( column.labelId() == TokenHolder.NO_ID || column.propertyKeyId() == TokenHolder.NO_ID )
+        {
+            int labelId = labelTokens.getIdByName( column.label() );
+            int propertyKeyId = propertyKeyTokens.getIdByName( column.propertyKey() );
+            if ( labelId == TokenHolder.NO_ID || propertyKeyId == TokenHolder.NO_ID )
+            {
+                return false;
+            }
+            column.setTokenIds( labelId, propertyKeyId );
+        }
+        return true;
+    }
+
+    private Value[] propertyValues( NodeRecord node )
+    {
+        Value[] values = new Value[columns.size()];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[i] = Values.NO_VALUE;
+        }
+        PropertyStore propertyStore = neoStores.getPropertyStore();
+        PropertyRecord record = propertyStore.newRecord();
+        long next = node.getNextProp();
+        while ( next != Record.NO_NEXT_PROPERTY.intValue() )
+        {
+            propertyStore.getRecord( next, record, CHECK );
+            if ( !record.inUse() )
+            {
+                break;
+            }
+            for ( PropertyBlock block : record )
+            {
+                for ( int i = 0; i < values.length; i++ )
+                {
+                    if ( columns.get( i ).propertyKeyId() == block.getKeyIndexId() )
+                    {
+                        values[i] = block.newPropertyValue( propertyStore );
+                    }
+                }
+            }
+            next = record.getNextProp();
+        }
+        return values;
+    }
+
+    private Value propertyValue( NodeRecord node, int propertyKeyId )
+    {
+        PropertyStore propertyStore = neoStores.getPropertyStore();
+        PropertyRecord record = propertyStore.newRecord();
+        long next = node.getNextProp();
+        while ( next != Record.NO_NEXT_PROPERTY.intValue() )
+        {
+            propertyStore.getRecord( next, record, CHECK );
+            if ( !record.inUse() )
+            {
+                break;
+            }
+            PropertyBlock block = record.getPropertyBlock( propertyKeyId );
+            if ( block != null )
+            {
+                return block.newPropertyValue( propertyStore );
+            }
+            next = record.getNextProp();
+        }
+        return Values.NO_VALUE;
+    }
+
+    private static boolean contains( long[] labels, int labelId )
+    {
+        for ( long label : labels )
+        {
+            if ( label == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String fileNamePart( String name )
+    {
+        return name.replaceAll( "[^A-Za-z0-9_\\-]", "_" );
+    }
+}
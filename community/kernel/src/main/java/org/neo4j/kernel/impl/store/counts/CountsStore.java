@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+
+/**
+ * The counts store, as used by the rest of the kernel. Counts are read through the {@link CountsAccessor} methods
+ * and changed by the updaters handed out by {@link #apply(long)}, {@link #updateIndexCounts()} and
+ * {@link #reset(long)}. Changes are made durable by {@link #rotate(long)}, which is called on every checkpoint.
+ *
+ * @see CountsTracker
+ * @see GBPTreeCountsStore
+ */
+public interface CountsStore extends CountsAccessor
+{
+    /**
+     * @param initializer used to rebuild the counts if the store is missing when {@link #init() initialized}.
+     * @return this store, for convenience.
+     */
+    CountsStore setInitializer( DataInitializer<CountsAccessor.Updater> initializer );
+
+    /**
+     * @param txId id of the transaction to apply counts changes for.
+     * @return updater for the changes of the given transaction, or empty if the changes of that transaction
+     * are already contained in the store, e.g. when recovering.
+     */
+    Optional<CountsAccessor.Updater> apply( long txId );
+
+    CountsAccessor.IndexStatsUpdater updateIndexCounts();
+
+    /**
+     * @param txId transaction id the counts written by the returned updater are valid for.
+     * @return updater replacing all counts in this store.
+     */
+    CountsAccessor.Updater reset( long txId );
+
+    /**
+     * @param txId the lowest transaction id that must be included in the snapshot created by the rotation.
+     * @return the highest transaction id that was included in the snapshot created by the rotation.
+     */
+    long rotate( long txId ) throws IOException;
+
+    /**
+     * @return id of the last transaction included in the last snapshot created by {@link #rotate(long)}.
+     */
+    long txId();
+
+    Iterable<File> allFiles();
+
+    void init() throws IOException;
+
+    void start() throws IOException;
+
+    void shutdown() throws IOException;
+}
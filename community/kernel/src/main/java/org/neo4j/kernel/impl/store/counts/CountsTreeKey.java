@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.neo4j.kernel.impl.store.counts.keys.CountsKey;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKeyType;
+import org.neo4j.kernel.impl.store.counts.keys.IndexSampleKey;
+import org.neo4j.kernel.impl.store.counts.keys.IndexStatisticsKey;
+import org.neo4j.kernel.impl.store.counts.keys.NodeKey;
+import org.neo4j.kernel.impl.store.counts.keys.RelationshipKey;
+
+/**
+ * Keys in {@link CountsTreeLayout}, each key is a {@link CountsKey} flattened into its {@link CountsKeyType type}
+ * and two longs:
+ * <ul>
+ * <li>node counts: {@code labelId} and {@code 0}</li>
+ * <li>relationship counts: {@code startLabelId} and {@code typeId} and {@code endLabelId} packed into one long</li>
+ * <li>index statistics and samples: {@code indexId} and {@code 0}</li>
+ * </ul>
+ */
+class CountsTreeKey
+{
+    byte type;
+    long first;
+    long second;
+
+    CountsTreeKey()
+    {
+        clear();
+    }
+
+    final CountsTreeKey set( byte type, long first, long second )
+    {
+        this.type = type;
+        this.first = first;
+        this.second = second;
+        return this;
+    }
+
+    final CountsTreeKey set( CountsKey key )
+    {
+        CountsKeyType keyType = key.recordType();
+        switch ( keyType )
+        {
+        case ENTITY_NODE:
+            return set( keyType.code, ((NodeKey) key).getLabelId(), 0 );
+        case ENTITY_RELATIONSHIP:
+            RelationshipKey relationshipKey = (RelationshipKey) key;
+            return set( keyType.code, relationshipKey.getStartLabelId(),
+                    ((long) relationshipKey.getTypeId() << Integer.SIZE) |
+                    (relationshipKey.getEndLabelId() & 0xFFFFFFFFL) );
+        case INDEX_STATISTICS:
+            return set( keyType.code, ((IndexStatisticsKey) key).indexId(), 0 );
+        case INDEX_SAMPLE:
+            return set( keyType.code, ((IndexSampleKey) key).indexId(), 0 );
+        default:
+            throw new IllegalArgumentException( "Unexpected counts key " + key );
+        }
+    }
+
+    CountsKey toCountsKey()
+    {
+        switch ( CountsKeyType.value( type ) )
+        {
+        case ENTITY_NODE:
+            return CountsKeyFactory.nodeKey( (int) first );
+        case ENTITY_RELATIONSHIP:
+            return CountsKeyFactory.relationshipKey( (int) first, (int) (second >> Integer.SIZE), (int) second );
+        case INDEX_STATISTICS:
+            return CountsKeyFactory.indexStatisticsKey( first );
+        case INDEX_SAMPLE:
+            return CountsKeyFactory.indexSampleKey( first );
+        default:
+            throw new IllegalStateException( "Unexpected counts key type " + type );
+        }
+    }
+
+    final void clear()
+    {
+        set( CountsKeyType.EMPTY.code, 0, 0 );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[type:" + type + ",first:" + first + ",second:" + second + "]";
+    }
+}
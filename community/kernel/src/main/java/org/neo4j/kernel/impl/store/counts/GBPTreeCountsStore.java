@@ -0,0 +1,777 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKey;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.impl.store.kvstore.RotationTimeoutException;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.register.Register;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.counts_store_rotation_timeout;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.indexSampleKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.indexStatisticsKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.nodeKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.relationshipKey;
+
+/**
+ * {@link CountsStore} keeping the counts in a {@link GBPTree}, selected by
+ * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#counts_store_format}.
+ * <p>
+ * Committing transactions don't write to the tree. Their changes are published as deltas into in-memory maps,
+ * striped by key, and are merged into the tree on {@link #rotate(long) rotation}, which then checkpoints the tree.
+ * Rotation thereby only writes the counts that changed since the previous rotation instead of the whole store and
+ * committing transactions are only held up while the deltas are swapped out, not while they are written.
+ * <p>
+ * The header of the tree holds the highest gap-free transaction id included in the last checkpoint together with
+ * the ids of any higher transactions that were also included, since transactions may be applied out of order.
+ * On recovery {@link #apply(long)} skips the transactions included in the checkpoint and the tree itself, being
+ * copy-on-write, is always at the state of its last checkpoint.
+ */
+public class GBPTreeCountsStore implements CountsStore
+{
+    public static final String TREE = ".tree";
+
+    private static final long NOT_INITIALIZED = -1;
+    private static final long UNTRACKED = -1;
+    private static final int STRIPES = 64;
+    /**
+     * Max number of transaction ids above the highest gap-free one written to the header on rotation.
+     */
+    private static final int MAX_OUT_OF_ORDER_TRANSACTIONS = 256;
+
+    private final PageCache pageCache;
+    private final File file;
+    private final boolean readOnly;
+    private final long rotationTimeoutMillis;
+    private final Log log;
+    private final CountsTreeLayout layout = new CountsTreeLayout();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    /**
+     * Held shared while publishing the changes of an updater and exclusively while swapping out the deltas
+     * on rotation, so that the swapped out deltas contain exactly the transactions marked as applied.
+     */
+    private final ReentrantReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private final AppliedTransactions applied = new AppliedTransactions();
+    private final Object rotationLock = new Object();
+    private DataInitializer<CountsAccessor.Updater> initializer;
+    private GBPTree<CountsTreeKey,CountsTreeValue> tree;
+    private volatile long txId = NOT_INITIALIZED;
+
+    public GBPTreeCountsStore( PageCache pageCache, File baseFile, Config config, boolean readOnly,
+            LogProvider logProvider )
+    {
+        this.pageCache = pageCache;
+        this.file = new File( baseFile.getPath() + TREE );
+        this.readOnly = readOnly;
+        this.rotationTimeoutMillis = config.get( counts_store_rotation_timeout ).toMillis();
+        this.log = logProvider.getLog( getClass() );
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public GBPTreeCountsStore setInitializer( DataInitializer<CountsAccessor.Updater> initializer )
+    {
+        this.initializer = initializer;
+        return this;
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        TransactionsHeader header = new TransactionsHeader();
+        tree = new GBPTree<>( pageCache, file, layout, 0, GBPTree.NO_MONITOR, header::read,
+                headerWriter( NOT_INITIALIZED, new long[0] ), RecoveryCleanupWorkCollector.immediate() );
+        if ( header.txId == NOT_INITIALIZED )
+        {
+            // Either just created, or crashed before the first checkpoint
+            if ( initializer == null )
+            {
+                throw new IllegalStateException( "No initializer set, can't rebuild missing counts store " + file );
+            }
+            try ( CountsAccessor.Updater updater = reset( initializer.initialVersion() ) )
+            {
+                initializer.initialize( updater );
+            }
+        }
+        else
+        {
+            txId = header.txId;
+            applied.initialize( header.txId, header.outOfOrder );
+        }
+    }
+
+    @Override
+    public void start()
+    {
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        if ( tree != null )
+        {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    @Override
+    public Iterable<File> allFiles()
+    {
+        return Collections.singletonList( file );
+    }
+
+    @Override
+    public long txId()
+    {
+        return txId;
+    }
+
+    @Override
+    public Optional<CountsAccessor.Updater> apply( long txId )
+    {
+        if ( applied.contains( txId ) )
+        {
+            return Optional.empty();
+        }
+        return Optional.of( new ChangesUpdater( changes -> publish( changes, txId ) ) );
+    }
+
+    @Override
+    public CountsAccessor.IndexStatsUpdater updateIndexCounts()
+    {
+        return new ChangesUpdater( changes -> publish( changes, UNTRACKED ) );
+    }
+
+    @Override
+    public CountsAccessor.Updater reset( long txId )
+    {
+        return new ChangesUpdater( changes ->
+        {
+            try
+            {
+                resetTo( changes, txId );
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+        } );
+    }
+
+    /**
+     * Merges the deltas of all transactions applied up until now into the tree and checkpoints it.
+     */
+    @Override
+    public long rotate( long txId ) throws IOException
+    {
+        if ( readOnly )
+        {
+            return -1;
+        }
+        synchronized ( rotationLock )
+        {
+            long highestGapFree;
+            long[] outOfOrder;
+            long awaitedTxId = txId;
+            while ( true )
+            {
+                awaitApplied( awaitedTxId );
+                publishLock.writeLock().lock();
+                try
+                {
+                    highestGapFree = applied.highestGapFree();
+                    outOfOrder = applied.outOfOrder();
+                    if ( outOfOrder.length <= MAX_OUT_OF_ORDER_TRANSACTIONS )
+                    {
+                        if ( highestGapFree == this.txId && outOfOrder.length == 0 && !hasChanges() )
+                        {
+                            return highestGapFree;
+                        }
+                        for ( Stripe stripe : stripes )
+                        {
+                            stripe.freeze();
+                        }
+                        break;
+                    }
+                }
+                finally
+                {
+                    publishLock.writeLock().unlock();
+                }
+                // Too many transactions applied after a gap to fit in the header, wait for the gap to close
+                awaitedTxId = highestGapFree + 1;
+            }
+
+            int changed = 0;
+            try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+            {
+                for ( Stripe stripe : stripes )
+                {
+                    changed += stripe.mergeFrozen( writer );
+                }
+            }
+            tree.checkpoint( IOLimiter.unlimited(), headerWriter( highestGapFree, outOfOrder ) );
+            this.txId = highestGapFree;
+            log.info( "Rotated counts store at transaction %d, %d changed counts written.", highestGapFree, changed );
+            return highestGapFree;
+        }
+    }
+
+    private void awaitApplied( long txId ) throws IOException
+    {
+        try
+        {
+            applied.await( txId, rotationTimeoutMillis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( e );
+        }
+    }
+
+    public Register.DoubleLongRegister get( CountsKey key, Register.DoubleLongRegister target )
+    {
+        Stripe stripe = stripe( key );
+        CountsTreeValue value = new CountsTreeValue();
+        stripe.lock.readLock().lock();
+        try
+        {
+            readTree( new CountsTreeKey().set( key ), value );
+            stripe.applyChanges( key, value );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        finally
+        {
+            stripe.lock.readLock().unlock();
+        }
+        target.write( value.first, value.second );
+        return target;
+    }
+
+    @Override
+    public Register.DoubleLongRegister nodeCount( int labelId, Register.DoubleLongRegister target )
+    {
+        return get( nodeKey( labelId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister relationshipCount( int startLabelId, int typeId, int endLabelId,
+            Register.DoubleLongRegister target )
+    {
+        return get( relationshipKey( startLabelId, typeId, endLabelId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister indexUpdatesAndSize( long indexId, Register.DoubleLongRegister target )
+    {
+        return get( indexStatisticsKey( indexId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister indexSample( long indexId, Register.DoubleLongRegister target )
+    {
+        return get( indexSampleKey( indexId ), target );
+    }
+
+    @Override
+    public void accept( CountsVisitor visitor )
+    {
+        TreeMap<CountsTreeKey,CountsTreeValue> counts = new TreeMap<>( layout );
+        for ( Stripe stripe : stripes )
+        {
+            stripe.lock.readLock().lock();
+        }
+        try
+        {
+            CountsTreeKey from = new CountsTreeKey().set( Byte.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE );
+            CountsTreeKey to = new CountsTreeKey().set( Byte.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE );
+            try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = tree.seek( from, to ) )
+            {
+                while ( cursor.next() )
+                {
+                    Hit<CountsTreeKey,CountsTreeValue> hit = cursor.get();
+                    counts.put( layout.copyKey( hit.key(), new CountsTreeKey() ),
+                            new CountsTreeValue().set( hit.value().first, hit.value().second ) );
+                }
+            }
+            for ( Stripe stripe : stripes )
+            {
+                stripe.frozen.forEach( ( key, change ) -> change.applyTo( value( counts, key ) ) );
+                stripe.active.forEach( ( key, change ) -> change.applyTo( value( counts, key ) ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        finally
+        {
+            for ( Stripe stripe : stripes )
+            {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        counts.forEach( ( key, value ) ->
+        {
+            if ( !value.isZero() )
+            {
+                key.toCountsKey().accept( visitor, value.first, value.second );
+            }
+        } );
+    }
+
+    private static CountsTreeValue value( Map<CountsTreeKey,CountsTreeValue> counts, CountsKey key )
+    {
+        return counts.computeIfAbsent( new CountsTreeKey().set( key ), k -> new CountsTreeValue() );
+    }
+
+    private void publish( Map<CountsKey,Change> changes, long txId )
+    {
+        publishLock.readLock().lock();
+        try
+        {
+            changes.forEach( ( key, change ) -> stripe( key ).active.merge( key, change, Change::merge ) );
+            if ( txId != UNTRACKED )
+            {
+                applied.add( txId );
+            }
+        }
+        finally
+        {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all counts with the given ones, which are valid as of the given transaction. Expects no
+     * concurrent updates.
+     */
+    private void resetTo( Map<CountsKey,Change> changes, long txId ) throws IOException
+    {
+        synchronized ( rotationLock )
+        {
+            publishLock.writeLock().lock();
+            try
+            {
+                for ( Stripe stripe : stripes )
+                {
+                    stripe.active = new ConcurrentHashMap<>();
+                }
+                CountsTreeKey from = new CountsTreeKey().set( Byte.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE );
+                CountsTreeKey to = new CountsTreeKey().set( Byte.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE );
+                List<CountsTreeKey> existing = new ArrayList<>();
+                try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = tree.seek( from, to ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        existing.add( layout.copyKey( cursor.get().key(), new CountsTreeKey() ) );
+                    }
+                }
+                try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+                {
+                    for ( CountsTreeKey key : existing )
+                    {
+                        writer.remove( key );
+                    }
+                    CountsTreeValue value = new CountsTreeValue();
+                    for ( Map.Entry<CountsKey,Change> entry : changes.entrySet() )
+                    {
+                        entry.getValue().applyTo( value.set( 0, 0 ) );
+                        if ( !value.isZero() )
+                        {
+                            writer.put( new CountsTreeKey().set( entry.getKey() ), value );
+                        }
+                    }
+                }
+                if ( !readOnly )
+                {
+                    tree.checkpoint( IOLimiter.unlimited(), headerWriter( txId, new long[0] ) );
+                }
+                applied.initialize( txId, new long[0] );
+                this.txId = txId;
+            }
+            finally
+            {
+                publishLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean hasChanges()
+    {
+        for ( Stripe stripe : stripes )
+        {
+            if ( !stripe.active.isEmpty() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CountsTreeValue readTree( CountsTreeKey key, CountsTreeValue into ) throws IOException
+    {
+        into.set( 0, 0 );
+        CountsTreeKey to = layout.copyKey( key, new CountsTreeKey() );
+        to.second++;
+        try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = tree.seek( key, to ) )
+        {
+            if ( cursor.next() )
+            {
+                CountsTreeValue value = cursor.get().value();
+                into.set( value.first, value.second );
+            }
+        }
+        return into;
+    }
+
+    private Stripe stripe( CountsKey key )
+    {
+        return stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+
+    private static Consumer<PageCursor> headerWriter( long highestGapFree, long[] outOfOrder )
+    {
+        return cursor ->
+        {
+            cursor.putLong( highestGapFree );
+            cursor.putInt( outOfOrder.length );
+            for ( long txId : outOfOrder )
+            {
+                cursor.putLong( txId );
+            }
+        };
+    }
+
+    private static class TransactionsHeader
+    {
+        long txId = NOT_INITIALIZED;
+        long[] outOfOrder = new long[0];
+
+        void read( ByteBuffer buffer )
+        {
+            txId = buffer.getLong();
+            outOfOrder = new long[buffer.getInt()];
+            for ( int i = 0; i < outOfOrder.length; i++ )
+            {
+                outOfOrder[i] = buffer.getLong();
+            }
+        }
+    }
+
+    /**
+     * In-memory deltas of the keys hashing to this stripe. Transactions publish into {@link #active}, which on
+     * rotation becomes {@link #frozen} and is merged into the tree. Readers hold the read lock so that they
+     * see every delta exactly once, either in one of the maps or in the tree.
+     */
+    private class Stripe
+    {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile ConcurrentHashMap<CountsKey,Change> active = new ConcurrentHashMap<>();
+        volatile Map<CountsKey,Change> frozen = Collections.emptyMap();
+
+        void freeze()
+        {
+            lock.writeLock().lock();
+            try
+            {
+                frozen = active;
+                active = new ConcurrentHashMap<>();
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Merges the frozen deltas into the tree. The tree can't be read while holding its writer, so the deltas
+         * are applied by the {@link ValueMerger} and counts ending up at zero are removed afterwards.
+         */
+        int mergeFrozen( Writer<CountsTreeKey,CountsTreeValue> writer ) throws IOException
+        {
+            lock.writeLock().lock();
+            try
+            {
+                CountsTreeKey key = new CountsTreeKey();
+                CountsTreeValue value = new CountsTreeValue();
+                DeltaMerger merger = new DeltaMerger();
+                for ( Map.Entry<CountsKey,Change> entry : frozen.entrySet() )
+                {
+                    Change change = entry.getValue();
+                    change.applyTo( value.set( 0, 0 ) );
+                    merger.change = change;
+                    merger.merged = value;
+                    writer.merge( key.set( entry.getKey() ), value, merger );
+                    if ( merger.merged.isZero() )
+                    {
+                        writer.remove( key );
+                    }
+                }
+                int merged = frozen.size();
+                frozen = Collections.emptyMap();
+                return merged;
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void applyChanges( CountsKey key, CountsTreeValue value )
+        {
+            Change change = frozen.get( key );
+            if ( change != null )
+            {
+                change.applyTo( value );
+            }
+            change = active.get( key );
+            if ( change != null )
+            {
+                change.applyTo( value );
+            }
+        }
+    }
+
+    /**
+     * Applies a {@link Change} to the value already in the tree, remembering the result.
+     */
+    private static class DeltaMerger implements ValueMerger<CountsTreeKey,CountsTreeValue>
+    {
+        Change change;
+        CountsTreeValue merged;
+
+        @Override
+        public CountsTreeValue merge( CountsTreeKey existingKey, CountsTreeKey newKey, CountsTreeValue existingValue,
+                CountsTreeValue newValue )
+        {
+            change.applyTo( existingValue );
+            merged = existingValue;
+            return existingValue;
+        }
+    }
+
+    /**
+     * Immutable change to the two longs of a count, either replacing them or adding to them.
+     */
+    private static final class Change
+    {
+        final boolean replace;
+        final long first;
+        final long second;
+
+        Change( boolean replace, long first, long second )
+        {
+            this.replace = replace;
+            this.first = first;
+            this.second = second;
+        }
+
+        static Change merge( Change earlier, Change later )
+        {
+            return later.replace ? later : new Change( earlier.replace, earlier.first + later.first,
+                    earlier.second + later.second );
+        }
+
+        void applyTo( CountsTreeValue value )
+        {
+            if ( replace )
+            {
+                value.set( first, second );
+            }
+            else
+            {
+                value.set( value.first + first, value.second + second );
+            }
+        }
+    }
+
+    /**
+     * Collects changes locally and hands them over on {@link #close()}.
+     */
+    private static class ChangesUpdater implements CountsAccessor.Updater, CountsAccessor.IndexStatsUpdater
+    {
+        private final Map<CountsKey,Change> changes = new HashMap<>();
+        private final Consumer<Map<CountsKey,Change>> onClose;
+
+        ChangesUpdater( Consumer<Map<CountsKey,Change>> onClose )
+        {
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void incrementNodeCount( int labelId, long delta )
+        {
+            if ( delta != 0 )
+            {
+                changes.merge( nodeKey( labelId ), new Change( false, 0, delta ), Change::merge );
+            }
+        }
+
+        @Override
+        public void incrementRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta )
+        {
+            if ( delta != 0 )
+            {
+                changes.merge( relationshipKey( startLabelId, typeId, endLabelId ), new Change( false, 0, delta ),
+                        Change::merge );
+            }
+        }
+
+        @Override
+        public void replaceIndexUpdateAndSize( long indexId, long updates, long size )
+        {
+            changes.merge( indexStatisticsKey( indexId ), new Change( true, updates, size ), Change::merge );
+        }
+
+        @Override
+        public void replaceIndexSample( long indexId, long unique, long size )
+        {
+            changes.merge( indexSampleKey( indexId ), new Change( true, unique, size ), Change::merge );
+        }
+
+        @Override
+        public void incrementIndexUpdates( long indexId, long delta )
+        {
+            if ( delta != 0 )
+            {
+                changes.merge( indexStatisticsKey( indexId ), new Change( false, delta, 0 ), Change::merge );
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            onClose.accept( changes );
+        }
+    }
+
+    /**
+     * Keeps track of which transactions have had their changes published, as the highest gap-free transaction
+     * id and the ids of the transactions applied after a gap.
+     */
+    private static class AppliedTransactions
+    {
+        private long highestGapFree;
+        private final TreeSet<Long> outOfOrder = new TreeSet<>();
+
+        synchronized void initialize( long highestGapFree, long[] outOfOrder )
+        {
+            this.highestGapFree = highestGapFree;
+            this.outOfOrder.clear();
+            for ( long txId : outOfOrder )
+            {
+                this.outOfOrder.add( txId );
+            }
+            notifyAll();
+        }
+
+        synchronized void add( long txId )
+        {
+            if ( txId == highestGapFree + 1 )
+            {
+                highestGapFree++;
+                while ( outOfOrder.remove( highestGapFree + 1 ) )
+                {
+                    highestGapFree++;
+                }
+                notifyAll();
+            }
+            else if ( txId > highestGapFree )
+            {
+                outOfOrder.add( txId );
+            }
+        }
+
+        synchronized boolean contains( long txId )
+        {
+            return txId <= highestGapFree || outOfOrder.contains( txId );
+        }
+
+        synchronized long highestGapFree()
+        {
+            return highestGapFree;
+        }
+
+        synchronized long[] outOfOrder()
+        {
+            long[] result = new long[outOfOrder.size()];
+            int i = 0;
+            for ( long txId : outOfOrder )
+            {
+                result[i++] = txId;
+            }
+            return result;
+        }
+
+        synchronized void await( long txId, long timeoutMillis ) throws InterruptedException
+        {
+            long end = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while ( highestGapFree < txId )
+            {
+                if ( remaining <= 0 )
+                {
+                    throw new RotationTimeoutException( txId, highestGapFree, timeoutMillis );
+                }
+                wait( remaining );
+                remaining = end - System.currentTimeMillis();
+            }
+        }
+    }
+}
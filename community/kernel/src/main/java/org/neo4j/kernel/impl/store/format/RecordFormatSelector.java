@@ -34,6 +34,7 @@ import org.neo4j.helpers.Service;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.format.inlined.InlinedProperties;
 import org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat;
 import org.neo4j.kernel.impl.store.format.standard.Standard;
 import org.neo4j.kernel.impl.store.format.standard.StandardV2_3;
@@ -62,7 +63,8 @@ public class RecordFormatSelector
             StandardV2_3.RECORD_FORMATS,
             StandardV3_0.RECORD_FORMATS,
             StandardV3_2.RECORD_FORMATS,
-            StandardV3_4.RECORD_FORMATS
+            StandardV3_4.RECORD_FORMATS,
+            InlinedProperties.RECORD_FORMATS
     );
 
     private RecordFormatSelector()
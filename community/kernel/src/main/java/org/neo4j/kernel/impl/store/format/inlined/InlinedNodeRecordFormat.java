@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inlined;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.format.BaseRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.NodeRecordFormat;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+
+/**
+ * Standard node record, followed by a copy of the first property record of the node:
+ * <pre>
+ * standard node record (15 bytes)
+ * number of copied blocks (byte)
+ * [xxxx,    ] higher bits for next prop id of the copied record, [    ,xxxx] higher bits for its id (byte)
+ * id of the copied record (int)
+ * next prop id of the copied record (int)
+ * copied blocks (32 bytes)
+ * </pre>
+ * A copy is only used while its id is the same as the next prop id of the node, see
+ * {@link NodeRecord#hasInlinedProperties()}. Records written without a copy only write the number of blocks, zero.
+ */
+class InlinedNodeRecordFormat extends NodeRecordFormat
+{
+    private static final int MAX_BLOCKS = PropertyType.getPayloadSizeLongs();
+    static final int RECORD_SIZE = NodeRecordFormat.RECORD_SIZE + 1 + 1 + 4 + 4 + MAX_BLOCKS * Long.BYTES;
+
+    InlinedNodeRecordFormat()
+    {
+        super( RECORD_SIZE );
+    }
+
+    @Override
+    public void read( NodeRecord record, PageCursor cursor, RecordLoad mode, int recordSize )
+    {
+        super.read( record, cursor, mode, recordSize );
+        if ( !mode.shouldLoad( record.inUse() ) )
+        {
+            return;
+        }
+
+        int numberOfBlocks = cursor.getByte();
+        if ( numberOfBlocks <= 0 || numberOfBlocks > MAX_BLOCKS )
+        {
+            // No copy, or an inconsistent read which the page cursor will have us retry
+            record.clearInlinedProperties();
+            return;
+        }
+        long modifiers = cursor.getByte() & 0xFFL;
+        long id = cursor.getInt() & 0xFFFFFFFFL;
+        long nextProp = cursor.getInt() & 0xFFFFFFFFL;
+        record.initializeInlinedProperties(
+                BaseRecordFormat.longFromIntAndMod( id, (modifiers & 0xFL) << 32 ),
+                BaseRecordFormat.longFromIntAndMod( nextProp, (modifiers & 0xF0L) << 28 ) );
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            record.addInlinedPropertyBlock( cursor.getLong() );
+        }
+    }
+
+    @Override
+    public void write( NodeRecord record, PageCursor cursor, int recordSize )
+    {
+        super.write( record, cursor, recordSize );
+        if ( !record.inUse() )
+        {
+            return;
+        }
+
+        if ( !record.hasInlinedProperties() )
+        {
+            cursor.putByte( (byte) 0 );
+            return;
+        }
+        long id = record.getInlinedPropertiesId();
+        long nextProp = record.getInlinedPropertiesNextProp();
+        long idModifier = (id & 0xF00000000L) >> 32;
+        long nextModifier = nextProp == Record.NO_NEXT_PROPERTY.intValue() ? 0 : (nextProp & 0xF00000000L) >> 28;
+
+        int numberOfBlocks = record.getNumberOfInlinedPropertyBlocks();
+        cursor.putByte( (byte) numberOfBlocks );
+        cursor.putByte( (byte) (idModifier | nextModifier) );
+        cursor.putInt( (int) id );
+        cursor.putInt( (int) nextProp );
+        long[] blocks = record.getInlinedPropertyBlocks();
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            cursor.putLong( blocks[i] );
+        }
+    }
+}
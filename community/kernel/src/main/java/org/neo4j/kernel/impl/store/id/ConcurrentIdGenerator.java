@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.kernel.impl.store.id.IdContainer.NO_RESULT;
+
+/**
+ * {@link IdGenerator} for many threads allocating ids at the same time, as an alternative to the fully
+ * synchronized {@link IdGeneratorImpl}. It uses the same id file, through an {@link IdContainer}.
+ * <p>
+ * New ids are leased from the high id in ranges, one range per thread, so that a thread only moves the high id
+ * once every {@code leaseSize} ids. Freed ids go to a lock-free {@link ReusableIdPool}, where they can be
+ * picked up by {@link #nextId()} directly if ids are to be reused aggressively. The {@link IdContainer}, which
+ * keeps the reusable ids in the id file, is only involved, under a lock, when the pool is full, when there are
+ * reusable ids left in the id file from a previous session and on {@link #close()}.
+ * <p>
+ * Every {@code leaseSweepInterval} renewed or new leases, the leases of threads that have died, and the leases that
+ * haven't handed out any ids since the previous such sweep, are taken back and their remaining ids freed. The high id
+ * and the number of ids in use don't count the ids that remain in leases.
+ * <p>
+ * On {@link #close()} the ids still in the pool and the ids not yet handed out from the leases are freed into
+ * the id file. The id file is sticky for as long as this generator is open, like with {@link IdGeneratorImpl},
+ * so after a crash it is rebuilt from the store and leased ids that were never used are found free again.
+ */
+public class ConcurrentIdGenerator implements IdGenerator
+{
+    private static final int LEASE_SIZE = FeatureToggles.getInteger( ConcurrentIdGenerator.class, "leaseSize", 128 );
+    private static final int REUSABLE_ID_POOL_SIZE =
+            FeatureToggles.getInteger( ConcurrentIdGenerator.class, "reusableIdPoolSize", 4096 );
+    private static final int LEASE_SWEEP_INTERVAL =
+            FeatureToggles.getInteger( ConcurrentIdGenerator.class, "leaseSweepInterval", 64 );
+    private static final Lease NO_LEASE = new Lease( -1, 0, 0 );
+
+    private final long max;
+    private final IdType idType;
+    private final boolean aggressiveReuse;
+    private final int leaseSize;
+    private final int leaseSweepInterval;
+    // guarded by this
+    private final IdContainer idContainer;
+    private final ReusableIdPool reusableIds;
+    private final AtomicLong highId;
+    private final ThreadLocal<LeaseHolder> lease = ThreadLocal.withInitial( this::newLeaseHolder );
+    private final Queue<LeaseHolder> leases = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger leasesUntilSweep = new AtomicInteger();
+    // changed by setHighId to make all threads drop their current leases
+    private volatile int leaseGeneration;
+    private volatile boolean containerMayHaveReusableIds = true;
+
+    /**
+     * See {@link IdGeneratorImpl#IdGeneratorImpl(FileSystemAbstraction, File, int, long, boolean, IdType,
+     * LongSupplier)} for a description of the parameters.
+     */
+    public ConcurrentIdGenerator( FileSystemAbstraction fs, File file, int grabSize, long max, boolean aggressiveReuse,
+            IdType idType, LongSupplier highId )
+    {
+        this( fs, file, grabSize, max, aggressiveReuse, idType, highId, LEASE_SIZE, REUSABLE_ID_POOL_SIZE,
+                LEASE_SWEEP_INTERVAL );
+    }
+
+    ConcurrentIdGenerator( FileSystemAbstraction fs, File file, int grabSize, long max, boolean aggressiveReuse,
+            IdType idType, LongSupplier highId, int leaseSize, int reusableIdPoolSize, int leaseSweepInterval )
+    {
+        this.max = max;
+        this.idType = idType;
+        this.aggressiveReuse = aggressiveReuse;
+        this.leaseSize = leaseSize;
+        this.leaseSweepInterval = leaseSweepInterval;
+        this.leasesUntilSweep.set( leaseSweepInterval );
+        this.reusableIds = new ReusableIdPool( reusableIdPoolSize );
+        this.idContainer = new IdContainer( fs, file, grabSize, aggressiveReuse );
+        this.highId = new AtomicLong( idContainer.init() ? idContainer.getInitialHighId() : highId.getAsLong() );
+    }
+
+    @Override
+    public long nextId()
+    {
+        assertStillOpen();
+        if ( aggressiveReuse )
+        {
+            long id = reusableIds.poll();
+            if ( id != NO_RESULT )
+            {
+                return id;
+            }
+        }
+        if ( containerMayHaveReusableIds )
+        {
+            long id = reusableIdFromContainer();
+            if ( id != NO_RESULT )
+            {
+                return id;
+            }
+        }
+
+        LeaseHolder holder = this.lease.get();
+        while ( true )
+        {
+            Lease lease = holder.lease;
+            long id = lease.generation == leaseGeneration ? lease.claim() : NO_RESULT;
+            if ( id == NO_RESULT )
+            {
+                renew( holder );
+            }
+            else if ( !IdValidator.isReservedId( id ) )
+            {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        assertStillOpen();
+        long[] reusedIds = new long[size];
+        int reused = 0;
+        if ( aggressiveReuse )
+        {
+            long id;
+            while ( reused < size && (id = reusableIds.poll()) != NO_RESULT )
+            {
+                reusedIds[reused++] = id;
+            }
+        }
+        if ( reused < size && containerMayHaveReusableIds )
+        {
+            long[] containerIds = reusableIdsFromContainer( size - reused );
+            System.arraycopy( containerIds, 0, reusedIds, reused, containerIds.length );
+            reused += containerIds.length;
+        }
+
+        int rangeLength = size - reused;
+        long start;
+        do
+        {
+            start = highId.get();
+            IdValidator.assertIdWithinCapacity( idType, start + rangeLength, max );
+        }
+        while ( !highId.compareAndSet( start, start + rangeLength ) );
+        long[] defragIds = reused == 0 ? EMPTY_LONG_ARRAY : Arrays.copyOf( reusedIds, reused );
+        return new IdRange( defragIds, start, rangeLength );
+    }
+
+    @Override
+    public synchronized void setHighId( long id )
+    {
+        IdValidator.assertIdWithinCapacity( idType, id, max );
+        // The ids left in the leases below the new high id are considered to be in use from now on, and the ones above
+        // it are freed. The high id itself never goes down, since it may have moved past ids handed out in batches
+        // since the caller looked at it.
+        for ( LeaseHolder holder : leases )
+        {
+            reclaim( holder.lease, id );
+        }
+        leaseGeneration++;
+        highId.accumulateAndGet( id, Math::max );
+    }
+
+    /**
+     * @return the high id, not counting the ids at the top that are leased but not yet handed out.
+     */
+    @Override
+    public long getHighId()
+    {
+        long high = highId.get();
+        int generation = leaseGeneration;
+        boolean lowered;
+        do
+        {
+            // A lease with nothing handed out yet may have another lease, or batch, right below it
+            lowered = false;
+            for ( LeaseHolder holder : leases )
+            {
+                Lease lease = holder.lease;
+                long next = lease.next.get();
+                if ( lease.generation == generation && lease.end == high && next < high )
+                {
+                    high = next;
+                    lowered = next == lease.start;
+                }
+            }
+        }
+        while ( lowered );
+        return high;
+    }
+
+    @Override
+    public long getHighestPossibleIdInUse()
+    {
+        return getHighId() - 1;
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        assertStillOpen();
+        if ( IdValidator.isReservedId( id ) )
+        {
+            return;
+        }
+
+        long currentHighId = highId.get();
+        if ( id < 0 || id >= currentHighId )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + currentHighId );
+        }
+        if ( !reusableIds.offer( id ) )
+        {
+            synchronized ( this )
+            {
+                drainReusableIds();
+                idContainer.freeId( id );
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( idContainer.isClosed() )
+        {
+            return;
+        }
+        for ( LeaseHolder holder : leases )
+        {
+            reclaim( holder.lease, 0 );
+        }
+        drainReusableIds();
+        idContainer.close( highId.get() );
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        long leasedIds = 0;
+        int generation = leaseGeneration;
+        for ( LeaseHolder holder : leases )
+        {
+            Lease lease = holder.lease;
+            if ( lease.generation == generation )
+            {
+                leasedIds += lease.end - lease.next.get();
+            }
+        }
+        return highId.get() - leasedIds - getDefragCount();
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        long containerCount;
+        synchronized ( this )
+        {
+            containerCount = idContainer.getFreeIdCount();
+        }
+        return containerCount + reusableIds.size();
+    }
+
+    @Override
+    public synchronized void delete()
+    {
+        idContainer.delete();
+    }
+
+    private LeaseHolder newLeaseHolder()
+    {
+        LeaseHolder holder = new LeaseHolder( Thread.currentThread() );
+        leases.add( holder );
+        sweepLeasesEveryInterval();
+        return holder;
+    }
+
+    private void renew( LeaseHolder holder )
+    {
+        int generation = leaseGeneration;
+        long start;
+        long end;
+        do
+        {
+            start = highId.get();
+            if ( start > max )
+            {
+                IdValidator.assertValidId( idType, start, max );
+            }
+            end = max - start < leaseSize ? max + 1 : start + leaseSize;
+        }
+        while ( !highId.compareAndSet( start, end ) );
+
+        holder.lease = new Lease( generation, start, end );
+        sweepLeasesEveryInterval();
+    }
+
+    private void sweepLeasesEveryInterval()
+    {
+        if ( leasesUntilSweep.decrementAndGet() == 0 )
+        {
+            leasesUntilSweep.set( leaseSweepInterval );
+            sweepLeases();
+        }
+    }
+
+    /**
+     * Takes back the leases of threads that have died, and of threads that haven't taken any ids from their leases
+     * since the previous sweep, and frees the ids that were left in them.
+     */
+    synchronized void sweepLeases()
+    {
+        if ( idContainer.isClosed() )
+        {
+            return;
+        }
+        Iterator<LeaseHolder> holders = leases.iterator();
+        while ( holders.hasNext() )
+        {
+            LeaseHolder holder = holders.next();
+            Thread owner = holder.owner.get();
+            boolean dead = owner == null || !owner.isAlive();
+            Lease lease = holder.lease;
+            long next = lease.next.get();
+            if ( dead || (lease == holder.sweptLease && next == holder.sweptNext) )
+            {
+                reclaim( lease, 0 );
+            }
+            if ( dead )
+            {
+                holders.remove();
+            }
+            holder.sweptLease = lease;
+            holder.sweptNext = next;
+        }
+    }
+
+    // must hold the monitor of this generator
+    private void reclaim( Lease lease, long lowestFreeId )
+    {
+        long from = lease.next.getAndSet( lease.end );
+        if ( lease.generation == leaseGeneration )
+        {
+            for ( long id = Math.max( from, lowestFreeId ); id < lease.end; id++ )
+            {
+                if ( !IdValidator.isReservedId( id ) )
+                {
+                    idContainer.freeId( id );
+                    if ( aggressiveReuse )
+                    {
+                        containerMayHaveReusableIds = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized long reusableIdFromContainer()
+    {
+        long id = idContainer.getReusableId();
+        if ( id == NO_RESULT )
+        {
+            containerMayHaveReusableIds = false;
+        }
+        return id;
+    }
+
+    private synchronized long[] reusableIdsFromContainer( int maxSize )
+    {
+        long[] ids = idContainer.getReusableIds( maxSize );
+        if ( ids.length < maxSize )
+        {
+            containerMayHaveReusableIds = false;
+        }
+        return ids;
+    }
+
+    // must hold the monitor of this generator
+    private void drainReusableIds()
+    {
+        long id;
+        while ( (id = reusableIds.poll()) != NO_RESULT )
+        {
+            idContainer.freeId( id );
+        }
+        if ( aggressiveReuse )
+        {
+            containerMayHaveReusableIds = true;
+        }
+    }
+
+    private void assertStillOpen()
+    {
+        idContainer.assertStillOpen();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentIdGenerator " + hashCode() + " [max=" + max + ", highId=" + highId + ", reusableIds=" +
+                reusableIds.size() + ", idContainer=" + idContainer + "]";
+    }
+
+    /**
+     * The current lease of a thread. Only the owning thread replaces the lease, but other threads can take back the
+     * ids left in it.
+     */
+    private static class LeaseHolder
+    {
+        // Only weakly referenced, so that the generator doesn't keep threads that have died from being collected
+        private final WeakReference<Thread> owner;
+        private volatile Lease lease = NO_LEASE;
+        // guarded by the monitor of the generator
+        private Lease sweptLease;
+        private long sweptNext;
+
+        LeaseHolder( Thread owner )
+        {
+            this.owner = new WeakReference<>( owner );
+        }
+    }
+
+    /**
+     * Range of ids leased from the high id by one thread, from {@code start} up to, but not including, {@code end}.
+     * The ids are handed out from {@code next}, which the owning thread increments, and which may be moved to the end
+     * by another thread taking back the ids left in the lease.
+     */
+    private static class Lease
+    {
+        private final int generation;
+        private final long start;
+        private final long end;
+        private final AtomicLong next;
+
+        Lease( int generation, long start, long end )
+        {
+            this.generation = generation;
+            this.start = start;
+            this.end = end;
+            this.next = new AtomicLong( start );
+        }
+
+        long claim()
+        {
+            long id;
+            do
+            {
+                id = next.get();
+                if ( id >= end )
+                {
+                    return NO_RESULT;
+                }
+            }
+            while ( !next.compareAndSet( id, id + 1 ) );
+            return id;
+        }
+    }
+}
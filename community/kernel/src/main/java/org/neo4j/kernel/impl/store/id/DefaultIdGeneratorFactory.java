@@ -27,9 +27,16 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfiguration;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
+import org.neo4j.util.FeatureToggles;
 
 public class DefaultIdGeneratorFactory implements IdGeneratorFactory
 {
+    /**
+     * Whether or not to use {@link ConcurrentIdGenerator} instead of {@link IdGeneratorImpl}.
+     */
+    private static final boolean CONCURRENT_ID_ALLOCATION =
+            FeatureToggles.flag( DefaultIdGeneratorFactory.class, "concurrentIdAllocation", false );
+
     private final EnumMap<IdType, IdGenerator> generators = new EnumMap<>( IdType.class );
     private final FileSystemAbstraction fs;
     private final IdTypeConfigurationProvider idTypeConfigurationProvider;
@@ -66,6 +73,10 @@ public class DefaultIdGeneratorFactory implements IdGeneratorFactory
     protected IdGenerator instantiate( FileSystemAbstraction fs, File fileName, int grabSize, long maxValue,
             boolean aggressiveReuse, IdType idType, LongSupplier highId )
     {
+        if ( CONCURRENT_ID_ALLOCATION )
+        {
+            return new ConcurrentIdGenerator( fs, fileName, grabSize, maxValue, aggressiveReuse, idType, highId );
+        }
         return new IdGeneratorImpl( fs, fileName, grabSize, maxValue, aggressiveReuse, idType, highId );
     }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.neo4j.kernel.impl.store.id.IdContainer.NO_RESULT;
+
+/**
+ * Bounded lock-free pool of reusable ids, for any number of threads freeing and taking ids concurrently.
+ * Each slot has a sequence number telling whether it's ready to be written or read for a given lap around
+ * the array, so that threads only ever contend on the two position counters.
+ */
+final class ReusableIdPool
+{
+    private final long[] ids;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    ReusableIdPool( int capacity )
+    {
+        if ( capacity < 1 || Integer.bitCount( capacity ) != 1 )
+        {
+            throw new IllegalArgumentException( "Capacity must be a power of two, but was " + capacity );
+        }
+        this.ids = new long[capacity];
+        this.sequences = new AtomicLongArray( capacity );
+        this.mask = capacity - 1;
+        for ( int i = 0; i < capacity; i++ )
+        {
+            sequences.set( i, i );
+        }
+    }
+
+    /**
+     * @param id id to add to this pool.
+     * @return {@code true} if the id was added, or {@code false} if this pool is full.
+     */
+    boolean offer( long id )
+    {
+        long position = writePosition.get();
+        while ( true )
+        {
+            int index = (int) (position & mask);
+            long difference = sequences.get( index ) - position;
+            if ( difference == 0 )
+            {
+                if ( writePosition.compareAndSet( position, position + 1 ) )
+                {
+                    ids[index] = id;
+                    sequences.set( index, position + 1 );
+                    return true;
+                }
+                position = writePosition.get();
+            }
+            else if ( difference < 0 )
+            {
+                return false;
+            }
+            else
+            {
+                position = writePosition.get();
+            }
+        }
+    }
+
+    /**
+     * @return an id from this pool, or {@link IdContainer#NO_RESULT} if this pool is empty.
+     */
+    long poll()
+    {
+        long position = readPosition.get();
+        while ( true )
+        {
+            int index = (int) (position & mask);
+            long difference = sequences.get( index ) - (position + 1);
+            if ( difference == 0 )
+            {
+                if ( readPosition.compareAndSet( position, position + 1 ) )
+                {
+                    long id = ids[index];
+                    sequences.set( index, position + mask + 1 );
+                    return id;
+                }
+                position = readPosition.get();
+            }
+            else if ( difference < 0 )
+            {
+                return NO_RESULT;
+            }
+            else
+            {
+                position = readPosition.get();
+            }
+        }
+    }
+
+    /**
+     * @return number of ids in this pool. Only an approximation if ids are offered or polled concurrently.
+     */
+    int size()
+    {
+        long size = writePosition.get() - readPosition.get();
+        return (int) Math.max( 0, Math.min( size, ids.length ) );
+    }
+}
@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.neo4j.kernel.impl.store.PropertyType;
+
 import static java.util.Collections.emptyList;
 import static org.neo4j.helpers.collection.Iterables.filter;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
@@ -34,6 +36,11 @@ public class NodeRecord extends PrimitiveRecord
     private Collection<DynamicRecord> dynamicLabelRecords;
     private boolean isLight;
     private boolean dense;
+    // Copy of the first property record of this node, only kept by record formats which inline properties
+    private long inlinedPropertiesId = Record.NO_NEXT_PROPERTY.intValue();
+    private long inlinedPropertiesNextProp;
+    private long[] inlinedPropertyBlocks;
+    private int numberOfInlinedPropertyBlocks;
 
     public NodeRecord( long id )
     {
@@ -48,6 +55,7 @@ public class NodeRecord extends PrimitiveRecord
         this.labels = labels;
         this.dynamicLabelRecords = emptyList();
         this.isLight = true;
+        clearInlinedProperties();
         return this;
     }
 
@@ -139,6 +147,75 @@ public class NodeRecord extends PrimitiveRecord
         this.dense = dense;
     }
 
+    /**
+     * @return whether or not this record carries a copy of its first property record, i.e. the record that
+     * {@link #getNextProp()} points to. Such a copy is only ever used for reading, the property store is still
+     * where the properties are kept.
+     */
+    public boolean hasInlinedProperties()
+    {
+        return numberOfInlinedPropertyBlocks > 0 && inlinedPropertiesId == nextProp;
+    }
+
+    public long getInlinedPropertiesId()
+    {
+        return inlinedPropertiesId;
+    }
+
+    public long getInlinedPropertiesNextProp()
+    {
+        return inlinedPropertiesNextProp;
+    }
+
+    public long[] getInlinedPropertyBlocks()
+    {
+        return inlinedPropertyBlocks;
+    }
+
+    public int getNumberOfInlinedPropertyBlocks()
+    {
+        return numberOfInlinedPropertyBlocks;
+    }
+
+    /**
+     * Starts a copy of the property record with the given id, its blocks are added using
+     * {@link #addInlinedPropertyBlock(long)}.
+     */
+    public void initializeInlinedProperties( long propertyId, long propertyNextProp )
+    {
+        this.inlinedPropertiesId = propertyId;
+        this.inlinedPropertiesNextProp = propertyNextProp;
+        this.numberOfInlinedPropertyBlocks = 0;
+        if ( inlinedPropertyBlocks == null )
+        {
+            inlinedPropertyBlocks = new long[PropertyType.getPayloadSizeLongs()];
+        }
+    }
+
+    public void addInlinedPropertyBlock( long block )
+    {
+        assert numberOfInlinedPropertyBlocks < inlinedPropertyBlocks.length :
+                "Capacity of " + inlinedPropertyBlocks.length + " exceeded";
+        inlinedPropertyBlocks[numberOfInlinedPropertyBlocks++] = block;
+    }
+
+    public void setInlinedProperties( PropertyRecord property )
+    {
+        initializeInlinedProperties( property.getId(), property.getNextProp() );
+        long[] blocks = property.getBlocks();
+        for ( int i = 0; i < property.getNumberOfBlocks(); i++ )
+        {
+            addInlinedPropertyBlock( blocks[i] );
+        }
+    }
+
+    public void clearInlinedProperties()
+    {
+        inlinedPropertiesId = Record.NO_NEXT_PROPERTY.intValue();
+        inlinedPropertiesNextProp = Record.NO_NEXT_PROPERTY.intValue();
+        numberOfInlinedPropertyBlocks = 0;
+    }
+
     @Override
     public String toString()
     {
@@ -167,6 +244,13 @@ public class NodeRecord extends PrimitiveRecord
     {
         NodeRecord clone = new NodeRecord( getId() ).initialize( inUse(), nextProp, dense, nextRel, labels );
         clone.isLight = isLight;
+        if ( numberOfInlinedPropertyBlocks > 0 )
+        {
+            clone.inlinedPropertiesId = inlinedPropertiesId;
+            clone.inlinedPropertiesNextProp = inlinedPropertiesNextProp;
+            clone.inlinedPropertyBlocks = inlinedPropertyBlocks.clone();
+            clone.numberOfInlinedPropertyBlocks = numberOfInlinedPropertyBlocks;
+        }
 
         if ( dynamicLabelRecords.size() > 0 )
         {
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+
+/**
+ * Invalidates the cached degrees of all nodes whose relationships are changed by a transaction. The nodes are
+ * collected while visiting the commands and invalidated on {@link #close()}, i.e. after the store appliers have
+ * written the changes, so that a concurrent reader can't cache degrees loaded from before them.
+ */
+public class DegreeCacheInvalidationTransactionApplier extends TransactionApplier.Adapter
+{
+    private final DegreeCache degreeCache;
+    private final PrimitiveLongSet nodes = Primitive.longSet();
+
+    public DegreeCacheInvalidationTransactionApplier( DegreeCache degreeCache )
+    {
+        this.degreeCache = degreeCache;
+    }
+
+    @Override
+    public boolean visitNodeCommand( NodeCommand command )
+    {
+        if ( command.getBefore().isDense() )
+        {
+            nodes.add( command.getKey() );
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipCommand( RelationshipCommand command )
+    {
+        addNodes( command.getBefore() );
+        addNodes( command.getAfter() );
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command )
+    {
+        if ( command.getBefore().inUse() )
+        {
+            nodes.add( command.getBefore().getOwningNode() );
+        }
+        if ( command.getAfter().inUse() )
+        {
+            nodes.add( command.getAfter().getOwningNode() );
+        }
+        return false;
+    }
+
+    @Override
+    public void close()
+    {
+        PrimitiveLongIterator iterator = nodes.iterator();
+        while ( iterator.hasNext() )
+        {
+            degreeCache.invalidate( iterator.next() );
+        }
+        nodes.close();
+    }
+
+    private void addNodes( RelationshipRecord record )
+    {
+        if ( record.inUse() )
+        {
+            nodes.add( record.getFirstNode() );
+            nodes.add( record.getSecondNode() );
+        }
+    }
+}
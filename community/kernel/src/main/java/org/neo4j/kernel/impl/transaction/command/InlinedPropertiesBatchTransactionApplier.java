@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+public class InlinedPropertiesBatchTransactionApplier extends BatchTransactionApplier.Adapter
+{
+    private final NeoStores neoStores;
+    private final LockService lockService;
+
+    public InlinedPropertiesBatchTransactionApplier( NeoStores neoStores, LockService lockService )
+    {
+        this.neoStores = neoStores;
+        this.lockService = lockService;
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction )
+    {
+        return new InlinedPropertiesTransactionApplier( neoStores.getNodeStore(), neoStores.getPropertyStore(),
+                lockService );
+    }
+
+    @Override
+    public void close()
+    {
+        // Nothing to close
+    }
+}
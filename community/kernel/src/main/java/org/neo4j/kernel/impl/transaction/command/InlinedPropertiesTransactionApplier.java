@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * Keeps the copies of the first property record of nodes up to date, for record formats with
+ * {@link Capability#INLINED_PROPERTIES}. The nodes changed by a transaction are collected while visiting the
+ * commands and on {@link #close()}, i.e. after the store appliers have written the changes, the copy of each one
+ * is taken from the property store and written to the node record. Node records written by the transaction itself
+ * don't carry a valid copy, which is why this is done regardless of what was changed.
+ */
+public class InlinedPropertiesTransactionApplier extends TransactionApplier.Adapter
+{
+    private final NodeStore nodeStore;
+    private final PropertyStore propertyStore;
+    private final LockService lockService;
+    private final PrimitiveLongSet nodes = Primitive.longSet();
+
+    public InlinedPropertiesTransactionApplier( NodeStore nodeStore, PropertyStore propertyStore,
+            LockService lockService )
+    {
+        this.nodeStore = nodeStore;
+        this.propertyStore = propertyStore;
+        this.lockService = lockService;
+    }
+
+    @Override
+    public boolean visitNodeCommand( NodeCommand command )
+    {
+        nodes.add( command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitPropertyCommand( PropertyCommand command )
+    {
+        addNode( command.getBefore() );
+        addNode( command.getAfter() );
+        return false;
+    }
+
+    @Override
+    public void close()
+    {
+        NodeRecord node = nodeStore.newRecord();
+        PropertyRecord property = propertyStore.newRecord();
+        PrimitiveLongIterator iterator = nodes.iterator();
+        while ( iterator.hasNext() )
+        {
+            long nodeId = iterator.next();
+            Lock lock = lockService.acquireNodeLock( nodeId, LockService.LockType.WRITE_LOCK );
+            try
+            {
+                updateInlinedProperties( nodeId, node, property );
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        nodes.close();
+    }
+
+    private void updateInlinedProperties( long nodeId, NodeRecord node, PropertyRecord property )
+    {
+        nodeStore.getRecord( nodeId, node, CHECK );
+        if ( !node.inUse() )
+        {
+            return;
+        }
+        node.clearInlinedProperties();
+        if ( node.getNextProp() != Record.NO_NEXT_PROPERTY.intValue() )
+        {
+            propertyStore.getRecord( node.getNextProp(), property, CHECK );
+            if ( property.inUse() )
+            {
+                node.setInlinedProperties( property );
+            }
+        }
+        nodeStore.updateRecord( node );
+    }
+
+    private void addNode( PropertyRecord record )
+    {
+        if ( record.isNodeSet() )
+        {
+            nodes.add( record.getNodeId() );
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.column.PropertyColumns;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+/**
+ * Refreshes the {@link PropertyColumns property columns} for the nodes changed by the applied transactions.
+ * During recovery the tokens aren't loaded yet, so instead of being refreshed the columns are marked to be rebuilt
+ * when the database starts.
+ */
+public class PropertyColumnsBatchTransactionApplier extends BatchTransactionApplier.Adapter
+{
+    private final PropertyColumns propertyColumns;
+    private final LockService lockService;
+    private final boolean recovery;
+
+    public PropertyColumnsBatchTransactionApplier( PropertyColumns propertyColumns, LockService lockService,
+            TransactionApplicationMode mode )
+    {
+        this.propertyColumns = propertyColumns;
+        this.lockService = lockService;
+        this.recovery = mode == TransactionApplicationMode.RECOVERY ||
+                mode == TransactionApplicationMode.REVERSE_RECOVERY;
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction )
+    {
+        if ( recovery )
+        {
+            propertyColumns.markForRebuild();
+            return TransactionApplier.EMPTY;
+        }
+        return new PropertyColumnsTransactionApplier( propertyColumns, lockService );
+    }
+
+    @Override
+    public void close()
+    {
+        // Nothing to close
+    }
+}
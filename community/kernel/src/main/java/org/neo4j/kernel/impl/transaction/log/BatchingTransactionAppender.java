@@ -23,6 +23,7 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
@@ -43,6 +44,8 @@ import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SPECIFIED;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
@@ -50,9 +53,42 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches for higher throughput in a concurrent scenario.
+ * <p>
+ * By default the committing threads take turns forcing the log, each force covering all transactions appended up
+ * until then. In the pipelined mode, enabled with the {@code pipelinedForce} feature toggle, the log is instead
+ * forced by a dedicated job on the {@link JobScheduler}, back to back for as long as there are transactions waiting
+ * for it, and parked while there are none. The committers only queue up and park, and are released in batches when
+ * the force that covers their transactions completes.
+ * Since the log buffer is emptied before the force begins, new transactions keep being appended while the previous
+ * batch is forced, and they make up the next batch.
+ * <p>
+ * Either way a batch only contains the transactions that happen to be queued up when the force begins. Given a target
+ * commit latency the appender instead adapts the batches to the load: when the previous force covered more than one
+ * committer, i.e. forcing the log is the bottleneck, the thread about to force waits for as many committers to queue
+ * up again, for at most the target latency minus the average time a force takes. Under light load, or when the
+ * forces alone take longer than the target, nothing changes.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    private static final boolean PIPELINED_FORCE =
+            FeatureToggles.flag( BatchingTransactionAppender.class, "pipelinedForce", false );
+    private static final long BATCH_WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+
+    public interface Monitor
+    {
+        /**
+         * Called after every successful force of the log.
+         *
+         * @param batchSize number of committers released by the force.
+         * @param forcedBytes number of bytes appended to the log since the previous force.
+         */
+        void logForced( int batchSize, long forcedBytes );
+    }
+
+    public static final Monitor NO_MONITOR = ( batchSize, forcedBytes ) ->
+    {
+    };
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the explicit indexes there are no such locks, and hence no such ordering. This queue below
@@ -66,16 +102,65 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final TransactionIdStore transactionIdStore;
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
+    private final JobScheduler scheduler;
     private final Lock forceLock = new ReentrantLock();
+    private final boolean pipelinedForce;
+    private final long groupCommitTargetLatencyNanos;
+    private final Monitor monitor;
+    private final AtomicInteger queuedCommitters = new AtomicInteger();
+    private final LogPositionMarker forcePositionMarker = new LogPositionMarker();
+
+    // Only accessed by the thread forcing the log
+    private int lastBatchSize;
+    private long averageForceNanos;
+    private long lastForcedVersion = -1;
+    private long lastForcedOffset;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
     private IndexCommandDetector indexCommandDetector;
+    private volatile LogForcer logForcer;
 
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
     {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, null, false, 0, NO_MONITOR );
+    }
+
+    /**
+     * @param scheduler runs the log forcer, if the pipelined mode is enabled.
+     * @param groupCommitTargetLatencyNanos target commit latency for adaptive group commit, {@code 0} disables it.
+     * @param monitor notified about every force of the log.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            long groupCommitTargetLatencyNanos, Monitor monitor )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, scheduler, PIPELINED_FORCE, groupCommitTargetLatencyNanos, monitor );
+    }
+
+    BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            boolean pipelinedForce )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, scheduler, pipelinedForce, 0, NO_MONITOR );
+    }
+
+    BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            boolean pipelinedForce, long groupCommitTargetLatencyNanos, Monitor monitor )
+    {
+        this.scheduler = scheduler;
+        this.pipelinedForce = pipelinedForce;
+        this.groupCommitTargetLatencyNanos = groupCommitTargetLatencyNanos;
+        this.monitor = monitor;
         this.logFile = logFiles.getLogFile();
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
@@ -90,6 +175,22 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.writer = logFile.getWriter();
         this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        if ( pipelinedForce )
+        {
+            LogForcer forcer = new LogForcer();
+            forcer.handle = scheduler.schedule( JobScheduler.Groups.transactionLogForce, forcer );
+            logForcer = forcer;
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        if ( logForcer != null )
+        {
+            logForcer.shutdown();
+            logForcer = null;
+        }
     }
 
     @Override
@@ -243,10 +344,19 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      */
     protected boolean forceAfterAppend( LogForceEvents logForceEvents ) throws IOException
     {
+        LogForcer forcer = logForcer;
+        if ( forcer != null )
+        {
+            return forcer.awaitForce( logForceEvents );
+        }
+
         // There's a benign race here, where we add our link before we update our next pointer.
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
         threadLink.next = threadLinkHead.getAndSet( threadLink );
+        // Counted after being linked in so that a thread awaiting the batch doesn't take it without this link.
+        // The count may briefly be too low if a force happens in between, which is fine.
+        queuedCommitters.incrementAndGet();
         boolean attemptedForce = false;
 
         try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
@@ -293,10 +403,17 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
-        ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+        awaitBatch();
+        forceLog( threadLinkHead.getAndSet( ThreadLink.END ), logForceEvents );
+    }
+
+    private void forceLog( ThreadLink links, LogForceEvents logForceEvents ) throws IOException
+    {
+        long startTime = System.nanoTime();
+        long forcedBytes;
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
-            force();
+            forcedBytes = force();
         }
         catch ( final Throwable panic )
         {
@@ -305,14 +422,50 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
         finally
         {
-            unparkAll( links );
+            lastBatchSize = unparkAll( links );
+            queuedCommitters.addAndGet( -lastBatchSize );
         }
+        averageForceNanos += (System.nanoTime() - startTime - averageForceNanos) / 8;
+        monitor.logForced( lastBatchSize, forcedBytes );
     }
 
-    private void unparkAll( ThreadLink links )
+    /**
+     * Lets more committers join the batch about to be forced, if in the adaptive group commit mode and the previous
+     * force released more than one committer. Waits until as many committers as in the previous batch have queued
+     * up, or until the part of the target latency not needed by the force itself has passed.
+     */
+    private void awaitBatch()
     {
+        int targetBatchSize = lastBatchSize;
+        if ( groupCommitTargetLatencyNanos == 0 || targetBatchSize <= 1 ||
+                threadLinkHead.get() == ThreadLink.END )
+        {
+            return;
+        }
+        long budget = groupCommitTargetLatencyNanos - averageForceNanos;
+        if ( budget <= 0 )
+        {
+            return;
+        }
+        long deadline = System.nanoTime() + budget;
+        while ( queuedCommitters.get() < targetBatchSize && System.nanoTime() < deadline )
+        {
+            LockSupport.parkNanos( this, BATCH_WAIT_PARK_NANOS );
+        }
+    }
+
+    /**
+     * @return the number of committers released.
+     */
+    private int unparkAll( ThreadLink links )
+    {
+        int count = 0;
         do
         {
+            if ( links != ThreadLink.END )
+            {
+                count++;
+            }
             links.done = true;
             links.unpark();
             ThreadLink tmp;
@@ -325,6 +478,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             links = tmp;
         }
         while ( links != ThreadLink.END );
+        return count;
     }
 
     private void waitForLogForce()
@@ -333,16 +487,27 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         LockSupport.parkNanos( this, parkTime );
     }
 
-    private void force() throws IOException
+    /**
+     * @return the number of bytes appended to the log since the previous force, or since the beginning of the log
+     * file if it has been rotated since then.
+     */
+    private long force() throws IOException
     {
         // Empty buffer into writer. We want to synchronize with appenders somehow so that they
         // don't append while we're doing that. The way rotation is coordinated we can't synchronize
         // on logFile because it would cause deadlocks. Synchronizing on writer assumes that appenders
         // also synchronize on writer.
         Flushable flushable;
+        long forcedBytes;
         synchronized ( logFile )
         {
             flushable = writer.prepareForFlush();
+            writer.getCurrentPosition( forcePositionMarker );
+            long version = forcePositionMarker.getLogVersion();
+            long offset = forcePositionMarker.getByteOffset();
+            forcedBytes = version == lastForcedVersion ? offset - lastForcedOffset : offset;
+            lastForcedVersion = version;
+            lastForcedOffset = offset;
         }
         // Force the writer outside of the lock.
         // This allows other threads access to the buffer while the writer is being forced.
@@ -357,5 +522,126 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             // successful in emptying the buffer *UNDER THE LOCK* we know that the rotating thread included the changes
             // we emptied into the channel, and thus it is already flushed by that thread.
         }
+        return forcedBytes;
+    }
+
+    /**
+     * The job forcing the log in the pipelined mode. Each round takes all committers queued up so far, forces the log,
+     * and then releases those committers. The committers that queue up while a force is ongoing make up the next round,
+     * which begins immediately after. When no committers are queued up the forcer parks, until the next committer to
+     * queue up unparks it.
+     */
+    private class LogForcer implements Runnable
+    {
+        private volatile boolean shutdown;
+        private volatile boolean running = true;
+        private volatile Thread thread;
+        private JobScheduler.JobHandle handle;
+
+        @Override
+        public void run()
+        {
+            thread = Thread.currentThread();
+            try
+            {
+                // Keep going until shut down, and all the committers that made it in before that have been released.
+                while ( !shutdown || threadLinkHead.get() != ThreadLink.END )
+                {
+                    if ( !shutdown )
+                    {
+                        awaitBatch();
+                    }
+                    ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+                    if ( links == ThreadLink.END )
+                    {
+                        // A committer that queues up after this point unparks us, so we cannot miss it.
+                        if ( !shutdown )
+                        {
+                            LockSupport.park( this );
+                        }
+                        continue;
+                    }
+
+                    // The most recent committer is the one the force is accounted for, and the one to check for log
+                    // rotation afterwards.
+                    links.forcedForBatch = true;
+                    try
+                    {
+                        forceLog( links, links.logForceEvents );
+                    }
+                    catch ( Throwable e )
+                    {
+                        // The database has already panicked, which the released committers will find out, and so will
+                        // anyone trying to append after this.
+                    }
+                }
+            }
+            finally
+            {
+                running = false;
+                thread = null;
+            }
+        }
+
+        boolean awaitForce( LogForceEvents logForceEvents ) throws IOException
+        {
+            ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
+            threadLink.logForceEvents = logForceEvents;
+            LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait();
+            try
+            {
+                threadLink.next = threadLinkHead.getAndSet( threadLink );
+                queuedCommitters.incrementAndGet();
+                unparkForcer();
+                while ( !threadLink.done )
+                {
+                    waitForLogForce();
+                    if ( !threadLink.done && !running )
+                    {
+                        // We raced with shutdown, and queued up after the last round, so force the log ourselves.
+                        forceRemaining( logForceEvents );
+                    }
+                }
+            }
+            finally
+            {
+                logForceWaitEvent.close();
+            }
+            databaseHealth.assertHealthy( IOException.class );
+            return threadLink.forcedForBatch;
+        }
+
+        private void unparkForcer()
+        {
+            Thread forcerThread = thread;
+            if ( forcerThread != null )
+            {
+                LockSupport.unpark( forcerThread );
+            }
+        }
+
+        private void forceRemaining( LogForceEvents logForceEvents ) throws IOException
+        {
+            forceLock.lock();
+            try
+            {
+                ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+                if ( links != ThreadLink.END )
+                {
+                    forceLog( links, logForceEvents );
+                }
+            }
+            finally
+            {
+                forceLock.unlock();
+            }
+        }
+
+        void shutdown() throws Exception
+        {
+            shutdown = true;
+            unparkForcer();
+            handle.waitTermination();
+        }
     }
 }
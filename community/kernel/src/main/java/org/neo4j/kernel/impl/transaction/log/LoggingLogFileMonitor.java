@@ -63,6 +63,13 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
         }
     }
 
+    @Override
+    public void transactionsReplayed( int numberOfReplayedTransactions, long replayTimeMillis )
+    {
+        log.info( format( "Replayed %d transactions in %d ms (%d transactions/s)", numberOfReplayedTransactions,
+                replayTimeMillis, numberOfReplayedTransactions * 1000L / Math.max( replayTimeMillis, 1 ) ) );
+    }
+
     @Override
     public void failToRecoverTransactionsAfterCommit( Throwable t, LogEntryCommit commitEntry, LogPosition recoveryToPosition )
     {
@@ -21,11 +21,16 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.util.concurrent.locks.LockSupport;
 
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvents;
+
 class ThreadLink
 {
     final Thread thread;
     volatile ThreadLink next;
     volatile boolean done;
+    // Only used when the log is forced by a dedicated thread, see BatchingTransactionAppender.
+    LogForceEvents logForceEvents;
+    volatile boolean forcedForBatch;
 
     ThreadLink( Thread thread )
     {
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compressor and decompressor of the LZ4 block format, which favours speed over compression ratio. Data is encoded
+ * as a sequence of literal runs, each followed by a back reference to an earlier match of at least four bytes, within
+ * the last 64 KiB. This implementation finds matches greedily, using a small hash table of recently seen positions.
+ * <p>
+ * Instances keep that hash table between calls, and are not thread safe.
+ */
+final class LZ4BlockCodec
+{
+    /**
+     * The largest number of bytes compressed into, or decompressed from, a single block.
+     */
+    static final int MAX_LENGTH = 1 << 30;
+
+    private static final int MIN_MATCH = 4;
+    // The format requires the last five bytes to be literals, and the last match to start at least 12 bytes before
+    // the end
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MIN_LENGTH_TO_COMPRESS = MATCH_FIND_LIMIT + 1;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int RUN_MASK = 0xF;
+    private static final int HASH_LOG = 12;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * @param length number of bytes to compress.
+     * @return the size a buffer must have to fit the compressed form of the given number of bytes, in the worst case.
+     */
+    static int maxCompressedLength( int length )
+    {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses {@code length} bytes from the start of {@code source} into the start of {@code target}, which must be
+     * at least {@link #maxCompressedLength(int)} long.
+     *
+     * @return the number of bytes written to {@code target}.
+     */
+    int compress( byte[] source, int length, byte[] target )
+    {
+        int anchor = 0;
+        int targetPosition = 0;
+        if ( length >= MIN_LENGTH_TO_COMPRESS )
+        {
+            Arrays.fill( hashTable, -1 );
+            int matchLimit = length - LAST_LITERALS;
+            int matchFindLimit = length - MATCH_FIND_LIMIT;
+            int position = 0;
+            while ( position < matchFindLimit )
+            {
+                int sequence = readInt( source, position );
+                int hash = hash( sequence );
+                int reference = hashTable[hash];
+                hashTable[hash] = position;
+                if ( reference < 0 || position - reference > MAX_DISTANCE || readInt( source, reference ) != sequence )
+                {
+                    position++;
+                    continue;
+                }
+
+                // Extend the match backwards, into what would otherwise have been literals, and then forwards
+                while ( position > anchor && reference > 0 && source[position - 1] == source[reference - 1] )
+                {
+                    position--;
+                    reference--;
+                }
+                int matchLength = MIN_MATCH;
+                while ( position + matchLength < matchLimit &&
+                        source[reference + matchLength] == source[position + matchLength] )
+                {
+                    matchLength++;
+                }
+
+                targetPosition = writeSequence( source, anchor, position - anchor, position - reference, matchLength,
+                        target, targetPosition );
+                position += matchLength;
+                anchor = position;
+            }
+        }
+        return writeLastLiterals( source, anchor, length - anchor, target, targetPosition );
+    }
+
+    /**
+     * Decompresses {@code sourceLength} bytes of compressed data from the start of {@code source}, into
+     * {@code target}, whose length must be exactly the length of the decompressed data.
+     *
+     * @throws IOException if the compressed data is malformed, or doesn't decompress into exactly {@code target.length}
+     * bytes.
+     */
+    static void decompress( byte[] source, int sourceLength, byte[] target ) throws IOException
+    {
+        if ( sourceLength < 0 || sourceLength > source.length || target.length > MAX_LENGTH )
+        {
+            throw new IllegalArgumentException( "Invalid lengths, source " + sourceLength + " of " + source.length +
+                    " and target " + target.length );
+        }
+        int sourcePosition = 0;
+        int targetPosition = 0;
+        while ( true )
+        {
+            int token = byteAt( source, sourcePosition++, sourceLength ) & 0xFF;
+            int literalLength = token >>> 4;
+            if ( literalLength == RUN_MASK )
+            {
+                int extension;
+                do
+                {
+                    extension = byteAt( source, sourcePosition++, sourceLength ) & 0xFF;
+                    literalLength += extension;
+                }
+                while ( extension == 0xFF && literalLength <= target.length );
+            }
+            // Neither length can overflow, since they are bounded by MAX_LENGTH plus one extension
+            if ( literalLength > sourceLength - sourcePosition || literalLength > target.length - targetPosition )
+            {
+                throw malformed( "literals extend beyond the end of the data" );
+            }
+            System.arraycopy( source, sourcePosition, target, targetPosition, literalLength );
+            sourcePosition += literalLength;
+            targetPosition += literalLength;
+            if ( sourcePosition == sourceLength )
+            {
+                // The last sequence has no match
+                break;
+            }
+
+            int offset = (byteAt( source, sourcePosition++, sourceLength ) & 0xFF) |
+                         ((byteAt( source, sourcePosition++, sourceLength ) & 0xFF) << 8);
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                int extension;
+                do
+                {
+                    extension = byteAt( source, sourcePosition++, sourceLength ) & 0xFF;
+                    matchLength += extension;
+                }
+                while ( extension == 0xFF && matchLength <= target.length );
+            }
+            matchLength += MIN_MATCH;
+            int reference = targetPosition - offset;
+            if ( offset == 0 || reference < 0 || matchLength > target.length - targetPosition )
+            {
+                throw malformed( "invalid match" );
+            }
+            if ( offset >= matchLength )
+            {
+                System.arraycopy( target, reference, target, targetPosition, matchLength );
+                targetPosition += matchLength;
+            }
+            else
+            {
+                // The match overlaps the bytes it produces, e.g. a run of the same byte, so it must be copied in order
+                for ( int i = 0; i < matchLength; i++ )
+                {
+                    target[targetPosition++] = target[reference + i];
+                }
+            }
+        }
+        if ( targetPosition != target.length )
+        {
+            throw malformed( "decompressed into " + targetPosition + " bytes, expected " + target.length );
+        }
+    }
+
+    private static int writeSequence( byte[] source, int literalStart, int literalLength, int offset, int matchLength,
+            byte[] target, int targetPosition )
+    {
+        int encodedMatchLength = matchLength - MIN_MATCH;
+        int tokenPosition = targetPosition++;
+        targetPosition = writeLength( literalLength, target, targetPosition );
+        System.arraycopy( source, literalStart, target, targetPosition, literalLength );
+        targetPosition += literalLength;
+        target[targetPosition++] = (byte) offset;
+        target[targetPosition++] = (byte) (offset >>> 8);
+        targetPosition = writeLength( encodedMatchLength, target, targetPosition );
+        target[tokenPosition] =
+                (byte) ((Math.min( literalLength, RUN_MASK ) << 4) | Math.min( encodedMatchLength, RUN_MASK ));
+        return targetPosition;
+    }
+
+    private static int writeLastLiterals( byte[] source, int literalStart, int literalLength, byte[] target,
+            int targetPosition )
+    {
+        target[targetPosition++] = (byte) (Math.min( literalLength, RUN_MASK ) << 4);
+        targetPosition = writeLength( literalLength, target, targetPosition );
+        System.arraycopy( source, literalStart, target, targetPosition, literalLength );
+        return targetPosition + literalLength;
+    }
+
+    /**
+     * Writes the part of a length that doesn't fit in its four bits of the token, if any.
+     */
+    private static int writeLength( int length, byte[] target, int targetPosition )
+    {
+        if ( length >= RUN_MASK )
+        {
+            int remaining = length - RUN_MASK;
+            while ( remaining >= 0xFF )
+            {
+                target[targetPosition++] = (byte) 0xFF;
+                remaining -= 0xFF;
+            }
+            target[targetPosition++] = (byte) remaining;
+        }
+        return targetPosition;
+    }
+
+    private static int readInt( byte[] bytes, int position )
+    {
+        return (bytes[position] & 0xFF) | ((bytes[position + 1] & 0xFF) << 8) |
+               ((bytes[position + 2] & 0xFF) << 16) | ((bytes[position + 3] & 0xFF) << 24);
+    }
+
+    private static int hash( int sequence )
+    {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static byte byteAt( byte[] source, int position, int sourceLength ) throws IOException
+    {
+        if ( position >= sourceLength )
+        {
+            throw malformed( "unexpected end of the data" );
+        }
+        return source[position];
+    }
+
+    private static IOException malformed( String reason )
+    {
+        return new IOException( "Malformed LZ4 compressed data, " + reason );
+    }
+}
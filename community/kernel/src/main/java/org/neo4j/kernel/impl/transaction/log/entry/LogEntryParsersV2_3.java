@@ -20,12 +20,14 @@
 package org.neo4j.kernel.impl.transaction.log.entry;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
 import org.neo4j.storageengine.api.CommandReaderFactory;
 import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.unsafe.impl.batchimport.input.ByteBufferReadableChannel;
 
 public enum LogEntryParsersV2_3 implements LogEntryParser<LogEntry>
 {
@@ -84,6 +86,42 @@ public enum LogEntryParsersV2_3 implements LogEntryParser<LogEntry>
                 }
             },
 
+    COMPRESSED_COMMAND
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int length = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    if ( length < 0 || length > LZ4BlockCodec.MAX_LENGTH || compressedLength <= 0 ||
+                         compressedLength > LZ4BlockCodec.maxCompressedLength( length ) )
+                    {
+                        throw new IOException( "Invalid compressed command of " + compressedLength +
+                                " bytes, decompressing into " + length + " bytes" );
+                    }
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+                    byte[] serialized = new byte[length];
+                    LZ4BlockCodec.decompress( compressed, compressedLength, serialized );
+                    StorageCommand command = commandReader.byVersion( version.byteCode() )
+                            .read( new ByteBufferReadableChannel( ByteBuffer.wrap( serialized ) ) );
+                    return command == null ? null : new LogEntryCommand( version, command );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMAND;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            },
+
     TX_COMMIT
             {
                 @Override
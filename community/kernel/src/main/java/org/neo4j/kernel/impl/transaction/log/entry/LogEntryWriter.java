@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log.entry;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 import org.neo4j.helpers.collection.Visitor;
@@ -28,15 +29,27 @@ import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.FlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.WritableChannel;
+import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMAND;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
 
 public class LogEntryWriter
 {
+    /**
+     * Whether or not to compress commands, which is then also noted in the header of new log files.
+     * See {@link #LogEntryWriter(FlushableChannel, boolean)}.
+     */
+    public static final boolean COMPRESS_COMMANDS =
+            FeatureToggles.flag( LogEntryWriter.class, "compressCommands", false );
+    private static final int MIN_COMPRESSED_COMMAND_SIZE =
+            FeatureToggles.getInteger( LogEntryWriter.class, "minCompressedCommandSize", 64 );
+
     private final FlushableChannel channel;
     private final Visitor<StorageCommand,IOException> serializer;
 
@@ -45,9 +58,22 @@ public class LogEntryWriter
      * @param channel underlying channel
      */
     public LogEntryWriter( FlushableChannel channel )
+    {
+        this( channel, COMPRESS_COMMANDS );
+    }
+
+    /**
+     * Create a writer that uses {@link LogEntryVersion#CURRENT} for versioning.
+     * @param channel underlying channel
+     * @param compressCommands whether or not to write commands compressed with LZ4. Each command is compressed on
+     * its own, into its own log entry, so that log entries can still be addressed by their position in the log.
+     * Commands that are too small to gain from it, or that don't get smaller, are written uncompressed.
+     */
+    public LogEntryWriter( FlushableChannel channel, boolean compressCommands )
     {
         this.channel = channel;
-        this.serializer = new StorageCommandSerializer( channel );
+        this.serializer = compressCommands ? new CompressingStorageCommandSerializer( channel )
+                                           : new StorageCommandSerializer( channel );
     }
 
     protected void writeLogEntryHeader( byte type ) throws IOException
@@ -124,4 +150,128 @@ public class LogEntryWriter
             return false;
         }
     }
+
+    private class CompressingStorageCommandSerializer implements Visitor<StorageCommand,IOException>
+    {
+        private final FlushableChannel channel;
+        private final CommandBuffer buffer = new CommandBuffer();
+        private final LZ4BlockCodec codec = new LZ4BlockCodec();
+        private byte[] compressed = new byte[0];
+
+        CompressingStorageCommandSerializer( FlushableChannel channel )
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean visit( StorageCommand command ) throws IOException
+        {
+            buffer.clear();
+            command.serialize( buffer );
+            byte[] serialized = buffer.array();
+            int length = buffer.size();
+            if ( length >= MIN_COMPRESSED_COMMAND_SIZE && length <= LZ4BlockCodec.MAX_LENGTH )
+            {
+                int maxCompressedLength = LZ4BlockCodec.maxCompressedLength( length );
+                if ( compressed.length < maxCompressedLength )
+                {
+                    compressed = new byte[maxCompressedLength];
+                }
+                int compressedLength = codec.compress( serialized, length, compressed );
+                if ( compressedLength < length )
+                {
+                    writeLogEntryHeader( COMPRESSED_COMMAND );
+                    channel.putInt( length ).putInt( compressedLength ).put( compressed, compressedLength );
+                    return false;
+                }
+            }
+            writeLogEntryHeader( COMMAND );
+            channel.put( serialized, length );
+            return false;
+        }
+    }
+
+    /**
+     * Collects the serialized form of a command, growing as needed.
+     */
+    private static class CommandBuffer implements WritableChannel
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( 1024 );
+
+        void clear()
+        {
+            buffer.clear();
+        }
+
+        byte[] array()
+        {
+            return buffer.array();
+        }
+
+        int size()
+        {
+            return buffer.position();
+        }
+
+        @Override
+        public WritableChannel put( byte value )
+        {
+            ensureRemaining( Byte.BYTES ).put( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putShort( short value )
+        {
+            ensureRemaining( Short.BYTES ).putShort( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putInt( int value )
+        {
+            ensureRemaining( Integer.BYTES ).putInt( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putLong( long value )
+        {
+            ensureRemaining( Long.BYTES ).putLong( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putFloat( float value )
+        {
+            ensureRemaining( Float.BYTES ).putFloat( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putDouble( double value )
+        {
+            ensureRemaining( Double.BYTES ).putDouble( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel put( byte[] value, int length )
+        {
+            ensureRemaining( length ).put( value, 0, length );
+            return this;
+        }
+
+        private ByteBuffer ensureRemaining( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
 }
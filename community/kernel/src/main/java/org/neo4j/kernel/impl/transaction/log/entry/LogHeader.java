@@ -22,6 +22,11 @@ package org.neo4j.kernel.impl.transaction.log.entry;
 public class LogHeader
 {
     public static final int LOG_HEADER_SIZE = 16;
+    /**
+     * Log format version in the header of log files written with command compression enabled, such that readers and
+     * tooling looking at the header can tell such files apart. Entries themselves are recognized by their type.
+     */
+    public static final byte COMPRESSED_COMMANDS_LOG_FORMAT_VERSION = 7;
 
     public final byte logFormatVersion;
     public final long logVersion;
@@ -53,6 +53,16 @@ public class LogHeaderWriter
         return buffer;
     }
 
+    public static ByteBuffer writeLogHeader( ByteBuffer buffer, long logVersion, long previousCommittedTxId,
+            byte logFormatVersion )
+    {
+        buffer.clear();
+        buffer.putLong( encodeLogVersion( logVersion, logFormatVersion ) );
+        buffer.putLong( previousCommittedTxId );
+        buffer.flip();
+        return buffer;
+    }
+
     public static void writeLogHeader( FileSystemAbstraction fileSystem, File file, long logVersion,
                                        long previousLastCommittedTxId ) throws IOException
     {
@@ -74,4 +84,9 @@ public class LogHeaderWriter
     {
         return logVersion | (((long) CURRENT_FORMAT_VERSION) << 56);
     }
+
+    public static long encodeLogVersion( long logVersion, byte logFormatVersion )
+    {
+        return logVersion | (((long) (logFormatVersion & 0xFF)) << 56);
+    }
 }
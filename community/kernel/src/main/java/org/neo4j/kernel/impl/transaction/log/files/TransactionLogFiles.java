@@ -32,12 +32,14 @@ import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.COMPRESSED_COMMANDS_LOG_FORMAT_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
@@ -52,6 +54,8 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     public static final String DEFAULT_NAME = "neostore.transaction.db";
     public static final FilenameFilter DEFAULT_FILENAME_FILTER = TransactionLogFilesHelper.DEFAULT_FILENAME_FILTER;
     private static final File[] EMPTY_FILES_ARRAY = {};
+    private static final byte NEW_LOG_FORMAT_VERSION =
+            LogEntryWriter.COMPRESS_COMMANDS ? COMPRESSED_COMMANDS_LOG_FORMAT_VERSION : CURRENT_LOG_VERSION;
 
     private final TransactionLogFilesContext logFilesContext;
     private final TransactionLogFileInformation logFileInformation;
@@ -253,12 +257,12 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         {
             // Either the header is not there in full or the file was new. Don't care
             long lastTxId = lastTransactionIdSupplier.getAsLong();
-            writeLogHeader( headerBuffer, forVersion, lastTxId );
+            writeLogHeader( headerBuffer, forVersion, lastTxId, NEW_LOG_FORMAT_VERSION );
             logHeaderCache.putHeader( forVersion, lastTxId );
             storeChannel.writeAll( headerBuffer );
             monitor.created( toOpen, forVersion, lastTxId );
         }
-        byte formatVersion = header == null ? CURRENT_LOG_VERSION : header.logFormatVersion;
+        byte formatVersion = header == null ? NEW_LOG_FORMAT_VERSION : header.logFormatVersion;
         return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, formatVersion );
     }
 
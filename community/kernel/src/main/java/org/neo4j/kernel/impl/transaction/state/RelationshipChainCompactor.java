@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.util.Arrays;
+
+import org.neo4j.kernel.impl.locking.LockTracer;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.InvalidRecordException;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.state.RecordAccess.RecordProxy;
+import org.neo4j.kernel.impl.util.DirectionWrapper;
+import org.neo4j.storageengine.api.lock.ResourceLocker;
+
+import static org.neo4j.kernel.impl.transaction.state.RelationshipCreator.relCount;
+
+/**
+ * Relinks the relationship chains of dense nodes such that traversing them visits relationship records in
+ * ascending id order, i.e. in store file order.
+ * <p>
+ * Relationships are prepended to a chain as they are created and ids are reused after deletes, so over time the
+ * chains of a dense node end up jumping back and forth across the relationship store. Relationship ids are record
+ * positions and are exposed to users, so records are never moved. Instead a chain is relinked by id, which makes
+ * a traversal read each page of the relationship store holding relationships of the chain once and in sequence.
+ * <p>
+ * Like {@link RelationshipCreator} and {@link RelationshipDeleter} all changes are made through a
+ * {@link RecordAccessSet}, such that they end up as commands of a transaction.
+ */
+public class RelationshipChainCompactor
+{
+    private static final long NO_RELATIONSHIP = Record.NO_NEXT_RELATIONSHIP.intValue();
+
+    private final int recordsPerPage;
+    private final int minDegree;
+    private final double minFragmentation;
+
+    /**
+     * @param recordsPerPage number of relationship records in a page of the relationship store.
+     * @param minDegree chains with fewer relationships than this are left as they are.
+     * @param minFragmentation chains with a lower {@link #fragmentation(long[]) fragmentation} than this are left
+     * as they are.
+     */
+    public RelationshipChainCompactor( int recordsPerPage, int minDegree, double minFragmentation )
+    {
+        this.recordsPerPage = recordsPerPage;
+        this.minDegree = minDegree;
+        this.minFragmentation = minFragmentation;
+    }
+
+    /**
+     * Checks whether any chain of the given node should be compacted, without taking any locks. Since chains can
+     * change concurrently the answer is only a hint, {@link #compact(long, RecordAccessSet, ResourceLocker)} checks
+     * the chains again once they are locked.
+     *
+     * @param nodeId id of the node to check.
+     * @param recordChanges access to the records, which won't be changed.
+     * @return whether or not the node is dense and has at least one chain to compact.
+     */
+    public boolean needsCompaction( long nodeId, RecordAccessSet recordChanges )
+    {
+        try
+        {
+            NodeRecord node = recordChanges.getNodeRecords().getOrLoad( nodeId, null ).forReadingLinkage();
+            if ( !node.isDense() )
+            {
+                return false;
+            }
+            for ( long groupId = node.getNextRel(); groupId != NO_RELATIONSHIP; )
+            {
+                RelationshipGroupRecord group = recordChanges.getRelGroupRecords().getOrLoad( groupId, null ).forReadingData();
+                for ( DirectionWrapper direction : DirectionWrapper.values() )
+                {
+                    long firstRelationship = direction.getNextRel( group );
+                    if ( hasMinDegree( nodeId, firstRelationship, recordChanges.getRelRecords() ) &&
+                         shouldCompact( chain( nodeId, firstRelationship, recordChanges.getRelRecords() ) ) )
+                    {
+                        return true;
+                    }
+                }
+                groupId = group.getNext();
+            }
+            return false;
+        }
+        catch ( InvalidRecordException e )
+        {
+            // The node or one of its chains changed while we were reading it, let the next check have a go at it
+            return false;
+        }
+    }
+
+    /**
+     * Relinks the chains of the given node which have at least the minimum degree and fragmentation, in ascending
+     * relationship id order. The node and then every relationship in its chains are locked exclusively before
+     * anything is changed, the same locks a transaction creating or deleting relationships of the node would take.
+     *
+     * @param nodeId id of the node to compact.
+     * @param recordChanges access to the records to change.
+     * @param locks locks of the transaction doing the compaction.
+     * @return number of chains which were relinked.
+     */
+    public int compact( long nodeId, RecordAccessSet recordChanges, ResourceLocker locks )
+    {
+        locks.acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, nodeId );
+        NodeRecord node = recordChanges.getNodeRecords().getOrLoad( nodeId, null ).forReadingLinkage();
+        if ( !node.isDense() )
+        {
+            return 0;
+        }
+
+        int compacted = 0;
+        for ( long groupId = node.getNextRel(); groupId != NO_RELATIONSHIP; )
+        {
+            RecordProxy<RelationshipGroupRecord,Integer> groupChange = recordChanges.getRelGroupRecords().getOrLoad( groupId, null );
+            RelationshipGroupRecord group = groupChange.forReadingData();
+            for ( DirectionWrapper direction : DirectionWrapper.values() )
+            {
+                long firstRelationship = direction.getNextRel( group );
+                if ( !hasMinDegree( nodeId, firstRelationship, recordChanges.getRelRecords() ) )
+                {
+                    continue;
+                }
+                long[] chain = chain( nodeId, firstRelationship, recordChanges.getRelRecords() );
+                if ( shouldCompact( chain ) )
+                {
+                    Arrays.sort( chain );
+                    locks.acquireExclusive( LockTracer.NONE, ResourceTypes.RELATIONSHIP, chain );
+                    relink( nodeId, chain, recordChanges.getRelRecords() );
+                    direction.setNextRel( groupChange.forChangingData(), chain[0] );
+                    compacted++;
+                }
+            }
+            groupId = group.getNext();
+        }
+        return compacted;
+    }
+
+    /**
+     * Measures how scattered a chain is over the pages of the relationship store, as the number of pages a
+     * traversal moves to divided by the number of distinct pages the chain occupies. A chain visiting its pages
+     * one after the other, in whichever order, gets {@code 1}, a chain alternating between two pages on every
+     * relationship gets half its length.
+     *
+     * @param chain relationship ids in traversal order.
+     * @return fragmentation of the chain, {@code 0} for an empty chain.
+     */
+    double fragmentation( long[] chain )
+    {
+        if ( chain.length == 0 )
+        {
+            return 0;
+        }
+        long pageSwitches = 1;
+        for ( int i = 1; i < chain.length; i++ )
+        {
+            if ( chain[i] / recordsPerPage != chain[i - 1] / recordsPerPage )
+            {
+                pageSwitches++;
+            }
+        }
+        long[] sorted = chain.clone();
+        Arrays.sort( sorted );
+        long distinctPages = 1;
+        for ( int i = 1; i < sorted.length; i++ )
+        {
+            if ( sorted[i] / recordsPerPage != sorted[i - 1] / recordsPerPage )
+            {
+                distinctPages++;
+            }
+        }
+        return (double) pageSwitches / distinctPages;
+    }
+
+    /**
+     * @return the relationship ids of the chain of the given node, in traversal order.
+     */
+    static long[] chain( long nodeId, long firstRelationship, RecordAccess<RelationshipRecord,Void> relRecords )
+    {
+        if ( firstRelationship == NO_RELATIONSHIP )
+        {
+            return new long[0];
+        }
+        RelationshipRecord relationship = relRecords.getOrLoad( firstRelationship, null ).forReadingLinkage();
+        int degree = degree( nodeId, relationship );
+        long[] ids = new long[degree];
+        int size = 0;
+        for ( long id = firstRelationship; id != NO_RELATIONSHIP; )
+        {
+            if ( size == degree )
+            {
+                throw new InvalidRecordException( "Relationship chain of node " + nodeId + " starting at " +
+                        firstRelationship + " is longer than its degree " + degree );
+            }
+            relationship = relRecords.getOrLoad( id, null ).forReadingLinkage();
+            ids[size++] = id;
+            id = relationship.getFirstNode() == nodeId ? relationship.getFirstNextRel() : relationship.getSecondNextRel();
+        }
+        if ( size != degree )
+        {
+            throw new InvalidRecordException( "Relationship chain of node " + nodeId + " starting at " +
+                    firstRelationship + " is shorter than its degree " + degree );
+        }
+        return ids;
+    }
+
+    private boolean hasMinDegree( long nodeId, long firstRelationship, RecordAccess<RelationshipRecord,Void> relRecords )
+    {
+        return firstRelationship != NO_RELATIONSHIP &&
+               degree( nodeId, relRecords.getOrLoad( firstRelationship, null ).forReadingLinkage() ) >= minDegree;
+    }
+
+    private boolean shouldCompact( long[] chain )
+    {
+        return chain.length > 1 && !isSorted( chain ) && fragmentation( chain ) >= minFragmentation;
+    }
+
+    /**
+     * @return the length of the chain of the given node starting at the given relationship, which the first
+     * relationship in a chain keeps in place of its previous relationship.
+     */
+    private static int degree( long nodeId, RelationshipRecord firstRelationship )
+    {
+        boolean first = firstRelationship.getFirstNode() == nodeId ? firstRelationship.isFirstInFirstChain()
+                                                                   : firstRelationship.isFirstInSecondChain();
+        if ( !first )
+        {
+            throw new InvalidRecordException( firstRelationship + " isn't first in the chain of node " + nodeId );
+        }
+        return relCount( nodeId, firstRelationship );
+    }
+
+    /**
+     * Links the relationships of a chain of the given node in the given order, updating the first-in-chain
+     * markers and the degree kept in the first relationship. Pointers of the chains of the other nodes of
+     * the relationships are left as they are.
+     */
+    private static void relink( long nodeId, long[] order, RecordAccess<RelationshipRecord,Void> relRecords )
+    {
+        for ( int i = 0; i < order.length; i++ )
+        {
+            RelationshipRecord relationship = relRecords.getOrLoad( order[i], null ).forChangingLinkage();
+            boolean first = i == 0;
+            long prev = first ? order.length : order[i - 1];
+            long next = i == order.length - 1 ? NO_RELATIONSHIP : order[i + 1];
+            if ( relationship.getFirstNode() == nodeId )
+            {
+                relationship.setFirstPrevRel( prev );
+                relationship.setFirstNextRel( next );
+                relationship.setFirstInFirstChain( first );
+            }
+            if ( relationship.getSecondNode() == nodeId )
+            {
+                relationship.setSecondPrevRel( prev );
+                relationship.setSecondNextRel( next );
+                relationship.setFirstInSecondChain( first );
+            }
+        }
+    }
+
+    private static boolean isSorted( long[] chain )
+    {
+        for ( int i = 1; i < chain.length; i++ )
+        {
+            if ( chain[i] < chain[i - 1] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
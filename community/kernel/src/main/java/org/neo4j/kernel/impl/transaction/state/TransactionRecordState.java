@@ -22,8 +22,12 @@ package org.neo4j.kernel.impl.transaction.state;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.core.RelationshipTypeToken;
 import org.neo4j.kernel.impl.store.MetaDataStore;
@@ -56,6 +60,7 @@ import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceLocker;
 import org.neo4j.storageengine.api.schema.SchemaRule;
+import org.neo4j.util.FeatureToggles;
 import org.neo4j.values.storable.Value;
 
 import static java.lang.String.format;
@@ -77,6 +82,13 @@ public class TransactionRecordState implements RecordState
 {
     private static final Command[] EMPTY_COMMANDS = new Command[0];
 
+    /**
+     * Minimum number of changed records for {@link #extractCommands(Collection, ExecutorService)} to create commands
+     * in parallel. Below this the overhead of handing off work to other threads outweighs the gain.
+     */
+    static final int PARALLEL_EXTRACTION_THRESHOLD =
+            FeatureToggles.getInteger( TransactionRecordState.class, "parallelExtractionThreshold", 10_000 );
+
     private final NeoStores neoStores;
     private final IntegrityValidator integrityValidator;
     private final NodeStore nodeStore;
@@ -130,6 +142,23 @@ public class TransactionRecordState implements RecordState
 
     @Override
     public void extractCommands( Collection<StorageCommand> commands ) throws TransactionFailureException
+    {
+        extractCommands( commands, null );
+    }
+
+    /**
+     * Like {@link #extractCommands(Collection)}, but if the transaction changes at least
+     * {@link #PARALLEL_EXTRACTION_THRESHOLD} records the relationship, property and relationship group commands
+     * are created by the given executor, while node commands are created by the calling thread. The resulting
+     * order of commands is the same as when extracting them sequentially.
+     *
+     * @param commands collection to add the commands to.
+     * @param executor executor for creating commands in parallel, or {@code null} to create all of them
+     * in the calling thread.
+     * @throws TransactionFailureException if the transaction state is not valid.
+     */
+    public void extractCommands( Collection<StorageCommand> commands, ExecutorService executor )
+            throws TransactionFailureException
     {
         assert !prepared : "Transaction has already been prepared";
 
@@ -154,88 +183,37 @@ public class TransactionRecordState implements RecordState
         }
 
         // Collect nodes, relationships, properties
-        Command[] nodeCommands = EMPTY_COMMANDS;
-        int skippedCommands = 0;
-        if ( recordChangeSet.getNodeRecords().changeSize() > 0 )
-        {
-            nodeCommands = new Command[recordChangeSet.getNodeRecords().changeSize()];
-            int i = 0;
-            for ( RecordProxy<NodeRecord, Void> change : recordChangeSet.getNodeRecords().changes() )
-            {
-                NodeRecord record = prepared( change, nodeStore );
-                integrityValidator.validateNodeRecord( record );
-                nodeCommands[i++] = new Command.NodeCommand( change.getBefore(), record );
-            }
-            Arrays.sort( nodeCommands, COMMAND_SORTER );
-        }
-
-        Command[] relCommands = EMPTY_COMMANDS;
-        if ( recordChangeSet.getRelRecords().changeSize() > 0 )
+        Command[] nodeCommands;
+        Command[] relCommands;
+        Command[] propCommands;
+        Command[] relGroupCommands;
+        if ( executor != null && recordChangeSet.changeSize() >= PARALLEL_EXTRACTION_THRESHOLD )
         {
-            relCommands = new Command[recordChangeSet.getRelRecords().changeSize()];
-            int i = 0;
-            for ( RecordProxy<RelationshipRecord, Void> change : recordChangeSet.getRelRecords().changes() )
+            Future<Command[]> relCommandsFuture = executor.submit( this::relationshipCommands );
+            Future<Command[]> propCommandsFuture = executor.submit( this::propertyCommands );
+            Future<Command[]> relGroupCommandsFuture = executor.submit( this::relationshipGroupCommands );
+            try
             {
-                relCommands[i++] = new Command.RelationshipCommand( change.getBefore(),
-                        prepared( change, relationshipStore ) );
+                nodeCommands = nodeCommands();
+                relCommands = await( relCommandsFuture );
+                propCommands = await( propCommandsFuture );
+                relGroupCommands = await( relGroupCommandsFuture );
             }
-            Arrays.sort( relCommands, COMMAND_SORTER );
-        }
-
-        Command[] propCommands = EMPTY_COMMANDS;
-        if ( recordChangeSet.getPropertyRecords().changeSize() > 0 )
-        {
-            propCommands = new Command[recordChangeSet.getPropertyRecords().changeSize()];
-            int i = 0;
-            for ( RecordProxy<PropertyRecord, PrimitiveRecord> change :
-                recordChangeSet.getPropertyRecords().changes() )
+            catch ( TransactionFailureException | RuntimeException | Error e )
             {
-                propCommands[i++] = new Command.PropertyCommand( change.getBefore(),
-                        prepared( change, propertyStore ) );
+                // the other partitions still read the record changes, which must not be touched until they are done
+                awaitQuietly( relCommandsFuture, propCommandsFuture, relGroupCommandsFuture );
+                throw e;
             }
-            Arrays.sort( propCommands, COMMAND_SORTER );
         }
-
-        Command[] relGroupCommands = EMPTY_COMMANDS;
-        if ( recordChangeSet.getRelGroupRecords().changeSize() > 0 )
+        else
         {
-            relGroupCommands = new Command[recordChangeSet.getRelGroupRecords().changeSize()];
-            int i = 0;
-            for ( RecordProxy<RelationshipGroupRecord, Integer> change :
-                recordChangeSet.getRelGroupRecords().changes() )
-            {
-                if ( change.isCreated() && !change.forReadingLinkage().inUse() )
-                {
-                    /*
-                     * This is an edge case that may come up and which we must handle properly. Relationship groups are
-                     * not managed by the tx state, since they are created as side effects rather than through
-                     * direct calls. However, they differ from say, dynamic records, in that their management can happen
-                     * through separate code paths. What we are interested in here is the following scenario.
-                     * 0. A node has one less relationship that is required to transition to dense node. The relationships
-                     *    it has belong to at least two different types
-                     * 1. In the same tx, a relationship is added making the node dense and all the relationships of a type
-                     *    are removed from that node. Regardless of the order these operations happen, the creation of the
-                     *    relationship (and the transition of the node to dense) will happen first.
-                     * 2. A relationship group will be created because of the transition to dense and then deleted because
-                     *    all the relationships it would hold are no longer there. This results in a relationship group
-                     *    command that appears in the tx as not in use. Depending on the final order of operations, this
-                     *    can end up using an id that is higher than the highest id seen so far. This may not be a problem
-                     *    for a single instance, but it can result in errors in cases where transactions are applied
-                     *    externally, such as backup or HA.
-                     *
-                     * The way we deal with this issue here is by not issuing a command for that offending record. This is
-                     * safe, since the record is not in use and never was, so the high id is not necessary to change and
-                     * the store remains consistent.
-                     */
-                    skippedCommands++;
-                    continue;
-                }
-                relGroupCommands[i++] = new Command.RelationshipGroupCommand( change.getBefore(),
-                        prepared( change, relationshipGroupStore ) );
-            }
-            relGroupCommands = i < relGroupCommands.length ? Arrays.copyOf( relGroupCommands, i ) : relGroupCommands;
-            Arrays.sort( relGroupCommands, COMMAND_SORTER );
+            nodeCommands = nodeCommands();
+            relCommands = relationshipCommands();
+            propCommands = propertyCommands();
+            relGroupCommands = relationshipGroupCommands();
         }
+        int skippedCommands = recordChangeSet.getRelGroupRecords().changeSize() - relGroupCommands.length;
 
         addFiltered( commands, Mode.CREATE, propCommands, relCommands, relGroupCommands, nodeCommands );
         addFiltered( commands, Mode.UPDATE, propCommands, relCommands, relGroupCommands, nodeCommands );
@@ -263,6 +241,160 @@ public class TransactionRecordState implements RecordState
         prepared = true;
     }
 
+    private Command[] nodeCommands() throws TransactionFailureException
+    {
+        if ( recordChangeSet.getNodeRecords().changeSize() == 0 )
+        {
+            return EMPTY_COMMANDS;
+        }
+        Command[] nodeCommands = new Command[recordChangeSet.getNodeRecords().changeSize()];
+        int i = 0;
+        for ( RecordProxy<NodeRecord, Void> change : recordChangeSet.getNodeRecords().changes() )
+        {
+            NodeRecord record = prepared( change, nodeStore );
+            integrityValidator.validateNodeRecord( record );
+            nodeCommands[i++] = new Command.NodeCommand( change.getBefore(), record );
+        }
+        Arrays.sort( nodeCommands, COMMAND_SORTER );
+        return nodeCommands;
+    }
+
+    private Command[] relationshipCommands()
+    {
+        if ( recordChangeSet.getRelRecords().changeSize() == 0 )
+        {
+            return EMPTY_COMMANDS;
+        }
+        Command[] relCommands = new Command[recordChangeSet.getRelRecords().changeSize()];
+        int i = 0;
+        for ( RecordProxy<RelationshipRecord, Void> change : recordChangeSet.getRelRecords().changes() )
+        {
+            relCommands[i++] = new Command.RelationshipCommand( change.getBefore(),
+                    prepared( change, relationshipStore ) );
+        }
+        Arrays.sort( relCommands, COMMAND_SORTER );
+        return relCommands;
+    }
+
+    private Command[] propertyCommands()
+    {
+        if ( recordChangeSet.getPropertyRecords().changeSize() == 0 )
+        {
+            return EMPTY_COMMANDS;
+        }
+        Command[] propCommands = new Command[recordChangeSet.getPropertyRecords().changeSize()];
+        int i = 0;
+        for ( RecordProxy<PropertyRecord, PrimitiveRecord> change :
+            recordChangeSet.getPropertyRecords().changes() )
+        {
+            propCommands[i++] = new Command.PropertyCommand( change.getBefore(),
+                    prepared( change, propertyStore ) );
+        }
+        Arrays.sort( propCommands, COMMAND_SORTER );
+        return propCommands;
+    }
+
+    private Command[] relationshipGroupCommands()
+    {
+        if ( recordChangeSet.getRelGroupRecords().changeSize() == 0 )
+        {
+            return EMPTY_COMMANDS;
+        }
+        Command[] relGroupCommands = new Command[recordChangeSet.getRelGroupRecords().changeSize()];
+        int i = 0;
+        for ( RecordProxy<RelationshipGroupRecord, Integer> change :
+            recordChangeSet.getRelGroupRecords().changes() )
+        {
+            if ( change.isCreated() && !change.forReadingLinkage().inUse() )
+            {
+                /*
+                 * This is an edge case that may come up and which we must handle properly. Relationship groups are
+                 * not managed by the tx state, since they are created as side effects rather than through
+                 * direct calls. However, they differ from say, dynamic records, in that their management can happen
+                 * through separate code paths. What we are interested in here is the following scenario.
+                 * 0. A node has one less relationship that is required to transition to dense node. The relationships
+                 *    it has belong to at least two different types
+                 * 1. In the same tx, a relationship is added making the node dense and all the relationships of a type
+                 *    are removed from that node. Regardless of the order these operations happen, the creation of the
+                 *    relationship (and the transition of the node to dense) will happen first.
+                 * 2. A relationship group will be created because of the transition to dense and then deleted because
+                 *    all the relationships it would hold are no longer there. This results in a relationship group
+                 *    command that appears in the tx as not in use. Depending on the final order of operations, this
+                 *    can end up using an id that is higher than the highest id seen so far. This may not be a problem
+                 *    for a single instance, but it can result in errors in cases where transactions are applied
+                 *    externally, such as backup or HA.
+                 *
+                 * The way we deal with this issue here is by not issuing a command for that offending record. This is
+                 * safe, since the record is not in use and never was, so the high id is not necessary to change and
+                 * the store remains consistent.
+                 */
+                continue;
+            }
+            relGroupCommands[i++] = new Command.RelationshipGroupCommand( change.getBefore(),
+                    prepared( change, relationshipGroupStore ) );
+        }
+        relGroupCommands = i < relGroupCommands.length ? Arrays.copyOf( relGroupCommands, i ) : relGroupCommands;
+        Arrays.sort( relGroupCommands, COMMAND_SORTER );
+        return relGroupCommands;
+    }
+
+    @SafeVarargs
+    private static void awaitQuietly( Future<Command[]>... futures )
+    {
+        boolean interrupted = false;
+        for ( Future<Command[]> future : futures )
+        {
+            while ( true )
+            {
+                try
+                {
+                    future.get();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    break;
+                }
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Command[] await( Future<Command[]> future ) throws TransactionFailureException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new TransactionFailureException( Status.Transaction.TransactionCommitFailed, e,
+                    "Interrupted while creating commands" );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new TransactionFailureException( Status.Transaction.TransactionCommitFailed, cause,
+                    "Failed to create commands" );
+        }
+    }
+
     private <RECORD extends AbstractBaseRecord> RECORD prepared(
             RecordProxy<RECORD,?> proxy, RecordStore<RECORD> store )
     {
@@ -281,6 +413,18 @@ public class TransactionRecordState implements RecordState
         relationshipDeleter.relDelete( relId, recordChangeSet, locks );
     }
 
+    /**
+     * Relinks the relationship chains of a dense node in relationship id order, see {@link RelationshipChainCompactor}.
+     *
+     * @param nodeId The id of the dense node to compact the chains of.
+     * @param compactor decides which chains to relink.
+     * @return number of chains which were relinked.
+     */
+    public int relChainsCompact( long nodeId, RelationshipChainCompactor compactor )
+    {
+        return compactor.compact( nodeId, recordChangeSet, locks );
+    }
+
     @SafeVarargs
     private final void addFiltered( Collection<StorageCommand> target, Mode mode,
                                     Command[]... commands )
@@ -31,6 +31,12 @@ public interface CommitEvent extends AutoCloseable
         {
         }
 
+        @Override
+        public CommandCreationEvent beginCommandCreation()
+        {
+            return CommandCreationEvent.NULL;
+        }
+
         @Override
         public LogAppendEvent beginLogAppend()
         {
@@ -50,6 +56,11 @@ public interface CommitEvent extends AutoCloseable
     @Override
     void close();
 
+    /**
+     * Begin converting the transaction state of the committing transaction into commands.
+     */
+    CommandCreationEvent beginCommandCreation();
+
     /**
      * Begin appending commands for the committing transaction, to the transaction log.
      */
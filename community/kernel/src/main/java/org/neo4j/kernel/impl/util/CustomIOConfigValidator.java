@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.util;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.impl.MappedFilePageSwapperFactory;
 import org.neo4j.kernel.configuration.Config;
 
 public class CustomIOConfigValidator
@@ -39,7 +40,9 @@ public class CustomIOConfigValidator
 
     private static boolean customIOConfigUsed( Config config )
     {
-        return config.get( GraphDatabaseSettings.pagecache_swapper ) != null;
+        String swapper = config.get( GraphDatabaseSettings.pagecache_swapper );
+        // The memory mapped swapper works on the regular store files, so it is not custom IO.
+        return swapper != null && !swapper.equals( MappedFilePageSwapperFactory.IMPLEMENTATION_NAME );
     }
 
     private static class CustomIOConfigNotSupportedException extends RuntimeException
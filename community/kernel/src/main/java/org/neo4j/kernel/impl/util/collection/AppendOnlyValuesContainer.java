@@ -0,0 +1,704 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.lang.reflect.Array;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueWriter;
+import org.neo4j.values.storable.Values;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Stores {@link Value values} serialized in off-heap memory, which is allocated in chunks and tracked by a
+ * {@link MemoryAllocationTracker}. Values can only be added, each addition returning a reference which can be used
+ * to read the value back. All memory is released at once with {@link #close()}.
+ * <p>
+ * Optionally, once the allocated memory would exceed a threshold, all chunks are moved to a temporary file and read
+ * back from there on demand, so that huge transactions are not bounded by available memory.
+ * <p>
+ * This class is not thread-safe.
+ */
+class AppendOnlyValuesContainer implements AutoCloseable
+{
+    static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final int SPILL_READ_WINDOW_SIZE = 4 * 1024;
+
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte FLOAT = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte STRING = 8;
+    private static final byte CHAR = 9;
+    private static final byte ARRAY = 10;
+    private static final byte BYTE_ARRAY = 11;
+    private static final byte POINT = 12;
+    private static final byte DURATION = 13;
+    private static final byte DATE = 14;
+    private static final byte LOCAL_TIME = 15;
+    private static final byte TIME = 16;
+    private static final byte LOCAL_DATE_TIME = 17;
+    private static final byte DATE_TIME = 18;
+
+    private static final byte ZONE_OFFSET = 0;
+    private static final byte ZONE_ID = 1;
+
+    private static final AtomicLong spillFileCounter = new AtomicLong();
+
+    private final int chunkSize;
+    private final MemoryAllocationTracker memoryTracker;
+    private final FileSystemAbstraction fs;
+    private final File spillDirectory;
+    private final long spillThreshold;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Writer writer = new Writer();
+    private Chunk currentChunk;
+    private long allocatedMemory;
+    private boolean closed;
+
+    private File spillFile;
+    private StoreChannel spillChannel;
+    private long spillFileSize;
+    private ByteBuffer readWindow;
+    private long readWindowPosition;
+
+    AppendOnlyValuesContainer( MemoryAllocationTracker memoryTracker )
+    {
+        this( DEFAULT_CHUNK_SIZE, memoryTracker );
+    }
+
+    AppendOnlyValuesContainer( int chunkSize, MemoryAllocationTracker memoryTracker )
+    {
+        this( chunkSize, memoryTracker, null, null, 0 );
+    }
+
+    /**
+     * @param spillThreshold number of bytes of off-heap memory after which chunks are moved to a temporary file in
+     * {@code spillDirectory}, or {@code 0} to never spill.
+     */
+    AppendOnlyValuesContainer( int chunkSize, MemoryAllocationTracker memoryTracker, FileSystemAbstraction fs,
+            File spillDirectory, long spillThreshold )
+    {
+        this.chunkSize = chunkSize;
+        this.memoryTracker = memoryTracker;
+        this.fs = fs;
+        this.spillDirectory = spillDirectory;
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @param value value to store.
+     * @return reference to the stored value, to be used with {@link #get(long)}.
+     */
+    long add( Value value )
+    {
+        assertOpen();
+        ByteBuffer serialized = writer.serialize( value );
+        int size = Integer.BYTES + serialized.remaining();
+        if ( currentChunk == null || currentChunk.buffer.remaining() < size )
+        {
+            currentChunk = newChunk( Math.max( chunkSize, size ) );
+        }
+        int chunk = chunks.size() - 1;
+        int offset = currentChunk.buffer.position();
+        // values are prefixed with their length, so that a spilled value can be read without the rest of its chunk
+        currentChunk.buffer.putInt( serialized.remaining() ).put( serialized );
+        return ((long) chunk << 32) | offset;
+    }
+
+    /**
+     * @param ref reference returned from {@link #add(Value)}.
+     * @return the value stored with the given reference.
+     */
+    Value get( long ref )
+    {
+        assertOpen();
+        int chunkIndex = (int) (ref >>> 32);
+        Chunk chunk = chunks.get( chunkIndex );
+        int offset = (int) ref;
+        if ( chunk.buffer == null )
+        {
+            return readValue( readSpilledValue( chunk.filePosition + offset ) );
+        }
+        ByteBuffer buffer = chunk.buffer.duplicate();
+        buffer.position( offset + Integer.BYTES );
+        return readValue( buffer );
+    }
+
+    /**
+     * @return whether or not any chunks have been moved to disk.
+     */
+    boolean hasSpilled()
+    {
+        return spillChannel != null;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( !closed )
+        {
+            for ( Chunk chunk : chunks )
+            {
+                if ( chunk.buffer != null )
+                {
+                    freeChunk( chunk );
+                }
+            }
+            chunks.clear();
+            currentChunk = null;
+            readWindow = null;
+            closed = true;
+            if ( spillChannel != null )
+            {
+                try
+                {
+                    spillChannel.close();
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+                finally
+                {
+                    fs.deleteFile( spillFile );
+                }
+            }
+        }
+    }
+
+    private Chunk newChunk( int size )
+    {
+        if ( spillThreshold > 0 && allocatedMemory + size > spillThreshold )
+        {
+            spill();
+        }
+        long address = UnsafeUtil.allocateMemory( size, memoryTracker );
+        allocatedMemory += size;
+        try
+        {
+            // the wrapping buffer skips its constructor, so its byte order must be set to match the spill read buffers
+            ByteBuffer buffer = UnsafeUtil.newDirectByteBuffer( address, size ).order( ByteOrder.BIG_ENDIAN );
+            Chunk chunk = new Chunk( address, size, buffer );
+            chunks.add( chunk );
+            return chunk;
+        }
+        catch ( Exception e )
+        {
+            UnsafeUtil.free( address, size, memoryTracker );
+            allocatedMemory -= size;
+            throw new IllegalStateException( "Unable to create buffer for off-heap memory", e );
+        }
+    }
+
+    /**
+     * Appends all chunks still in memory to the spill file and releases their memory. Chunks are never written to,
+     * once another chunk has been allocated after them, so they stay immutable after being spilled.
+     */
+    private void spill()
+    {
+        try
+        {
+            if ( spillChannel == null )
+            {
+                fs.mkdirs( spillDirectory );
+                spillFile = new File( spillDirectory, "tx-state-" + spillFileCounter.incrementAndGet() );
+                spillChannel = fs.open( spillFile, OpenMode.READ_WRITE );
+            }
+            for ( Chunk chunk : chunks )
+            {
+                if ( chunk.buffer != null )
+                {
+                    ByteBuffer data = chunk.buffer.duplicate();
+                    data.flip();
+                    int length = data.remaining();
+                    chunk.filePosition = spillFileSize;
+                    spillChannel.writeAll( data, spillFileSize );
+                    spillFileSize += length;
+                    freeChunk( chunk );
+                }
+            }
+            currentChunk = null;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( "Unable to spill transaction state to " + spillDirectory, e );
+        }
+    }
+
+    /**
+     * Reads a spilled value through a small read window, which is only refilled when the value isn't already in it.
+     * This keeps random reads from reading whole chunks, while the mostly sequential reads made when creating
+     * commands still read many values at a time.
+     */
+    private ByteBuffer readSpilledValue( long position )
+    {
+        int length = readWindow( position, Integer.BYTES ).getInt();
+        return readWindow( position + Integer.BYTES, length );
+    }
+
+    private ByteBuffer readWindow( long position, int length )
+    {
+        if ( readWindow == null || position < readWindowPosition ||
+             position + length > readWindowPosition + readWindow.limit() )
+        {
+            fillReadWindow( position, length );
+        }
+        ByteBuffer buffer = readWindow.duplicate();
+        buffer.position( (int) (position - readWindowPosition) );
+        return buffer;
+    }
+
+    private void fillReadWindow( long position, int length )
+    {
+        int capacity = Math.max( SPILL_READ_WINDOW_SIZE, length );
+        if ( readWindow == null || readWindow.capacity() < capacity )
+        {
+            readWindow = ByteBuffer.allocate( capacity );
+        }
+        readWindow.clear().limit( (int) Math.min( readWindow.capacity(), spillFileSize - position ) );
+        readWindowPosition = position;
+        try
+        {
+            while ( readWindow.hasRemaining() )
+            {
+                if ( spillChannel.read( readWindow, position + readWindow.position() ) == -1 )
+                {
+                    throw new IOException( "Unexpected end of spill file " + spillFile );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            readWindow.limit( 0 );
+            throw new UncheckedIOException( e );
+        }
+        readWindow.flip();
+    }
+
+    private void freeChunk( Chunk chunk )
+    {
+        UnsafeUtil.free( chunk.address, chunk.size, memoryTracker );
+        allocatedMemory -= chunk.size;
+        chunk.buffer = null;
+    }
+
+    private void assertOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Values container has been closed" );
+        }
+    }
+
+    private static Value readValue( ByteBuffer buffer )
+    {
+        byte type = buffer.get();
+        switch ( type )
+        {
+        case BOOLEAN:
+            return Values.booleanValue( buffer.get() != 0 );
+        case BYTE:
+            return Values.byteValue( buffer.get() );
+        case SHORT:
+            return Values.shortValue( buffer.getShort() );
+        case INT:
+            return Values.intValue( buffer.getInt() );
+        case LONG:
+            return Values.longValue( buffer.getLong() );
+        case FLOAT:
+            return Values.floatValue( buffer.getFloat() );
+        case DOUBLE:
+            return Values.doubleValue( buffer.getDouble() );
+        case STRING:
+            return Values.stringValue( readString( buffer ) );
+        case CHAR:
+            return Values.charValue( buffer.getChar() );
+        case ARRAY:
+            return readArray( buffer );
+        case BYTE_ARRAY:
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get( bytes );
+            return Values.byteArray( bytes );
+        case POINT:
+            CoordinateReferenceSystem crs = CoordinateReferenceSystem.get( buffer.getInt(), buffer.getInt() );
+            double[] coordinate = new double[buffer.getInt()];
+            for ( int i = 0; i < coordinate.length; i++ )
+            {
+                coordinate[i] = buffer.getDouble();
+            }
+            return Values.pointValue( crs, coordinate );
+        case DURATION:
+            return DurationValue.duration( buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt() );
+        case DATE:
+            return Values.temporalValue( LocalDate.ofEpochDay( buffer.getLong() ) );
+        case LOCAL_TIME:
+            return Values.temporalValue( LocalTime.ofNanoOfDay( buffer.getLong() ) );
+        case TIME:
+            LocalTime time = LocalTime.ofNanoOfDay( buffer.getLong() );
+            return Values.temporalValue( OffsetTime.of( time, ZoneOffset.ofTotalSeconds( buffer.getInt() ) ) );
+        case LOCAL_DATE_TIME:
+            long epochSecond = buffer.getLong();
+            LocalDateTime localDateTime = LocalDateTime.ofEpochSecond( epochSecond, buffer.getInt(), ZoneOffset.UTC );
+            return Values.temporalValue( localDateTime );
+        case DATE_TIME:
+            Instant instant = Instant.ofEpochSecond( buffer.getLong(), buffer.getInt() );
+            ZoneId zone = buffer.get() == ZONE_OFFSET ? ZoneOffset.ofTotalSeconds( buffer.getInt() )
+                                                      : ZoneId.of( readString( buffer ) );
+            return Values.temporalValue( ZonedDateTime.ofInstant( instant, zone ) );
+        default:
+            throw new IllegalStateException( "Unknown value type " + type );
+        }
+    }
+
+    private static Value readArray( ByteBuffer buffer )
+    {
+        ValueWriter.ArrayType arrayType = ValueWriter.ArrayType.values()[buffer.get()];
+        int length = buffer.getInt();
+        // each element is written with its own type byte, which primitive arrays skip to read the element in place
+        switch ( arrayType )
+        {
+        case BYTE:
+            byte[] bytes = new byte[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                bytes[i] = buffer.get();
+            }
+            return Values.byteArray( bytes );
+        case SHORT:
+            short[] shorts = new short[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                shorts[i] = buffer.getShort();
+            }
+            return Values.shortArray( shorts );
+        case INT:
+            int[] ints = new int[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                ints[i] = buffer.getInt();
+            }
+            return Values.intArray( ints );
+        case LONG:
+            long[] longs = new long[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                longs[i] = buffer.getLong();
+            }
+            return Values.longArray( longs );
+        case FLOAT:
+            float[] floats = new float[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                floats[i] = buffer.getFloat();
+            }
+            return Values.floatArray( floats );
+        case DOUBLE:
+            double[] doubles = new double[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                doubles[i] = buffer.getDouble();
+            }
+            return Values.doubleArray( doubles );
+        case BOOLEAN:
+            boolean[] booleans = new boolean[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                booleans[i] = buffer.get() != 0;
+            }
+            return Values.booleanArray( booleans );
+        case CHAR:
+            char[] chars = new char[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                chars[i] = buffer.getChar();
+            }
+            return Values.charArray( chars );
+        case STRING:
+            String[] strings = new String[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                buffer.get();
+                strings[i] = readString( buffer );
+            }
+            return Values.stringArray( strings );
+        default:
+            Object[] objects = (Object[]) Array.newInstance( elementClass( arrayType ), length );
+            for ( int i = 0; i < length; i++ )
+            {
+                objects[i] = readValue( buffer ).asObjectCopy();
+            }
+            return Values.of( objects );
+        }
+    }
+
+    private static Class<?> elementClass( ValueWriter.ArrayType arrayType )
+    {
+        switch ( arrayType )
+        {
+        case POINT:
+            return PointValue.class;
+        case ZONED_DATE_TIME:
+            return ZonedDateTime.class;
+        case LOCAL_DATE_TIME:
+            return LocalDateTime.class;
+        case DATE:
+            return LocalDate.class;
+        case ZONED_TIME:
+            return OffsetTime.class;
+        case LOCAL_TIME:
+            return LocalTime.class;
+        case DURATION:
+            return DurationValue.class;
+        default:
+            throw new IllegalStateException( "Unknown array type " + arrayType );
+        }
+    }
+
+    private static String readString( ByteBuffer buffer )
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get( bytes );
+        return new String( bytes, UTF_8 );
+    }
+
+    private static class Chunk
+    {
+        private final long address;
+        private final int size;
+        private ByteBuffer buffer;
+        private long filePosition;
+
+        Chunk( long address, int size, ByteBuffer buffer )
+        {
+            this.address = address;
+            this.size = size;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Serializes values into a reusable heap buffer, before they are copied into a chunk.
+     */
+    private static class Writer implements ValueWriter<RuntimeException>
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( 256 );
+
+        ByteBuffer serialize( Value value )
+        {
+            buffer.clear();
+            value.writeTo( this );
+            buffer.flip();
+            return buffer;
+        }
+
+        private ByteBuffer ensureCapacity( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        @Override
+        public void writeNull()
+        {
+            throw new IllegalArgumentException( "Can not store a null value" );
+        }
+
+        @Override
+        public void writeBoolean( boolean value )
+        {
+            ensureCapacity( 2 ).put( BOOLEAN ).put( value ? (byte) 1 : (byte) 0 );
+        }
+
+        @Override
+        public void writeInteger( byte value )
+        {
+            ensureCapacity( 2 ).put( BYTE ).put( value );
+        }
+
+        @Override
+        public void writeInteger( short value )
+        {
+            ensureCapacity( 3 ).put( SHORT ).putShort( value );
+        }
+
+        @Override
+        public void writeInteger( int value )
+        {
+            ensureCapacity( 5 ).put( INT ).putInt( value );
+        }
+
+        @Override
+        public void writeInteger( long value )
+        {
+            ensureCapacity( 9 ).put( LONG ).putLong( value );
+        }
+
+        @Override
+        public void writeFloatingPoint( float value )
+        {
+            ensureCapacity( 5 ).put( FLOAT ).putFloat( value );
+        }
+
+        @Override
+        public void writeFloatingPoint( double value )
+        {
+            ensureCapacity( 9 ).put( DOUBLE ).putDouble( value );
+        }
+
+        @Override
+        public void writeString( String value )
+        {
+            byte[] bytes = value.getBytes( UTF_8 );
+            writeUTF8( bytes, 0, bytes.length );
+        }
+
+        @Override
+        public void writeUTF8( byte[] bytes, int offset, int length )
+        {
+            ensureCapacity( 5 + length ).put( STRING ).putInt( length ).put( bytes, offset, length );
+        }
+
+        @Override
+        public void writeString( char value )
+        {
+            ensureCapacity( 3 ).put( CHAR ).putChar( value );
+        }
+
+        @Override
+        public void beginArray( int size, ArrayType arrayType )
+        {
+            ensureCapacity( 6 ).put( ARRAY ).put( (byte) arrayType.ordinal() ).putInt( size );
+        }
+
+        @Override
+        public void endArray()
+        {
+        }
+
+        @Override
+        public void writeByteArray( byte[] value )
+        {
+            ensureCapacity( 5 + value.length ).put( BYTE_ARRAY ).putInt( value.length ).put( value );
+        }
+
+        @Override
+        public void writePoint( CoordinateReferenceSystem crs, double[] coordinate )
+        {
+            ensureCapacity( 13 + coordinate.length * Double.BYTES ).put( POINT )
+                    .putInt( crs.getTable().getTableId() ).putInt( crs.getCode() ).putInt( coordinate.length );
+            for ( double c : coordinate )
+            {
+                buffer.putDouble( c );
+            }
+        }
+
+        @Override
+        public void writeDuration( long months, long days, long seconds, int nanos )
+        {
+            ensureCapacity( 29 ).put( DURATION ).putLong( months ).putLong( days ).putLong( seconds ).putInt( nanos );
+        }
+
+        @Override
+        public void writeDate( LocalDate localDate )
+        {
+            ensureCapacity( 9 ).put( DATE ).putLong( localDate.toEpochDay() );
+        }
+
+        @Override
+        public void writeLocalTime( LocalTime localTime )
+        {
+            ensureCapacity( 9 ).put( LOCAL_TIME ).putLong( localTime.toNanoOfDay() );
+        }
+
+        @Override
+        public void writeTime( OffsetTime offsetTime )
+        {
+            ensureCapacity( 13 ).put( TIME ).putLong( offsetTime.toLocalTime().toNanoOfDay() )
+                    .putInt( offsetTime.getOffset().getTotalSeconds() );
+        }
+
+        @Override
+        public void writeLocalDateTime( LocalDateTime localDateTime )
+        {
+            ensureCapacity( 13 ).put( LOCAL_DATE_TIME ).putLong( localDateTime.toEpochSecond( ZoneOffset.UTC ) )
+                    .putInt( localDateTime.getNano() );
+        }
+
+        @Override
+        public void writeDateTime( ZonedDateTime zonedDateTime )
+        {
+            ensureCapacity( 14 ).put( DATE_TIME ).putLong( zonedDateTime.toEpochSecond() )
+                    .putInt( zonedDateTime.getNano() );
+            ZoneId zone = zonedDateTime.getZone();
+            if ( zone instanceof ZoneOffset )
+            {
+                ensureCapacity( 5 ).put( ZONE_OFFSET ).putInt( ((ZoneOffset) zone).getTotalSeconds() );
+            }
+            else
+            {
+                byte[] id = zone.getId().getBytes( UTF_8 );
+                ensureCapacity( 5 + id.length ).put( ZONE_ID ).putInt( id.length ).put( id );
+            }
+        }
+    }
+}
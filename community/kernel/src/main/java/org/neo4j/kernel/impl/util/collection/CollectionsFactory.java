@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.collection;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.api.exceptions.TransactionMemoryLimitExceededException;
 import org.neo4j.kernel.impl.api.state.TxState;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.MemoryTracker;
@@ -40,7 +41,23 @@ public interface CollectionsFactory
 
     PrimitiveLongDiffSets newLongDiffSets();
 
+    ValuesMap newValuesMap();
+
     MemoryTracker getMemoryTracker();
 
     boolean collectionsMustBeReleased();
+
+    /**
+     * Verifies that memory allocated through this factory is still within the configured limit. Called on the write
+     * paths of the collections only, so that a transaction which exceeded the limit can still be read and rolled back.
+     *
+     * @throws TransactionMemoryLimitExceededException if the limit is exceeded.
+     */
+    void assertWithinMemoryLimit();
+
+    /**
+     * Releases memory shared by collections created by this factory, e.g. off-heap stored values. Collections
+     * themselves still have to be released separately.
+     */
+    void release();
 }
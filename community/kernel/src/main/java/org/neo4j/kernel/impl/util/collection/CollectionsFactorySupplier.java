@@ -19,6 +19,9 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.io.File;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.memory.LocalMemoryTracker;
 
 public interface CollectionsFactorySupplier
@@ -28,4 +31,19 @@ public interface CollectionsFactorySupplier
     CollectionsFactorySupplier OFF_HEAP = () -> new OffHeapCollectionsFactory( new LocalMemoryTracker() );
 
     CollectionsFactory create();
+
+    /**
+     * @param maxMemory maximum number of bytes of off-heap memory a single transaction state may use.
+     * @param fs file system to create spill files on.
+     * @param spillDirectory directory for temporary spill files.
+     * @param spillThreshold number of bytes of property values a transaction state keeps in memory before moving
+     * them to a spill file, or {@code 0} to never spill.
+     * @return supplier of off-heap collection factories which spill property values of huge transactions to disk.
+     */
+    static CollectionsFactorySupplier offHeap( long maxMemory, FileSystemAbstraction fs, File spillDirectory,
+            long spillThreshold )
+    {
+        return () -> new OffHeapCollectionsFactory( new LocalMemoryTracker(), maxMemory, fs, spillDirectory,
+                spillThreshold );
+    }
 }
@@ -19,10 +19,14 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.io.File;
+
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.api.exceptions.TransactionMemoryLimitExceededException;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.MemoryAllocationTracker;
 import org.neo4j.memory.MemoryTracker;
@@ -32,17 +36,41 @@ import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 class OffHeapCollectionsFactory implements CollectionsFactory
 {
+    private static final int INITIAL_SET_CAPACITY = 1 << 8;
+
     private final MemoryAllocationTracker memoryTracker;
+    private final long maxMemory;
+    private final FileSystemAbstraction fs;
+    private final File spillDirectory;
+    private final long spillThreshold;
+    private AppendOnlyValuesContainer valuesContainer;
 
     OffHeapCollectionsFactory( MemoryAllocationTracker memoryTracker )
+    {
+        this( memoryTracker, Long.MAX_VALUE );
+    }
+
+    OffHeapCollectionsFactory( MemoryAllocationTracker memoryTracker, long maxMemory )
+    {
+        this( memoryTracker, maxMemory, null, null, 0 );
+    }
+
+    OffHeapCollectionsFactory( MemoryAllocationTracker memoryTracker, long maxMemory, FileSystemAbstraction fs,
+            File spillDirectory, long spillThreshold )
     {
         this.memoryTracker = requireNonNull( memoryTracker );
+        this.maxMemory = maxMemory;
+        this.fs = fs;
+        this.spillDirectory = spillDirectory;
+        this.spillThreshold = spillThreshold;
     }
 
     @Override
     public PrimitiveLongSet newLongSet()
     {
-        return Primitive.offHeapLongSet( memoryTracker );
+        assertWithinMemoryLimit();
+        // sets grow on demand, most transactions only touch a handful of entities per set
+        return Primitive.offHeapLongSet( INITIAL_SET_CAPACITY, memoryTracker );
     }
 
     @Override
@@ -63,6 +91,18 @@ class OffHeapCollectionsFactory implements CollectionsFactory
         return new PrimitiveLongDiffSets( emptySet(), emptySet(), this );
     }
 
+    @Override
+    public ValuesMap newValuesMap()
+    {
+        assertWithinMemoryLimit();
+        if ( valuesContainer == null )
+        {
+            valuesContainer = new AppendOnlyValuesContainer( AppendOnlyValuesContainer.DEFAULT_CHUNK_SIZE, memoryTracker,
+                    fs, spillDirectory, spillThreshold );
+        }
+        return new OffHeapValuesMap( valuesContainer, this );
+    }
+
     @Override
     public MemoryTracker getMemoryTracker()
     {
@@ -74,4 +114,24 @@ class OffHeapCollectionsFactory implements CollectionsFactory
     {
         return true;
     }
+
+    @Override
+    public void assertWithinMemoryLimit()
+    {
+        long usedMemory = memoryTracker.usedDirectMemory();
+        if ( usedMemory > maxMemory )
+        {
+            throw new TransactionMemoryLimitExceededException( usedMemory, maxMemory );
+        }
+    }
+
+    @Override
+    public void release()
+    {
+        if ( valuesContainer != null )
+        {
+            valuesContainer.close();
+            valuesContainer = null;
+        }
+    }
 }
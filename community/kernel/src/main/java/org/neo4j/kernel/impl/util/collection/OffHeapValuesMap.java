@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntCollections;
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveIntLongMap;
+import org.neo4j.values.storable.Value;
+
+/**
+ * {@link ValuesMap} which keeps only references on heap, the values themselves are stored off-heap in an
+ * {@link AppendOnlyValuesContainer} shared by all maps of the same transaction. Replaced or removed values are not
+ * reclaimed until the container is closed.
+ */
+class OffHeapValuesMap implements ValuesMap
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final PrimitiveIntLongMap refs = Primitive.intLongMap( INITIAL_CAPACITY );
+    private final AppendOnlyValuesContainer valuesContainer;
+    private final CollectionsFactory collectionsFactory;
+
+    OffHeapValuesMap( AppendOnlyValuesContainer valuesContainer, CollectionsFactory collectionsFactory )
+    {
+        this.valuesContainer = valuesContainer;
+        this.collectionsFactory = collectionsFactory;
+    }
+
+    @Override
+    public void put( int key, Value value )
+    {
+        collectionsFactory.assertWithinMemoryLimit();
+        refs.put( key, valuesContainer.add( value ) );
+    }
+
+    @Override
+    public Value get( int key )
+    {
+        long ref = refs.get( key );
+        return ref == -1 ? null : valuesContainer.get( ref );
+    }
+
+    @Override
+    public boolean containsKey( int key )
+    {
+        return refs.containsKey( key );
+    }
+
+    @Override
+    public boolean remove( int key )
+    {
+        return refs.remove( key ) != -1;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return refs.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        refs.clear();
+    }
+
+    @Override
+    public PrimitiveIntIterator keyIterator()
+    {
+        int[] keys = new int[refs.size()];
+        PrimitiveIntIterator iterator = refs.iterator();
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            keys[i] = iterator.next();
+        }
+        return PrimitiveIntCollections.filter( PrimitiveIntCollections.iterator( keys ), refs::containsKey );
+    }
+}
@@ -61,6 +61,12 @@ public class OnHeapCollectionsFactory implements CollectionsFactory
         return new PrimitiveLongDiffSets( emptySet(), emptySet(), this );
     }
 
+    @Override
+    public ValuesMap newValuesMap()
+    {
+        return new OnHeapValuesMap();
+    }
+
     @Override
     public MemoryTracker getMemoryTracker()
     {
@@ -72,4 +78,16 @@ public class OnHeapCollectionsFactory implements CollectionsFactory
     {
         return false;
     }
+
+    @Override
+    public void assertWithinMemoryLimit()
+    {
+        // on-heap collections are limited by the heap
+    }
+
+    @Override
+    public void release()
+    {
+        // nop
+    }
 }
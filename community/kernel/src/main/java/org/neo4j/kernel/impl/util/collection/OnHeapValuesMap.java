@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
+import org.neo4j.values.storable.Value;
+
+import static org.neo4j.collection.primitive.PrimitiveIntCollections.toPrimitiveIterator;
+
+class OnHeapValuesMap implements ValuesMap
+{
+    private final VersionedHashMap<Integer,Value> map = new VersionedHashMap<>();
+
+    @Override
+    public void put( int key, Value value )
+    {
+        map.put( key, value );
+    }
+
+    @Override
+    public Value get( int key )
+    {
+        return map.get( key );
+    }
+
+    @Override
+    public boolean containsKey( int key )
+    {
+        return map.containsKey( key );
+    }
+
+    @Override
+    public boolean remove( int key )
+    {
+        return map.remove( key ) != null;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        map.clear();
+    }
+
+    @Override
+    public PrimitiveIntIterator keyIterator()
+    {
+        return toPrimitiveIterator( map.keySet().iterator() );
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Map of int keys to {@link Value values}, used for keeping property values in transaction state. Implementations
+ * are free to keep the values on- or off-heap, see {@link CollectionsFactory#newValuesMap()}.
+ * <p>
+ * Entries added while iterating over {@link #keyIterator() keys} are not returned by that iterator, whereas entries
+ * removed while iterating are not returned either.
+ */
+public interface ValuesMap
+{
+    void put( int key, Value value );
+
+    /**
+     * @return value associated with the given key, or {@code null} if there is no such value.
+     */
+    Value get( int key );
+
+    boolean containsKey( int key );
+
+    /**
+     * @return {@code true} if there was a value associated with the given key.
+     */
+    boolean remove( int key );
+
+    boolean isEmpty();
+
+    void clear();
+
+    PrimitiveIntIterator keyIterator();
+}
@@ -71,6 +71,7 @@ public class PrimitiveLongDiffSets implements PrimitiveLongReadableDiffSets, Clo
 
     public void removeAll( PrimitiveLongIterator elementsToRemove )
     {
+        collectionsFactory.assertWithinMemoryLimit();
         checkRemovedElements();
         while ( elementsToRemove.hasNext() )
         {
@@ -80,6 +81,7 @@ public class PrimitiveLongDiffSets implements PrimitiveLongReadableDiffSets, Clo
 
     public void addAll( PrimitiveLongIterator elementsToAdd )
     {
+        collectionsFactory.assertWithinMemoryLimit();
         checkAddedElements();
         while ( elementsToAdd.hasNext() )
         {
@@ -89,12 +91,14 @@ public class PrimitiveLongDiffSets implements PrimitiveLongReadableDiffSets, Clo
 
     public void add( long element )
     {
+        collectionsFactory.assertWithinMemoryLimit();
         checkAddedElements();
         addElement( element );
     }
 
     public boolean remove( long element )
     {
+        collectionsFactory.assertWithinMemoryLimit();
         checkRemovedElements();
         return removeElement( element );
     }
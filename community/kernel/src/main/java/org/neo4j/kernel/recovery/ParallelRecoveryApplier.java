@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.kernel.recovery.DefaultRecoveryService.transactionToApply;
+
+/**
+ * Replays recovered transactions using multiple threads. The transactions are grouped, in log order, into waves where
+ * no two transactions touch the same record. The transactions in a wave are applied concurrently, split into one
+ * batch per thread, and a wave is fully applied before the next one begins. A transaction that touches a record
+ * already touched in the current wave begins a new wave, so all changes to any given record are still applied in
+ * log order.
+ * <p>
+ * Within a wave, the index and counts updates of different transactions concern different entities, and are
+ * therefore independent of the order they are applied in. Across waves they are applied in log order.
+ * Transactions with any other kind of command, like schema, token or explicit index changes, are applied on their
+ * own, in between waves.
+ * <p>
+ * The batches are applied by jobs in the {@link JobScheduler.Groups#recovery recovery} group of the job scheduler,
+ * apart from the first batch of every wave, which the thread doing the recovery applies itself.
+ */
+class ParallelRecoveryApplier implements RecoveryApplier
+{
+    private static final int MAX_TRANSACTIONS_PER_WAVE =
+            FeatureToggles.getInteger( ParallelRecoveryApplier.class, "maxTransactionsPerWave", 1_000 );
+
+    // The top byte of a record key says which store the record is in, the rest is the record id.
+    private static final int STORE_SHIFT = 56;
+    private static final long NODE = 1L << STORE_SHIFT;
+    private static final long RELATIONSHIP = 2L << STORE_SHIFT;
+    private static final long RELATIONSHIP_GROUP = 3L << STORE_SHIFT;
+    private static final long PROPERTY = 4L << STORE_SHIFT;
+    private static final long LABEL_DYNAMIC = 5L << STORE_SHIFT;
+    // String and array records are lumped together, which at worst causes a few unnecessary waves.
+    private static final long PROPERTY_DYNAMIC = 6L << STORE_SHIFT;
+
+    private final StorageEngine storageEngine;
+    private final TransactionApplicationMode mode;
+    private final int parallelism;
+    private final int maxTransactionsPerWave;
+    private final JobScheduler scheduler;
+    private final List<TransactionToApply> wave = new ArrayList<>();
+    private final PrimitiveLongSet waveRecords = Primitive.longSet();
+    private final PrimitiveLongSet transactionRecords = Primitive.longSet();
+    private final RecordCollector recordCollector = new RecordCollector();
+
+    ParallelRecoveryApplier( StorageEngine storageEngine, TransactionApplicationMode mode, JobScheduler scheduler,
+            int parallelism )
+    {
+        this( storageEngine, mode, scheduler, parallelism, MAX_TRANSACTIONS_PER_WAVE );
+    }
+
+    ParallelRecoveryApplier( StorageEngine storageEngine, TransactionApplicationMode mode, JobScheduler scheduler,
+            int parallelism, int maxTransactionsPerWave )
+    {
+        this.storageEngine = storageEngine;
+        this.mode = mode;
+        this.scheduler = scheduler;
+        this.parallelism = parallelism;
+        this.maxTransactionsPerWave = maxTransactionsPerWave;
+    }
+
+    @Override
+    public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+    {
+        TransactionToApply tx = transactionToApply( transaction );
+        transactionRecords.clear();
+        recordCollector.independent = true;
+        tx.transactionRepresentation().accept( recordCollector );
+        if ( !recordCollector.independent )
+        {
+            applyWave();
+            storageEngine.apply( tx, mode );
+            return false;
+        }
+
+        if ( wave.size() >= maxTransactionsPerWave || overlapsWave() )
+        {
+            applyWave();
+        }
+        wave.add( tx );
+        waveRecords.addAll( transactionRecords.iterator() );
+        return false;
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        applyWave();
+    }
+
+    private boolean overlapsWave()
+    {
+        PrimitiveLongIterator records = transactionRecords.iterator();
+        while ( records.hasNext() )
+        {
+            if ( waveRecords.contains( records.next() ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyWave() throws Exception
+    {
+        int size = wave.size();
+        if ( size == 0 )
+        {
+            return;
+        }
+
+        int batches = Math.min( parallelism, size );
+        int batchSize = (size + batches - 1) / batches;
+        List<JobScheduler.JobHandle> jobs = new ArrayList<>( batches - 1 );
+        Exception failure = null;
+        try
+        {
+            for ( int from = batchSize; from < size; from += batchSize )
+            {
+                TransactionToApply batch = link( from, Math.min( size, from + batchSize ) );
+                jobs.add( scheduler.schedule( JobScheduler.Groups.recovery, () -> applyBatch( batch ) ) );
+            }
+            storageEngine.apply( link( 0, Math.min( size, batchSize ) ), mode );
+        }
+        catch ( Exception e )
+        {
+            failure = e;
+        }
+        // Always wait for all batches, so that no thread is left applying a wave when we fail or move on
+        for ( JobScheduler.JobHandle job : jobs )
+        {
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable jobFailure = e.getCause() instanceof BatchFailure ? e.getCause().getCause() : e.getCause();
+                Exception cause = jobFailure instanceof Exception ? (Exception) jobFailure : e;
+                if ( failure == null )
+                {
+                    failure = cause;
+                }
+                else
+                {
+                    failure.addSuppressed( cause );
+                }
+            }
+        }
+        wave.clear();
+        waveRecords.clear();
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void applyBatch( TransactionToApply batch )
+    {
+        try
+        {
+            storageEngine.apply( batch, mode );
+        }
+        catch ( Exception e )
+        {
+            throw new BatchFailure( e );
+        }
+    }
+
+    private TransactionToApply link( int fromInclusive, int toExclusive )
+    {
+        TransactionToApply first = wave.get( fromInclusive );
+        TransactionToApply previous = first;
+        for ( int i = fromInclusive + 1; i < toExclusive; i++ )
+        {
+            TransactionToApply tx = wave.get( i );
+            previous.next( tx );
+            previous = tx;
+        }
+        return first;
+    }
+
+    /**
+     * Carries the failure to apply a batch out of the job applying it.
+     */
+    private static class BatchFailure extends RuntimeException
+    {
+        private static final long serialVersionUID = 2088452442651338350L;
+
+        BatchFailure( Exception cause )
+        {
+            super( cause );
+        }
+    }
+
+    /**
+     * Collects the keys of all the records the commands of a transaction touch, or notices that the transaction has
+     * commands that can not be applied concurrently with other transactions.
+     */
+    private class RecordCollector implements Visitor<StorageCommand,IOException>
+    {
+        private boolean independent;
+
+        @Override
+        public boolean visit( StorageCommand command )
+        {
+            if ( command instanceof Command.NodeCommand )
+            {
+                Command.NodeCommand nodeCommand = (Command.NodeCommand) command;
+                transactionRecords.add( NODE | nodeCommand.getKey() );
+                addDynamicRecords( LABEL_DYNAMIC, nodeCommand.getBefore() );
+                addDynamicRecords( LABEL_DYNAMIC, nodeCommand.getAfter() );
+            }
+            else if ( command instanceof Command.RelationshipCommand )
+            {
+                transactionRecords.add( RELATIONSHIP | ((Command.RelationshipCommand) command).getKey() );
+            }
+            else if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                transactionRecords.add( RELATIONSHIP_GROUP | ((Command.RelationshipGroupCommand) command).getKey() );
+            }
+            else if ( command instanceof Command.PropertyCommand )
+            {
+                Command.PropertyCommand propertyCommand = (Command.PropertyCommand) command;
+                transactionRecords.add( PROPERTY | propertyCommand.getKey() );
+                // Index updates of property changes look at the owner, e.g. for the labels of a node
+                boolean owned = addOwner( propertyCommand.getBefore() ) | addOwner( propertyCommand.getAfter() );
+                independent &= owned;
+                addDynamicRecords( propertyCommand.getBefore() );
+                addDynamicRecords( propertyCommand.getAfter() );
+            }
+            else if ( !(command instanceof Command.NodeCountsCommand ||
+                        command instanceof Command.RelationshipCountsCommand) )
+            {
+                // Counts deltas can be applied in any order, but everything else is applied on its own
+                independent = false;
+            }
+            return false;
+        }
+
+        private boolean addOwner( PropertyRecord record )
+        {
+            if ( record.isNodeSet() )
+            {
+                transactionRecords.add( NODE | record.getNodeId() );
+                return true;
+            }
+            if ( record.isRelSet() )
+            {
+                transactionRecords.add( RELATIONSHIP | record.getRelId() );
+                return true;
+            }
+            // Graph properties, or a record that has no owner set, which we don't want to reason about
+            return false;
+        }
+
+        private void addDynamicRecords( long store, NodeRecord record )
+        {
+            for ( DynamicRecord dynamicRecord : record.getDynamicLabelRecords() )
+            {
+                transactionRecords.add( store | dynamicRecord.getId() );
+            }
+        }
+
+        private void addDynamicRecords( PropertyRecord record )
+        {
+            for ( PropertyBlock block : record )
+            {
+                for ( DynamicRecord dynamicRecord : block.getValueRecords() )
+                {
+                    transactionRecords.add( PROPERTY_DYNAMIC | dynamicRecord.getId() );
+                }
+            }
+            for ( DynamicRecord dynamicRecord : record.getDeletedRecords() )
+            {
+                transactionRecords.add( PROPERTY_DYNAMIC | dynamicRecord.getId() );
+            }
+        }
+    }
+}
@@ -101,6 +101,7 @@ public class Recovery extends LifecycleAdapter
 
             monitor.reverseStoreRecoveryCompleted( lowestRecoveredTxId );
 
+            long replayStartTime = System.currentTimeMillis();
             try ( TransactionCursor transactionsToRecover = recoveryService.getTransactions( recoveryPosition );
                     RecoveryApplier recoveryVisitor = recoveryService.getRecoveryApplier( RECOVERY ) )
             {
@@ -116,6 +117,7 @@ public class Recovery extends LifecycleAdapter
                 }
                 recoveryToPosition = transactionsToRecover.position();
             }
+            monitor.transactionsReplayed( numberOfRecoveredTransactions, System.currentTimeMillis() - replayStartTime );
         }
         catch ( Error | ClosedByInterruptException e )
         {
@@ -39,6 +39,17 @@ public interface RecoveryMonitor
         //noop
     }
 
+    /**
+     * Called when the recovered transactions have been replayed onto the store, which is the bulk of the recovery.
+     *
+     * @param numberOfReplayedTransactions number of transactions replayed.
+     * @param replayTimeMillis time it took to replay them, including reading them from the log.
+     */
+    default void transactionsReplayed( int numberOfReplayedTransactions, long replayTimeMillis )
+    {
+        //noop
+    }
+
     default void reverseStoreRecoveryCompleted( long lowestRecoveredTxId )
     {
         //noop
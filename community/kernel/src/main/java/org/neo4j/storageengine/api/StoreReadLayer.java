@@ -44,7 +44,9 @@ import org.neo4j.kernel.api.index.IndexProvider;
 import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
 import org.neo4j.kernel.impl.api.DegreeVisitor;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
+import org.neo4j.kernel.impl.store.column.PropertyColumn;
 import org.neo4j.register.Register.DoubleLongRegister;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
@@ -392,5 +394,23 @@ public interface StoreReadLayer
     int degreeRelationshipsInGroup( StorageStatement storeStatement, long id, long groupId, Direction direction,
             Integer relType );
 
+    /**
+     * Committed degrees of a dense node, per relationship type and direction, served from a cache if possible.
+     *
+     * @param statement {@link StorageStatement} to load the degrees with if they aren't cached.
+     * @param nodeId id of the dense node.
+     * @param firstGroupId id of the first relationship group of the node.
+     * @return the degrees of the node, or {@code null} if degrees of dense nodes aren't cached.
+     */
+    DegreeCache.Degrees cachedDegrees( StorageStatement statement, long nodeId, long firstGroupId );
+
+    /**
+     * @param labelId id of the label of the column.
+     * @param propertyKeyId id of the property key of the column.
+     * @return the column of committed values of the given property of the nodes with the given label, or
+     * {@code null} if no such column is configured.
+     */
+    PropertyColumn propertyColumn( int labelId, int propertyKeyId );
+
     <T> T getOrCreateSchemaDependantState( Class<T> type, Function<StoreReadLayer, T> factory );
 }
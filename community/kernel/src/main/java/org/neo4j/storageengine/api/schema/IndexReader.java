@@ -19,6 +19,9 @@
  */
 package org.neo4j.storageengine.api.schema;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.neo4j.collection.primitive.PrimitiveLongResourceCollections;
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
 import org.neo4j.graphdb.Resource;
@@ -62,6 +65,25 @@ public interface IndexReader extends Resource
             IndexOrder indexOrder,
             IndexQuery... query ) throws IndexNotApplicableKernelException;
 
+    /**
+     * Queries the index for the given {@link IndexQuery} predicates, like
+     * {@link #query(IndexProgressor.NodeValueClient, IndexOrder, IndexQuery...)} without order, but with the result
+     * split into partitions of disjoint entries. Each partition initializes its own client, so that the partitions
+     * can be read in parallel, from different threads. Partitions are closed when this reader is closed.
+     * <p>
+     * By default the whole result is a single partition.
+     *
+     * @param desiredNumberOfPartitions number of partitions to split the result into. Implementations may return
+     * fewer partitions, e.g. for small results, or more if the index consists of multiple parts.
+     * @param query the query to serve.
+     * @return partitions which together cover the result of the query.
+     */
+    default List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... query )
+            throws IndexNotApplicableKernelException
+    {
+        return Collections.singletonList( client -> query( client, IndexOrder.NONE, query ) );
+    }
+
     /**
      * @param predicates query to determine whether or not index has full value precision for.
      * @return whether or not this reader will only return 100% matching results from {@link #query(IndexQuery...)}.
@@ -84,6 +106,17 @@ public interface IndexReader extends Resource
      */
     void distinctValues( IndexProgressor.NodeValueClient client, PropertyAccessor propertyAccessor );
 
+    /**
+     * A part of the result of {@link #partitionedQuery(int, IndexQuery...)}, disjoint from the other parts.
+     */
+    interface Partition
+    {
+        /**
+         * @param client the client which will control the progression through the entries of this partition.
+         */
+        void initialize( IndexProgressor.NodeValueClient client ) throws IndexNotApplicableKernelException;
+    }
+
     IndexReader EMPTY = new IndexReader()
     {
         // Used for checking index correctness
@@ -111,6 +144,12 @@ public interface IndexReader extends Resource
             // do nothing
         }
 
+        @Override
+        public List<Partition> partitionedQuery( int desiredNumberOfPartitions, IndexQuery... query )
+        {
+            return Collections.emptyList();
+        }
+
         @Override
         public void close()
         {
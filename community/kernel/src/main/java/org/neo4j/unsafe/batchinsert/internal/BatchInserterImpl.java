@@ -120,7 +120,8 @@ import org.neo4j.kernel.impl.store.RelationshipTypeTokenStore;
 import org.neo4j.kernel.impl.store.SchemaStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
+import org.neo4j.kernel.impl.store.format.Capability;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
@@ -225,6 +226,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
     private final LabelTokenStore labelTokenStore;
     private final Locks.Client noopLockClient = new NoOpClient();
     private final long maxNodeId;
+    private final boolean inlinedProperties;
     private final RecordCursors cursors;
 
     public BatchInserterImpl( final File storeDir, final FileSystemAbstraction fileSystem,
@@ -260,6 +262,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
                 recordFormats, internalLogProvider, EmptyVersionContextSupplier.EMPTY );
 
         maxNodeId = recordFormats.node().getMaxId();
+        inlinedProperties = recordFormats.hasCapability( Capability.INLINED_PROPERTIES );
 
         if ( dump )
         {
@@ -366,6 +369,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
     {
         RecordProxy<NodeRecord,Void> nodeRecord = getNodeRecord( node );
         setPrimitiveProperty( nodeRecord, propertyName, propertyValue );
+        invalidateInlinedProperties( nodeRecord );
 
         flushStrategy.flush();
     }
@@ -383,7 +387,9 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
     public void removeNodeProperty( long node, String propertyName )
     {
         int propertyKey = getOrCreatePropertyKeyId( propertyName );
-        propertyDeletor.removePropertyIfExists( getNodeRecord( node ), propertyKey, recordAccess.getPropertyRecords() );
+        RecordProxy<NodeRecord,Void> nodeRecord = getNodeRecord( node );
+        propertyDeletor.removePropertyIfExists( nodeRecord, propertyKey, recordAccess.getPropertyRecords() );
+        invalidateInlinedProperties( nodeRecord );
         flushStrategy.flush();
     }
 
@@ -412,6 +418,18 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
         propertyCreator.primitiveSetProperty( primitiveRecord, propertyKey, ValueUtils.asValue( propertyValue ), propertyRecords );
     }
 
+    /**
+     * Node records can carry a copy of their first property record, which is kept up to date when applying
+     * transactions. Here the node record is rewritten without it instead.
+     */
+    private void invalidateInlinedProperties( RecordProxy<NodeRecord,Void> nodeRecord )
+    {
+        if ( inlinedProperties && nodeRecord.forReadingLinkage().hasInlinedProperties() )
+        {
+            nodeRecord.forChangingData().clearInlinedProperties();
+        }
+    }
+
     private void validateIndexCanBeCreated( int labelId, int[] propertyKeyIds )
     {
         verifyIndexOrUniquenessConstraintCanBeCreated( labelId, propertyKeyIds,
@@ -555,7 +573,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
 
     private void rebuildCounts()
     {
-        CountsTracker counts = neoStores.getCounts();
+        CountsStore counts = neoStores.getCounts();
         try
         {
             counts.start();
@@ -1348,6 +1366,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
                 throws IndexEntryConflictException, IOException
         {
             populator.add( batchedUpdates );
+            populator.scanCompleted();
             populator.verifyDeferredConstraints( propertyAccessor );
         }
 
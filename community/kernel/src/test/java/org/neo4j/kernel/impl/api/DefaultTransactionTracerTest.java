@@ -25,15 +25,18 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.impl.api.DefaultTransactionTracer.Monitor;
+import org.neo4j.kernel.impl.transaction.tracing.CommandCreationEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.test.OnDemandJobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.FakeClock;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -76,6 +79,54 @@ public class DefaultTransactionTracerTest
         verifyZeroInteractions( monitor );
     }
 
+    @Test
+    public void shouldAccumulateTimeSpentInCommitPhases()
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler, true );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            try ( TransactionEvent txEvent = tracer.beginTransaction();
+                  CommitEvent commitEvent = txEvent.beginCommitEvent() )
+            {
+                try ( CommandCreationEvent event = commitEvent.beginCommandCreation() )
+                {
+                    clock.forward( 10, TimeUnit.MILLISECONDS );
+                }
+                try ( LogAppendEvent event = commitEvent.beginLogAppend() )
+                {
+                    clock.forward( 20, TimeUnit.MILLISECONDS );
+                }
+                try ( StoreApplyEvent event = commitEvent.beginStoreApply() )
+                {
+                    clock.forward( 30, TimeUnit.MILLISECONDS );
+                }
+            }
+        }
+
+        assertEquals( 2, tracer.numberOfCommits() );
+        assertEquals( 20, tracer.commandCreationAccumulatedTotalTimeMillis() );
+        assertEquals( 40, tracer.logAppendAccumulatedTotalTimeMillis() );
+        assertEquals( 60, tracer.storeApplyAccumulatedTotalTimeMillis() );
+    }
+
+    @Test
+    public void shouldShareUntimedCommitPhaseEventsWhenNotTracingCommitPhases()
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler, false );
+
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent() )
+        {
+            assertSame( CommandCreationEvent.NULL, commitEvent.beginCommandCreation() );
+            assertSame( commitEvent.beginLogAppend(), commitEvent.beginLogAppend() );
+            assertSame( StoreApplyEvent.NULL, commitEvent.beginStoreApply() );
+        }
+
+        assertEquals( 0, tracer.numberOfCommits() );
+        assertEquals( 0, tracer.logAppendAccumulatedTotalTimeMillis() );
+    }
+
     private void triggerEvent( DefaultTransactionTracer tracer, int eventDuration )
     {
         try ( TransactionEvent txEvent = tracer.beginTransaction() )
@@ -40,6 +40,7 @@ import org.neo4j.internal.kernel.api.security.SecurityContext;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.api.exceptions.TransactionMemoryLimitExceededException;
 import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.api.security.AnonymousContext;
 import org.neo4j.kernel.api.txstate.TransactionState;
@@ -48,12 +49,14 @@ import org.neo4j.kernel.impl.locking.NoOpClient;
 import org.neo4j.kernel.impl.locking.SimpleStatementLocks;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
 import org.neo4j.resources.CpuClock;
 import org.neo4j.resources.HeapAllocation;
 import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.lock.ResourceLocker;
 import org.neo4j.test.DoubleLatch;
+import org.neo4j.values.storable.Values;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.hamcrest.Matchers.equalTo;
@@ -184,6 +187,36 @@ public class KernelTransactionImplementationTest extends KernelTransactionTestBa
         verifyExtraInteractionWithTheMonitor( transactionMonitor, isWriteTx );
     }
 
+    @Test
+    public void shouldRollbackAndReleaseIdsOfTransactionThatExceededItsMemoryLimit() throws Exception
+    {
+        // GIVEN a transaction state which may only use a single byte of off-heap memory, and never spills to disk
+        collectionsFactory = CollectionsFactorySupplier.offHeap( 1, null, null, 0 ).create();
+        KernelTransaction transaction = newTransaction( AnonymousContext.write() );
+        try ( KernelStatement statement = (KernelStatement) transaction.acquireStatement() )
+        {
+            statement.txState().nodeDoCreate( 42 );
+            statement.txState().nodeDoAddProperty( 42, 1, Values.of( "first" ) );
+            try
+            {
+                statement.txState().nodeDoAddProperty( 42, 2, Values.of( "second" ) );
+                fail( "Should have exceeded the memory limit" );
+            }
+            catch ( TransactionMemoryLimitExceededException e )
+            {
+                // expected
+            }
+        }
+
+        // WHEN
+        transaction.close();
+
+        // THEN
+        verify( readLayer ).releaseNode( 42 );
+        verify( transactionMonitor, times( 1 ) ).transactionFinished( false, true );
+        assertEquals( 0, collectionsFactory.getMemoryTracker().usedDirectMemory() );
+    }
+
     @Test
     public void shouldRollbackOnClosingTerminatedTransaction()
     {
@@ -62,6 +62,7 @@ import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.ValuesMap;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.resources.CpuClock;
@@ -216,6 +217,12 @@ public class KernelTransactionTestBase
             return OnHeapCollectionsFactory.INSTANCE.newLongDiffSets();
         }
 
+        @Override
+        public ValuesMap newValuesMap()
+        {
+            return OnHeapCollectionsFactory.INSTANCE.newValuesMap();
+        }
+
         @Override
         public MemoryTracker getMemoryTracker()
         {
@@ -227,5 +234,15 @@ public class KernelTransactionTestBase
         {
             return false;
         }
+
+        @Override
+        public void assertWithinMemoryLimit()
+        {
+        }
+
+        @Override
+        public void release()
+        {
+        }
     }
 }
@@ -298,6 +298,7 @@ public class IndexingServiceTest
         order.verify( updater ).close();
         order.verify( populator ).sampleResult();
         order.verify( populator ).close( true );
+        verify( populator ).scanCompleted();
         verifyNoMoreInteractions( updater );
         verifyNoMoreInteractions( populator );
 
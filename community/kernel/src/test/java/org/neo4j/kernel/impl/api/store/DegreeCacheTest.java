@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DegreeCacheTest
+{
+    @Test
+    public void shouldCacheDegrees()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 10 );
+        DegreeCache.Degrees degrees = new DegreeCache.DegreesBuilder().add( 1, 5, 3, 1 ).build();
+
+        // when
+        cache.put( 42, cache.stamp( 42 ), degrees );
+
+        // then
+        assertSame( degrees, cache.get( 42 ) );
+        assertNull( cache.get( 43 ) );
+    }
+
+    @Test
+    public void shouldForgetInvalidatedDegrees()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 10 );
+        cache.put( 42, cache.stamp( 42 ), new DegreeCache.DegreesBuilder().build() );
+
+        // when
+        cache.invalidate( 42 );
+
+        // then
+        assertNull( cache.get( 42 ) );
+    }
+
+    @Test
+    public void shouldNotCacheDegreesLoadedBeforeConcurrentInvalidation()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 10 );
+        long stamp = cache.stamp( 42 );
+
+        // when
+        cache.invalidate( 42 );
+        cache.put( 42, stamp, new DegreeCache.DegreesBuilder().build() );
+
+        // then
+        assertNull( cache.get( 42 ) );
+    }
+
+    @Test
+    public void shouldNotCacheMoreThanMaxNodes()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 3 );
+
+        // when
+        for ( long nodeId = 0; nodeId < 10; nodeId++ )
+        {
+            cache.put( nodeId, cache.stamp( nodeId ), new DegreeCache.DegreesBuilder().build() );
+        }
+
+        // then
+        int cached = 0;
+        for ( long nodeId = 0; nodeId < 10; nodeId++ )
+        {
+            cached += cache.get( nodeId ) != null ? 1 : 0;
+        }
+        assertEquals( 3, cached );
+    }
+
+    @Test
+    public void shouldGiveRecentlyReadNodesASecondChanceWhenEvicting()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 3 );
+        for ( long nodeId = 0; nodeId < 3; nodeId++ )
+        {
+            cache.put( nodeId, cache.stamp( nodeId ), new DegreeCache.DegreesBuilder().build() );
+        }
+        cache.get( 0 );
+
+        // when
+        cache.put( 3, cache.stamp( 3 ), new DegreeCache.DegreesBuilder().build() );
+
+        // then
+        assertEquals( 3, cache.size() );
+        assertNull( cache.get( 1 ) );
+        assertNotNull( cache.get( 0 ) );
+        assertNotNull( cache.get( 2 ) );
+        assertNotNull( cache.get( 3 ) );
+    }
+
+    @Test
+    public void shouldReuseSlotOfInvalidatedNodeBeforeEvicting()
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 2 );
+        cache.put( 0, cache.stamp( 0 ), new DegreeCache.DegreesBuilder().build() );
+        cache.put( 1, cache.stamp( 1 ), new DegreeCache.DegreesBuilder().build() );
+        cache.invalidate( 0 );
+
+        // when
+        cache.put( 2, cache.stamp( 2 ), new DegreeCache.DegreesBuilder().build() );
+
+        // then
+        assertNotNull( cache.get( 1 ) );
+        assertNotNull( cache.get( 2 ) );
+    }
+
+    @Test
+    public void shouldNotCacheMoreThanMaxNodesWhenCachingConcurrently() throws Exception
+    {
+        // given
+        DegreeCache cache = new DegreeCache( 100 );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for ( int i = 0; i < 4; i++ )
+        {
+            futures.add( executor.submit( () ->
+            {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for ( int j = 0; j < 10_000; j++ )
+                {
+                    long nodeId = random.nextInt( 1_000 );
+                    if ( cache.get( nodeId ) == null )
+                    {
+                        cache.put( nodeId, cache.stamp( nodeId ), new DegreeCache.DegreesBuilder().build() );
+                    }
+                    assertTrue( cache.size() <= 100 );
+                }
+            } ) );
+        }
+        try
+        {
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        assertEquals( 100, cache.size() );
+    }
+
+    @Test
+    public void shouldNotCacheAnythingWhenDisabled()
+    {
+        // when
+        DegreeCache.NO_CACHE.put( 42, DegreeCache.NO_CACHE.stamp( 42 ), new DegreeCache.DegreesBuilder().build() );
+
+        // then
+        assertFalse( DegreeCache.NO_CACHE.isEnabled() );
+        assertNull( DegreeCache.NO_CACHE.get( 42 ) );
+    }
+
+    @Test
+    public void shouldLookUpDegreesByTypeRegardlessOfInsertionOrder()
+    {
+        // given
+        DegreeCache.Degrees degrees = new DegreeCache.DegreesBuilder()
+                .add( 7, 1, 2, 3 )
+                .add( 2, 4, 5, 6 )
+                .add( 4, 7, 8, 9 )
+                .build();
+
+        // then
+        assertEquals( 4, degrees.outgoing( 2 ) );
+        assertEquals( 8, degrees.incoming( 4 ) );
+        assertEquals( 3, degrees.loops( 7 ) );
+        assertEquals( 0, degrees.outgoing( 3 ) );
+        List<String> visited = new ArrayList<>();
+        degrees.accept( ( type, outgoing, incoming ) -> visited.add( type + ":" + outgoing + ":" + incoming ) );
+        assertEquals( "[2:10:11, 4:16:17, 7:4:5]", visited.toString() );
+    }
+}
@@ -113,6 +113,30 @@ public class StorageLayerRelTypesAndDegreeTest extends StorageLayerTest
         testDegreesForDenseNodeWithPartiallyDeletedRelChains( true, true, true );
     }
 
+    @Test
+    public void degreesForDenseNodeShouldReflectCommittedChanges()
+    {
+        long nodeId = createNode( RELATIONSHIPS_COUNT, RELATIONSHIPS_COUNT, 1 );
+        assertEquals( RELATIONSHIPS_COUNT + 1, degreeForDirection( newCursor( nodeId ), OUTGOING ) );
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.getNodeById( nodeId );
+            node.createRelationshipTo( db.createNode(), OUT );
+            node.createRelationshipTo( node, LOOP );
+            db.createNode().createRelationshipTo( node, IN );
+            tx.success();
+        }
+
+        StoreSingleNodeCursor cursor = newCursor( nodeId );
+        assertEquals( RELATIONSHIPS_COUNT + 3, degreeForDirection( cursor, OUTGOING ) );
+        assertEquals( RELATIONSHIPS_COUNT + 3, degreeForDirection( cursor, INCOMING ) );
+        assertEquals( 2, degreeForDirectionAndType( cursor, BOTH, relTypeId( LOOP ) ) );
+        assertEquals( asSet( new TestDegreeItem( relTypeId( OUT ), RELATIONSHIPS_COUNT + 1, 0 ),
+                new TestDegreeItem( relTypeId( IN ), 0, RELATIONSHIPS_COUNT + 1 ),
+                new TestDegreeItem( relTypeId( LOOP ), 2, 2 ) ), degrees( cursor.get() ) );
+    }
+
     @Test
     public void degreeByDirectionForDenseNodeWithPartiallyDeletedRelGroupChain()
     {
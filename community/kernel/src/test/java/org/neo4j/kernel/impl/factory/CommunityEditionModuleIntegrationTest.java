@@ -22,9 +22,12 @@ package org.neo4j.kernel.impl.factory;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.function.Predicate;
 
 import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.BufferedIdController;
@@ -68,6 +71,25 @@ public class CommunityEditionModuleIntegrationTest
         }
     }
 
+    @Test
+    public void deleteLeftoverTransactionStateSpillFilesOnStartup() throws IOException
+    {
+        File spillDirectory = new File( testDirectory.graphDbDir(), DataSourceModule.TX_STATE_SPILL_DIRECTORY );
+        File leftoverSpillFile = new File( spillDirectory, "tx-state-1" );
+        assertTrue( spillDirectory.mkdirs() );
+        assertTrue( leftoverSpillFile.createNewFile() );
+
+        GraphDatabaseService database = new GraphDatabaseFactory().newEmbeddedDatabase( testDirectory.graphDbDir() );
+        try
+        {
+            assertFalse( leftoverSpillFile.exists() );
+        }
+        finally
+        {
+            database.shutdown();
+        }
+    }
+
     @Test
     public void fileWatcherFileNameFilter()
     {
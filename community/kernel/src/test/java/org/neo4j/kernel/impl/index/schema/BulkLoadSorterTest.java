@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.index.schema.BulkLoadSorter.Entry;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.Race.throwing;
+import static org.neo4j.test.Randoms.CSA_LETTERS_AND_DIGITS;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class BulkLoadSorterTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withAccessChecks( true ) );
+    private final RandomRule random = new RandomRule();
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final StringLayout layout = new StringLayout();
+    private PageCache pageCache;
+    private File sortFile;
+
+    @Before
+    public void setup()
+    {
+        pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ) );
+        sortFile = directory.file( "index.sort" );
+    }
+
+    @Test
+    public void shouldSortAndSkipDuplicatesAcrossManyRuns() throws Exception
+    {
+        // given
+        TreeSet<StringSchemaKey> expected = new TreeSet<>( layout );
+        try ( BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter = newSorter( 100 ) )
+        {
+            // when
+            for ( int i = 0; i < 50; i++ )
+            {
+                assertTrue( sorter.add( randomBatch( random.nextInt( 1, 60 ), expected ) ) );
+            }
+            assertTrue( sorter.numberOfRuns() > 3 );
+            List<StringSchemaKey> sorted = complete( sorter );
+
+            // then
+            assertSameKeys( new ArrayList<>( expected ), sorted );
+        }
+    }
+
+    @Test
+    public void shouldSortBatchesAddedConcurrentlyWhileSpilling() throws Throwable
+    {
+        // given
+        TreeSet<StringSchemaKey> expected = new TreeSet<>( layout );
+        try ( BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter = newSorter( 100 ) )
+        {
+            Race race = new Race();
+            for ( int thread = 0; thread < 4; thread++ )
+            {
+                List<List<Entry<StringSchemaKey,NativeSchemaValue>>> batches = new ArrayList<>();
+                for ( int i = 0; i < 20; i++ )
+                {
+                    batches.add( randomBatch( random.nextInt( 1, 60 ), expected ) );
+                }
+                race.addContestant( throwing( () ->
+                {
+                    for ( List<Entry<StringSchemaKey,NativeSchemaValue>> batch : batches )
+                    {
+                        assertTrue( sorter.add( batch ) );
+                    }
+                } ) );
+            }
+
+            // when
+            race.go();
+            assertTrue( sorter.numberOfRuns() > 3 );
+            List<StringSchemaKey> sorted = complete( sorter );
+
+            // then
+            assertSameKeys( new ArrayList<>( expected ), sorted );
+        }
+    }
+
+    @Test
+    public void shouldSortInMemoryWhenBelowThreshold() throws Exception
+    {
+        // given
+        TreeSet<StringSchemaKey> expected = new TreeSet<>( layout );
+        try ( BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter = newSorter( 10_000 ) )
+        {
+            // when
+            for ( int i = 0; i < 10; i++ )
+            {
+                sorter.add( randomBatch( 100, expected ) );
+            }
+            List<StringSchemaKey> sorted = complete( sorter );
+
+            // then
+            assertEquals( 0, sorter.numberOfRuns() );
+            assertFalse( fs.fileExists( sortFile ) );
+            assertSameKeys( new ArrayList<>( expected ), sorted );
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptBatchesAfterCompleted() throws Exception
+    {
+        try ( BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter = newSorter( 100 ) )
+        {
+            // given
+            TreeSet<StringSchemaKey> expected = new TreeSet<>( layout );
+            sorter.add( randomBatch( 10, expected ) );
+            complete( sorter );
+
+            // when/then
+            assertFalse( sorter.add( randomBatch( 10, expected ) ) );
+        }
+    }
+
+    @Test
+    public void shouldDeleteSortFileOnClose() throws Exception
+    {
+        // given
+        BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter = newSorter( 10 );
+        sorter.add( randomBatch( 20, new TreeSet<>( layout ) ) );
+        assertTrue( fs.fileExists( sortFile ) );
+
+        // when
+        sorter.close();
+
+        // then
+        assertFalse( fs.fileExists( sortFile ) );
+    }
+
+    private BulkLoadSorter<StringSchemaKey,NativeSchemaValue> newSorter( int memoryThreshold )
+    {
+        return new BulkLoadSorter<>( pageCache, sortFile, layout, memoryThreshold, 3 );
+    }
+
+    private List<Entry<StringSchemaKey,NativeSchemaValue>> randomBatch( int size, TreeSet<StringSchemaKey> expected )
+    {
+        List<Entry<StringSchemaKey,NativeSchemaValue>> batch = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            StringSchemaKey key = layout.newKey();
+            key.from( random.nextInt( 100 ), Values.stringValue( random.string( 0, 50, CSA_LETTERS_AND_DIGITS ) ) );
+            // some duplicates of already added keys, which should only come out once
+            if ( random.nextInt( 5 ) == 0 && !expected.isEmpty() )
+            {
+                layout.copyKey( expected.first(), key );
+            }
+            expected.add( layout.copyKey( key, layout.newKey() ) );
+            batch.add( new Entry<>( key, layout.newValue() ) );
+        }
+        return batch;
+    }
+
+    private List<StringSchemaKey> complete( BulkLoadSorter<StringSchemaKey,NativeSchemaValue> sorter )
+            throws IOException
+    {
+        List<StringSchemaKey> sorted = new ArrayList<>();
+        sorter.complete( ( key, value ) -> sorted.add( layout.copyKey( key, layout.newKey() ) ) );
+        return sorted;
+    }
+
+    private void assertSameKeys( List<StringSchemaKey> expected, List<StringSchemaKey> actual )
+    {
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( 0, layout.compare( expected.get( i ), actual.get( i ) ) );
+        }
+    }
+}
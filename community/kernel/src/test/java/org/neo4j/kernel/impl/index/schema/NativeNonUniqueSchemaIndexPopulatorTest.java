@@ -21,17 +21,21 @@ package org.neo4j.kernel.impl.index.schema;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
 import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.test.Race;
 import org.neo4j.values.storable.Values;
 
 import static org.junit.Assert.assertEquals;
 import static org.neo4j.kernel.impl.index.schema.LayoutTestUtil.countUniqueValues;
+import static org.neo4j.test.Race.throwing;
 
 public abstract class NativeNonUniqueSchemaIndexPopulatorTest<KEY extends NativeSchemaKey<KEY>,VALUE extends NativeSchemaValue>
         extends NativeSchemaIndexPopulatorTest<KEY,VALUE>
@@ -71,6 +75,71 @@ public abstract class NativeNonUniqueSchemaIndexPopulatorTest<KEY extends Native
         verifyUpdates( updates );
     }
 
+    @Test
+    public void updaterShouldApplyUpdatesAfterEntriesWaitingToBeBulkLoaded() throws Exception
+    {
+        // given entries from the scan, waiting to be bulk loaded
+        populator.create();
+        IndexEntryUpdate<SchemaIndexDescriptor>[] scanUpdates = layoutUtil.someUpdatesNoDuplicateValues();
+        populator.add( Arrays.asList( scanUpdates ) );
+
+        // when updates come in for scanned entities, which can't be applied to the tree until they're loaded
+        IndexEntryUpdate<SchemaIndexDescriptor> added = layoutUtil.add( 1000, scanUpdates[0].values()[0] );
+        try ( IndexUpdater updater = populator.newPopulatingUpdater( null_property_accessor ) )
+        {
+            updater.process( IndexEntryUpdate.remove( scanUpdates[0].getEntityId(), schemaIndexDescriptor,
+                    scanUpdates[0].values() ) );
+            updater.process( added );
+        }
+        populator.scanCompleted();
+
+        // then
+        populator.close( true );
+        List<IndexEntryUpdate<SchemaIndexDescriptor>> expected =
+                new ArrayList<>( Arrays.asList( scanUpdates ).subList( 1, scanUpdates.length ) );
+        expected.add( added );
+        verifyUpdates( expected.toArray( new IndexEntryUpdate[0] ) );
+    }
+
+    @Test
+    public void addShouldNotLoseEntriesWhenRacingWithScanCompleted() throws Throwable
+    {
+        // given
+        populator.create();
+        Iterator<IndexEntryUpdate<SchemaIndexDescriptor>> generator = layoutUtil.randomUpdateGenerator( random );
+        List<IndexEntryUpdate<SchemaIndexDescriptor>> allUpdates = new ArrayList<>();
+        Race race = new Race();
+        for ( int thread = 0; thread < 4; thread++ )
+        {
+            List<List<IndexEntryUpdate<SchemaIndexDescriptor>>> batches = new ArrayList<>();
+            for ( int i = 0; i < 20; i++ )
+            {
+                List<IndexEntryUpdate<SchemaIndexDescriptor>> batch = new ArrayList<>();
+                for ( int j = 0; j < 10; j++ )
+                {
+                    batch.add( generator.next() );
+                }
+                allUpdates.addAll( batch );
+                batches.add( batch );
+            }
+            race.addContestant( throwing( () ->
+            {
+                for ( List<IndexEntryUpdate<SchemaIndexDescriptor>> batch : batches )
+                {
+                    populator.add( batch );
+                }
+            } ) );
+        }
+
+        // when some batches make it into the bulk load and the rest are inserted after it
+        race.addContestant( throwing( populator::scanCompleted ) );
+        race.go();
+
+        // then
+        populator.close( true );
+        verifyUpdates( allUpdates.toArray( new IndexEntryUpdate[0] ) );
+    }
+
     @Test
     public void shouldSampleUpdatesIfConfiguredForOnlineSampling() throws Exception
     {
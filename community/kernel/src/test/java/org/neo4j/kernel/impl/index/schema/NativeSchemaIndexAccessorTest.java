@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -420,6 +421,40 @@ public abstract class NativeSchemaIndexAccessorTest<KEY extends NativeSchemaKey<
         assertEntityIdHits( EMPTY_LONG_ARRAY, result );
     }
 
+    @Test
+    public void shouldReturnAllEntriesInPartitionsForExistsPredicate() throws Exception
+    {
+        // given
+        IndexEntryUpdate<SchemaIndexDescriptor>[] updates = someRandomUpdates( 2_000 );
+        processAll( updates );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        List<IndexReader.Partition> partitions = reader.partitionedQuery( 4, IndexQuery.exists( 0 ) );
+
+        // then
+        assertTrue( partitions.size() >= 1 && partitions.size() <= 4 );
+        assertEntityIdHits( extractEntityIds( updates, alwaysTrue() ), queryPartitions( partitions ) );
+    }
+
+    @Test
+    public void shouldReturnSameEntriesInPartitionsAsWithoutPartitionsForRangePredicate() throws Exception
+    {
+        // given
+        IndexEntryUpdate<SchemaIndexDescriptor>[] updates = someRandomUpdates( 2_000 );
+        processAll( updates );
+        layoutUtil.sort( updates );
+        IndexQuery range = layoutUtil.rangeQuery( valueOf( updates[100] ), true, valueOf( updates[updates.length - 100] ), true );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        long[] expected = PrimitiveLongCollections.asArray( query( reader, range ) );
+        List<Long> actual = queryPartitions( reader.partitionedQuery( random.nextInt( 1, 8 ), range ) );
+
+        // then
+        assertEntityIdHits( expected, actual );
+    }
+
     @Test( timeout = 10_000L )
     public void mustHandleNestedQueries() throws Exception
     {
@@ -768,6 +803,21 @@ public abstract class NativeSchemaIndexAccessorTest<KEY extends NativeSchemaKey<
         return client;
     }
 
+    private List<Long> queryPartitions( List<IndexReader.Partition> partitions ) throws IndexNotApplicableKernelException
+    {
+        List<Long> entityIds = new ArrayList<>();
+        for ( IndexReader.Partition partition : partitions )
+        {
+            NodeValueIterator client = new NodeValueIterator();
+            partition.initialize( client );
+            while ( client.hasNext() )
+            {
+                entityIds.add( client.next() );
+            }
+        }
+        return entityIds;
+    }
+
     private void assertEntityIdHits( long[] expected, PrimitiveLongIterator result )
     {
         long[] actual = PrimitiveLongCollections.asArray( result );
@@ -841,6 +891,18 @@ public abstract class NativeSchemaIndexAccessorTest<KEY extends NativeSchemaKey<
         }
     }
 
+    private IndexEntryUpdate<SchemaIndexDescriptor>[] someRandomUpdates( int count )
+    {
+        Iterator<IndexEntryUpdate<SchemaIndexDescriptor>> generator = layoutUtil.randomUpdateGenerator( random );
+        @SuppressWarnings( "unchecked" )
+        IndexEntryUpdate<SchemaIndexDescriptor>[] updates = new IndexEntryUpdate[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            updates[i] = generator.next();
+        }
+        return updates;
+    }
+
     private IndexEntryUpdate<SchemaIndexDescriptor>[] generateRandomUpdates(
             Set<IndexEntryUpdate<SchemaIndexDescriptor>> expectedData,
             Iterator<IndexEntryUpdate<SchemaIndexDescriptor>> newDataGenerator, int count, float removeFactor )
@@ -19,18 +19,35 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.kernel.api.InternalIndexState;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.kernel.api.index.IndexProvider;
 import org.neo4j.kernel.api.index.IndexProvider.Monitor;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptorFactory;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByProvider;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexPopulator.BYTE_ONLINE;
+
 public class StringIndexProviderTest extends NativeIndexProviderTest
 {
+    private static final long INDEX_ID = 1;
+
     @Override
     IndexProvider newProvider( PageCache pageCache, FileSystemAbstraction fs, IndexDirectoryStructure.Factory dir,
                                Monitor monitor, RecoveryCleanupWorkCollector collector )
@@ -45,6 +62,43 @@ public class StringIndexProviderTest extends NativeIndexProviderTest
         return new StringIndexProvider( pageCache, fs, dir, monitor, collector, true );
     }
 
+    @Test
+    public void shouldReportInitialStateAsPopulatingForOnlineIndexCreatedWithPreviousLayoutVersion() throws IOException
+    {
+        // given an online index written by minor version 1 of the layout, which had no prefix compressed tree nodes
+        PageCache pageCache = rules.pageCache();
+        StringIndexProvider provider = new StringIndexProvider( pageCache, rules.fileSystem(),
+                directoriesByProvider( rules.directory().absolutePath() ), IndexProvider.Monitor.EMPTY, immediate(), false );
+        File indexFile = provider.nativeIndexFileFromIndexId( INDEX_ID );
+        rules.fileSystem().mkdirs( indexFile.getParentFile() );
+        StringLayout previousLayout = new StringLayout()
+        {
+            @Override
+            public int minorVersion()
+            {
+                return 1;
+            }
+
+            @Override
+            public boolean compressKeyPrefixes()
+            {
+                return false;
+            }
+        };
+        try ( GBPTree<StringSchemaKey,NativeSchemaValue> tree = new GBPTree<>( pageCache, indexFile, previousLayout, 0,
+                GBPTree.NO_MONITOR, NO_HEADER_READER, NO_HEADER_WRITER, immediate() ) )
+        {
+            tree.checkpoint( IOLimiter.unlimited(), new NativeSchemaIndexHeaderWriter( BYTE_ONLINE ) );
+        }
+        assertEquals( InternalIndexState.ONLINE, NativeSchemaIndexes.readState( pageCache, indexFile ) );
+
+        // when
+        InternalIndexState state = provider.getInitialState( INDEX_ID, SchemaIndexDescriptorFactory.forLabel( 1, 1 ) );
+
+        // then it's repopulated, since the current layout can't open it
+        assertEquals( InternalIndexState.POPULATING, state );
+    }
+
     @Override
     protected InternalIndexState expectedStateOnNonExistingSubIndex()
     {
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.StubPageCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StringLayoutTest
+{
+    private final StringLayout layout = new StringLayout();
+
+    @Test
+    public void shouldReadAndWriteConsistentValues()
+    {
+        // given
+        String[] values = {"", "a", "abc", "abcd", "åäö", "😀 smile"};
+        PageCursor cursor = new StubPageCursor( 0, 8 * 1024 );
+        StringSchemaKey readKey = layout.newKey();
+
+        // when
+        for ( int i = 0; i < values.length; i++ )
+        {
+            layout.writeKey( cursor, key( values[i], i ) );
+        }
+
+        // then
+        cursor.setOffset( 0 );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            StringSchemaKey expected = key( values[i], i );
+            layout.readKey( cursor, readKey, layout.keySize( expected ) );
+            assertEquals( 0, layout.compare( expected, readKey ) );
+            assertEquals( i, readKey.getEntityId() );
+        }
+    }
+
+    @Test
+    public void shouldTruncateSplitterToFirstDifferingByte()
+    {
+        // given
+        StringSchemaKey left = key( "http://neo4j.com/docs/manual", 1 );
+        StringSchemaKey right = key( "http://neo4j.com/download/center", 2 );
+        StringSchemaKey splitter = layout.newKey();
+
+        // when
+        layout.minimalSplitter( left, right, splitter );
+
+        // then
+        assertEquals( "http://neo4j.com/dow", splitter.asValue().asObject() );
+        assertSplits( left, right, splitter );
+    }
+
+    @Test
+    public void shouldNotTruncateSplitterWithinMultiByteCharacter()
+    {
+        // given
+        StringSchemaKey left = key( "prefixä", 1 );
+        StringSchemaKey right = key( "prefixö and more", 2 );
+        StringSchemaKey splitter = layout.newKey();
+
+        // when
+        layout.minimalSplitter( left, right, splitter );
+
+        // then
+        assertEquals( "prefixö", splitter.asValue().asObject() );
+        assertSplits( left, right, splitter );
+    }
+
+    @Test
+    public void shouldUseRightKeyAsSplitterForEqualValues()
+    {
+        // given
+        StringSchemaKey left = key( "same", 1 );
+        StringSchemaKey right = key( "same", 2 );
+        StringSchemaKey splitter = layout.newKey();
+
+        // when
+        layout.minimalSplitter( left, right, splitter );
+
+        // then
+        assertEquals( 0, layout.compare( right, splitter ) );
+        assertSplits( left, right, splitter );
+    }
+
+    private void assertSplits( StringSchemaKey left, StringSchemaKey right, StringSchemaKey splitter )
+    {
+        assertTrue( layout.compare( left, splitter ) < 0 );
+        assertTrue( layout.compare( splitter, right ) <= 0 );
+    }
+
+    private StringSchemaKey key( String value, long entityId )
+    {
+        StringSchemaKey key = layout.newKey();
+        key.initialize( entityId );
+        key.writeString( value );
+        return key;
+    }
+}
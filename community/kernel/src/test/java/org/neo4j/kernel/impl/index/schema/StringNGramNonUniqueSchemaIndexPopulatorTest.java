@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.internal.kernel.api.IndexOrder;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+
+public class StringNGramNonUniqueSchemaIndexPopulatorTest extends NativeNonUniqueSchemaIndexPopulatorTest<StringSchemaKey,NativeSchemaValue>
+{
+    @Override
+    NativeSchemaIndexPopulator<StringSchemaKey,NativeSchemaValue> createPopulator( IndexSamplingConfig samplingConfig )
+    {
+        return new StringNGramSchemaIndexPopulator( pageCache, fs, getIndexFile(), layout, monitor, schemaIndexDescriptor, indexId, samplingConfig );
+    }
+
+    @Override
+    protected LayoutTestUtil<StringSchemaKey,NativeSchemaValue> createLayoutTestUtil()
+    {
+        return new StringNonUniqueLayoutTestUtil();
+    }
+
+    @Test
+    public void shouldPopulateNGramsFromScanAndUpdates() throws Exception
+    {
+        // given
+        populator.create();
+        populator.add( Arrays.asList(
+                layoutUtil.add( 1, Values.stringValue( "abcdef" ) ),
+                layoutUtil.add( 2, Values.stringValue( "xbcdy" ) ) ) );
+        try ( IndexUpdater updater = populator.newPopulatingUpdater( null_property_accessor ) )
+        {
+            updater.process( change( 2, schemaIndexDescriptor, Values.stringValue( "xbcdy" ), Values.stringValue( "xyz" ) ) );
+            updater.process( layoutUtil.add( 3, Values.stringValue( "bcde" ) ) );
+        }
+
+        // when
+        populator.close( true );
+
+        // then
+        try ( StringNGramSchemaIndexAccessor accessor = new StringNGramSchemaIndexAccessor( pageCache, fs, getIndexFile(), layout, immediate(),
+                monitor, schemaIndexDescriptor, indexId, new IndexSamplingConfig( Config.defaults() ) ) )
+        {
+            NodeValueIterator client = new NodeValueIterator();
+            accessor.newReader().query( client, IndexOrder.NONE, IndexQuery.stringContains( 0, "bcd" ) );
+            assertArrayEquals( new long[]{1, 3}, PrimitiveLongCollections.asArray( client ) );
+        }
+    }
+}
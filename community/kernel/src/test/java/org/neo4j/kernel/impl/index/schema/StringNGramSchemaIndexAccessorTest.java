@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.internal.kernel.api.IndexOrder;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.SimpleNodeValueClient;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.Iterators.asSet;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
+import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+
+public class StringNGramSchemaIndexAccessorTest extends NativeSchemaIndexAccessorTest<StringSchemaKey,NativeSchemaValue>
+{
+    private final Map<Long,String> values = new HashMap<>();
+
+    @Override
+    StringNGramSchemaIndexAccessor makeAccessorWithSamplingConfig( IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        return new StringNGramSchemaIndexAccessor( pageCache, fs, getIndexFile(), layout, immediate(), monitor,
+                schemaIndexDescriptor, indexId, samplingConfig );
+    }
+
+    @Override
+    protected LayoutTestUtil<StringSchemaKey,NativeSchemaValue> createLayoutTestUtil()
+    {
+        return new StringNonUniqueLayoutTestUtil();
+    }
+
+    @Override
+    @Test
+    public void snapshotFilesShouldReturnIndexFile()
+    {
+        // when
+        ResourceIterator<File> files = accessor.snapshotFiles();
+
+        // then
+        assertEquals( asSet( getIndexFile(), StringNGramIndex.ngramFile( getIndexFile() ) ), asSet( files ) );
+    }
+
+    @Test
+    public void shouldFindCandidatesForContainsAndSuffixPredicates() throws Exception
+    {
+        // given
+        add( 1, "abcdef" );
+        add( 2, "xbcdy" );
+        add( 3, "abcabc" );
+        add( 4, "" );
+
+        // when
+        IndexReader reader = accessor.newReader();
+
+        // then
+        assertEquals( asList( 1, 2 ), query( reader, IndexQuery.stringContains( 0, "bcd" ) ) );
+        assertEquals( asList( 1 ), query( reader, IndexQuery.stringContains( 0, "cde" ) ) );
+        assertEquals( asList( 1, 3 ), query( reader, IndexQuery.stringContains( 0, "abc" ) ) );
+        assertEquals( asList( 1 ), query( reader, IndexQuery.stringSuffix( 0, "ef" ) ) );
+        assertEquals( asList( 3 ), query( reader, IndexQuery.stringSuffix( 0, "cabc" ) ) );
+        assertEquals( asList(), query( reader, IndexQuery.stringSuffix( 0, "bcd" ) ) );
+        assertFalse( reader.hasFullValuePrecision( IndexQuery.stringContains( 0, "bcd" ) ) );
+    }
+
+    @Test
+    public void shouldScanForStringsWithoutNGrams() throws Exception
+    {
+        // given
+        add( 1, "abcdef" );
+        add( 2, "xf" );
+
+        // when
+        IndexReader reader = accessor.newReader();
+
+        // then
+        IndexQuery contains = IndexQuery.stringContains( 0, "bc" );
+        IndexQuery suffix = IndexQuery.stringSuffix( 0, "f" );
+        assertEquals( asList( 1 ), query( reader, contains ) );
+        assertEquals( asList( 1, 2 ), query( reader, suffix ) );
+        assertTrue( reader.hasFullValuePrecision( contains ) );
+        assertTrue( reader.hasFullValuePrecision( suffix ) );
+    }
+
+    @Test
+    public void shouldNotFindChangedOrRemovedValues() throws Exception
+    {
+        // given
+        add( 1, "abcdef" );
+        add( 2, "abcxyz" );
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            updater.process( change( 1, schemaIndexDescriptor, Values.stringValue( "abcdef" ), Values.stringValue( "abcabc" ) ) );
+            updater.process( remove( 2, schemaIndexDescriptor, Values.stringValue( "abcxyz" ) ) );
+        }
+
+        // when
+        IndexReader reader = accessor.newReader();
+
+        // then
+        assertEquals( asList( 1 ), query( reader, IndexQuery.stringContains( 0, "abc" ) ) );
+        assertEquals( asList(), query( reader, IndexQuery.stringContains( 0, "def" ) ) );
+        assertEquals( asList(), query( reader, IndexQuery.stringSuffix( 0, "yz" ) ) );
+    }
+
+    @Test
+    public void shouldFindNGramsAfterReopen() throws Exception
+    {
+        // given
+        add( 1, "abcdef" );
+        accessor.force( IOLimiter.unlimited() );
+        accessor.close();
+
+        // when
+        accessor = makeAccessorWithSamplingConfig( new IndexSamplingConfig( Config.defaults() ) );
+
+        // then
+        assertEquals( asList( 1 ), query( accessor.newReader(), IndexQuery.stringContains( 0, "cde" ) ) );
+    }
+
+    @Test
+    public void shouldFindRareNGramsAmongFrequentOnes() throws Exception
+    {
+        // given
+        List<Long> expected = new ArrayList<>();
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            for ( long entityId = 0; entityId < 10_000; entityId++ )
+            {
+                // Many more entities with "abc" than fit in a tree node, and only a few of them with "xyz" too
+                String value = entityId % 1_000 == 999 ? "abcxyz" : "abc" + entityId;
+                updater.process( layoutUtil.add( entityId, Values.stringValue( value ) ) );
+                if ( value.equals( "abcxyz" ) )
+                {
+                    expected.add( entityId );
+                }
+            }
+        }
+
+        // when
+        List<Long> candidates = query( accessor.newReader(), IndexQuery.stringContains( 0, "cxy" ) );
+        List<Long> both = query( accessor.newReader(), IndexQuery.stringContains( 0, "abcxyz" ) );
+
+        // then
+        assertEquals( expected, candidates );
+        assertEquals( expected, both );
+    }
+
+    @Test
+    public void shouldFindAllMatchesForRandomContainsAndSuffixPredicates() throws Exception
+    {
+        // given
+        for ( long entityId = 0; entityId < 1_000; entityId++ )
+        {
+            add( entityId, randomString() );
+        }
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            for ( long entityId = 0; entityId < 1_000; entityId += random.nextInt( 1, 10 ) )
+            {
+                String before = values.get( entityId );
+                if ( random.nextBoolean() )
+                {
+                    String after = randomString();
+                    updater.process( change( entityId, schemaIndexDescriptor, Values.stringValue( before ), Values.stringValue( after ) ) );
+                    values.put( entityId, after );
+                }
+                else
+                {
+                    updater.process( remove( entityId, schemaIndexDescriptor, Values.stringValue( before ) ) );
+                    values.remove( entityId );
+                }
+            }
+        }
+
+        // when
+        IndexReader reader = accessor.newReader();
+        for ( int i = 0; i < 100; i++ )
+        {
+            String value = randomString();
+            int from = random.nextInt( value.length() + 1 );
+            String string = value.substring( from, from + random.nextInt( value.length() - from + 1 ) );
+            IndexQuery predicate = random.nextBoolean() ? IndexQuery.stringContains( 0, string ) : IndexQuery.stringSuffix( 0, string );
+            List<Long> candidates = query( reader, predicate );
+
+            // then
+            List<Long> expected = new ArrayList<>();
+            List<Long> matching = new ArrayList<>();
+            for ( long entityId = 0; entityId < 1_000; entityId++ )
+            {
+                String indexed = values.get( entityId );
+                if ( indexed != null && predicate.acceptsValue( Values.stringValue( indexed ) ) )
+                {
+                    expected.add( entityId );
+                }
+            }
+            for ( long candidate : candidates )
+            {
+                assertTrue( "Removed entity " + candidate + " found for " + predicate, values.containsKey( candidate ) );
+                if ( predicate.acceptsValue( Values.stringValue( values.get( candidate ) ) ) )
+                {
+                    matching.add( candidate );
+                }
+            }
+            assertEquals( predicate.toString(), expected, matching );
+        }
+    }
+
+    private String randomString()
+    {
+        // Few and multi-byte characters, such that n-grams are shared between many values
+        char[] chars = {'a', 'b', 'c', 'å'};
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt( 12 );
+        for ( int i = 0; i < length; i++ )
+        {
+            builder.append( chars[random.nextInt( chars.length )] );
+        }
+        return builder.toString();
+    }
+
+    private void add( long entityId, String value ) throws Exception
+    {
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+        {
+            IndexEntryUpdate<SchemaIndexDescriptor> update = layoutUtil.add( entityId, Values.stringValue( value ) );
+            updater.process( update );
+        }
+        values.put( entityId, value );
+    }
+
+    private static List<Long> query( IndexReader reader, IndexQuery predicate ) throws Exception
+    {
+        SimpleNodeValueClient client = new SimpleNodeValueClient();
+        reader.query( client, IndexOrder.NONE, predicate );
+        List<Long> entityIds = new ArrayList<>();
+        while ( client.next() )
+        {
+            entityIds.add( client.reference );
+        }
+        entityIds.sort( Long::compare );
+        return entityIds;
+    }
+
+    private static List<Long> asList( long... entityIds )
+    {
+        List<Long> list = new ArrayList<>();
+        for ( long entityId : entityIds )
+        {
+            list.add( entityId );
+        }
+        return list;
+    }
+}
@@ -24,7 +24,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.function.IntFunction;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
@@ -45,6 +48,7 @@ import org.neo4j.values.storable.PointValue;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -374,6 +378,48 @@ public class FusionIndexReaderTest
         }
     }
 
+    @Test
+    public void mustSelectNumberForPartitionedRangeNumericPredicate() throws Exception
+    {
+        // given
+        RangePredicate<?> numberRange = IndexQuery.range( PROP_KEY, 0, true, 1, false );
+
+        // when
+        fusionIndexReader.partitionedQuery( 4, numberRange );
+
+        // then
+        IndexReader expectedReader = expectedForNumbers();
+        verify( expectedReader, times( 1 ) ).partitionedQuery( 4, numberRange );
+        for ( IndexReader reader : aliveReaders )
+        {
+            if ( reader != expectedReader )
+            {
+                verifyNoMoreInteractions( reader );
+            }
+        }
+    }
+
+    @Test
+    public void mustCombinePartitionsFromExistsPredicate() throws Exception
+    {
+        // given
+        IndexQuery.ExistsPredicate exists = IndexQuery.exists( PROP_KEY );
+        List<IndexReader.Partition> expected = new ArrayList<>();
+        for ( IndexReader aliveReader : aliveReaders )
+        {
+            List<IndexReader.Partition> partitions = Arrays.asList( mock( IndexReader.Partition.class ), mock( IndexReader.Partition.class ) );
+            when( aliveReader.partitionedQuery( 2, exists ) ).thenReturn( partitions );
+            expected.addAll( partitions );
+        }
+
+        // when
+        List<IndexReader.Partition> partitions = fusionIndexReader.partitionedQuery( 2, exists );
+
+        // then
+        assertEquals( new HashSet<>( expected ), new HashSet<>( partitions ) );
+        assertEquals( expected.size(), partitions.size() );
+    }
+
     @Test
     public void shouldInstantiatePartLazilyForSpecificValueGroupQuery() throws IndexNotApplicableKernelException
     {
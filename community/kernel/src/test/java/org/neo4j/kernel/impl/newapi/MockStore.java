@@ -49,9 +49,11 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.api.ExplicitIndex;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+import org.neo4j.kernel.impl.api.store.DegreeCache;
 import org.neo4j.kernel.impl.store.DynamicRecordAllocator;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.column.PropertyColumn;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -606,6 +608,18 @@ public class MockStore extends Read implements TestRule
         throw new UnsupportedOperationException( "not implemented" );
     }
 
+    @Override
+    DegreeCache.Degrees cachedDegrees( long nodeReference, long groupReference )
+    {
+        return null;
+    }
+
+    @Override
+    PropertyColumn propertyColumn( int label, int propertyKey )
+    {
+        return null;
+    }
+
     @Override
     long nodeHighMark()
     {
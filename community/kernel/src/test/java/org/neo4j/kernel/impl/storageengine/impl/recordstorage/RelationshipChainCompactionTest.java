@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.locking.LockTracer;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.state.RelationshipChainCompactor;
+import org.neo4j.kernel.impl.util.DirectionWrapper;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.lock.ResourceLocker;
+import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+public class RelationshipChainCompactionTest
+{
+    private static final RelationshipType KNOWS = RelationshipType.withName( "KNOWS" );
+    private static final RelationshipType LIKES = RelationshipType.withName( "LIKES" );
+    private static final int MIN_DEGREE = 10;
+    private static final double MIN_FRAGMENTATION = 1.5;
+
+    @Rule
+    public final DatabaseRule db = new ImpermanentDatabaseRule()
+            .withSetting( GraphDatabaseSettings.dense_node_threshold, "5" )
+            .withSetting( GraphDatabaseSettings.record_id_batch_size, "1000" )
+            .withSetting( GraphDatabaseSettings.relationship_chain_compaction_min_degree, String.valueOf( MIN_DEGREE ) )
+            .withSetting( GraphDatabaseSettings.relationship_chain_compaction_min_fragmentation,
+                    String.valueOf( MIN_FRAGMENTATION ) );
+
+    @Test
+    public void shouldRelinkFragmentedChainsInIdOrderThroughTheCommitProcess() throws Exception
+    {
+        // given
+        long nodeId = createFragmentedDenseNode( 200 );
+        Map<String,Set<Long>> relationshipsBefore = relationshipsOf( nodeId );
+        Map<String,Integer> degreesBefore = degreesOf( nodeId );
+        List<long[]> chainsBefore = chainsOf( nodeId );
+        assertEquals( 3, chainsBefore.size() );
+        for ( long[] chain : chainsBefore )
+        {
+            assertTrue( "chains should be fragmented to begin with", fragmentation( chain ) >= MIN_FRAGMENTATION );
+        }
+        long lastCommittedTransactionId = lastCommittedTransactionId();
+
+        // when
+        long compacted = compaction().compactAll();
+
+        // then
+        assertEquals( 1, compacted );
+        assertEquals( lastCommittedTransactionId + 1, lastCommittedTransactionId() );
+        for ( long[] chain : chainsOf( nodeId ) )
+        {
+            assertContiguous( chain );
+            assertEquals( 1.0, fragmentation( chain ), 0.0 );
+        }
+        assertEquals( relationshipsBefore, relationshipsOf( nodeId ) );
+        assertEquals( degreesBefore, degreesOf( nodeId ) );
+    }
+
+    @Test
+    public void shouldNotChangeCompactedChains() throws Exception
+    {
+        // given
+        createFragmentedDenseNode( 200 );
+        assertEquals( 1, compaction().compactAll() );
+        long lastCommittedTransactionId = lastCommittedTransactionId();
+
+        // when
+        long compacted = compaction().compactAll();
+
+        // then
+        assertEquals( 0, compacted );
+        assertEquals( lastCommittedTransactionId, lastCommittedTransactionId() );
+    }
+
+    @Test
+    public void shouldLeaveChainsBelowMinDegreeOrFragmentationAsTheyAre()
+    {
+        // given
+        long smallNode = createDenseNodeOneRelationshipPerTransaction( MIN_DEGREE - 1 );
+        long orderlyNode = createDenseNodeOneRelationshipPerTransaction( 500 );
+        List<long[]> smallChains = chainsOf( smallNode );
+        List<long[]> orderlyChains = chainsOf( orderlyNode );
+        long lastCommittedTransactionId = lastCommittedTransactionId();
+
+        // when
+        long compacted = compaction().compactAll();
+
+        // then
+        assertEquals( 0, compacted );
+        assertEquals( lastCommittedTransactionId, lastCommittedTransactionId() );
+        assertChainsEqual( smallChains, chainsOf( smallNode ) );
+        assertChainsEqual( orderlyChains, chainsOf( orderlyNode ) );
+    }
+
+    @Test
+    public void shouldLockNodeAndRelationshipsAndCreateRelationshipCommands() throws Exception
+    {
+        // given
+        long nodeId = createFragmentedDenseNode( 200 );
+        List<long[]> chainsBefore = chainsOf( nodeId );
+        Set<Long> relationships = new HashSet<>();
+        for ( long[] chain : chainsBefore )
+        {
+            for ( long relationshipId : chain )
+            {
+                relationships.add( relationshipId );
+            }
+        }
+        RecordStorageEngine storageEngine = storageEngine();
+        RelationshipChainCompactor compactor = storageEngine.relationshipChainCompactor( MIN_DEGREE, MIN_FRAGMENTATION );
+        RecordingLocker locks = new RecordingLocker();
+        Collection<StorageCommand> commands = new ArrayList<>();
+
+        // when
+        int compacted = storageEngine.createRelationshipChainCompactionCommands( commands, nodeId, compactor, locks,
+                lastCommittedTransactionId() );
+
+        // then
+        assertEquals( 3, compacted );
+        assertEquals( ResourceTypes.NODE, locks.types.get( 0 ) );
+        assertEquals( nodeId, (long) locks.ids.get( 0 ) );
+        assertEquals( relationships, locks.locked( ResourceTypes.RELATIONSHIP ) );
+        Set<Long> changedRelationships = new HashSet<>();
+        int groupCommands = 0;
+        for ( StorageCommand command : commands )
+        {
+            if ( command instanceof Command.RelationshipCommand )
+            {
+                changedRelationships.add( ((Command.RelationshipCommand) command).getKey() );
+            }
+            else if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                groupCommands++;
+            }
+            else
+            {
+                throw new AssertionError( "Unexpected command " + command );
+            }
+        }
+        assertEquals( 2, groupCommands );
+        assertFalse( changedRelationships.isEmpty() );
+        assertTrue( relationships.containsAll( changedRelationships ) );
+        // nothing is changed before the commands are committed
+        assertChainsEqual( chainsBefore, chainsOf( nodeId ) );
+    }
+
+    /**
+     * Creates a dense node with outgoing, incoming and loop chains which alternate between relationships created
+     * by two threads. Every thread reserves relationship ids in large batches, which places the relationships of
+     * the two threads pages apart in the relationship store.
+     */
+    private long createFragmentedDenseNode( int relationshipsPerThread ) throws Exception
+    {
+        GraphDatabaseService graphDb = db.getGraphDatabaseAPI();
+        long nodeId;
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            nodeId = graphDb.createNode().getId();
+            tx.success();
+        }
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try
+        {
+            Runnable createRelationships = () ->
+            {
+                try ( Transaction tx = graphDb.beginTx() )
+                {
+                    Node node = graphDb.getNodeById( nodeId );
+                    node.createRelationshipTo( graphDb.createNode(), KNOWS );
+                    graphDb.createNode().createRelationshipTo( node, LIKES );
+                    node.createRelationshipTo( node, KNOWS );
+                    tx.success();
+                }
+            };
+            for ( int i = 0; i < relationshipsPerThread; i++ )
+            {
+                first.submit( createRelationships ).get();
+                second.submit( createRelationships ).get();
+            }
+        }
+        finally
+        {
+            first.shutdown();
+            second.shutdown();
+        }
+        return nodeId;
+    }
+
+    private long createDenseNodeOneRelationshipPerTransaction( int outgoing )
+    {
+        GraphDatabaseService graphDb = db.getGraphDatabaseAPI();
+        long nodeId;
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            nodeId = graphDb.createNode().getId();
+            tx.success();
+        }
+        for ( int i = 0; i < outgoing; i++ )
+        {
+            try ( Transaction tx = graphDb.beginTx() )
+            {
+                graphDb.getNodeById( nodeId ).createRelationshipTo( graphDb.createNode(), KNOWS );
+                tx.success();
+            }
+        }
+        return nodeId;
+    }
+
+    private Map<String,Set<Long>> relationshipsOf( long nodeId )
+    {
+        GraphDatabaseService graphDb = db.getGraphDatabaseAPI();
+        Map<String,Set<Long>> relationships = new HashMap<>();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            Node node = graphDb.getNodeById( nodeId );
+            for ( Direction direction : Direction.values() )
+            {
+                for ( RelationshipType type : new RelationshipType[]{KNOWS, LIKES} )
+                {
+                    Set<Long> ids = new HashSet<>();
+                    for ( Relationship relationship : node.getRelationships( direction, type ) )
+                    {
+                        assertTrue( "traversal should return every relationship once", ids.add( relationship.getId() ) );
+                    }
+                    relationships.put( direction + ":" + type.name(), ids );
+                }
+            }
+            tx.success();
+        }
+        return relationships;
+    }
+
+    private Map<String,Integer> degreesOf( long nodeId )
+    {
+        GraphDatabaseService graphDb = db.getGraphDatabaseAPI();
+        Map<String,Integer> degrees = new HashMap<>();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            Node node = graphDb.getNodeById( nodeId );
+            for ( Direction direction : Direction.values() )
+            {
+                degrees.put( direction.name(), node.getDegree( direction ) );
+                for ( RelationshipType type : new RelationshipType[]{KNOWS, LIKES} )
+                {
+                    degrees.put( direction + ":" + type.name(), node.getDegree( type, direction ) );
+                }
+            }
+            tx.success();
+        }
+        return degrees;
+    }
+
+    /**
+     * @return the chains of the given dense node as they are in the store, in traversal order.
+     */
+    private List<long[]> chainsOf( long nodeId )
+    {
+        NeoStores neoStores = storageEngine().testAccessNeoStores();
+        RecordStore<NodeRecord> nodeStore = neoStores.getNodeStore();
+        RecordStore<RelationshipGroupRecord> groupStore = neoStores.getRelationshipGroupStore();
+        RecordStore<RelationshipRecord> relationshipStore = neoStores.getRelationshipStore();
+        NodeRecord node = nodeStore.getRecord( nodeId, nodeStore.newRecord(), NORMAL );
+        assertTrue( node.isDense() );
+        List<long[]> chains = new ArrayList<>();
+        RelationshipGroupRecord group = groupStore.newRecord();
+        RelationshipRecord relationship = relationshipStore.newRecord();
+        for ( long groupId = node.getNextRel(); groupId != Record.NO_NEXT_RELATIONSHIP.intValue(); groupId = group.getNext() )
+        {
+            groupStore.getRecord( groupId, group, NORMAL );
+            for ( DirectionWrapper direction : DirectionWrapper.values() )
+            {
+                List<Long> chain = new ArrayList<>();
+                for ( long id = direction.getNextRel( group ); id != Record.NO_NEXT_RELATIONSHIP.intValue(); )
+                {
+                    relationshipStore.getRecord( id, relationship, NORMAL );
+                    boolean first = chain.isEmpty();
+                    chain.add( id );
+                    if ( relationship.getFirstNode() == nodeId )
+                    {
+                        assertEquals( first, relationship.isFirstInFirstChain() );
+                        id = relationship.getFirstNextRel();
+                    }
+                    else
+                    {
+                        assertEquals( first, relationship.isFirstInSecondChain() );
+                        id = relationship.getSecondNextRel();
+                    }
+                }
+                if ( !chain.isEmpty() )
+                {
+                    long[] ids = chain.stream().mapToLong( Long::longValue ).toArray();
+                    relationshipStore.getRecord( ids[0], relationship, NORMAL );
+                    long degree = relationship.getFirstNode() == nodeId ? relationship.getFirstPrevRel()
+                                                                        : relationship.getSecondPrevRel();
+                    assertEquals( "degree kept in the first relationship", ids.length, degree );
+                    chains.add( ids );
+                }
+            }
+        }
+        return chains;
+    }
+
+    private double fragmentation( long[] chain )
+    {
+        int recordsPerPage = storageEngine().testAccessNeoStores().getRelationshipStore().getRecordsPerPage();
+        long pageSwitches = 1;
+        Set<Long> pages = new HashSet<>();
+        pages.add( chain[0] / recordsPerPage );
+        for ( int i = 1; i < chain.length; i++ )
+        {
+            if ( chain[i] / recordsPerPage != chain[i - 1] / recordsPerPage )
+            {
+                pageSwitches++;
+            }
+            pages.add( chain[i] / recordsPerPage );
+        }
+        return (double) pageSwitches / pages.size();
+    }
+
+    private void assertContiguous( long[] chain )
+    {
+        int recordsPerPage = storageEngine().testAccessNeoStores().getRelationshipStore().getRecordsPerPage();
+        for ( int i = 1; i < chain.length; i++ )
+        {
+            assertTrue( "relationships should be linked in id order", chain[i] > chain[i - 1] );
+            assertTrue( "pages should be read in file order", chain[i] / recordsPerPage >= chain[i - 1] / recordsPerPage );
+        }
+    }
+
+    private static void assertChainsEqual( List<long[]> expected, List<long[]> actual )
+    {
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( toList( expected.get( i ) ), toList( actual.get( i ) ) );
+        }
+    }
+
+    private static List<Long> toList( long[] ids )
+    {
+        List<Long> list = new ArrayList<>();
+        for ( long id : ids )
+        {
+            list.add( id );
+        }
+        return list;
+    }
+
+    private long lastCommittedTransactionId()
+    {
+        return db.getDependencyResolver().resolveDependency( TransactionIdStore.class ).getLastCommittedTransactionId();
+    }
+
+    private RelationshipChainCompaction compaction()
+    {
+        return db.getDependencyResolver().resolveDependency( RelationshipChainCompaction.class );
+    }
+
+    private RecordStorageEngine storageEngine()
+    {
+        return db.getDependencyResolver().resolveDependency( RecordStorageEngine.class );
+    }
+
+    private static class RecordingLocker implements ResourceLocker
+    {
+        private final List<ResourceType> types = new ArrayList<>();
+        private final List<Long> ids = new ArrayList<>();
+
+        @Override
+        public void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+        {
+            for ( long resourceId : resourceIds )
+            {
+                types.add( resourceType );
+                ids.add( resourceId );
+            }
+        }
+
+        Set<Long> locked( ResourceType resourceType )
+        {
+            Set<Long> locked = new HashSet<>();
+            for ( int i = 0; i < types.size(); i++ )
+            {
+                if ( types.get( i ) == resourceType )
+                {
+                    locked.add( ids.get( i ) );
+                }
+            }
+            return locked;
+        }
+    }
+}
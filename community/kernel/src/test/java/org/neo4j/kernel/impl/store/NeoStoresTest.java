@@ -54,6 +54,7 @@ import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
 import org.neo4j.kernel.NeoStoreDataSource;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.StatementConstants;
 import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.api.properties.PropertyKeyValue;
 import org.neo4j.kernel.api.txstate.TransactionState;
@@ -64,13 +65,16 @@ import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.core.RelationshipTypeToken;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.store.MetaDataStore.Position;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.format.standard.DynamicRecordFormat;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdType;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -107,11 +111,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.function.Predicates.ALWAYS_TRUE_INT;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.counts_store_format;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.counts_store_rotation_timeout;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.internal.kernel.api.security.LoginContext.AUTH_DISABLED;
 import static org.neo4j.kernel.api.AssertOpen.ALWAYS_OPEN;
 import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK;
+import static org.neo4j.register.Registers.newDoubleLongRegister;
 import static org.neo4j.kernel.impl.store.RecordStore.getRecord;
 import static org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat.FIELD_NOT_PRESENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
@@ -618,6 +624,47 @@ public class NeoStoresTest
         neoStores.close();
     }
 
+    @Test
+    public void shouldRebuildCountsWhenSwitchingCountsStoreFormatBackAndForth() throws Exception
+    {
+        // given a store with kvstore counts
+        FileSystemAbstraction fileSystem = fs.get();
+        File countsStore = new File( storeDir, MetaDataStore.DEFAULT_NAME + StoreFactory.COUNTS_STORE );
+        File left = new File( countsStore.getPath() + CountsTracker.LEFT );
+        File right = new File( countsStore.getPath() + CountsTracker.RIGHT );
+        File tree = new File( countsStore.getPath() + GBPTreeCountsStore.TREE );
+        try ( NeoStores neoStores = openNeoStores( Config.defaults() ) )
+        {
+            neoStores.getCounts().start();
+            assertEquals( 0, nodeCount( neoStores ) );
+        }
+        assertTrue( fileSystem.fileExists( left ) || fileSystem.fileExists( right ) );
+
+        // when switching to gbptree, and creating a node the kvstore counts never get to hear about
+        try ( NeoStores neoStores = openNeoStores( Config.defaults( counts_store_format, "gbptree" ) ) )
+        {
+            neoStores.getCounts().start();
+            assertEquals( 0, nodeCount( neoStores ) );
+            NodeStore nodeStore = neoStores.getNodeStore();
+            NodeRecord node = new NodeRecord( nodeStore.nextId() );
+            node.setInUse( true );
+            nodeStore.updateRecord( node );
+        }
+
+        // then
+        assertTrue( fileSystem.fileExists( tree ) );
+        assertFalse( fileSystem.fileExists( left ) );
+        assertFalse( fileSystem.fileExists( right ) );
+
+        // and when switching back, the counts are rebuilt rather than read from stale kvstore files
+        try ( NeoStores neoStores = openNeoStores( Config.defaults() ) )
+        {
+            neoStores.getCounts().start();
+            assertEquals( 1, nodeCount( neoStores ) );
+        }
+        assertFalse( fileSystem.fileExists( tree ) );
+    }
+
     @Test
     public void shouldInitializeTheTxIdToOne()
     {
@@ -781,7 +828,7 @@ public class NeoStoresTest
         NeoStores neoStore = factory.openAllNeoStores( true );
 
         // let's hack the counts store so it fails to rotate and hence it fails to close as well...
-        final CountsTracker counts = neoStore.getCounts();
+        final CountsStore counts = neoStore.getCounts();
         counts.start();
         long nextTxId = neoStore.getMetaDataStore().getLastCommittedTransactionId() + 1;
         AtomicReference<Throwable> exRef = new AtomicReference<>();
@@ -902,6 +949,17 @@ public class NeoStoresTest
         return MetaDataStore.versionStringToLong( RecordFormatSelector.defaultFormat().storeVersion() );
     }
 
+    private NeoStores openNeoStores( Config config )
+    {
+        return new StoreFactory( storeDir, config, new DefaultIdGeneratorFactory( fs.get() ), pageCache, fs.get(),
+                LOG_PROVIDER, EmptyVersionContextSupplier.EMPTY ).openAllNeoStores();
+    }
+
+    private static long nodeCount( NeoStores neoStores )
+    {
+        return neoStores.getCounts().nodeCount( StatementConstants.ANY_LABEL, newDoubleLongRegister() ).readSecond();
+    }
+
     private static StoreFactory newStoreFactory( File neoStoreDir, PageCache pageCache, FileSystemAbstraction fs )
     {
         RecordFormats recordFormats = RecordFormatSelector.defaultFormat();
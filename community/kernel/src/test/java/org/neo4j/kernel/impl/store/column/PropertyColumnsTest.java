@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.column;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.internal.kernel.api.PropertyColumnVisitor;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.core.DelegatingLabelTokenHolder;
+import org.neo4j.kernel.impl.core.DelegatingPropertyKeyTokenHolder;
+import org.neo4j.kernel.impl.core.LabelTokenHolder;
+import org.neo4j.kernel.impl.core.PropertyKeyTokenHolder;
+import org.neo4j.kernel.impl.core.ReadOnlyTokenCreator;
+import org.neo4j.kernel.impl.store.InlineNodeLabels;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.storageengine.api.Token;
+import org.neo4j.test.rule.NeoStoresRule;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PropertyColumnsTest
+{
+    private static final long NULL = Record.NULL_REFERENCE.intValue();
+    private static final int PERSON = 0;
+    private static final int CITY = 1;
+    private static final int AGE = 0;
+    private static final int NAME = 1;
+
+    private final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final NeoStoresRule storesRule = new NeoStoresRule( getClass() );
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fs ).around( pageCacheRule ).around( storesRule );
+
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private NodeStore nodeStore;
+    private PropertyStore propertyStore;
+    private LabelTokenHolder labelTokens;
+    private PropertyKeyTokenHolder propertyKeyTokens;
+    private PropertyColumns columns;
+
+    @Before
+    public void openStores() throws Exception
+    {
+        pageCache = pageCacheRule.getPageCache( fs.get() );
+        neoStores = storesRule.builder().with( fs.get() ).with( pageCache ).build();
+        nodeStore = neoStores.getNodeStore();
+        propertyStore = neoStores.getPropertyStore();
+        labelTokens = new DelegatingLabelTokenHolder( new ReadOnlyTokenCreator() );
+        labelTokens.setInitialTokens( asList( new Token( "Person", PERSON ), new Token( "City", CITY ) ) );
+        propertyKeyTokens = new DelegatingPropertyKeyTokenHolder( new ReadOnlyTokenCreator() );
+        propertyKeyTokens.setInitialTokens( asList( new Token( "age", AGE ), new Token( "name", NAME ) ) );
+    }
+
+    @After
+    public void closeColumns() throws Exception
+    {
+        if ( columns != null )
+        {
+            columns.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldPopulateColumnFromStoreOnStart() throws Exception
+    {
+        // given
+        createNode( 0, PERSON, Values.intValue( 42 ) );
+        createNode( 1, PERSON, Values.doubleValue( 4.5 ) );
+        createNode( 2, PERSON, Values.stringValue( "old" ) );
+        createNode( 3, CITY, Values.intValue( 1000 ) );
+        createNode( 4, PERSON, null );
+
+        // when
+        columns = startColumns( "Person.age" );
+
+        // then
+        assertEquals( "{0=42, 1=4.5, 2=old}", scan( columns.get( PERSON, AGE ) ).toString() );
+    }
+
+    @Test
+    public void shouldRefreshValuesOfChangedNodes() throws Exception
+    {
+        // given
+        createNode( 0, PERSON, Values.intValue( 42 ) );
+        createNode( 1, PERSON, Values.intValue( 43 ) );
+        createNode( 2, PERSON, Values.intValue( 44 ) );
+        columns = startColumns( "Person.age" );
+
+        // when
+        createNode( 0, PERSON, Values.longValue( 10 ) );
+        createNode( 1, CITY, Values.intValue( 43 ) );
+        deleteNode( 2 );
+        createNode( 5, PERSON, Values.doubleValue( 0.5 ) );
+        for ( long nodeId = 0; nodeId < 6; nodeId++ )
+        {
+            columns.refresh( nodeId );
+        }
+
+        // then
+        assertEquals( "{0=10, 5=0.5}", scan( columns.get( PERSON, AGE ) ).toString() );
+    }
+
+    @Test
+    public void shouldRebuildColumnsMarkedForRebuild() throws Exception
+    {
+        // given
+        createNode( 0, PERSON, Values.intValue( 42 ) );
+        columns = startColumns( "Person.age" );
+        columns.markForRebuild();
+        columns.shutdown();
+
+        // when changed without refreshing the columns, as during recovery
+        createNode( 1, PERSON, Values.intValue( 43 ) );
+        columns = startColumns( "Person.age" );
+
+        // then
+        assertEquals( "{0=42, 1=43}", scan( columns.get( PERSON, AGE ) ).toString() );
+    }
+
+    @Test
+    public void shouldKeepPopulatedColumnsBetweenRestarts() throws Exception
+    {
+        // given
+        createNode( 0, PERSON, Values.intValue( 42 ) );
+        columns = startColumns( "Person.age" );
+        columns.shutdown();
+
+        // when changed without refreshing the columns, which wouldn't happen outside of recovery
+        createNode( 1, PERSON, Values.intValue( 43 ) );
+        columns = startColumns( "Person.age" );
+
+        // then the column isn't rebuilt
+        assertEquals( "{0=42}", scan( columns.get( PERSON, AGE ) ).toString() );
+    }
+
+    @Test
+    public void shouldOnlyProvideConfiguredColumns() throws Exception
+    {
+        // when
+        columns = startColumns( "Person.age", "City.name", "Country.name" );
+
+        // then
+        assertNotNull( columns.get( PERSON, AGE ) );
+        assertNotNull( columns.get( CITY, NAME ) );
+        assertNull( columns.get( PERSON, NAME ) );
+        assertNull( columns.get( CITY, AGE ) );
+    }
+
+    @Test
+    public void shouldRejectColumnsStoredInSameFile() throws Exception
+    {
+        columns = new PropertyColumns( pageCache, fs.get(), neoStores.getStoreDir(), neoStores,
+                asList( "Person.first name", "Person.first_name" ), labelTokens, propertyKeyTokens );
+        try
+        {
+            columns.init();
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // good
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedColumns() throws Exception
+    {
+        columns = new PropertyColumns( pageCache, fs.get(), neoStores.getStoreDir(), neoStores,
+                singletonList( "Person" ), labelTokens, propertyKeyTokens );
+        try
+        {
+            columns.init();
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // good
+        }
+    }
+
+    private PropertyColumns startColumns( String... specs ) throws Exception
+    {
+        PropertyColumns columns = new PropertyColumns( pageCache, fs.get(), neoStores.getStoreDir(), neoStores,
+                Arrays.asList( specs ), labelTokens, propertyKeyTokens );
+        columns.init();
+        columns.start();
+        return columns;
+    }
+
+    private void createNode( long nodeId, int label, Value age )
+    {
+        long propertyId = NULL;
+        if ( age != null )
+        {
+            propertyId = propertyStore.nextId();
+            PropertyRecord property = new PropertyRecord( propertyId );
+            property.initialize( true, NULL, NULL );
+            property.setNodeId( nodeId );
+            PropertyBlock block = new PropertyBlock();
+            propertyStore.encodeValue( block, AGE, age );
+            property.addPropertyBlock( block );
+            propertyStore.updateRecord( property );
+        }
+        NodeRecord node = new NodeRecord( nodeId ).initialize( true, propertyId, false, NULL, 0 );
+        new InlineNodeLabels( node ).add( label, nodeStore, nodeStore.getDynamicLabelStore() );
+        nodeStore.setHighestPossibleIdInUse( Math.max( nodeId, nodeStore.getHighestPossibleIdInUse() ) );
+        nodeStore.updateRecord( node );
+    }
+
+    private void deleteNode( long nodeId )
+    {
+        nodeStore.updateRecord( new NodeRecord( nodeId ) );
+    }
+
+    private static Map<Long,Object> scan( PropertyColumn column )
+    {
+        Map<Long,Object> values = new TreeMap<>();
+        column.scan( nodeId -> false, nodeId -> Values.stringValue( "old" ), new PropertyColumnVisitor()
+        {
+            @Override
+            public void visitLongs( long[] nodes, long[] longs, int size )
+            {
+                for ( int i = 0; i < size; i++ )
+                {
+                    values.put( nodes[i], longs[i] );
+                }
+            }
+
+            @Override
+            public void visitDoubles( long[] nodes, double[] doubles, int size )
+            {
+                for ( int i = 0; i < size; i++ )
+                {
+                    values.put( nodes[i], doubles[i] );
+                }
+            }
+
+            @Override
+            public void visitValue( long node, Value value )
+            {
+                values.put( node, value.asObject() );
+            }
+        } );
+        return values;
+    }
+}
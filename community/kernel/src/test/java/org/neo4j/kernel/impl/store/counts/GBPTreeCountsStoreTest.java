@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.impl.store.kvstore.RotationTimeoutException;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.register.Register;
+import org.neo4j.register.Registers;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class GBPTreeCountsStoreTest
+{
+    private static final int LABEL = 1;
+    private static final int TYPE = 2;
+    private static final long INDEX = 3;
+
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( fileSystemRule.get() );
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fileSystemRule ).around( pageCacheRule ).around( directory );
+
+    private PageCache pageCache;
+    private File baseFile;
+    private GBPTreeCountsStore store;
+
+    @Before
+    public void setUp()
+    {
+        pageCache = pageCacheRule.getPageCache( fileSystemRule.get() );
+        baseFile = directory.file( "neostore.counts.db" );
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        if ( store != null )
+        {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRebuildMissingStoreUsingInitializer() throws Exception
+    {
+        // when
+        store = open( initializer( 5, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+
+        // then
+        assertEquals( 10, nodeCount( LABEL ) );
+        assertEquals( 5, store.txId() );
+    }
+
+    @Test
+    public void shouldSeeAppliedChangesBeforeRotation() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+
+        // when
+        apply( 2, updater ->
+        {
+            updater.incrementNodeCount( LABEL, 3 );
+            updater.incrementRelationshipCount( LABEL, TYPE, -1, 7 );
+        } );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, -1 ) );
+
+        // then
+        assertEquals( 12, nodeCount( LABEL ) );
+        assertEquals( 7, relationshipCount( LABEL, TYPE, -1 ) );
+        assertEquals( 0, relationshipCount( -1, TYPE, -1 ) );
+        assertEquals( 1, store.txId() );
+    }
+
+    @Test
+    public void shouldPersistChangesOnRotation() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+        apply( 2, updater -> updater.incrementNodeCount( LABEL, 3 ) );
+        apply( 3, updater -> updater.incrementRelationshipCount( LABEL, TYPE, LABEL, 4 ) );
+
+        // when
+        assertEquals( 3, store.rotate( 3 ) );
+        apply( 4, updater -> updater.incrementNodeCount( LABEL, 1 ) );
+        assertEquals( 4, store.rotate( 4 ) );
+        reopen();
+
+        // then
+        assertEquals( 4, store.txId() );
+        assertEquals( 14, nodeCount( LABEL ) );
+        assertEquals( 4, relationshipCount( LABEL, TYPE, LABEL ) );
+    }
+
+    @Test
+    public void shouldLoseChangesNotRotatedBeforeShutdown() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+        apply( 2, updater -> updater.incrementNodeCount( LABEL, 3 ) );
+        store.rotate( 2 );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, 5 ) );
+
+        // when
+        reopen();
+
+        // then the transaction will be applied again by recovery
+        assertEquals( 13, nodeCount( LABEL ) );
+        assertTrue( store.apply( 3 ).isPresent() );
+    }
+
+    @Test
+    public void shouldSkipTransactionsIncludedInRotationWhenRecovering() throws Exception
+    {
+        // given transaction 4 applied before transaction 3
+        store = open( initializer( 1, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+        apply( 2, updater -> updater.incrementNodeCount( LABEL, 1 ) );
+        apply( 4, updater -> updater.incrementNodeCount( LABEL, 100 ) );
+        assertEquals( 2, store.rotate( 2 ) );
+
+        // when
+        reopen();
+
+        // then
+        assertEquals( 111, nodeCount( LABEL ) );
+        assertFalse( store.apply( 2 ).isPresent() );
+        assertFalse( store.apply( 4 ).isPresent() );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, 1_000 ) );
+        assertEquals( 4, store.rotate( 4 ) );
+        reopen();
+        assertEquals( 1_111, nodeCount( LABEL ) );
+        assertFalse( store.apply( 3 ).isPresent() );
+    }
+
+    @Test
+    public void shouldTimeOutRotationWaitingForMissingTransaction() throws Exception
+    {
+        // given
+        Config config = Config.defaults( stringMap(
+                GraphDatabaseSettings.counts_store_rotation_timeout.name(), "100ms" ) );
+        store = open( initializer( 1, updater -> {} ), config );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, 1 ) );
+
+        try
+        {
+            // when
+            store.rotate( 3 );
+            fail( "Should have timed out waiting for transaction 2" );
+        }
+        catch ( RotationTimeoutException e )
+        {
+            // then good
+        }
+    }
+
+    @Test
+    public void shouldReplaceAndIncrementIndexStatistics() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> {} ) );
+        try ( CountsAccessor.IndexStatsUpdater updater = store.updateIndexCounts() )
+        {
+            updater.replaceIndexUpdateAndSize( INDEX, 10, 100 );
+            updater.replaceIndexSample( INDEX, 20, 200 );
+        }
+        store.rotate( 1 );
+
+        // when
+        try ( CountsAccessor.IndexStatsUpdater updater = store.updateIndexCounts() )
+        {
+            updater.incrementIndexUpdates( INDEX, 5 );
+        }
+
+        // then
+        assertRegister( 15, 100, store.indexUpdatesAndSize( INDEX, Registers.newDoubleLongRegister() ) );
+        assertRegister( 20, 200, store.indexSample( INDEX, Registers.newDoubleLongRegister() ) );
+
+        // and when
+        try ( CountsAccessor.IndexStatsUpdater updater = store.updateIndexCounts() )
+        {
+            updater.replaceIndexUpdateAndSize( INDEX, 0, 50 );
+        }
+        store.rotate( 1 );
+        reopen();
+
+        // then
+        assertRegister( 0, 50, store.indexUpdatesAndSize( INDEX, Registers.newDoubleLongRegister() ) );
+        assertRegister( 20, 200, store.indexSample( INDEX, Registers.newDoubleLongRegister() ) );
+    }
+
+    @Test
+    public void shouldResetAllCounts() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> updater.incrementNodeCount( LABEL, 10 ) ) );
+        apply( 2, updater -> updater.incrementRelationshipCount( LABEL, TYPE, LABEL, 4 ) );
+        store.rotate( 2 );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, 5 ) );
+
+        // when
+        try ( CountsAccessor.Updater updater = store.reset( 7 ) )
+        {
+            updater.incrementNodeCount( -1, 42 );
+        }
+
+        // then
+        assertEquals( 7, store.txId() );
+        assertEquals( 0, nodeCount( LABEL ) );
+        assertEquals( 0, relationshipCount( LABEL, TYPE, LABEL ) );
+        assertEquals( 42, nodeCount( -1 ) );
+        assertFalse( store.apply( 7 ).isPresent() );
+        reopen();
+        assertEquals( 42, nodeCount( -1 ) );
+        assertEquals( 0, nodeCount( LABEL ) );
+    }
+
+    @Test
+    public void shouldVisitAllNonZeroCounts() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater ->
+        {
+            updater.incrementNodeCount( LABEL, 10 );
+            updater.incrementNodeCount( LABEL + 1, 1 );
+        } ) );
+        apply( 2, updater ->
+        {
+            updater.incrementNodeCount( LABEL + 1, -1 );
+            updater.incrementRelationshipCount( -1, TYPE, LABEL, 3 );
+        } );
+        store.rotate( 2 );
+        apply( 3, updater -> updater.incrementNodeCount( LABEL, 2 ) );
+
+        // when
+        List<String> visited = new ArrayList<>();
+        store.accept( new CountsVisitor.Adapter()
+        {
+            @Override
+            public void visitNodeCount( int labelId, long count )
+            {
+                visited.add( "node:" + labelId + "=" + count );
+            }
+
+            @Override
+            public void visitRelationshipCount( int startLabelId, int typeId, int endLabelId, long count )
+            {
+                visited.add( "relationship:" + startLabelId + "," + typeId + "," + endLabelId + "=" + count );
+            }
+        } );
+
+        // then
+        List<String> expected = new ArrayList<>();
+        expected.add( "node:" + LABEL + "=12" );
+        expected.add( "relationship:-1," + TYPE + "," + LABEL + "=3" );
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    public void shouldNotLoseChangesAppliedConcurrentlyWithRotation() throws Exception
+    {
+        // given
+        store = open( initializer( 1, updater -> {} ) );
+        int threads = 4;
+        int transactionsPerThread = 1_000;
+        AtomicLong nextTxId = new AtomicLong( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int i = 0; i < threads; i++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    for ( int tx = 0; tx < transactionsPerThread; tx++ )
+                    {
+                        int endLabel = tx % 10;
+                        // Ids are handed out in order but published in any order
+                        apply( nextTxId.incrementAndGet(), updater ->
+                        {
+                            updater.incrementNodeCount( LABEL, 1 );
+                            updater.incrementRelationshipCount( LABEL, TYPE, endLabel, 1 );
+                        } );
+                    }
+                } ) );
+            }
+
+            // when
+            long rotated = 0;
+            while ( rotated < threads * transactionsPerThread + 1 )
+            {
+                rotated = store.rotate( rotated );
+                long count = nodeCount( LABEL );
+                assertTrue( count >= rotated - 1 );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        reopen();
+        assertEquals( threads * transactionsPerThread, nodeCount( LABEL ) );
+        long relationships = 0;
+        for ( int endLabel = 0; endLabel < 10; endLabel++ )
+        {
+            relationships += relationshipCount( LABEL, TYPE, endLabel );
+        }
+        assertEquals( threads * transactionsPerThread, relationships );
+    }
+
+    private GBPTreeCountsStore open( DataInitializer<CountsAccessor.Updater> initializer ) throws IOException
+    {
+        return open( initializer, Config.defaults() );
+    }
+
+    private GBPTreeCountsStore open( DataInitializer<CountsAccessor.Updater> initializer, Config config )
+            throws IOException
+    {
+        GBPTreeCountsStore counts = new GBPTreeCountsStore( pageCache, baseFile, config, false,
+                NullLogProvider.getInstance() );
+        counts.setInitializer( initializer );
+        counts.init();
+        counts.start();
+        return counts;
+    }
+
+    private void reopen() throws IOException
+    {
+        store.shutdown();
+        store = null;
+        store = open( initializer( 0, updater ->
+        {
+            throw new AssertionError( "Should not rebuild existing store" );
+        } ) );
+    }
+
+    private void apply( long txId, UpdaterAction action )
+    {
+        Optional<CountsAccessor.Updater> updater = store.apply( txId );
+        assertTrue( updater.isPresent() );
+        try ( CountsAccessor.Updater tx = updater.get() )
+        {
+            action.update( tx );
+        }
+    }
+
+    private long nodeCount( int labelId )
+    {
+        return store.nodeCount( labelId, Registers.newDoubleLongRegister() ).readSecond();
+    }
+
+    private long relationshipCount( int startLabelId, int typeId, int endLabelId )
+    {
+        return store.relationshipCount( startLabelId, typeId, endLabelId, Registers.newDoubleLongRegister() )
+                .readSecond();
+    }
+
+    private static void assertRegister( long first, long second, Register.DoubleLongRegister register )
+    {
+        assertEquals( first, register.readFirst() );
+        assertEquals( second, register.readSecond() );
+    }
+
+    private static DataInitializer<CountsAccessor.Updater> initializer( long txId, UpdaterAction action )
+    {
+        return new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+                action.update( updater );
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return txId;
+            }
+        };
+    }
+
+    private interface UpdaterAction
+    {
+        void update( CountsAccessor.Updater updater );
+    }
+}
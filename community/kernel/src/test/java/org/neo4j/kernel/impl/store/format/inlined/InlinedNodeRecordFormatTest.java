@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inlined;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.StubPageCursor;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.NoStoreHeader.NO_STORE_HEADER;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+public class InlinedNodeRecordFormatTest
+{
+    private static final long NULL = Record.NULL_REFERENCE.intValue();
+
+    private final RecordFormat<NodeRecord> format = InlinedProperties.RECORD_FORMATS.node();
+    private final int recordSize = format.getRecordSize( NO_STORE_HEADER );
+
+    @Test
+    public void shouldReadAndWriteInlinedProperties() throws Exception
+    {
+        // given
+        long firstProperty = 0x8_1234_5678L;
+        NodeRecord node = new NodeRecord( 3 ).initialize( true, firstProperty, false, 42, 0 );
+        node.setInlinedProperties( property( firstProperty, 0x5_8765_4321L, 11, 22, 33 ) );
+
+        // when
+        NodeRecord read = writeAndRead( node );
+
+        // then
+        assertEquals( node.getNextProp(), read.getNextProp() );
+        assertEquals( node.getNextRel(), read.getNextRel() );
+        assertTrue( read.hasInlinedProperties() );
+        assertEquals( firstProperty, read.getInlinedPropertiesId() );
+        assertEquals( 0x5_8765_4321L, read.getInlinedPropertiesNextProp() );
+        assertEquals( 3, read.getNumberOfInlinedPropertyBlocks() );
+        assertArrayEquals( new long[]{11, 22, 33}, blocks( read ) );
+    }
+
+    @Test
+    public void shouldReadAndWriteInlinedPropertiesOfLastRecordInChain() throws Exception
+    {
+        // given
+        NodeRecord node = new NodeRecord( 3 ).initialize( true, 7, false, 42, 0 );
+        node.setInlinedProperties( property( 7, NULL, 11, 22, 33, 44 ) );
+
+        // when
+        NodeRecord read = writeAndRead( node );
+
+        // then
+        assertTrue( read.hasInlinedProperties() );
+        assertEquals( NULL, read.getInlinedPropertiesNextProp() );
+        assertArrayEquals( new long[]{11, 22, 33, 44}, blocks( read ) );
+    }
+
+    @Test
+    public void shouldNotWriteInlinedPropertiesOfOtherThanFirstPropertyRecord() throws Exception
+    {
+        // given
+        NodeRecord node = new NodeRecord( 3 ).initialize( true, 7, false, 42, 0 );
+        node.setInlinedProperties( property( 7, NULL, 11 ) );
+        node.setNextProp( 8 );
+
+        // when
+        NodeRecord read = writeAndRead( node );
+
+        // then
+        assertEquals( 8, read.getNextProp() );
+        assertFalse( read.hasInlinedProperties() );
+        assertEquals( 0, read.getNumberOfInlinedPropertyBlocks() );
+    }
+
+    @Test
+    public void shouldReadNodeWrittenWithoutInlinedProperties() throws Exception
+    {
+        // given
+        NodeRecord node = new NodeRecord( 3 ).initialize( true, 7, true, 42, 0 );
+
+        // when
+        NodeRecord read = writeAndRead( node );
+
+        // then
+        assertEquals( 7, read.getNextProp() );
+        assertTrue( read.isDense() );
+        assertFalse( read.hasInlinedProperties() );
+    }
+
+    private NodeRecord writeAndRead( NodeRecord node ) throws IOException
+    {
+        try ( PageCursor cursor = new StubPageCursor( 1, recordSize * 10 ) )
+        {
+            cursor.next();
+            int offset = recordSize * 2;
+            cursor.setOffset( offset );
+            format.write( node, cursor, recordSize );
+            assertTrue( cursor.getOffset() <= offset + recordSize );
+
+            NodeRecord read = format.newRecord();
+            read.setId( node.getId() );
+            cursor.setOffset( offset );
+            format.read( read, cursor, NORMAL, recordSize );
+            return read;
+        }
+    }
+
+    private static PropertyRecord property( long id, long nextProp, long... blocks )
+    {
+        PropertyRecord property = new PropertyRecord( id );
+        property.initialize( true, NULL, nextProp );
+        for ( long block : blocks )
+        {
+            property.addLoadedBlock( block );
+        }
+        return property;
+    }
+
+    private static long[] blocks( NodeRecord node )
+    {
+        long[] blocks = new long[node.getNumberOfInlinedPropertyBlocks()];
+        System.arraycopy( node.getInlinedPropertyBlocks(), 0, blocks, 0, blocks.length );
+        return blocks;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.kernel.impl.store.id.validation.IdCapacityExceededException;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.INTEGER_MINUS_ONE;
+
+public class ConcurrentIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Exception
+    {
+        // given
+        int threads = 8;
+        int idsPerThread = 10_000;
+        // sweeping all the time, to have leases taken back while their threads are using them
+        ConcurrentIdGenerator idGenerator = openGenerator( true, 100, 2 );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // when
+        List<Future<long[]>> futures = new ArrayList<>();
+        try
+        {
+            for ( int t = 0; t < threads; t++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    long[] ids = new long[idsPerThread];
+                    for ( int i = 0; i < idsPerThread; i++ )
+                    {
+                        ids[i] = i % 3 == 0 ? singleIdFromBatch( idGenerator ) : idGenerator.nextId();
+                    }
+                    return ids;
+                } ) );
+            }
+
+            // then
+            Set<Long> allIds = new HashSet<>();
+            for ( Future<long[]> future : futures )
+            {
+                for ( long id : future.get() )
+                {
+                    assertTrue( id < idGenerator.getHighId() );
+                    assertTrue( "Duplicate id " + id, allIds.add( id ) );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReuseFreedIdsWhenReusingAggressively()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( true, 10 );
+        long id = idGenerator.nextId();
+        idGenerator.nextId();
+
+        // when
+        idGenerator.freeId( id );
+
+        // then
+        assertEquals( 1, idGenerator.getDefragCount() );
+        assertEquals( id, idGenerator.nextId() );
+        assertEquals( 0, idGenerator.getDefragCount() );
+    }
+
+    @Test
+    public void shouldReuseFreedIdsAfterRestartWhenNotReusingAggressively()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( false, 10 );
+        long id = idGenerator.nextId();
+        idGenerator.nextId();
+
+        // when
+        idGenerator.freeId( id );
+
+        // then
+        assertEquals( 2, idGenerator.nextId() );
+        idGenerator.close();
+        idGenerator = openGenerator( false, 10 );
+        Set<Long> reusedIds = new HashSet<>();
+        long defragCount = idGenerator.getDefragCount();
+        for ( long i = 0; i < defragCount; i++ )
+        {
+            reusedIds.add( idGenerator.nextId() );
+        }
+        assertTrue( reusedIds.contains( id ) );
+    }
+
+    @Test
+    public void shouldFreeIdsLeftInLeasesOnClose()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( false, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 1, idGenerator.getHighId() );
+
+        // when
+        idGenerator.close();
+
+        // then
+        idGenerator = openGenerator( false, 10 );
+        assertEquals( 10, idGenerator.getHighId() );
+        assertEquals( 9, idGenerator.getDefragCount() );
+        for ( long expected = 1; expected < 10; expected++ )
+        {
+            assertEquals( expected, idGenerator.nextId() );
+        }
+        assertEquals( 10, idGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldNotCountIdsLeftInLeasesAsInUse()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( false, 10 );
+
+        // when
+        assertEquals( 0, idGenerator.nextId() );
+
+        // then
+        assertEquals( 1, idGenerator.getHighId() );
+        assertEquals( 0, idGenerator.getHighestPossibleIdInUse() );
+        assertEquals( 1, idGenerator.getNumberOfIdsInUse() );
+
+        // and when a batch is allocated above the lease
+        assertEquals( 10, idGenerator.nextIdBatch( 5 ).getRangeStart() );
+
+        // then
+        assertEquals( 15, idGenerator.getHighId() );
+        assertEquals( 6, idGenerator.getNumberOfIdsInUse() );
+    }
+
+    @Test
+    public void shouldTakeBackLeaseOfThreadThatHasDied() throws Exception
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( true, 10 );
+        Thread thread = new Thread( idGenerator::nextId );
+        thread.start();
+        thread.join();
+        assertEquals( 1, idGenerator.getNumberOfIdsInUse() );
+        assertEquals( 0, idGenerator.getDefragCount() );
+
+        // when
+        idGenerator.sweepLeases();
+
+        // then
+        assertEquals( 9, idGenerator.getDefragCount() );
+        assertEquals( 1, idGenerator.getNumberOfIdsInUse() );
+        Set<Long> reusedIds = new HashSet<>();
+        for ( int i = 0; i < 9; i++ )
+        {
+            reusedIds.add( idGenerator.nextId() );
+        }
+        for ( long id = 1; id < 10; id++ )
+        {
+            assertTrue( reusedIds.contains( id ) );
+        }
+    }
+
+    @Test
+    public void shouldTakeBackLeaseThatHasBeenIdleSinceThePreviousSweep()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( false, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        idGenerator.sweepLeases();
+
+        // when the lease is used in between sweeps it is kept
+        assertEquals( 1, idGenerator.nextId() );
+        idGenerator.sweepLeases();
+
+        // then
+        assertEquals( 0, idGenerator.getDefragCount() );
+
+        // and when it then isn't used until the next sweep it is taken back
+        idGenerator.sweepLeases();
+
+        // then
+        assertEquals( 8, idGenerator.getDefragCount() );
+        assertEquals( 2, idGenerator.getNumberOfIdsInUse() );
+        assertEquals( 10, idGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldFreeIdsLeftInLeasesAboveNewHighId()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( true, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 1, idGenerator.nextId() );
+
+        // when
+        idGenerator.setHighId( 5 );
+
+        // then ids 2 to 4 are now considered in use, and the rest of the lease is free
+        assertEquals( 10, idGenerator.getHighId() );
+        assertEquals( 5, idGenerator.getDefragCount() );
+        Set<Long> reusedIds = new HashSet<>();
+        for ( int i = 0; i < 5; i++ )
+        {
+            reusedIds.add( idGenerator.nextId() );
+        }
+        for ( long id = 5; id < 10; id++ )
+        {
+            assertTrue( reusedIds.contains( id ) );
+        }
+        assertEquals( 10, idGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldSkipReservedId()
+    {
+        // given
+        ConcurrentIdGenerator idGenerator = openGenerator( false, 10 );
+        idGenerator.setHighId( INTEGER_MINUS_ONE - 1 );
+
+        // when/then
+        assertEquals( INTEGER_MINUS_ONE - 1, idGenerator.nextId() );
+        assertEquals( INTEGER_MINUS_ONE + 1, idGenerator.nextId() );
+    }
+
+    @Test( expected = IdCapacityExceededException.class )
+    public void shouldThrowWhenRunningOutOfIds()
+    {
+        // given
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        ConcurrentIdGenerator idGenerator =
+                new ConcurrentIdGenerator( fsr.get(), file, 10, 4, false, IdType.NODE, () -> 0L, 3, 16, 1_000 );
+        for ( int i = 0; i <= 4; i++ )
+        {
+            idGenerator.nextId();
+        }
+
+        // when
+        idGenerator.nextId();
+    }
+
+    private static long singleIdFromBatch( ConcurrentIdGenerator idGenerator )
+    {
+        IdRange batch = idGenerator.nextIdBatch( 1 );
+        return batch.getDefragIds().length > 0 ? batch.getDefragIds()[0] : batch.getRangeStart();
+    }
+
+    private ConcurrentIdGenerator openGenerator( boolean aggressiveReuse, int leaseSize )
+    {
+        return openGenerator( aggressiveReuse, leaseSize, 1_000 );
+    }
+
+    private ConcurrentIdGenerator openGenerator( boolean aggressiveReuse, int leaseSize, int leaseSweepInterval )
+    {
+        if ( !fsr.get().fileExists( file ) )
+        {
+            IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        }
+        return new ConcurrentIdGenerator( fsr.get(), file, 1_000, Long.MAX_VALUE, aggressiveReuse, IdType.NODE,
+                () -> 0L, leaseSize, 16, leaseSweepInterval );
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.id.IdContainer.NO_RESULT;
+
+public class ReusableIdPoolTest
+{
+    @Test
+    public void shouldPollIdsInOfferedOrder()
+    {
+        // given
+        ReusableIdPool pool = new ReusableIdPool( 4 );
+
+        // when
+        assertTrue( pool.offer( 10 ) );
+        assertTrue( pool.offer( 5 ) );
+        assertTrue( pool.offer( 7 ) );
+
+        // then
+        assertEquals( 3, pool.size() );
+        assertEquals( 10, pool.poll() );
+        assertEquals( 5, pool.poll() );
+        assertEquals( 7, pool.poll() );
+        assertEquals( NO_RESULT, pool.poll() );
+        assertEquals( 0, pool.size() );
+    }
+
+    @Test
+    public void shouldRejectIdsWhenFull()
+    {
+        // given
+        ReusableIdPool pool = new ReusableIdPool( 2 );
+        assertTrue( pool.offer( 1 ) );
+        assertTrue( pool.offer( 2 ) );
+
+        // when/then
+        assertFalse( pool.offer( 3 ) );
+        assertEquals( 1, pool.poll() );
+        assertTrue( pool.offer( 3 ) );
+        assertEquals( 2, pool.poll() );
+        assertEquals( 3, pool.poll() );
+    }
+
+    @Test
+    public void shouldNotLoseOrDuplicateIdsWithConcurrentOffersAndPolls() throws Exception
+    {
+        // given
+        int producers = 4;
+        int idsPerProducer = 50_000;
+        ReusableIdPool pool = new ReusableIdPool( 64 );
+        ExecutorService executor = Executors.newFixedThreadPool( producers * 2 );
+        AtomicBoolean producing = new AtomicBoolean( true );
+
+        // when
+        try
+        {
+            List<Future<?>> producerFutures = new ArrayList<>();
+            List<Future<BitSet>> consumerFutures = new ArrayList<>();
+            for ( int p = 0; p < producers; p++ )
+            {
+                long base = (long) p * idsPerProducer;
+                producerFutures.add( executor.submit( () ->
+                {
+                    for ( long id = base; id < base + idsPerProducer; id++ )
+                    {
+                        while ( !pool.offer( id ) )
+                        {
+                            Thread.yield();
+                        }
+                    }
+                } ) );
+                consumerFutures.add( executor.submit( () ->
+                {
+                    BitSet seen = new BitSet();
+                    long id;
+                    while ( (id = pool.poll()) != NO_RESULT || producing.get() )
+                    {
+                        if ( id != NO_RESULT )
+                        {
+                            assertFalse( seen.get( (int) id ) );
+                            seen.set( (int) id );
+                        }
+                    }
+                    return seen;
+                } ) );
+            }
+            for ( Future<?> future : producerFutures )
+            {
+                future.get();
+            }
+            producing.set( false );
+
+            // then
+            BitSet all = new BitSet();
+            for ( Future<BitSet> future : consumerFutures )
+            {
+                BitSet seen = future.get();
+                assertFalse( all.intersects( seen ) );
+                all.or( seen );
+            }
+            assertEquals( producers * idsPerProducer, all.cardinality() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.format.inlined.InlinedProperties;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.test.rule.NeoStoresRule;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+public class InlinedPropertiesTransactionApplierTest
+{
+    private static final long NULL = Record.NULL_REFERENCE.intValue();
+
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    private NodeStore nodeStore;
+    private PropertyStore propertyStore;
+
+    @Before
+    public void openStores() throws Exception
+    {
+        NeoStores neoStores = neoStoresRule.builder().with( InlinedProperties.RECORD_FORMATS ).build();
+        nodeStore = neoStores.getNodeStore();
+        propertyStore = neoStores.getPropertyStore();
+    }
+
+    @Test
+    public void shouldInlineFirstPropertyRecordOfChangedNode()
+    {
+        // given
+        createProperty( 5, 1, 6, 11, 22 );
+        NodeRecord before = new NodeRecord( 1 );
+        NodeRecord after = createNode( 1, 5 );
+
+        // when
+        apply( applier -> applier.visitNodeCommand( new NodeCommand( before, after ) ) );
+
+        // then
+        NodeRecord node = nodeStore.getRecord( 1, nodeStore.newRecord(), NORMAL );
+        assertTrue( node.hasInlinedProperties() );
+        assertEquals( 6, node.getInlinedPropertiesNextProp() );
+        assertEquals( 2, node.getNumberOfInlinedPropertyBlocks() );
+        assertArrayEquals( storedBlocks( 5 ), inlinedBlocks( node ) );
+    }
+
+    @Test
+    public void shouldUpdateInlinedPropertiesWhenPropertyRecordChanges()
+    {
+        // given
+        createProperty( 5, 1, 6, 11, 22 );
+        NodeRecord node = createNode( 1, 5 );
+        apply( applier -> applier.visitNodeCommand( new NodeCommand( new NodeRecord( 1 ), node ) ) );
+
+        // when
+        PropertyRecord before = propertyStore.getRecord( 5, propertyStore.newRecord(), NORMAL );
+        PropertyRecord after = createProperty( 5, 1, NULL, 33 );
+        apply( applier -> applier.visitPropertyCommand( new PropertyCommand( before, after ) ) );
+
+        // then
+        NodeRecord read = nodeStore.getRecord( 1, nodeStore.newRecord(), NORMAL );
+        assertTrue( read.hasInlinedProperties() );
+        assertEquals( NULL, read.getInlinedPropertiesNextProp() );
+        assertEquals( 1, read.getNumberOfInlinedPropertyBlocks() );
+        assertArrayEquals( storedBlocks( 5 ), inlinedBlocks( read ) );
+    }
+
+    @Test
+    public void shouldDropInlinedPropertiesWhenNodeLosesAllProperties()
+    {
+        // given
+        createProperty( 5, 1, NULL, 11 );
+        NodeRecord node = createNode( 1, 5 );
+        apply( applier -> applier.visitNodeCommand( new NodeCommand( new NodeRecord( 1 ), node ) ) );
+
+        // when
+        NodeRecord before = nodeStore.getRecord( 1, nodeStore.newRecord(), NORMAL );
+        NodeRecord after = createNode( 1, NULL );
+        apply( applier -> applier.visitNodeCommand( new NodeCommand( before, after ) ) );
+
+        // then
+        NodeRecord read = nodeStore.getRecord( 1, nodeStore.newRecord(), NORMAL );
+        assertEquals( NULL, read.getNextProp() );
+        assertFalse( read.hasInlinedProperties() );
+        assertEquals( 0, read.getNumberOfInlinedPropertyBlocks() );
+    }
+
+    private void apply( Visit visit )
+    {
+        InlinedPropertiesTransactionApplier applier =
+                new InlinedPropertiesTransactionApplier( nodeStore, propertyStore, NO_LOCK_SERVICE );
+        visit.visit( applier );
+        applier.close();
+    }
+
+    private NodeRecord createNode( long id, long nextProp )
+    {
+        NodeRecord node = new NodeRecord( id ).initialize( true, nextProp, false, NULL, 0 );
+        nodeStore.updateRecord( node );
+        return node;
+    }
+
+    private PropertyRecord createProperty( long id, long nodeId, long nextProp, int... values )
+    {
+        PropertyRecord property = new PropertyRecord( id );
+        property.initialize( true, NULL, nextProp );
+        property.setNodeId( nodeId );
+        for ( int key = 0; key < values.length; key++ )
+        {
+            PropertyBlock block = new PropertyBlock();
+            propertyStore.encodeValue( block, key, Values.intValue( values[key] ) );
+            property.addPropertyBlock( block );
+        }
+        propertyStore.updateRecord( property );
+        return property;
+    }
+
+    private long[] storedBlocks( long propertyId )
+    {
+        PropertyRecord property = propertyStore.getRecord( propertyId, propertyStore.newRecord(), NORMAL );
+        long[] blocks = new long[property.getNumberOfBlocks()];
+        System.arraycopy( property.getBlocks(), 0, blocks, 0, blocks.length );
+        return blocks;
+    }
+
+    private static long[] inlinedBlocks( NodeRecord node )
+    {
+        long[] blocks = new long[node.getNumberOfInlinedPropertyBlocks()];
+        System.arraycopy( node.getInlinedPropertyBlocks(), 0, blocks, 0, blocks.length );
+        return blocks;
+    }
+
+    private interface Visit
+    {
+        void visit( InlinedPropertiesTransactionApplier applier );
+    }
+}
@@ -29,7 +29,9 @@ import org.junit.rules.RuleChain;
 import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -37,6 +39,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import org.neo4j.adversaries.Adversary;
@@ -48,6 +51,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemLifecycleAdapter;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
@@ -66,8 +70,10 @@ import org.neo4j.logging.NullLog;
 import org.neo4j.test.Race;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -113,6 +119,7 @@ public class BatchingTransactionAppenderConcurrencyTest
     private final IdOrderingQueue explicitIndexTransactionOrdering = IdOrderingQueue.BYPASS;
     private final DatabaseHealth databaseHealth = mock( DatabaseHealth.class );
     private final Semaphore forceSemaphore = new Semaphore( 0 );
+    private final CentralJobScheduler scheduler = new CentralJobScheduler();
 
     private final BlockingQueue<ChannelCommand> channelCommandQueue = new LinkedBlockingQueue<>( 2 );
 
@@ -121,6 +128,7 @@ public class BatchingTransactionAppenderConcurrencyTest
     {
         when( logFiles.getLogFile() ).thenReturn( logFile );
         when( logFile.getWriter() ).thenReturn( new CommandQueueChannel() );
+        life.add( scheduler );
     }
 
     @Test
@@ -204,6 +212,131 @@ public class BatchingTransactionAppenderConcurrencyTest
         assertTrue( channelCommandQueue.isEmpty() );
     }
 
+    @Test
+    public void shouldBatchUpCommittersWaitingForOngoingForceInPipelinedMode() throws Throwable
+    {
+        channelCommandQueue.put( ChannelCommand.dummy );
+
+        // The log forcer will put the 'emptyBuffer...' command into the queue, and then block on 'force' because the
+        // queue will be at capacity.
+
+        final BatchingTransactionAppender appender = life.add( createTransactionAppender( true ) );
+        life.start();
+
+        Runnable runnable = createForceAfterAppendRunnable( appender );
+        Future<?> future = executor.submit( runnable );
+
+        forceSemaphore.acquire();
+
+        Thread[] otherThreads = new Thread[10];
+        for ( int i = 0; i < otherThreads.length; i++ )
+        {
+            otherThreads[i] = fork( runnable );
+        }
+        for ( Thread otherThread : otherThreads )
+        {
+            awaitThreadState( otherThread, MILLISECONDS_TO_WAIT, Thread.State.TIMED_WAITING );
+        }
+
+        assertThat( channelCommandQueue.take(), is( ChannelCommand.dummy ) );
+        assertThat( channelCommandQueue.take(), is( ChannelCommand.emptyBufferIntoChannelAndClearIt ) );
+        assertThat( channelCommandQueue.take(), is( ChannelCommand.force ) );
+        assertThat( channelCommandQueue.take(), is( ChannelCommand.emptyBufferIntoChannelAndClearIt ) );
+        assertThat( channelCommandQueue.take(), is( ChannelCommand.force ) );
+        future.get();
+        for ( Thread otherThread : otherThreads )
+        {
+            otherThread.join();
+        }
+        assertTrue( channelCommandQueue.isEmpty() );
+    }
+
+    @Test
+    public void shouldWaitForCommittersToJoinBatchInAdaptiveGroupCommitMode() throws Throwable
+    {
+        // GIVEN a force which is slow enough for committers to queue up behind it
+        Semaphore forceGate = new Semaphore( 0 );
+        when( logFile.getWriter() ).thenReturn( new GatedChannel( forceGate ) );
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, logRotation,
+                transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering, databaseHealth, scheduler,
+                false, TimeUnit.MINUTES.toNanos( 1 ), ( batchSize, forcedBytes ) -> batchSizes.add( batchSize ) ) );
+        life.start();
+        Runnable runnable = createForceAfterAppendRunnable( appender );
+        Thread first = fork( runnable );
+        while ( !forceGate.hasQueuedThreads() )
+        {
+            Thread.sleep( 1 );
+        }
+        Thread second = fork( runnable );
+        Thread third = fork( runnable );
+        awaitThreadState( second, MILLISECONDS_TO_WAIT, Thread.State.TIMED_WAITING );
+        awaitThreadState( third, MILLISECONDS_TO_WAIT, Thread.State.TIMED_WAITING );
+        forceGate.release( 100 );
+        first.join();
+        second.join();
+        third.join();
+        assertEquals( asList( 1, 2 ), batchSizes );
+
+        // WHEN a single committer comes along after a force that covered two
+        Thread fourth = fork( runnable );
+        awaitThreadState( fourth, MILLISECONDS_TO_WAIT, Thread.State.TIMED_WAITING );
+
+        // THEN it waits for another committer to join its batch
+        Thread.sleep( 100 );
+        assertTrue( fourth.isAlive() );
+        assertEquals( asList( 1, 2 ), batchSizes );
+        Thread fifth = fork( runnable );
+        fourth.join();
+        fifth.join();
+        assertEquals( asList( 1, 2, 2 ), batchSizes );
+    }
+
+    @Test
+    public void shouldReleaseQueuedCommittersWhenShutDownInPipelinedMode() throws Throwable
+    {
+        // GIVEN a force which is slow enough for committers to queue up behind it
+        Semaphore forceGate = new Semaphore( 0 );
+        when( logFile.getWriter() ).thenReturn( new GatedChannel( forceGate ) );
+        AtomicInteger forcedCommitters = new AtomicInteger();
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, logRotation,
+                transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering, databaseHealth, scheduler,
+                true, 0, ( batchSize, forcedBytes ) -> forcedCommitters.addAndGet( batchSize ) ) );
+        life.start();
+        Runnable runnable = createForceAfterAppendRunnable( appender );
+        Thread first = fork( runnable );
+        while ( !forceGate.hasQueuedThreads() )
+        {
+            Thread.sleep( 1 );
+        }
+        Thread[] queuedThreads = new Thread[5];
+        for ( int i = 0; i < queuedThreads.length; i++ )
+        {
+            queuedThreads[i] = fork( runnable );
+        }
+        for ( Thread queuedThread : queuedThreads )
+        {
+            awaitThreadState( queuedThread, MILLISECONDS_TO_WAIT, Thread.State.TIMED_WAITING );
+        }
+
+        // WHEN shutting down while they are queued up
+        Future<?> stop = executor.submit( () ->
+        {
+            appender.stop();
+            return null;
+        } );
+        forceGate.release( 100 );
+        stop.get( MILLISECONDS_TO_WAIT, TimeUnit.MILLISECONDS );
+
+        // THEN the log is forced for all of them before they are released
+        first.join();
+        for ( Thread queuedThread : queuedThreads )
+        {
+            queuedThread.join();
+        }
+        assertEquals( 1 + queuedThreads.length, forcedCommitters.get() );
+    }
+
     /*
      * There was an issue where if multiple concurrent appending threads did append and they moved on
      * to await a force, where the force would fail and the one doing the force would raise a panic...
@@ -212,6 +345,17 @@ public class BatchingTransactionAppenderConcurrencyTest
      */
     @Test
     public void shouldHaveAllConcurrentAppendersSeePanic() throws Throwable
+    {
+        shouldHaveAllConcurrentAppendersSeePanic( false );
+    }
+
+    @Test
+    public void shouldHaveAllConcurrentAppendersSeePanicInPipelinedMode() throws Throwable
+    {
+        shouldHaveAllConcurrentAppendersSeePanic( true );
+    }
+
+    private void shouldHaveAllConcurrentAppendersSeePanic( boolean pipelinedForce ) throws Throwable
     {
         // GIVEN
         Adversary adversary = new ClassGuardedAdversary( new CountingAdversary( 1, true ),
@@ -229,7 +373,7 @@ public class BatchingTransactionAppenderConcurrencyTest
         life.add( logFiles );
         final BatchingTransactionAppender appender = life.add(
                 new BatchingTransactionAppender( logFiles, logRotation, transactionMetadataCache, transactionIdStore,
-                        explicitIndexTransactionOrdering, databaseHealth ) );
+                        explicitIndexTransactionOrdering, databaseHealth, scheduler, pipelinedForce ) );
         life.start();
 
         // WHEN
@@ -306,8 +450,13 @@ public class BatchingTransactionAppenderConcurrencyTest
 
     private BatchingTransactionAppender createTransactionAppender()
     {
-        return new BatchingTransactionAppender( logFiles, logRotation,
-                transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering, databaseHealth );
+        return createTransactionAppender( false );
+    }
+
+    private BatchingTransactionAppender createTransactionAppender( boolean pipelinedForce )
+    {
+        return new BatchingTransactionAppender( logFiles, logRotation, transactionMetadataCache, transactionIdStore,
+                explicitIndexTransactionOrdering, databaseHealth, scheduler, pipelinedForce );
     }
 
     private enum ChannelCommand
@@ -317,6 +466,35 @@ public class BatchingTransactionAppenderConcurrencyTest
         dummy
     }
 
+    private static class GatedChannel extends InMemoryClosableChannel implements Flushable
+    {
+        private final Semaphore gate;
+
+        GatedChannel( Semaphore gate )
+        {
+            this.gate = gate;
+        }
+
+        @Override
+        public Flushable prepareForFlush()
+        {
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            try
+            {
+                gate.acquire();
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( e );
+            }
+        }
+    }
+
     class CommandQueueChannel extends InMemoryClosableChannel implements Flushable
     {
         @Override
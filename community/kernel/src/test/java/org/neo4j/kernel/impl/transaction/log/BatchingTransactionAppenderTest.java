@@ -382,6 +382,31 @@ public class BatchingTransactionAppenderTest
 
     }
 
+    @Test
+    public void shouldReportBatchSizeAndForcedBytesOfEveryForceToMonitor() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L, 4L );
+        BatchingTransactionAppender.Monitor monitor = mock( BatchingTransactionAppender.Monitor.class );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, null, 0, monitor ) );
+
+        // WHEN
+        TransactionToApply first = batchOf( transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) );
+        appender.append( first, logAppendEvent );
+        long firstEnd = channel.getCurrentPosition( new LogPositionMarker() ).getByteOffset();
+        TransactionToApply second = batchOf(
+                transaction( singleCreateNodeCommand( 1 ), new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( singleCreateNodeCommand( 2 ), new byte[0], 0, 0, 0, 1, 0 ) );
+        appender.append( second, logAppendEvent );
+        long secondEnd = channel.getCurrentPosition( new LogPositionMarker() ).getByteOffset();
+
+        // THEN
+        verify( monitor ).logForced( 1, firstEnd );
+        verify( monitor ).logForced( 1, secondEnd - firstEnd );
+    }
+
     private BatchingTransactionAppender createTransactionAppender()
     {
         return new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache, transactionIdStore, BYPASS, databaseHealth );
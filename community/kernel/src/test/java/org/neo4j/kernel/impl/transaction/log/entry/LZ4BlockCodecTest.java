@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.test.rule.RandomRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LZ4BlockCodecTest
+{
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    private final LZ4BlockCodec codec = new LZ4BlockCodec();
+
+    @Test
+    public void shouldRoundTripRandomCompressibleData() throws IOException
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            // Few distinct values make for plenty of matches, of all sorts of lengths and distances
+            byte[] data = new byte[random.nextInt( 100_000 )];
+            int distinctValues = random.intBetween( 1, 8 );
+            for ( int j = 0; j < data.length; j++ )
+            {
+                data[j] = (byte) random.nextInt( distinctValues );
+            }
+            assertRoundTrip( data );
+        }
+    }
+
+    @Test
+    public void shouldRoundTripIncompressibleData() throws IOException
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] data = new byte[random.nextInt( 100_000 )];
+            random.nextBytes( data );
+            int compressedLength = assertRoundTrip( data );
+            assertTrue( compressedLength <= LZ4BlockCodec.maxCompressedLength( data.length ) );
+        }
+    }
+
+    @Test
+    public void shouldRoundTripShortData() throws IOException
+    {
+        for ( int length = 0; length < 32; length++ )
+        {
+            assertRoundTrip( new byte[length] );
+            assertRoundTrip( distinctWindows( length ) );
+        }
+    }
+
+    @Test
+    public void shouldEncodeLiteralLengthsAroundTheExtensionBoundaries() throws IOException
+    {
+        for ( int length : new int[]{14, 15, 16, 269, 270, 271} )
+        {
+            // A block without matches is a single run of literals
+            byte[] data = distinctWindows( length );
+            assertEquals( 1 + extensionBytes( length ) + length, assertRoundTrip( data ) );
+        }
+    }
+
+    @Test
+    public void shouldEncodeMatchLengthsAroundTheExtensionBoundaries() throws IOException
+    {
+        for ( int encodedMatchLength : new int[]{14, 15, 16, 269, 270, 271, 524, 525, 526} )
+        {
+            // 8 literals, and a run of one byte which is a literal followed by a match at offset 1 of the rest of the
+            // run, and then 16 literals at the end
+            int matchLength = encodedMatchLength + 4;
+            byte[] data = new byte[8 + 1 + matchLength + 16];
+            System.arraycopy( distinctWindows( 8 ), 0, data, 0, 8 );
+            Arrays.fill( data, 8, 8 + 1 + matchLength, (byte) 0x7F );
+            for ( int i = 0; i < 8; i++ )
+            {
+                data[data.length - 16 + i * 2] = 0;
+                data[data.length - 16 + i * 2 + 1] = (byte) (100 + i);
+            }
+            int firstSequence = 1 + 9 + 2 + extensionBytes( encodedMatchLength );
+            int lastLiterals = 1 + extensionBytes( 16 ) + 16;
+            assertEquals( firstSequence + lastLiterals, assertRoundTrip( data ) );
+        }
+    }
+
+    @Test
+    public void shouldDecodeLiteralLengthsAroundTheExtensionBoundaries() throws IOException
+    {
+        // Exactly 15 literals still needs an extension byte, of zero
+        assertDecodesTo( literals( 15 ), block( 0xF0, 0x00 ), literals( 15 ) );
+        // And so does 15 + 255, with one more extension byte
+        assertDecodesTo( literals( 270 ), block( 0xF0, 0xFF, 0x00 ), literals( 270 ) );
+        assertDecodesTo( literals( 269 ), block( 0xF0, 0xFE ), literals( 269 ) );
+    }
+
+    @Test
+    public void shouldDecodeMatchLengthsAroundTheExtensionBoundaries() throws IOException
+    {
+        // One literal, and a match of 15 + 4, or 15 + 255 + 4, bytes at offset 1, and then an empty last sequence
+        assertDecodesTo( run( 1 + 19 ), block( 0x1F, 'a', 0x01, 0x00, 0x00, 0x00 ) );
+        assertDecodesTo( run( 1 + 18 ), block( 0x1E, 'a', 0x01, 0x00, 0x00 ) );
+        assertDecodesTo( run( 1 + 274 ), block( 0x1F, 'a', 0x01, 0x00, 0xFF, 0x00, 0x00 ) );
+    }
+
+    @Test
+    public void shouldRejectTruncatedData() throws IOException
+    {
+        byte[] data = new byte[1_000];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) random.nextInt( 4 );
+        }
+        byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength( data.length )];
+        int compressedLength = codec.compress( data, data.length, compressed );
+
+        for ( int truncatedLength = 0; truncatedLength < compressedLength; truncatedLength++ )
+        {
+            assertMalformed( compressed, truncatedLength, data.length );
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedData()
+    {
+        // A match at offset 0, or before the start of the data
+        assertMalformed( block( 0x10, 'a', 0x00, 0x00, 0x00 ), 5 );
+        assertMalformed( block( 0x10, 'a', 0x02, 0x00, 0x00 ), 5 );
+        // Literals extending beyond the data, or beyond the expected length
+        assertMalformed( block( 0x50, 'a' ), 5 );
+        assertMalformed( block( 0x20, 'a', 'b' ), 1 );
+        // A match extending beyond the expected length
+        assertMalformed( block( 0x1F, 'a', 0x01, 0x00, 0x00, 0x00 ), 10 );
+        // Decompressing into fewer bytes than expected
+        assertMalformed( block( 0x10, 'a', 0x01, 0x00, 0x00 ), 10 );
+        // A length extension that never ends, or that would overflow if it was allowed to go on
+        assertMalformed( block( 0xF0, 0xFF, 0xFF, 0xFF ), 1_000 );
+        byte[] endlessExtension = new byte[100_000];
+        Arrays.fill( endlessExtension, (byte) 0xFF );
+        endlessExtension[0] = (byte) 0xF0;
+        assertMalformed( endlessExtension, endlessExtension.length, 1_000 );
+        endlessExtension[0] = 'a';
+        endlessExtension[1] = 0x01;
+        endlessExtension[2] = 0x00;
+        assertMalformed( prepend( (byte) 0x1F, endlessExtension ), endlessExtension.length + 1, 1_000 );
+    }
+
+    @Test
+    public void shouldEitherDecodeOrRejectCorruptData() throws IOException
+    {
+        byte[] data = new byte[1_000];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) random.nextInt( 4 );
+        }
+        byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength( data.length )];
+        int compressedLength = codec.compress( data, data.length, compressed );
+
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            byte[] corrupt = Arrays.copyOf( compressed, compressedLength );
+            for ( int corruptions = random.intBetween( 1, 3 ); corruptions > 0; corruptions-- )
+            {
+                corrupt[random.nextInt( compressedLength )] = (byte) random.nextInt();
+            }
+            try
+            {
+                LZ4BlockCodec.decompress( corrupt, compressedLength, new byte[data.length] );
+            }
+            catch ( IOException e )
+            {
+                // Good, that's the only way it may fail
+            }
+        }
+    }
+
+    private int assertRoundTrip( byte[] data ) throws IOException
+    {
+        byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength( data.length )];
+        int compressedLength = codec.compress( data, data.length, compressed );
+        byte[] decompressed = new byte[data.length];
+        LZ4BlockCodec.decompress( compressed, compressedLength, decompressed );
+        assertArrayEquals( data, decompressed );
+        return compressedLength;
+    }
+
+    private static void assertDecodesTo( byte[] expected, byte[]... blockParts ) throws IOException
+    {
+        byte[] block = new byte[0];
+        for ( byte[] part : blockParts )
+        {
+            int offset = block.length;
+            block = Arrays.copyOf( block, offset + part.length );
+            System.arraycopy( part, 0, block, offset, part.length );
+        }
+        byte[] decompressed = new byte[expected.length];
+        LZ4BlockCodec.decompress( block, block.length, decompressed );
+        assertArrayEquals( expected, decompressed );
+    }
+
+    private static void assertMalformed( byte[] block, int decompressedLength )
+    {
+        assertMalformed( block, block.length, decompressedLength );
+    }
+
+    private static void assertMalformed( byte[] block, int blockLength, int decompressedLength )
+    {
+        try
+        {
+            LZ4BlockCodec.decompress( block, blockLength, new byte[decompressedLength] );
+            fail( "Should have failed to decompress " + blockLength + " bytes" );
+        }
+        catch ( IOException e )
+        {
+            // Good
+        }
+    }
+
+    /**
+     * @return bytes with no four byte sequence occurring more than once, which therefore has no matches, for lengths
+     * up to 512.
+     */
+    private static byte[] distinctWindows( int length )
+    {
+        byte[] data = new byte[length];
+        for ( int i = 1; i < length; i += 2 )
+        {
+            data[i] = (byte) (i / 2);
+        }
+        return data;
+    }
+
+    private static int extensionBytes( int length )
+    {
+        return length < 15 ? 0 : (length - 15) / 255 + 1;
+    }
+
+    private static byte[] block( int... bytes )
+    {
+        byte[] block = new byte[bytes.length];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            block[i] = (byte) bytes[i];
+        }
+        return block;
+    }
+
+    private static byte[] literals( int length )
+    {
+        byte[] literals = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            literals[i] = (byte) i;
+        }
+        return literals;
+    }
+
+    private static byte[] run( int length )
+    {
+        byte[] run = new byte[length];
+        Arrays.fill( run, (byte) 'a' );
+        return run;
+    }
+
+    private static byte[] prepend( byte first, byte[] rest )
+    {
+        byte[] bytes = new byte[rest.length + 1];
+        bytes[0] = first;
+        System.arraycopy( rest, 0, bytes, 1, rest.length );
+        return bytes;
+    }
+}
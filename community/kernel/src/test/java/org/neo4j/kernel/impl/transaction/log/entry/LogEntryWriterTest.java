@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.LabelTokenCommand;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+
+public class LogEntryWriterTest
+{
+    private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+
+    @Test
+    public void shouldWriteCompressedCommandWhichIsReadBackAsRegularCommand() throws IOException
+    {
+        // given
+        byte[] name = new byte[1_000];
+        Arrays.fill( name, (byte) 'a' );
+        LabelTokenCommand command = createLabelToken( 1, 2 );
+        DynamicRecord nameRecord = command.getAfter().getNameRecords().iterator().next();
+        nameRecord.setData( name );
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+
+        // when
+        new LogEntryWriter( channel, true ).serialize( singletonList( command ) );
+
+        // then
+        assertTrue( channel.writerPosition() < name.length );
+        LogEntryCommand entry = (LogEntryCommand) logEntryReader.readLogEntry( channel );
+        LabelTokenRecord readRecord = ((LabelTokenCommand) entry.getCommand()).getAfter();
+        assertEquals( command.getAfter().getNameId(), readRecord.getNameId() );
+        assertArrayEquals( name, readRecord.getNameRecords().iterator().next().getData() );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    public void shouldWriteSmallCommandsUncompressed() throws IOException
+    {
+        // given
+        Command command = createNode( 1 );
+        InMemoryClosableChannel plainChannel = new InMemoryClosableChannel();
+        InMemoryClosableChannel compressingChannel = new InMemoryClosableChannel();
+
+        // when
+        new LogEntryWriter( plainChannel, false ).serialize( singletonList( command ) );
+        new LogEntryWriter( compressingChannel, true ).serialize( singletonList( command ) );
+
+        // then
+        assertEquals( plainChannel.writerPosition(), compressingChannel.writerPosition() );
+        assertEquals( new LogEntryCommand( command ), logEntryReader.readLogEntry( compressingChannel ) );
+    }
+
+    @Test
+    public void shouldRejectCompressedCommandsWithInvalidLengths() throws IOException
+    {
+        assertInvalidCompressedCommand( -1, 10 );
+        assertInvalidCompressedCommand( LZ4BlockCodec.MAX_LENGTH + 1, 10 );
+        assertInvalidCompressedCommand( 100, 0 );
+        assertInvalidCompressedCommand( 100, -1 );
+        assertInvalidCompressedCommand( 100, LZ4BlockCodec.maxCompressedLength( 100 ) + 1 );
+        assertInvalidCompressedCommand( 100, Integer.MAX_VALUE );
+    }
+
+    private void assertInvalidCompressedCommand( int length, int compressedLength ) throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( LogEntryVersion.CURRENT.byteCode() ).put( LogEntryByteCodes.COMPRESSED_COMMAND );
+        channel.putInt( length ).putInt( compressedLength );
+        try
+        {
+            logEntryReader.readLogEntry( channel );
+            fail( "Should have rejected a compressed command of " + compressedLength + " bytes, decompressing into " +
+                    length + " bytes" );
+        }
+        catch ( IOException e )
+        {
+            // Good
+        }
+    }
+}
@@ -29,7 +29,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.collection.primitive.Primitive;
@@ -99,6 +103,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.neo4j.graphdb.Direction.INCOMING;
 import static org.neo4j.graphdb.Direction.OUTGOING;
 import static org.neo4j.helpers.collection.Iterables.count;
@@ -1186,6 +1191,134 @@ public class TransactionRecordStateTest
         assertEquals( 1, groups );
     }
 
+    @Test
+    public void shouldExtractCommandsInParallelInSameOrderAsSequentially() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        TransactionRecordState recordState = newTransactionRecordState( neoStores );
+        long hub = neoStores.getNodeStore().nextId();
+        recordState.nodeCreate( hub );
+        int count = TransactionRecordState.PARALLEL_EXTRACTION_THRESHOLD / 3 + 1;
+        for ( int i = 0; i < count; i++ )
+        {
+            long other = neoStores.getNodeStore().nextId();
+            recordState.nodeCreate( other );
+            recordState.nodeAddProperty( other, propertyId1, value1 );
+            recordState.relCreate( neoStores.getRelationshipStore().nextId(), 0, hub, other );
+        }
+
+        // WHEN
+        List<StorageCommand> commands = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+        try
+        {
+            recordState.extractCommands( commands, executor );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        int[] commandsPerType = new int[4];
+        long[] previous = null;
+        for ( StorageCommand storageCommand : commands )
+        {
+            Command command = (Command) storageCommand;
+            int type = command instanceof PropertyCommand ? 0 : command instanceof RelationshipCommand ? 1 :
+                       command instanceof RelationshipGroupCommand ? 2 : 3;
+            commandsPerType[type]++;
+            long[] current = {command.getMode().ordinal(), type, command.getKey()};
+            if ( previous != null )
+            {
+                assertTrue( "Commands out of order", compare( previous, current ) < 0 );
+            }
+            previous = current;
+        }
+        assertEquals( count, commandsPerType[0] );
+        assertEquals( count, commandsPerType[1] );
+        assertTrue( commandsPerType[2] > 0 );
+        assertEquals( count + 1, commandsPerType[3] );
+        apply( neoStores, transactionOf( commands ) );
+        assertTrue( neoStores.getNodeStore().getRecord( hub, new NodeRecord( hub ), NORMAL ).isDense() );
+    }
+
+    @Test
+    public void shouldAwaitAllCommandExtractionPartitionsWhenOneOfThemFails() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        TransactionRecordState recordState = newTransactionRecordState( neoStores );
+        long hub = neoStores.getNodeStore().nextId();
+        recordState.nodeCreate( hub );
+        for ( int i = 0; i < TransactionRecordState.PARALLEL_EXTRACTION_THRESHOLD / 3 + 1; i++ )
+        {
+            long other = neoStores.getNodeStore().nextId();
+            recordState.nodeCreate( other );
+            recordState.nodeAddProperty( other, propertyId1, value1 );
+            recordState.relCreate( neoStores.getRelationshipStore().nextId(), 0, hub, other );
+        }
+
+        // an executor failing the first partition, while the second one is still running
+        ExecutorService pool = Executors.newFixedThreadPool( 3 );
+        AtomicInteger submissions = new AtomicInteger();
+        AtomicBoolean slowPartitionDone = new AtomicBoolean();
+        ExecutorService executor = mock( ExecutorService.class );
+        when( executor.submit( any( Callable.class ) ) ).thenAnswer( invocation ->
+        {
+            Callable<Command[]> partition = invocation.getArgument( 0 );
+            switch ( submissions.getAndIncrement() )
+            {
+            case 0:
+                return pool.submit( (Callable<Command[]>) () ->
+                {
+                    throw new IllegalStateException( "Failed partition" );
+                } );
+            case 1:
+                return pool.submit( () ->
+                {
+                    Thread.sleep( 100 );
+                    Command[] partitionCommands = partition.call();
+                    slowPartitionDone.set( true );
+                    return partitionCommands;
+                } );
+            default:
+                return pool.submit( partition );
+            }
+        } );
+
+        // WHEN
+        try
+        {
+            recordState.extractCommands( new ArrayList<>(), executor );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // THEN
+            assertEquals( "Failed partition", e.getMessage() );
+            assertTrue( slowPartitionDone.get() );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static int compare( long[] first, long[] second )
+    {
+        for ( int i = 0; i < first.length; i++ )
+        {
+            int comparison = Long.compare( first[i], second[i] );
+            if ( comparison != 0 )
+            {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
     private void addLabelsToNode( TransactionRecordState recordState, long nodeId, long[] labelIds )
     {
         for ( long labelId : labelIds )
@@ -1366,6 +1499,11 @@ public class TransactionRecordStateTest
     {
         List<StorageCommand> commands = new ArrayList<>();
         recordState.extractCommands( commands );
+        return transactionOf( commands );
+    }
+
+    private TransactionRepresentation transactionOf( List<StorageCommand> commands )
+    {
         PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
         transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
         return transaction;
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.values.storable.Values.pointValue;
+
+public class AppendOnlyValuesContainerTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    private final LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+    private final AppendOnlyValuesContainer container = new AppendOnlyValuesContainer( 64, memoryTracker );
+
+    @After
+    public void tearDown()
+    {
+        container.close();
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void shouldStoreAndReadAllValueTypes()
+    {
+        PointValue cartesian = pointValue( CoordinateReferenceSystem.Cartesian, 1.0, 2.0 );
+        PointValue wgs84 = pointValue( CoordinateReferenceSystem.WGS84_3D, 12.5, 56.0, 100.0 );
+        DurationValue duration = DurationValue.duration( 1, 2, 3, 4 );
+        List<Value> values = Arrays.asList(
+                Values.booleanValue( true ),
+                Values.byteValue( (byte) 7 ),
+                Values.shortValue( (short) 300 ),
+                Values.intValue( 70_000 ),
+                Values.longValue( Long.MAX_VALUE ),
+                Values.floatValue( 1.5f ),
+                Values.doubleValue( Math.PI ),
+                Values.stringValue( "hello åäö" ),
+                Values.charValue( 'x' ),
+                Values.stringValue( "a string which is longer than a single chunk of this container, to be stored alone" ),
+                Values.byteArray( new byte[]{1, 2, 3} ),
+                Values.shortArray( new short[]{1, 2, 3} ),
+                Values.intArray( new int[]{1, 2, 3} ),
+                Values.longArray( new long[]{4, 5} ),
+                Values.booleanArray( new boolean[]{true, false} ),
+                Values.stringArray( "a", "b" ),
+                Values.charArray( new char[]{'a', 'b'} ),
+                Values.floatArray( new float[]{1.0f, 2.0f} ),
+                Values.doubleArray( new double[]{1.0, 2.0} ),
+                cartesian,
+                wgs84,
+                Values.pointArray( new PointValue[]{cartesian, cartesian} ),
+                duration,
+                Values.durationArray( new DurationValue[]{duration} ),
+                Values.temporalValue( LocalDate.of( 2018, 3, 1 ) ),
+                Values.temporalValue( LocalTime.of( 12, 30, 15, 1000 ) ),
+                Values.temporalValue( OffsetTime.of( 12, 30, 15, 1000, ZoneOffset.ofHours( 2 ) ) ),
+                Values.temporalValue( LocalDateTime.of( 2018, 3, 1, 12, 30 ) ),
+                Values.temporalValue( ZonedDateTime.of( 2018, 3, 1, 12, 30, 0, 0, ZoneOffset.ofHours( -5 ) ) ),
+                Values.temporalValue( ZonedDateTime.of( 2018, 3, 1, 12, 30, 0, 0, ZoneId.of( "Europe/Stockholm" ) ) ),
+                Values.dateArray( new LocalDate[]{LocalDate.of( 2018, 3, 1 ), LocalDate.of( 2018, 3, 2 )} ) );
+
+        List<Long> refs = new ArrayList<>();
+        for ( Value value : values )
+        {
+            refs.add( container.add( value ) );
+        }
+
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            assertEquals( values.get( i ), container.get( refs.get( i ) ) );
+        }
+    }
+
+    @Test
+    public void shouldSpillToDiskWhenExceedingThreshold()
+    {
+        File spillDirectory = new File( "spill" );
+        LocalMemoryTracker spillMemoryTracker = new LocalMemoryTracker();
+        AppendOnlyValuesContainer spilling =
+                new AppendOnlyValuesContainer( 64, spillMemoryTracker, fs.get(), spillDirectory, 256 );
+
+        List<Long> refs = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            refs.add( spilling.add( Values.stringValue( "value-" + i ) ) );
+            assertTrue( spillMemoryTracker.usedDirectMemory() <= 256 );
+        }
+        assertTrue( spilling.hasSpilled() );
+
+        for ( int i = refs.size() - 1; i >= 0; i-- )
+        {
+            assertEquals( Values.stringValue( "value-" + i ), spilling.get( refs.get( i ) ) );
+        }
+
+        spilling.close();
+        assertEquals( 0, spillMemoryTracker.usedDirectMemory() );
+        assertEquals( 0, fs.get().listFiles( spillDirectory ).length );
+    }
+
+    @Test
+    public void shouldReadSpilledValuesInAnyOrder()
+    {
+        AppendOnlyValuesContainer spilling =
+                new AppendOnlyValuesContainer( 1024, new LocalMemoryTracker(), fs.get(), new File( "spill" ), 2048 );
+
+        // Mixing small values with values larger than the read window
+        List<Value> values = new ArrayList<>();
+        List<Long> refs = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            char[] chars = new char[random.nextInt( 10 ) == 0 ? random.nextInt( 20_000 ) : random.nextInt( 100 )];
+            Arrays.fill( chars, (char) ('a' + i % 26) );
+            Value value = Values.stringValue( new String( chars ) );
+            values.add( value );
+            refs.add( spilling.add( value ) );
+        }
+        assertTrue( spilling.hasSpilled() );
+
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            int index = random.nextInt( values.size() );
+            assertEquals( values.get( index ), spilling.get( refs.get( index ) ) );
+        }
+        spilling.close();
+    }
+
+    @Test
+    public void shouldNotSpillWithoutThreshold()
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            container.add( Values.longValue( i ) );
+        }
+        assertFalse( container.hasSpilled() );
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowAccessAfterClose()
+    {
+        long ref = container.add( Values.intValue( 1 ) );
+        container.close();
+        container.get( ref );
+    }
+}
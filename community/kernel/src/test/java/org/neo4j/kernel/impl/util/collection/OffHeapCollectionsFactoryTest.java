@@ -25,16 +25,20 @@ import org.junit.Test;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.api.exceptions.TransactionMemoryLimitExceededException;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.memory.MemoryAllocationTracker;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.neo4j.values.storable.Values.stringValue;
 
 public class OffHeapCollectionsFactoryTest
 {
@@ -113,4 +117,48 @@ public class OffHeapCollectionsFactoryTest
 
         assertEquals( "update the test after switching to off-heap map", mem0, mem1 );
     }
+
+    @Test
+    public void valuesMapAllocationAndRelease()
+    {
+        final long mem0 = memoryTracker.usedDirectMemory();
+
+        final ValuesMap map = factory.newValuesMap();
+        map.put( 1, stringValue( "foo" ) );
+        factory.newValuesMap().put( 1, stringValue( "bar" ) );
+
+        final long mem1 = memoryTracker.usedDirectMemory();
+
+        assertNotEquals( mem0, mem1 );
+        assertEquals( stringValue( "foo" ), map.get( 1 ) );
+
+        factory.release();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+
+        verify( memoryTracker ).allocated( anyLong() );
+        verify( memoryTracker ).deallocated( anyLong() );
+    }
+
+    @Test
+    public void shouldFailWhenMemoryLimitIsExceeded()
+    {
+        OffHeapCollectionsFactory limitedFactory = new OffHeapCollectionsFactory( memoryTracker, 1024 );
+        limitedFactory.assertWithinMemoryLimit();
+
+        PrimitiveLongSet set = limitedFactory.newLongSet();
+        try
+        {
+            limitedFactory.assertWithinMemoryLimit();
+            fail( "Should have failed" );
+        }
+        catch ( TransactionMemoryLimitExceededException e )
+        {
+            assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, e.status() );
+        }
+        finally
+        {
+            set.close();
+        }
+    }
 }
@@ -189,6 +189,7 @@ public class PrimitiveLongDiffSetsTest
         assertSame( set1, diffSets.getAdded() );
         assertSame( set2, diffSets.getRemoved() );
         verify( collectionsFactory, times( 2 ) ).newLongSet();
+        verify( collectionsFactory, times( 2 ) ).assertWithinMemoryLimit();
         verifyNoMoreInteractions( collectionsFactory );
     }
 
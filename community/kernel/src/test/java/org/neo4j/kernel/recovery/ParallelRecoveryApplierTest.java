@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.record.NeoStoreRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StorageEngine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+
+public class ParallelRecoveryApplierTest
+{
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final List<List<Long>> appliedBatches = new ArrayList<>();
+    private final CentralJobScheduler scheduler = new CentralJobScheduler();
+
+    @Before
+    public void startScheduler()
+    {
+        scheduler.init();
+    }
+
+    @After
+    public void stopScheduler()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldApplyAllTransactionsExactlyOnce() throws Exception
+    {
+        // given
+        recordAppliedBatches();
+
+        // when
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 4, 10 ) )
+        {
+            for ( long txId = 1; txId <= 100; txId++ )
+            {
+                applier.visit( transaction( txId, nodeCommand( txId ) ) );
+            }
+        }
+
+        // then
+        List<Long> applied = new ArrayList<>();
+        appliedBatches.forEach( applied::addAll );
+        applied.sort( Long::compare );
+        assertEquals( 100, applied.size() );
+        for ( int i = 0; i < applied.size(); i++ )
+        {
+            assertEquals( i + 1, applied.get( i ).longValue() );
+        }
+    }
+
+    @Test
+    public void shouldApplyTransactionsTouchingTheSameRecordInOrder() throws Exception
+    {
+        // given
+        recordAppliedBatches();
+
+        // when
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 2, 10 ) )
+        {
+            applier.visit( transaction( 1, nodeCommand( 1 ) ) );
+            applier.visit( transaction( 2, nodeCommand( 2 ) ) );
+            applier.visit( transaction( 3, nodeCommand( 1 ) ) );
+        }
+
+        // then the third transaction begins a new wave, applied after the first two have been
+        assertEquals( 3, appliedBatches.size() );
+        assertTrue( appliedBatches.subList( 0, 2 ).contains( Arrays.asList( 1L ) ) );
+        assertTrue( appliedBatches.subList( 0, 2 ).contains( Arrays.asList( 2L ) ) );
+        assertEquals( Arrays.asList( 3L ), appliedBatches.get( 2 ) );
+    }
+
+    @Test
+    public void shouldApplyTransactionsWithOtherCommandsOnTheirOwn() throws Exception
+    {
+        // given
+        recordAppliedBatches();
+
+        // when
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 2, 10 ) )
+        {
+            applier.visit( transaction( 1, nodeCommand( 1 ) ) );
+            applier.visit( transaction( 2, new Command.NeoStoreCommand( new NeoStoreRecord(), new NeoStoreRecord() ) ) );
+            applier.visit( transaction( 3, nodeCommand( 2 ) ) );
+        }
+
+        // then
+        assertEquals( Arrays.asList( Arrays.asList( 1L ), Arrays.asList( 2L ), Arrays.asList( 3L ) ), appliedBatches );
+    }
+
+    @Test
+    public void shouldFailWithTheFailureOfABatchAppliedByTheScheduler() throws Exception
+    {
+        // given the second batch of the wave, which is applied by a scheduled job, fails
+        Exception failure = new Exception( "Failing on purpose" );
+        doAnswer( invocation ->
+        {
+            CommandsToApply tx = invocation.getArgument( 0 );
+            if ( tx.transactionId() == 2 )
+            {
+                throw failure;
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), any() );
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 2, 10 );
+        applier.visit( transaction( 1, nodeCommand( 1 ) ) );
+        applier.visit( transaction( 2, nodeCommand( 2 ) ) );
+
+        try
+        {
+            // when
+            applier.close();
+            fail( "Should have failed" );
+        }
+        catch ( Exception e )
+        {
+            // then
+            assertSame( failure, e );
+        }
+    }
+
+    private void recordAppliedBatches() throws Exception
+    {
+        doAnswer( invocation ->
+        {
+            List<Long> batch = new ArrayList<>();
+            CommandsToApply tx = invocation.getArgument( 0 );
+            while ( tx != null )
+            {
+                batch.add( tx.transactionId() );
+                tx = tx.next();
+            }
+            synchronized ( appliedBatches )
+            {
+                appliedBatches.add( batch );
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), any() );
+    }
+
+    private static Command nodeCommand( long nodeId )
+    {
+        return new Command.NodeCommand( new NodeRecord( nodeId ), new NodeRecord( nodeId, false, -1, -1, true ) );
+    }
+
+    private static CommittedTransactionRepresentation transaction( long txId, StorageCommand command )
+    {
+        PhysicalTransactionRepresentation representation =
+                new PhysicalTransactionRepresentation( Arrays.asList( command ) );
+        representation.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+        return new CommittedTransactionRepresentation(
+                new LogEntryStart( 0, 0, 0, txId - 1, new byte[0], LogPosition.UNSPECIFIED ), representation,
+                new LogEntryCommit( txId, 0 ) );
+    }
+}
@@ -77,10 +77,25 @@ public class NativeLuceneFusionIndexProviderFactory20 extends
     {
         IndexDirectoryStructure.Factory childDirectoryStructure = subProviderDirectoryStructure( storeDir );
         boolean readOnly = IndexProviderFactoryUtil.isReadOnly( config, operationalMode );
-        boolean archiveFailedIndex = config.get( GraphDatabaseSettings.archive_failed_index );
-
         StringIndexProvider string =
                 IndexProviderFactoryUtil.stringProvider( pageCache, fs, childDirectoryStructure, monitor, recoveryCleanupWorkCollector, readOnly );
+        return create( string, DESCRIPTOR, GraphDatabaseSettings.SchemaIndex.NATIVE20, PRIORITY, pageCache, storeDir, fs, monitor, config,
+                operationalMode, recoveryCleanupWorkCollector );
+    }
+
+    /**
+     * Creates a {@link FusionIndexProvider} with the given provider for strings, and the native and lucene providers of this version
+     * for everything else. The provider gets {@code defaultPriority}, or the highest priority if {@code schemaIndex} is the configured
+     * default schema provider.
+     */
+    static FusionIndexProvider create( IndexProvider string, IndexProvider.Descriptor descriptor, GraphDatabaseSettings.SchemaIndex schemaIndex,
+            int defaultPriority, PageCache pageCache, File storeDir, FileSystemAbstraction fs, IndexProvider.Monitor monitor, Config config,
+            OperationalMode operationalMode, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        IndexDirectoryStructure.Factory childDirectoryStructure = subProviderDirectoryStructure( storeDir, descriptor );
+        boolean readOnly = IndexProviderFactoryUtil.isReadOnly( config, operationalMode );
+        boolean archiveFailedIndex = config.get( GraphDatabaseSettings.archive_failed_index );
+
         NumberIndexProvider number =
                 IndexProviderFactoryUtil.numberProvider( pageCache, fs, childDirectoryStructure, monitor, recoveryCleanupWorkCollector, readOnly );
         SpatialIndexProvider spatial =
@@ -90,13 +105,13 @@ public class NativeLuceneFusionIndexProviderFactory20 extends
         LuceneIndexProvider lucene = IndexProviderFactoryUtil.luceneProvider( fs, childDirectoryStructure, monitor, config, operationalMode );
 
         String defaultSchemaProvider = config.get( GraphDatabaseSettings.default_schema_provider );
-        int priority = PRIORITY;
-        if ( GraphDatabaseSettings.SchemaIndex.NATIVE20.providerName().equals( defaultSchemaProvider ) )
+        int priority = defaultPriority;
+        if ( schemaIndex.providerName().equals( defaultSchemaProvider ) )
         {
             priority = 100;
         }
         return new FusionIndexProvider( string, number, spatial, temporal, lucene, new FusionSlotSelector20(),
-                DESCRIPTOR, priority, directoriesByProvider( storeDir ), fs, archiveFailedIndex );
+                descriptor, priority, directoriesByProvider( storeDir ), fs, archiveFailedIndex );
     }
 
     public static IndexDirectoryStructure.Factory subProviderDirectoryStructure( File storeDir )
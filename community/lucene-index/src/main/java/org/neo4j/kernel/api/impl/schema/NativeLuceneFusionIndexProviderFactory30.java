@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.schema;
+
+import java.io.File;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.api.index.IndexProvider;
+import org.neo4j.kernel.api.index.LoggingMonitor;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.kernel.impl.index.schema.StringNGramIndexProvider;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionIndexProvider;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.logging.Log;
+
+/**
+ * Like {@link NativeLuceneFusionIndexProviderFactory20}, but with a {@link StringNGramIndexProvider} for strings,
+ * which serves CONTAINS and ENDS WITH queries by seeking n-grams instead of scanning all indexed strings.
+ * Use it for an index by creating the index with this provider, or for all new indexes by configuring it as
+ * {@link GraphDatabaseSettings#default_schema_provider}.
+ */
+@Service.Implementation( KernelExtensionFactory.class )
+public class NativeLuceneFusionIndexProviderFactory30 extends
+        NativeLuceneFusionIndexProviderFactory<NativeLuceneFusionIndexProviderFactory30.Dependencies>
+{
+    public static final IndexProvider.Descriptor DESCRIPTOR = new IndexProvider.Descriptor( KEY, "3.0" );
+    // Lower than any other schema index provider, such that it's only the default provider when configured to be
+    private static final int PRIORITY = LuceneIndexProvider.PRIORITY - 1;
+
+    public interface Dependencies extends LuceneIndexProviderFactory.Dependencies
+    {
+    }
+
+    @Override
+    public FusionIndexProvider newInstance( KernelContext context, Dependencies dependencies )
+    {
+        PageCache pageCache = dependencies.pageCache();
+        File storeDir = context.storeDir();
+        FileSystemAbstraction fs = dependencies.fileSystem();
+        Log log = dependencies.getLogService().getInternalLogProvider().getLog( FusionIndexProvider.class );
+        Monitors monitors = dependencies.monitors();
+        monitors.addMonitorListener( new LoggingMonitor( log ), DESCRIPTOR.toString() );
+        IndexProvider.Monitor monitor = monitors.newMonitor( IndexProvider.Monitor.class, DESCRIPTOR.toString() );
+        Config config = dependencies.getConfig();
+        OperationalMode operationalMode = context.databaseInfo().operationalMode;
+        RecoveryCleanupWorkCollector recoveryCleanupWorkCollector = dependencies.recoveryCleanupWorkCollector();
+        return create( pageCache, storeDir, fs, monitor, config, operationalMode, recoveryCleanupWorkCollector );
+    }
+
+    public static FusionIndexProvider create( PageCache pageCache, File storeDir, FileSystemAbstraction fs,
+            IndexProvider.Monitor monitor, Config config, OperationalMode operationalMode,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        IndexDirectoryStructure.Factory childDirectoryStructure = subProviderDirectoryStructure( storeDir );
+        boolean readOnly = IndexProviderFactoryUtil.isReadOnly( config, operationalMode );
+        StringNGramIndexProvider string =
+                IndexProviderFactoryUtil.stringNGramProvider( pageCache, fs, childDirectoryStructure, monitor, recoveryCleanupWorkCollector, readOnly );
+        return NativeLuceneFusionIndexProviderFactory20.create( string, DESCRIPTOR, GraphDatabaseSettings.SchemaIndex.NATIVE30, PRIORITY,
+                pageCache, storeDir, fs, monitor, config, operationalMode, recoveryCleanupWorkCollector );
+    }
+
+    public static IndexDirectoryStructure.Factory subProviderDirectoryStructure( File storeDir )
+    {
+        return NativeLuceneFusionIndexProviderFactory.subProviderDirectoryStructure( storeDir, DESCRIPTOR );
+    }
+}
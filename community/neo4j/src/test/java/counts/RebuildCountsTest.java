@@ -150,8 +150,8 @@ public class RebuildCountsTest
 
     private CountsTracker counts()
     {
-        return ((GraphDatabaseAPI) db).getDependencyResolver().resolveDependency( RecordStorageEngine.class )
-                .testAccessNeoStores().getCounts();
+        return (CountsTracker) ((GraphDatabaseAPI) db).getDependencyResolver()
+                .resolveDependency( RecordStorageEngine.class ).testAccessNeoStores().getCounts();
     }
 
     private void deleteCounts( FileSystemAbstraction snapshot )
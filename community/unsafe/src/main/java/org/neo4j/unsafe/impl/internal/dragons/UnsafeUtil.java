@@ -23,8 +23,10 @@ import sun.misc.Unsafe;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -68,6 +70,7 @@ public final class UnsafeUtil
 
     private static final Unsafe unsafe;
     private static final MethodHandle sharedStringConstructor;
+    private static final MethodHandle bufferCleaner;
     private static final String allowUnalignedMemoryAccessProperty =
             "org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil.allowUnalignedMemoryAccess";
 
@@ -90,6 +93,7 @@ public final class UnsafeUtil
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
         sharedStringConstructor = getSharedStringConstructorMethodHandle( lookup );
+        bufferCleaner = getBufferCleanerMethodHandle( lookup );
 
         Class<?> dbbClass = null;
         Constructor<?> ctor = null;
@@ -233,6 +237,30 @@ public final class UnsafeUtil
         }
     }
 
+    private static MethodHandle getBufferCleanerMethodHandle( MethodHandles.Lookup lookup )
+    {
+        MethodType type = MethodType.methodType( void.class, ByteBuffer.class );
+        try
+        {
+            // Java 9 and later
+            return lookup.findVirtual( Unsafe.class, "invokeCleaner", type ).bindTo( unsafe );
+        }
+        catch ( Exception e )
+        {
+            try
+            {
+                // Java 8
+                Method cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+                Method clean = Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" );
+                return MethodHandles.filterReturnValue( lookup.unreflect( cleaner ), lookup.unreflect( clean ) ).asType( type );
+            }
+            catch ( Exception e1 )
+            {
+                return null;
+            }
+        }
+    }
+
     /**
      * Get the object-relative field offset.
      */
@@ -982,6 +1010,34 @@ public final class UnsafeUtil
         unsafe.putLong( dbb, directByteBufferAddressOffset, addr );
     }
 
+    /**
+     * Free the memory of the given direct ByteBuffer, or unmap the given MappedByteBuffer, right away, instead of
+     * leaving it to the garbage collector.
+     * <p>
+     * <strong>NOTE:</strong> the buffer, and any duplicates or slices of it, must not be accessed after this call, as
+     * that would be a use after free.
+     *
+     * @param buffer The direct byte buffer to release.
+     * @return {@code true} if the buffer was released, or {@code false} if the JVM does not support releasing it
+     * explicitly, and it will be released by the garbage collector.
+     */
+    public static boolean invokeCleaner( ByteBuffer buffer )
+    {
+        if ( bufferCleaner != null )
+        {
+            try
+            {
+                bufferCleaner.invokeExact( buffer );
+                return true;
+            }
+            catch ( Throwable throwable )
+            {
+                // Duplicates and slices have no cleaner of their own, so they are left to the garbage collector.
+            }
+        }
+        return false;
+    }
+
     /**
      * Read the value of the address field in the (assumed to be) DirectByteBuffer.
      * <p>
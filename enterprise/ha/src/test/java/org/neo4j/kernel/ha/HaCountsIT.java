@@ -42,7 +42,7 @@ import org.neo4j.kernel.impl.api.store.DefaultIndexReference;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.impl.ha.ClusterManager.ManagedCluster;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.register.Register.DoubleLongRegister;
 import org.neo4j.test.ha.ClusterRule;
 
@@ -211,7 +211,7 @@ public class HaCountsIT
                                       int expectedUniqueValues, int expectedSampleSize,
                                       long indexId, HighlyAvailableGraphDatabase db )
     {
-        CountsTracker counts = counts( db );
+        CountsStore counts = counts( db );
         assertDoubleLongEquals( expectedIndexUpdates, expectedIndexSize,
                 counts.indexUpdatesAndSize( indexId, newDoubleLongRegister() ) );
         assertDoubleLongEquals( expectedUniqueValues, expectedSampleSize,
@@ -225,7 +225,7 @@ public class HaCountsIT
         assertTrue( msg, actualValues.hasValues( expectedFirst, expectedSecond ) );
     }
 
-    private CountsTracker counts( HighlyAvailableGraphDatabase db )
+    private CountsStore counts( HighlyAvailableGraphDatabase db )
     {
         return db.getDependencyResolver().resolveDependency( RecordStorageEngine.class )
                 .testAccessNeoStores().getCounts();
@@ -163,6 +163,7 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
         private final String fileName;
         private long flushesOnStart;
         private long bytesWrittenOnStart;
+        private int reportedProgressPercentage;
 
         FileFlushEvent( String fileName, long flushesOnStart, long bytesWrittenOnStart, long startTimeNanos )
         {
@@ -178,6 +179,19 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
             return new VerboseFlushOpportunity( fileName, startTimeNanos, bytesWrittenOnStart );
         }
 
+        @Override
+        public synchronized void regionFlushed( int completedRegions, int totalRegions )
+        {
+            // Only report progress in steps of 10%, and only for files that are large enough to have several steps.
+            int percentage = (int) ((completedRegions * 10L) / totalRegions) * 10;
+            if ( totalRegions >= 10 && percentage > reportedProgressPercentage && percentage < 100 )
+            {
+                reportedProgressPercentage = percentage;
+                log.info( "'%s' flush progress: %d%% (%d of %d regions).", fileName, percentage, completedRegions,
+                        totalRegions );
+            }
+        }
+
         @Override
         public void close()
         {
@@ -210,6 +224,12 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
             return new VerboseFlushOpportunity( "Page Cache", startTimeNanos, bytesWrittenOnStart );
         }
 
+        @Override
+        public void regionFlushed( int completedRegions, int totalRegions )
+        {
+            // Progress is reported by the individual file flushes.
+        }
+
         @Override
         public void close()
         {
@@ -109,7 +109,7 @@ public class Neo4jMetricsBuilder
         boolean result = false;
         if ( config.get( MetricsSettings.neoTxEnabled ) )
         {
-            life.add( new TransactionMetrics( registry, dependencies.transactionIdStore(),
+            life.add( new TransactionMetrics( registry, dependencies.monitors(), dependencies.transactionIdStore(),
                     dependencies.transactionCounters() ) );
             result = true;
         }
@@ -22,15 +22,19 @@
  */
 package org.neo4j.metrics.source.db;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 
 import java.util.function.Supplier;
 
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -77,21 +81,46 @@ public class TransactionMetrics extends LifecycleAdapter
     @Documented( "The ID of the last closed transaction" )
     public static final String LAST_CLOSED_TX_ID = name( TRANSACTION_PREFIX, "last_closed_tx_id" );
 
+    @Documented( "The number of transactions made durable by each force of the transaction log" )
+    public static final String LOG_FORCE_BATCH_SIZE = name( TRANSACTION_PREFIX, "log_force_batch_size" );
+    @Documented( "The number of bytes made durable by each force of the transaction log" )
+    public static final String LOG_FORCE_BYTES = name( TRANSACTION_PREFIX, "log_force_bytes" );
+    @Documented( "The total number of bytes forced to the transaction log" )
+    public static final String LOG_FORCED_BYTES_TOTAL = name( TRANSACTION_PREFIX, "log_forced_bytes_total" );
+
     private final MetricRegistry registry;
+    private final Monitors monitors;
     private final TransactionCounters transactionCounters;
     private final Supplier<TransactionIdStore> transactionIdStore;
+    private final BatchingTransactionAppender.Monitor logForceListener;
+
+    private volatile Histogram logForceBatchSizes;
+    private volatile Histogram logForceBytes;
+    private volatile Counter logForcedBytesTotal;
 
-    public TransactionMetrics( MetricRegistry registry,
+    public TransactionMetrics( MetricRegistry registry, Monitors monitors,
             Supplier<TransactionIdStore> transactionIdStore, TransactionCounters transactionCounters )
     {
         this.registry = registry;
+        this.monitors = monitors;
         this.transactionIdStore = transactionIdStore;
         this.transactionCounters = transactionCounters;
+        this.logForceListener = ( batchSize, forcedBytes ) ->
+        {
+            logForceBatchSizes.update( batchSize );
+            logForceBytes.update( forcedBytes );
+            logForcedBytesTotal.inc( forcedBytes );
+        };
     }
 
     @Override
     public void start()
     {
+        logForceBatchSizes = registry.histogram( LOG_FORCE_BATCH_SIZE );
+        logForceBytes = registry.histogram( LOG_FORCE_BYTES );
+        logForcedBytesTotal = registry.counter( LOG_FORCED_BYTES_TOTAL );
+        monitors.addMonitorListener( logForceListener );
+
         registry.register( TX_STARTED, (Gauge<Long>) transactionCounters::getNumberOfStartedTransactions );
         registry.register( TX_PEAK_CONCURRENT,
                 (Gauge<Long>) transactionCounters::getPeakConcurrentNumberOfTransactions );
@@ -126,6 +155,8 @@ public class TransactionMetrics extends LifecycleAdapter
     @Override
     public void stop()
     {
+        monitors.removeMonitorListener( logForceListener );
+
         registry.remove( TX_STARTED );
         registry.remove( TX_PEAK_CONCURRENT );
 
@@ -147,5 +178,9 @@ public class TransactionMetrics extends LifecycleAdapter
 
         registry.remove( LAST_COMMITTED_TX_ID );
         registry.remove( LAST_CLOSED_TX_ID );
+
+        registry.remove( LOG_FORCE_BATCH_SIZE );
+        registry.remove( LOG_FORCE_BYTES );
+        registry.remove( LOG_FORCED_BYTES_TOTAL );
     }
 }
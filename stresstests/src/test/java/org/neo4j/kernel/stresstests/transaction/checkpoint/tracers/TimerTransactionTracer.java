@@ -28,6 +28,7 @@ import java.io.PrintStream;
 import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
+import org.neo4j.kernel.impl.transaction.tracing.CommandCreationEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
@@ -151,6 +152,12 @@ public class TimerTransactionTracer implements TransactionTracer, CheckPointTrac
         {
         }
 
+        @Override
+        public CommandCreationEvent beginCommandCreation()
+        {
+            return CommandCreationEvent.NULL;
+        }
+
         @Override
         public LogAppendEvent beginLogAppend()
         {